@@ -0,0 +1,126 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.modality.cv;
+
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares the pixel conversion of {@code BufferedImageFactory} with the previous {@code getRGB}
+ * based conversion.
+ *
+ * <p>{@code getRgb} is the previous path, {@code readBytes} the uint8 HWC conversion used by
+ * {@link Image#toNDArray} and {@code readFloats} the normalized float32 CHW conversion used by
+ * {@link Image#toTensor}. The engine is left out, only the Java side of the conversion is timed.
+ *
+ * <pre>
+ * ./gradlew :api:jmh
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ImageConversionBenchmark {
+
+    private static final float[] MEAN = {0.485f, 0.456f, 0.406f};
+    private static final float[] STD = {0.229f, 0.224f, 0.225f};
+
+    @Param({"3BYTE_BGR", "INT_RGB", "INT_ARGB"})
+    private String imageType;
+
+    @Param({"224", "1024"})
+    private int size;
+
+    private BufferedImage image;
+    private ByteBuffer bytes;
+    private FloatBuffer floats;
+
+    /** Creates a random image. */
+    @Setup(Level.Trial)
+    public void setup() {
+        int type;
+        if ("3BYTE_BGR".equals(imageType)) {
+            type = BufferedImage.TYPE_3BYTE_BGR;
+        } else if ("INT_RGB".equals(imageType)) {
+            type = BufferedImage.TYPE_INT_RGB;
+        } else {
+            type = BufferedImage.TYPE_INT_ARGB;
+        }
+        image = new BufferedImage(size, size, type);
+        Random random = new Random(0);
+        for (int y = 0; y < size; ++y) {
+            for (int x = 0; x < size; ++x) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+        bytes = ByteBuffer.allocateDirect(size * size * 3);
+        floats =
+                ByteBuffer.allocateDirect(size * size * 3 * 4)
+                        .order(ByteOrder.nativeOrder())
+                        .asFloatBuffer();
+    }
+
+    /**
+     * Converts the image with {@code getRGB} and one put per channel.
+     *
+     * @return the converted pixels
+     */
+    @Benchmark
+    public ByteBuffer getRgb() {
+        bytes.clear();
+        int[] pixels = image.getRGB(0, 0, size, size, null, 0, size);
+        for (int rgb : pixels) {
+            bytes.put((byte) ((rgb >> 16) & 0xFF));
+            bytes.put((byte) ((rgb >> 8) & 0xFF));
+            bytes.put((byte) (rgb & 0xFF));
+        }
+        return bytes;
+    }
+
+    /**
+     * Converts the image to uint8 HWC from the raster.
+     *
+     * @return the converted pixels
+     */
+    @Benchmark
+    public ByteBuffer readBytes() {
+        bytes.clear();
+        new RasterReader(image).readBytes(bytes, false);
+        return bytes;
+    }
+
+    /**
+     * Converts the image to normalized float32 CHW from the raster.
+     *
+     * @return the converted pixels
+     */
+    @Benchmark
+    public FloatBuffer readFloats() {
+        floats.clear();
+        new RasterReader(image).readFloats(floats, false, true, MEAN, STD);
+        return floats;
+    }
+}
@@ -19,6 +19,7 @@ import ai.djl.ndarray.NDManager;
 import ai.djl.ndarray.types.DataType;
 import ai.djl.ndarray.types.Shape;
 import ai.djl.nn.Block;
+import ai.djl.nn.MappedParameterInputStream;
 import ai.djl.nn.SymbolBlock;
 import ai.djl.training.ParameterStore;
 import ai.djl.training.Trainer;
@@ -32,12 +33,17 @@ import java.io.DataOutputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.ref.WeakReference;
 import java.net.URL;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -51,6 +57,9 @@ public abstract class BaseModel implements Model {
 
     private static final Logger logger = LoggerFactory.getLogger(BaseModel.class);
     private static final int MODEL_VERSION = 1;
+    private static final Map<String, WeakReference<MappedByteBuffer>> MAPPED_FILES =
+            new HashMap<>();
+
     protected Path modelDir;
     protected Block block;
     protected String modelName;
@@ -296,10 +305,23 @@ public abstract class BaseModel implements Model {
         return modelDir.resolve(String.format(Locale.ENGLISH, "%s-%04d.params", prefix, epoch));
     }
 
+    /**
+     * Loads the parameters of the block from a DJL parameter file.
+     *
+     * <p>If the {@code lazyParameters} option is {@code true}, the file is memory-mapped and each
+     * parameter is decoded on first use. The mapping is shared by all models that load the same
+     * file.
+     *
+     * @param paramFile the parameter file
+     * @param options the load model options
+     * @return {@code true} if the file is a DJL parameter file
+     * @throws IOException if the file cannot be read
+     * @throws MalformedModelException if the parameters do not match the block
+     */
     protected boolean readParameters(Path paramFile, Map<String, ?> options)
             throws IOException, MalformedModelException {
         logger.debug("Try to load model from {}", paramFile);
-        try (DataInputStream dis = new DataInputStream(Files.newInputStream(paramFile))) {
+        try (DataInputStream dis = openParameters(paramFile, options)) {
             byte[] buf = new byte[4];
             dis.readFully(buf);
             if (!"DJL@".equals(new String(buf, StandardCharsets.US_ASCII))) {
@@ -336,4 +358,32 @@ public abstract class BaseModel implements Model {
         }
         return true;
     }
+
+    private static DataInputStream openParameters(Path paramFile, Map<String, ?> options)
+            throws IOException {
+        Object lazy = options == null ? null : options.get("lazyParameters");
+        if (lazy == null || !Boolean.parseBoolean(lazy.toString())) {
+            return new DataInputStream(Files.newInputStream(paramFile));
+        }
+        if (Files.size(paramFile) > Integer.MAX_VALUE) {
+            logger.debug("Parameter file is too large to be mapped: {}", paramFile);
+            return new DataInputStream(Files.newInputStream(paramFile));
+        }
+
+        Path file = paramFile.toRealPath();
+        String key = file.toString() + '@' + Files.getLastModifiedTime(file).toMillis();
+        synchronized (MAPPED_FILES) {
+            WeakReference<MappedByteBuffer> ref = MAPPED_FILES.get(key);
+            MappedByteBuffer buffer = ref == null ? null : ref.get();
+            if (buffer == null) {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                }
+                // the mapping is kept alive by the parameters that are not decoded yet
+                MAPPED_FILES.values().removeIf(r -> r.get() == null);
+                MAPPED_FILES.put(key, new WeakReference<>(buffer));
+            }
+            return new MappedParameterInputStream(buffer);
+        }
+    }
 }
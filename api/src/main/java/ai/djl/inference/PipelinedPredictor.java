@@ -0,0 +1,417 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.inference;
+
+import ai.djl.Model;
+import ai.djl.ndarray.NDList;
+import ai.djl.translate.Batchifier;
+import ai.djl.translate.TranslateException;
+import ai.djl.translate.Translator;
+import ai.djl.translate.TranslatorContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link Predictor} that runs pre-processing, inference and post-processing as separate stages,
+ * so the pre-processing of the next batch overlaps the forward pass of the current one.
+ *
+ * <p>The stages are connected by bounded queues:
+ *
+ * <ul>
+ *   <li>pre-processing runs {@link Translator#processInput} for each item of a batch in parallel
+ *   <li>a single inference thread batchifies, runs the forward pass and unbatchifies
+ *   <li>post-processing runs {@link Translator#processOutput} for each item in parallel
+ * </ul>
+ *
+ * <p>When a queue is full, the stage that feeds it runs the next task itself, which throttles the
+ * callers to the throughput of the pipeline. Items that can no longer be scheduled because the
+ * predictor was closed fail their batch instead of being dropped. Since items are processed
+ * concurrently, the {@link Translator} must be thread safe, and each item gets its own {@link
+ * TranslatorContext}.
+ *
+ * <p>If {@link #setMetrics(ai.djl.metric.Metrics) metrics} are set, the latency of each stage is
+ * recorded as {@code Preprocess}, {@code Inference} and {@code Postprocess}, and the time spent
+ * waiting in front of each stage as {@code PreprocessQueue}, {@code InferenceQueue} and {@code
+ * PostprocessQueue}, all in nanoseconds.
+ *
+ * <pre>
+ * try (PipelinedPredictor&lt;Image, Classifications&gt; predictor =
+ *         new PipelinedPredictor&lt;&gt;(model, translator, false, 4, 2, 16)) {
+ *     CompletableFuture&lt;Classifications&gt; future = predictor.predictAsync(image);
+ * }
+ * </pre>
+ *
+ * @param <I> the input type
+ * @param <O> the output type
+ */
+public class PipelinedPredictor<I, O> extends Predictor<I, O> {
+
+    private static final Logger logger = LoggerFactory.getLogger(PipelinedPredictor.class);
+
+    private Translator<I, O> translator;
+    private ThreadPoolExecutor preprocessExecutor;
+    private ThreadPoolExecutor postprocessExecutor;
+    private BlockingQueue<Batch> inferenceQueue;
+    private Thread inferenceThread;
+    private volatile boolean closed;
+
+    /**
+     * Creates a new instance of {@code PipelinedPredictor}.
+     *
+     * @param model the model on which the predictions are based
+     * @param translator the translator to be used, must be thread safe
+     * @param copy whether to copy the parameters to the parameter store
+     * @param preprocessThreads the number of pre-processing threads
+     * @param postprocessThreads the number of post-processing threads
+     * @param queueSize the capacity of the queue in front of each stage
+     */
+    public PipelinedPredictor(
+            Model model,
+            Translator<I, O> translator,
+            boolean copy,
+            int preprocessThreads,
+            int postprocessThreads,
+            int queueSize) {
+        super(model, translator, copy);
+        this.translator = translator;
+        preprocessExecutor = newExecutor(preprocessThreads, queueSize, "preprocess");
+        postprocessExecutor = newExecutor(postprocessThreads, queueSize, "postprocess");
+        inferenceQueue = new ArrayBlockingQueue<>(queueSize);
+        inferenceThread = new Thread(this::runInference, "predictor-inference");
+        inferenceThread.setDaemon(true);
+        inferenceThread.start();
+    }
+
+    /**
+     * Predicts an item for inference asynchronously.
+     *
+     * @param input the input
+     * @return a future of the output object defined by the user
+     */
+    public CompletableFuture<O> predictAsync(I input) {
+        return batchPredictAsync(Collections.singletonList(input)).thenApply(list -> list.get(0));
+    }
+
+    /**
+     * Predicts a batch for inference asynchronously.
+     *
+     * @param inputs a list of inputs
+     * @return a future of the list of output objects defined by the user
+     */
+    public CompletableFuture<List<O>> batchPredictAsync(List<I> inputs) {
+        if (inputs.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        if (closed) {
+            // the contexts of a batch cannot be created once the predictor is closed
+            CompletableFuture<List<O>> future = new CompletableFuture<>();
+            future.completeExceptionally(new IllegalStateException("Predictor is closed"));
+            return future;
+        }
+        Batch batch = new Batch(inputs);
+        try {
+            prepare();
+        } catch (Exception e) {
+            batch.fail(e);
+            batch.close();
+            return batch.future;
+        }
+        for (int i = 0; i < inputs.size(); ++i) {
+            int index = i;
+            try {
+                preprocessExecutor.execute(() -> preprocess(batch, index));
+            } catch (RejectedExecutionException e) {
+                // closed concurrently, the remaining items will never be processed
+                batch.abort(e, inputs.size() - i);
+                break;
+            }
+        }
+        return batch.future;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<O> batchPredict(List<I> inputs) throws TranslateException {
+        try {
+            return batchPredictAsync(inputs).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TranslateException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof TranslateException) {
+                throw (TranslateException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new TranslateException(cause);
+        }
+    }
+
+    /**
+     * Returns the number of items waiting for pre-processing.
+     *
+     * @return the number of items waiting for pre-processing
+     */
+    public int getPreprocessQueueSize() {
+        return preprocessExecutor.getQueue().size();
+    }
+
+    /**
+     * Returns the number of batches waiting for inference.
+     *
+     * @return the number of batches waiting for inference
+     */
+    public int getInferenceQueueSize() {
+        return inferenceQueue.size();
+    }
+
+    /**
+     * Returns the number of items waiting for post-processing.
+     *
+     * @return the number of items waiting for post-processing
+     */
+    public int getPostprocessQueueSize() {
+        return postprocessExecutor.getQueue().size();
+    }
+
+    /**
+     * Stops the stages after the submitted batches are finished, and closes the predictor.
+     *
+     * <p>{@inheritDoc}
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            preprocessExecutor.shutdown();
+            preprocessExecutor.awaitTermination(1, TimeUnit.MINUTES);
+            inferenceThread.join(TimeUnit.MINUTES.toMillis(1));
+            postprocessExecutor.shutdown();
+            postprocessExecutor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        super.close();
+    }
+
+    private void preprocess(Batch batch, int index) {
+        long begin = System.nanoTime();
+        addMetric("PreprocessQueue", begin - batch.submitted);
+        if (!batch.future.isDone()) {
+            try {
+                batch.preprocessed[index] =
+                        translator.processInput(batch.contexts.get(index), batch.inputs.get(index));
+                addMetric("Preprocess", System.nanoTime() - begin);
+            } catch (Exception e) {
+                batch.fail(e);
+            }
+        }
+        if (batch.remaining.decrementAndGet() == 0) {
+            if (batch.future.isDone()) {
+                // the batch failed, there is nothing to infer
+                batch.close();
+                return;
+            }
+            batch.enqueued = System.nanoTime();
+            try {
+                inferenceQueue.put(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.fail(e);
+                batch.close();
+            }
+        }
+    }
+
+    private void runInference() {
+        while (!closed || !inferenceQueue.isEmpty() || !preprocessExecutor.isTerminated()) {
+            Batch batch;
+            try {
+                batch = inferenceQueue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                logger.debug("Inference stage interrupted", e);
+                return;
+            }
+            if (batch != null) {
+                infer(batch);
+            }
+        }
+    }
+
+    private void infer(Batch batch) {
+        long begin = System.nanoTime();
+        addMetric("InferenceQueue", begin - batch.enqueued);
+        if (batch.future.isDone()) {
+            batch.close();
+            return;
+        }
+
+        NDList[] results;
+        try {
+            Batchifier batchifier = translator.getBatchifier();
+            if (batchifier == null) {
+                results = new NDList[batch.preprocessed.length];
+                for (int i = 0; i < results.length; ++i) {
+                    results[i] = forward(batch.preprocessed[i]);
+                    waitToRead(results[i]);
+                }
+            } else {
+                NDList input = batchifier.batchify(batch.preprocessed);
+                input.attach(batch.context.getNDManager());
+                NDList result = forward(input);
+                waitToRead(result);
+                results = batchifier.unbatchify(result);
+            }
+            addMetric("Inference", System.nanoTime() - begin);
+        } catch (Exception e) {
+            batch.fail(e);
+            batch.close();
+            return;
+        }
+
+        batch.remaining.set(results.length);
+        long enqueued = System.nanoTime();
+        for (int i = 0; i < results.length; ++i) {
+            int index = i;
+            NDList result = results[i];
+            try {
+                postprocessExecutor.execute(() -> postprocess(batch, index, result, enqueued));
+            } catch (RejectedExecutionException e) {
+                batch.abort(e, results.length - i);
+                break;
+            }
+        }
+    }
+
+    private void postprocess(Batch batch, int index, NDList result, long enqueued) {
+        long begin = System.nanoTime();
+        addMetric("PostprocessQueue", begin - enqueued);
+        if (!batch.future.isDone()) {
+            try {
+                batch.outputs[index] = translator.processOutput(batch.contexts.get(index), result);
+                addMetric("Postprocess", System.nanoTime() - begin);
+            } catch (Exception e) {
+                batch.fail(e);
+            }
+        }
+        if (batch.remaining.decrementAndGet() == 0) {
+            batch.future.complete(Arrays.asList(batch.outputs));
+            batch.close();
+        }
+    }
+
+    private void addMetric(String name, long nanos) {
+        if (metrics != null) {
+            metrics.addMetric(name, nanos, "nano");
+        }
+    }
+
+    private static ThreadPoolExecutor newExecutor(int threads, int queueSize, String stage) {
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory factory =
+                r -> {
+                    String name = "predictor-" + stage + '-' + count.getAndIncrement();
+                    Thread thread = new Thread(r, name);
+                    thread.setDaemon(true);
+                    return thread;
+                };
+        return new ThreadPoolExecutor(
+                threads,
+                threads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                factory,
+                PipelinedPredictor::runOrReject);
+    }
+
+    private static void runOrReject(Runnable task, ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            // CallerRunsPolicy would silently drop the task and leave its batch pending forever
+            throw new RejectedExecutionException("Predictor is closed");
+        }
+        task.run();
+    }
+
+    /** A batch of items travelling through the stages. */
+    private final class Batch {
+
+        List<I> inputs;
+        TranslatorContext context;
+        List<TranslatorContext> contexts;
+        NDList[] preprocessed;
+        O[] outputs;
+        AtomicInteger remaining;
+        long submitted;
+        long enqueued;
+        CompletableFuture<List<O>> future;
+
+        @SuppressWarnings("unchecked")
+        Batch(List<I> inputs) {
+            this.inputs = inputs;
+            int size = inputs.size();
+            context = newContext();
+            contexts = new ArrayList<>(size);
+            for (int i = 0; i < size; ++i) {
+                contexts.add(newContext());
+            }
+            preprocessed = new NDList[size];
+            outputs = (O[]) new Object[size];
+            remaining = new AtomicInteger(size);
+            submitted = System.nanoTime();
+            future = new CompletableFuture<>();
+        }
+
+        void fail(Throwable t) {
+            future.completeExceptionally(t);
+        }
+
+        /**
+         * Fails the batch for items that could not be scheduled, and closes it once no item is
+         * in flight anymore.
+         *
+         * @param t the reason
+         * @param count the number of items that were not scheduled
+         */
+        void abort(Throwable t, int count) {
+            fail(t);
+            if (remaining.addAndGet(-count) == 0) {
+                close();
+            }
+        }
+
+        void close() {
+            for (TranslatorContext ctx : contexts) {
+                ctx.close();
+            }
+            context.close();
+        }
+    }
+}
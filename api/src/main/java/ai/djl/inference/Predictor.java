@@ -78,7 +78,7 @@ public class Predictor<I, O> implements AutoCloseable {
     private Translator<I, O> translator;
     private long timestamp;
 
-    private boolean prepared;
+    private volatile boolean prepared;
     private Model model;
     private NDManager manager;
     Metrics metrics;
@@ -114,11 +114,43 @@ public class Predictor<I, O> implements AutoCloseable {
         return batchPredict(Collections.singletonList(input)).get(0);
     }
 
-    private NDList predict(NDList ndList) {
+    /**
+     * Runs the block of the model on the input.
+     *
+     * @param ndList the preprocessed input
+     * @return the output of the block
+     */
+    NDList forward(NDList ndList) {
         logger.trace("Predictor input data: {}", ndList);
         return block.forward(parameterStore, ndList, false);
     }
 
+    /**
+     * Prepares the translator once, it is safe to call from several threads.
+     *
+     * @throws Exception if the translator failed to prepare
+     */
+    @SuppressWarnings("PMD.SignatureDeclareThrowsException")
+    void prepare() throws Exception {
+        if (!prepared) {
+            synchronized (this) {
+                if (!prepared) {
+                    translator.prepare(manager, model);
+                    prepared = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a new {@link TranslatorContext}, which must be closed by the caller.
+     *
+     * @return a new {@link TranslatorContext}
+     */
+    TranslatorContext newContext() {
+        return new PredictorContext();
+    }
+
     /**
      * Predicts a batch for inference.
      *
@@ -130,10 +162,7 @@ public class Predictor<I, O> implements AutoCloseable {
     public List<O> batchPredict(List<I> inputs) throws TranslateException {
         long begin = System.nanoTime();
         try (PredictorContext context = new PredictorContext()) {
-            if (!prepared) {
-                translator.prepare(manager, model);
-                prepared = true;
-            }
+            prepare();
             Batchifier batchifier = translator.getBatchifier();
             if (batchifier == null) {
                 List<O> ret = new ArrayList<>(inputs.size());
@@ -143,7 +172,7 @@ public class Predictor<I, O> implements AutoCloseable {
                     NDList ndList = translator.processInput(context, input);
                     preprocessEnd(ndList);
 
-                    NDList result = predict(ndList);
+                    NDList result = forward(ndList);
                     predictEnd(result);
 
                     ret.add(translator.processOutput(context, result));
@@ -156,7 +185,7 @@ public class Predictor<I, O> implements AutoCloseable {
             NDList inputBatch = processInputs(context, inputs);
             preprocessEnd(inputBatch);
 
-            NDList result = predict(inputBatch);
+            NDList result = forward(inputBatch);
             predictEnd(result);
 
             List<O> ret = processOutputs(context, result);
@@ -180,7 +209,12 @@ public class Predictor<I, O> implements AutoCloseable {
         this.metrics = metrics;
     }
 
-    private void waitToRead(NDList list) {
+    /**
+     * Waits until the arrays of the list are computed.
+     *
+     * @param list the arrays to wait for
+     */
+    void waitToRead(NDList list) {
         for (NDArray array : list) {
             if (array instanceof LazyNDArray) {
                 ((LazyNDArray) array).waitToRead();
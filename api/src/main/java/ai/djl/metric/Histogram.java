@@ -0,0 +1,223 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.metric;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free log-linear histogram of {@code double} values.
+ *
+ * <p>Each power of two is split into {@value #SUB_BUCKETS} linear buckets, so a value is reported
+ * with a relative error below {@code 1/}{@value #SUB_BUCKETS}. The bucket of a value is taken from
+ * the exponent and the leading mantissa bits of its IEEE 754 representation, so recording is a
+ * single atomic increment and the memory used only depends on the range of the recorded values,
+ * not on their number. The bucket counts of a power of two are allocated the first time a value in
+ * that range is recorded.
+ *
+ * <p>The total count and sum are kept in striped adders, so concurrent writers do not contend on
+ * them. Reads are not atomic with respect to concurrent writes and may miss samples that are being
+ * recorded.
+ */
+public class Histogram {
+
+    /** The number of linear buckets per power of two. */
+    public static final int SUB_BUCKETS = 128;
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int MANTISSA_BITS = 52;
+    private static final int SHIFT = MANTISSA_BITS - SUB_BUCKET_BITS;
+    private static final int EXPONENTS = 1 << 11;
+
+    private AtomicReferenceArray<AtomicLongArray> positive;
+    private AtomicReferenceArray<AtomicLongArray> negative;
+    private LongAdder zeros;
+    private LongAdder count;
+    private DoubleAdder sum;
+    private AtomicLong min;
+    private AtomicLong max;
+
+    /** Constructs an empty {@code Histogram}. */
+    public Histogram() {
+        positive = new AtomicReferenceArray<>(EXPONENTS);
+        negative = new AtomicReferenceArray<>(EXPONENTS);
+        zeros = new LongAdder();
+        count = new LongAdder();
+        sum = new DoubleAdder();
+        min = new AtomicLong(Double.doubleToLongBits(Double.POSITIVE_INFINITY));
+        max = new AtomicLong(Double.doubleToLongBits(Double.NEGATIVE_INFINITY));
+    }
+
+    /**
+     * Records a value, {@code NaN} is ignored.
+     *
+     * @param value the value to record
+     */
+    public void record(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        if (value == 0) {
+            zeros.increment();
+        } else {
+            int index = (int) (Double.doubleToRawLongBits(Math.abs(value)) >>> SHIFT);
+            AtomicReferenceArray<AtomicLongArray> buckets = value > 0 ? positive : negative;
+            getBuckets(buckets, index >>> SUB_BUCKET_BITS)
+                    .incrementAndGet(index & (SUB_BUCKETS - 1));
+        }
+        count.increment();
+        sum.add(value);
+        updateMin(value);
+        updateMax(value);
+    }
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return the number of recorded values
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Returns the sum of the recorded values.
+     *
+     * @return the sum of the recorded values
+     */
+    public double getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * Returns the average of the recorded values.
+     *
+     * @return the average of the recorded values, or {@code NaN} if the histogram is empty
+     */
+    public double getMean() {
+        long total = count.sum();
+        if (total == 0) {
+            return Double.NaN;
+        }
+        return sum.sum() / total;
+    }
+
+    /**
+     * Returns the smallest recorded value.
+     *
+     * @return the smallest recorded value, or {@code NaN} if the histogram is empty
+     */
+    public double getMin() {
+        return count.sum() == 0 ? Double.NaN : Double.longBitsToDouble(min.get());
+    }
+
+    /**
+     * Returns the largest recorded value.
+     *
+     * @return the largest recorded value, or {@code NaN} if the histogram is empty
+     */
+    public double getMax() {
+        return count.sum() == 0 ? Double.NaN : Double.longBitsToDouble(max.get());
+    }
+
+    /**
+     * Returns the value at the given percentile.
+     *
+     * <p>The result is the lower bound of the bucket holding the value of rank {@code count *
+     * percentile / 100}, clamped to the recorded minimum and maximum. The cost only depends on the
+     * range of the recorded values.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the value at the given percentile, or {@code NaN} if the histogram is empty
+     */
+    public double getValueAtPercentile(double percentile) {
+        long total = count.sum();
+        if (total == 0) {
+            return Double.NaN;
+        }
+        long rank = Math.min((long) (total * percentile / 100), total - 1);
+        long seen = 0;
+        for (int exp = EXPONENTS - 1; exp >= 0; --exp) {
+            AtomicLongArray buckets = negative.get(exp);
+            if (buckets != null) {
+                for (int sub = SUB_BUCKETS - 1; sub >= 0; --sub) {
+                    seen += buckets.get(sub);
+                    if (seen > rank) {
+                        return clamp(-lowerBound(exp, sub));
+                    }
+                }
+            }
+        }
+        seen += zeros.sum();
+        if (seen > rank) {
+            return clamp(0);
+        }
+        for (int exp = 0; exp < EXPONENTS; ++exp) {
+            AtomicLongArray buckets = positive.get(exp);
+            if (buckets != null) {
+                for (int sub = 0; sub < SUB_BUCKETS; ++sub) {
+                    seen += buckets.get(sub);
+                    if (seen > rank) {
+                        return clamp(lowerBound(exp, sub));
+                    }
+                }
+            }
+        }
+        // values recorded concurrently may be counted but not in a bucket yet
+        return getMax();
+    }
+
+    private double clamp(double value) {
+        double lo = Double.longBitsToDouble(min.get());
+        double hi = Double.longBitsToDouble(max.get());
+        return Math.max(lo, Math.min(hi, value));
+    }
+
+    private void updateMin(double value) {
+        while (true) {
+            long current = min.get();
+            if (value >= Double.longBitsToDouble(current)
+                    || min.compareAndSet(current, Double.doubleToLongBits(value))) {
+                return;
+            }
+        }
+    }
+
+    private void updateMax(double value) {
+        while (true) {
+            long current = max.get();
+            if (value <= Double.longBitsToDouble(current)
+                    || max.compareAndSet(current, Double.doubleToLongBits(value))) {
+                return;
+            }
+        }
+    }
+
+    private static AtomicLongArray getBuckets(
+            AtomicReferenceArray<AtomicLongArray> array, int exp) {
+        AtomicLongArray buckets = array.get(exp);
+        if (buckets == null) {
+            array.compareAndSet(exp, null, new AtomicLongArray(SUB_BUCKETS));
+            buckets = array.get(exp);
+        }
+        return buckets;
+    }
+
+    private static double lowerBound(int exp, int sub) {
+        long index = ((long) exp << SUB_BUCKET_BITS) | sub;
+        return Double.longBitsToDouble(index << SHIFT);
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.metric;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A {@link Metrics} that aggregates each metric into a {@link Histogram} instead of keeping every
+ * sample.
+ *
+ * <p>Recording a value and querying a percentile take constant time and memory, so a {@code
+ * HistogramMetrics} can be attached to a long running {@link ai.djl.inference.Predictor} or {@link
+ * ai.djl.training.Trainer}. Percentiles are accurate to within {@code 1/}{@value
+ * Histogram#SUB_BUCKETS} of the value, while {@link #mean(String)} is exact.
+ *
+ * <p>Only the first samples of each metric are kept as a time series and returned by {@link
+ * #getMetric(String)}.
+ */
+public class HistogramMetrics extends Metrics {
+
+    private int retainedSamples;
+    private Map<String, Series> series;
+
+    /** Constructs an empty {@code HistogramMetrics} that keeps the first 1000 samples. */
+    public HistogramMetrics() {
+        this(1000);
+    }
+
+    /**
+     * Constructs an empty {@code HistogramMetrics}.
+     *
+     * @param retainedSamples the number of samples of each metric to keep as a time series
+     */
+    public HistogramMetrics(int retainedSamples) {
+        this.retainedSamples = retainedSamples;
+        series = new ConcurrentHashMap<>();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void addMetric(Metric metric) {
+        getSeries(metric.getMetricName(), metric.getUnit()).add(metric.getValue(), metric);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void addMetric(String name, Number value) {
+        addMetric(name, value, "count");
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void addMetric(String name, Number value, String unit) {
+        getSeries(name, unit).add(value, null);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean hasMetric(String name) {
+        return series.containsKey(name);
+    }
+
+    /**
+     * Returns the retained {@link Metric}s with the specified metric name.
+     *
+     * @param name the name of the metric
+     * @return a list of the first {@link Metric}s with the specified metric name
+     */
+    @Override
+    public List<Metric> getMetric(String name) {
+        Series s = series.get(name);
+        if (s == null) {
+            return Collections.emptyList();
+        }
+        return s.getSamples();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Set<String> getMetricNames() {
+        return series.keySet();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Metric latestMetric(String name) {
+        Series s = series.get(name);
+        if (s == null) {
+            throw new IllegalArgumentException("Could not find metric: " + name);
+        }
+        return new Metric(name, s.latest, s.unit);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Metric percentile(String metricName, int percentile) {
+        Series s = getSeries(metricName);
+        double value = s.histogram.getValueAtPercentile(percentile);
+        Number number = s.floating ? (Number) value : (Number) Math.round(value);
+        return new Metric(metricName, number, s.unit);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public double mean(String metricName) {
+        return getSeries(metricName).histogram.getMean();
+    }
+
+    /**
+     * Returns the {@link Histogram} of the specified metric.
+     *
+     * @param metricName the name of the metric
+     * @return the {@link Histogram} of the specified metric
+     * @throws IllegalArgumentException if the given name is not found
+     */
+    public Histogram getHistogram(String metricName) {
+        return getSeries(metricName).histogram;
+    }
+
+    private Series getSeries(String metricName) {
+        Series s = series.get(metricName);
+        if (s == null) {
+            throw new IllegalArgumentException("Metric name not found: " + metricName);
+        }
+        return s;
+    }
+
+    private Series getSeries(String name, String unit) {
+        Series s = series.get(name);
+        if (s == null) {
+            s = series.computeIfAbsent(name, k -> new Series(k, unit, retainedSamples));
+        }
+        return s;
+    }
+
+    /** The aggregated samples of one metric. */
+    private static final class Series {
+
+        String name;
+        String unit;
+        Histogram histogram;
+        volatile boolean floating;
+        volatile Number latest;
+        AtomicReferenceArray<Metric> samples;
+        AtomicInteger sampleCount;
+
+        Series(String name, String unit, int retainedSamples) {
+            this.name = name;
+            this.unit = unit;
+            histogram = new Histogram();
+            samples = new AtomicReferenceArray<>(retainedSamples);
+            sampleCount = new AtomicInteger();
+        }
+
+        void add(Number value, Metric metric) {
+            histogram.record(value.doubleValue());
+            if (!floating && !isIntegral(value)) {
+                floating = true;
+            }
+            latest = value;
+            if (sampleCount.get() < samples.length()) {
+                int index = sampleCount.getAndIncrement();
+                if (index < samples.length()) {
+                    samples.set(index, metric == null ? new Metric(name, value, unit) : metric);
+                }
+            }
+        }
+
+        List<Metric> getSamples() {
+            int size = Math.min(sampleCount.get(), samples.length());
+            List<Metric> list = new ArrayList<>(size);
+            for (int i = 0; i < size; ++i) {
+                Metric metric = samples.get(i);
+                if (metric != null) {
+                    list.add(metric);
+                }
+            }
+            return list;
+        }
+
+        private static boolean isIntegral(Number value) {
+            return value instanceof Long
+                    || value instanceof Integer
+                    || value instanceof Short
+                    || value instanceof Byte;
+        }
+    }
+}
@@ -13,15 +13,27 @@
 package ai.djl.modality;
 
 import ai.djl.util.PairList;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
-/** A class stores the generic input data for inference. */
-public class Input {
+/**
+ * A class stores the generic input data for inference.
+ *
+ * <p>Data can be added as byte arrays or, to avoid copies of large payloads, as {@link ByteBuffer}s
+ * that are views of memory owned by someone else, for example the network buffer of a request. The
+ * owner of such memory can be attached with {@link #addResource(AutoCloseable)}, it is released
+ * when the {@code Input} is closed.
+ */
+public class Input implements AutoCloseable {
 
     private String requestId;
     private Map<String, String> properties;
-    private PairList<String, byte[]> content;
+    // the byte[] and ByteBuffer data, in the order it was added
+    private PairList<String, Object> content;
+    private List<AutoCloseable> resources;
 
     /**
      * Constructs a {@code Input} with specified {@code requestId}.
@@ -90,10 +102,88 @@ public class Input {
      *
      * <p>A {@code Input} may contains multiple data.
      *
-     * @return the content of the input
+     * <p>Data that was added as {@link ByteBuffer} is copied into byte arrays by this method, use
+     * {@link #getAsByteBuffer(String)} to access it without copy. The returned list is a snapshot,
+     * changes to it are not reflected in the input.
+     *
+     * @return the content of the input in the order it was added
      */
     public PairList<String, byte[]> getContent() {
-        return content;
+        PairList<String, byte[]> list = new PairList<>(content.size());
+        for (int i = 0; i < content.size(); ++i) {
+            list.add(content.keyAt(i), toBytes(content.valueAt(i)));
+        }
+        return list;
+    }
+
+    /**
+     * Returns the data with the specified key as a {@link ByteBuffer}, without copy.
+     *
+     * <p>The returned buffer is only valid until the {@code Input} is closed.
+     *
+     * @param key the key of the data
+     * @return the data as a read-only {@link ByteBuffer}, or {@code null} if not found
+     */
+    public ByteBuffer getAsByteBuffer(String key) {
+        Object data = content.get(key);
+        return data == null ? null : toByteBuffer(data);
+    }
+
+    /**
+     * Returns all data with the specified key as {@link ByteBuffer}s, without copy.
+     *
+     * <p>The returned buffers are only valid until the {@code Input} is closed.
+     *
+     * @param key the key of the data
+     * @return the data as read-only {@link ByteBuffer}s in the order they were added
+     */
+    public List<ByteBuffer> getAsByteBuffers(String key) {
+        List<ByteBuffer> list = new ArrayList<>();
+        for (int i = 0; i < content.size(); ++i) {
+            if (key.equals(content.keyAt(i))) {
+                list.add(toByteBuffer(content.valueAt(i)));
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Returns all data of the input as {@link ByteBuffer}s, without copy.
+     *
+     * <p>The returned buffers are only valid until the {@code Input} is closed.
+     *
+     * @return all data as read-only {@link ByteBuffer}s in the order they were added
+     */
+    public PairList<String, ByteBuffer> getAllAsByteBuffers() {
+        PairList<String, ByteBuffer> list = new PairList<>(content.size());
+        for (int i = 0; i < content.size(); ++i) {
+            list.add(content.keyAt(i), toByteBuffer(content.valueAt(i)));
+        }
+        return list;
+    }
+
+    /**
+     * Adds a key/value pair backed by a {@link ByteBuffer} to the input content, without copy.
+     *
+     * @param key key with which the specified data is to be added
+     * @param data data to be added with the specified key
+     */
+    public void addData(String key, ByteBuffer data) {
+        content.add(key, data);
+    }
+
+    /**
+     * Attaches a resource that owns the memory of the data of this input.
+     *
+     * <p>The resource is closed when this {@code Input} is closed.
+     *
+     * @param resource the resource to be closed with this input
+     */
+    public synchronized void addResource(AutoCloseable resource) {
+        if (resources == null) {
+            resources = new ArrayList<>();
+        }
+        resources.add(resource);
     }
 
     /**
@@ -102,7 +192,10 @@ public class Input {
      * @param content the content of the input
      */
     public void setContent(PairList<String, byte[]> content) {
-        this.content = content;
+        this.content = new PairList<>(content.size());
+        for (int i = 0; i < content.size(); ++i) {
+            this.content.add(content.keyAt(i), content.valueAt(i));
+        }
     }
 
     /**
@@ -121,9 +214,6 @@ public class Input {
      * @param data data to be added with the specified key
      */
     public void addData(String key, byte[] data) {
-        if (content == null) {
-            content = new PairList<>();
-        }
         content.add(key, data);
     }
 
@@ -134,9 +224,59 @@ public class Input {
      * @param data data to be added with the specified key
      */
     public void addData(int index, byte[] data) {
-        if (content == null) {
-            content = new PairList<>();
-        }
         content.add(index, null, data);
     }
+
+    /**
+     * Releases the resources attached to this input.
+     *
+     * <p>Data added as {@link ByteBuffer} must not be accessed after the input is closed.
+     */
+    @Override
+    public synchronized void close() {
+        if (resources == null) {
+            return;
+        }
+        // the memory of the buffers is owned by the resources
+        PairList<String, Object> list = new PairList<>(content.size());
+        for (int i = 0; i < content.size(); ++i) {
+            if (content.valueAt(i) instanceof byte[]) {
+                list.add(content.keyAt(i), content.valueAt(i));
+            }
+        }
+        content = list;
+        IllegalStateException exception = null;
+        for (AutoCloseable resource : resources) {
+            try {
+                resource.close();
+            } catch (Exception e) {
+                if (exception == null) {
+                    exception = new IllegalStateException("Failed to release input resource", e);
+                } else {
+                    exception.addSuppressed(e);
+                }
+            }
+        }
+        resources = null;
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    private static byte[] toBytes(Object data) {
+        if (data instanceof byte[]) {
+            return (byte[]) data;
+        }
+        ByteBuffer bb = ((ByteBuffer) data).duplicate();
+        byte[] buf = new byte[bb.remaining()];
+        bb.get(buf);
+        return buf;
+    }
+
+    private static ByteBuffer toByteBuffer(Object data) {
+        if (data instanceof byte[]) {
+            return ByteBuffer.wrap((byte[]) data).asReadOnlyBuffer();
+        }
+        return ((ByteBuffer) data).asReadOnlyBuffer();
+    }
 }
@@ -12,19 +12,27 @@
  */
 package ai.djl.modality;
 
+import ai.djl.ndarray.NDList;
 import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
-/** A class stores the generic inference results. */
-public class Output {
+/**
+ * A class stores the generic inference results.
+ *
+ * <p>The content of an {@code Output} is either a byte array, or an {@link NDList} that the server
+ * encodes straight into the response. An {@code Output} holding an {@link NDList} must be closed
+ * once it has been sent.
+ */
+public class Output implements AutoCloseable {
 
     private String requestId;
     private int code;
     private String message;
     private Map<String, String> properties;
     private byte[] content;
+    private NDList ndList;
 
     /**
      * Constructs a {@code Output} with specified {@code requestId}.
@@ -134,6 +142,11 @@ public class Output {
      * @return the content of the input
      */
     public byte[] getContent() {
+        if (content == null && ndList != null) {
+            content = ndList.encode();
+            ndList.close();
+            ndList = null;
+        }
         return content;
     }
 
@@ -154,4 +167,37 @@ public class Output {
     public void setContent(String content) {
         this.content = content.getBytes(StandardCharsets.UTF_8);
     }
+
+    /**
+     * Sets the content of the output as {@link NDList}.
+     *
+     * <p>The {@link ai.djl.ndarray.NDArray}s are detached from their manager, so they outlive the
+     * translator context. {@link #getContent()} encodes them with {@link NDList#encode()} on first
+     * access.
+     *
+     * @param list the content of the output
+     */
+    public void setContent(NDList list) {
+        list.detach();
+        ndList = list;
+        content = null;
+    }
+
+    /**
+     * Returns the content of the output as {@link NDList}, if it has not been encoded yet.
+     *
+     * @return the content of the output as {@link NDList}, or {@code null}
+     */
+    public NDList getNDList() {
+        return ndList;
+    }
+
+    /** Closes the {@link NDList} content of the output, if any. */
+    @Override
+    public void close() {
+        if (ndList != null) {
+            ndList.close();
+            ndList = null;
+        }
+    }
 }
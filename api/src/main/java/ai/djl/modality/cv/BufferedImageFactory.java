@@ -29,12 +29,12 @@ import java.awt.FontMetrics;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
-import java.awt.image.DataBufferByte;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URL;
 import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.stream.IntStream;
@@ -201,37 +201,28 @@ public class BufferedImageFactory extends ImageFactory {
             }
 
             ByteBuffer bb = manager.allocateDirect(channel * height * width);
-            if (image.getType() == BufferedImage.TYPE_BYTE_GRAY) {
-                byte[] data = ((DataBufferByte) image.getData().getDataBuffer()).getData();
-                for (byte gray : data) {
-                    bb.put(gray);
-                    if (flag != Flag.GRAYSCALE) {
-                        bb.put(gray);
-                        bb.put(gray);
-                    }
-                }
-            } else {
-                // get an array of integer pixels in the default RGB color mode
-                int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
-                for (int rgb : pixels) {
-                    int red = (rgb >> 16) & 0xFF;
-                    int green = (rgb >> 8) & 0xFF;
-                    int blue = rgb & 0xFF;
-
-                    if (flag == Flag.GRAYSCALE) {
-                        int gray = (red + green + blue) / 3;
-                        bb.put((byte) gray);
-                    } else {
-                        bb.put((byte) red);
-                        bb.put((byte) green);
-                        bb.put((byte) blue);
-                    }
-                }
-            }
+            new RasterReader(image).readBytes(bb, flag == Flag.GRAYSCALE);
             bb.rewind();
             return manager.create(bb, new Shape(height, width, channel), DataType.UINT8);
         }
 
+        /** {@inheritDoc} */
+        @Override
+        public NDArray toTensor(NDManager manager, Flag flag, float[] mean, float[] std) {
+            int width = image.getWidth();
+            int height = image.getHeight();
+            int channel = flag == Flag.GRAYSCALE ? 1 : 3;
+            // same layout as NDImageUtils.toTensor
+            boolean chw = !"TensorFlow".equals(manager.getEngine().getEngineName());
+
+            FloatBuffer fb = manager.allocateDirect(channel * height * width * 4).asFloatBuffer();
+            new RasterReader(image).readFloats(fb, flag == Flag.GRAYSCALE, chw, mean, std);
+            fb.rewind();
+            Shape shape =
+                    chw ? new Shape(channel, height, width) : new Shape(height, width, channel);
+            return manager.create(fb, shape, DataType.FLOAT32);
+        }
+
         /** {@inheritDoc} */
         @Override
         public void save(OutputStream os, String type) throws IOException {
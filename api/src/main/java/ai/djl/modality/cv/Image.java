@@ -14,6 +14,7 @@ package ai.djl.modality.cv;
 
 import ai.djl.modality.cv.output.DetectedObjects;
 import ai.djl.modality.cv.output.Joints;
+import ai.djl.modality.cv.util.NDImageUtils;
 import ai.djl.ndarray.NDArray;
 import ai.djl.ndarray.NDManager;
 import java.io.IOException;
@@ -84,6 +85,28 @@ public interface Image {
      */
     NDArray toNDArray(NDManager manager, Flag flag);
 
+    /**
+     * Converts image to a normalized float32 {@link NDArray}, in the layout of {@link
+     * ai.djl.modality.cv.util.NDImageUtils#toTensor(NDArray)}.
+     *
+     * <p>The result is the same as {@link #toNDArray(NDManager, Flag)} followed by {@link
+     * ai.djl.modality.cv.transform.ToTensor} and {@link ai.djl.modality.cv.transform.Normalize},
+     * but implementations may convert the pixels in a single pass.
+     *
+     * @param manager a {@link NDManager} to create the new NDArray with
+     * @param flag the color mode
+     * @param mean the mean of each channel, or {@code null} to skip the normalization
+     * @param std the standard deviation of each channel
+     * @return {@link NDArray}
+     */
+    default NDArray toTensor(NDManager manager, Flag flag, float[] mean, float[] std) {
+        NDArray array = NDImageUtils.toTensor(toNDArray(manager, flag));
+        if (mean == null) {
+            return array;
+        }
+        return NDImageUtils.normalize(array, mean, std);
+    }
+
     /**
      * Save the image to file.
      *
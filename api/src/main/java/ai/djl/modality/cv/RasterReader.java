@@ -0,0 +1,263 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.modality.cv;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * Reads the pixels of a {@link BufferedImage} row by row.
+ *
+ * <p>For the common {@code TYPE_3BYTE_BGR}, {@code TYPE_4BYTE_ABGR}, {@code TYPE_INT_RGB}, {@code
+ * TYPE_INT_ARGB} and {@code TYPE_BYTE_GRAY} layouts, the pixels are read straight from the data
+ * buffer of the raster. Other layouts go through {@link BufferedImage#getRGB}, one row at a time.
+ */
+final class RasterReader {
+
+    private static final int FALLBACK = 0;
+    private static final int BYTE_COLOR = 1;
+    private static final int BYTE_GRAY = 2;
+    private static final int INT_COLOR = 3;
+
+    private BufferedImage image;
+    private int width;
+    private int height;
+    private int kind;
+    private byte[] bytes;
+    private int[] ints;
+    private int offset;
+    private int scanlineStride;
+    private int pixelStride;
+    private int red;
+    private int green;
+    private int blue;
+    private int[] scratch;
+
+    RasterReader(BufferedImage image) {
+        this.image = image;
+        width = image.getWidth();
+        height = image.getHeight();
+        kind = getKind(image);
+        if (kind == FALLBACK) {
+            scratch = new int[width];
+            return;
+        }
+
+        WritableRaster raster = image.getRaster();
+        DataBuffer buffer = raster.getDataBuffer();
+        SampleModel sampleModel = raster.getSampleModel();
+        // sub images share the data buffer of their parent, at an offset
+        int x0 = -raster.getSampleModelTranslateX();
+        int y0 = -raster.getSampleModelTranslateY();
+        if (kind == INT_COLOR) {
+            ints = ((DataBufferInt) buffer).getData();
+            scanlineStride = ((SinglePixelPackedSampleModel) sampleModel).getScanlineStride();
+            pixelStride = 1;
+        } else {
+            ComponentSampleModel csm = (ComponentSampleModel) sampleModel;
+            bytes = ((DataBufferByte) buffer).getData();
+            scanlineStride = csm.getScanlineStride();
+            pixelStride = csm.getPixelStride();
+            int[] bandOffsets = csm.getBandOffsets();
+            red = bandOffsets[0];
+            if (kind == BYTE_COLOR) {
+                green = bandOffsets[1];
+                blue = bandOffsets[2];
+            }
+        }
+        offset = buffer.getOffset() + y0 * scanlineStride + x0 * pixelStride;
+    }
+
+    /**
+     * Writes the image as uint8 in HWC layout.
+     *
+     * @param bb the buffer to write {@code height * width * channels} bytes to
+     * @param grayscale {@code true} to write one gray channel, {@code false} for RGB
+     */
+    void readBytes(ByteBuffer bb, boolean grayscale) {
+        int channels = grayscale ? 1 : 3;
+        byte[] row = new byte[width * 3];
+        byte[] out = grayscale || kind == BYTE_GRAY ? new byte[width * channels] : row;
+        for (int y = 0; y < height; ++y) {
+            int count = readRow(y, row);
+            if (count == 1) {
+                if (grayscale) {
+                    bb.put(row, 0, width);
+                    continue;
+                }
+                for (int x = 0, i = 0; x < width; ++x) {
+                    byte gray = row[x];
+                    out[i++] = gray;
+                    out[i++] = gray;
+                    out[i++] = gray;
+                }
+            } else if (grayscale) {
+                for (int x = 0, i = 0; x < width; ++x, i += 3) {
+                    int sum = (row[i] & 0xFF) + (row[i + 1] & 0xFF) + (row[i + 2] & 0xFF);
+                    out[x] = (byte) (sum / 3);
+                }
+            }
+            bb.put(out, 0, width * channels);
+        }
+    }
+
+    /**
+     * Writes the image as normalized float32, in CHW or HWC layout.
+     *
+     * <p>The values are {@code (pixel / 255 - mean[c]) / std[c]}, the same as {@code ToTensor}
+     * followed by {@code Normalize}.
+     *
+     * @param fb the buffer to write {@code height * width * channels} floats to
+     * @param grayscale {@code true} to write one gray channel, {@code false} for RGB
+     * @param chw {@code true} for CHW layout, {@code false} for HWC
+     * @param mean the mean of each channel, or {@code null} to skip the normalization
+     * @param std the standard deviation of each channel
+     */
+    void readFloats(FloatBuffer fb, boolean grayscale, boolean chw, float[] mean, float[] std) {
+        int channels = grayscale ? 1 : 3;
+        // one lookup table per channel replaces the arithmetic on every pixel
+        float[][] table = new float[channels][256];
+        for (int c = 0; c < channels; ++c) {
+            float m = mean == null ? 0f : mean[c];
+            float s = mean == null ? 1f : std[c];
+            for (int v = 0; v < 256; ++v) {
+                table[c][v] = (v / 255f - m) / s;
+            }
+        }
+
+        int base = fb.position();
+        int plane = height * width;
+        byte[] row = new byte[width * 3];
+        float[] out = new float[width * channels];
+        for (int y = 0; y < height; ++y) {
+            int count = readRow(y, row);
+            if (grayscale) {
+                float[] t = table[0];
+                for (int x = 0; x < width; ++x) {
+                    int gray;
+                    if (count == 1) {
+                        gray = row[x] & 0xFF;
+                    } else {
+                        int i = x * 3;
+                        gray = ((row[i] & 0xFF) + (row[i + 1] & 0xFF) + (row[i + 2] & 0xFF)) / 3;
+                    }
+                    out[x] = t[gray];
+                }
+                fb.position(base + y * width);
+                fb.put(out, 0, width);
+                continue;
+            }
+
+            float[] r = table[0];
+            float[] g = table[1];
+            float[] b = table[2];
+            if (chw) {
+                for (int x = 0, i = 0; x < width; ++x, i += count) {
+                    out[x] = r[row[i] & 0xFF];
+                    out[width + x] = g[row[count == 1 ? i : i + 1] & 0xFF];
+                    out[2 * width + x] = b[row[count == 1 ? i : i + 2] & 0xFF];
+                }
+                for (int c = 0; c < 3; ++c) {
+                    fb.position(base + c * plane + y * width);
+                    fb.put(out, c * width, width);
+                }
+            } else {
+                for (int x = 0, i = 0, o = 0; x < width; ++x, i += count) {
+                    out[o++] = r[row[i] & 0xFF];
+                    out[o++] = g[row[count == 1 ? i : i + 1] & 0xFF];
+                    out[o++] = b[row[count == 1 ? i : i + 2] & 0xFF];
+                }
+                fb.position(base + y * width * 3);
+                fb.put(out, 0, width * 3);
+            }
+        }
+        fb.position(base + plane * channels);
+    }
+
+    /**
+     * Reads a row of pixels.
+     *
+     * @param y the row to read
+     * @param row the array to write the RGB bytes, or the gray bytes of a gray image, to
+     * @return the number of channels written per pixel, 1 for gray images, 3 otherwise
+     */
+    private int readRow(int y, byte[] row) {
+        switch (kind) {
+            case BYTE_GRAY:
+                {
+                    int index = offset + y * scanlineStride + red;
+                    if (pixelStride == 1) {
+                        System.arraycopy(bytes, index, row, 0, width);
+                    } else {
+                        for (int x = 0; x < width; ++x, index += pixelStride) {
+                            row[x] = bytes[index];
+                        }
+                    }
+                    return 1;
+                }
+            case BYTE_COLOR:
+                {
+                    int index = offset + y * scanlineStride;
+                    for (int x = 0, i = 0; x < width; ++x, index += pixelStride) {
+                        row[i++] = bytes[index + red];
+                        row[i++] = bytes[index + green];
+                        row[i++] = bytes[index + blue];
+                    }
+                    return 3;
+                }
+            case INT_COLOR:
+                unpack(ints, offset + y * scanlineStride, row);
+                return 3;
+            default:
+                image.getRGB(0, y, width, 1, scratch, 0, width);
+                unpack(scratch, 0, row);
+                return 3;
+        }
+    }
+
+    private void unpack(int[] pixels, int index, byte[] row) {
+        for (int x = 0, i = 0; x < width; ++x) {
+            int rgb = pixels[index + x];
+            row[i++] = (byte) (rgb >> 16);
+            row[i++] = (byte) (rgb >> 8);
+            row[i++] = (byte) rgb;
+        }
+    }
+
+    private static int getKind(BufferedImage image) {
+        switch (image.getType()) {
+            case BufferedImage.TYPE_BYTE_GRAY:
+                return BYTE_GRAY;
+            case BufferedImage.TYPE_3BYTE_BGR:
+            case BufferedImage.TYPE_4BYTE_ABGR:
+                return isSrgb(image) ? BYTE_COLOR : FALLBACK;
+            case BufferedImage.TYPE_INT_RGB:
+            case BufferedImage.TYPE_INT_ARGB:
+                return isSrgb(image) ? INT_COLOR : FALLBACK;
+            default:
+                return FALLBACK;
+        }
+    }
+
+    private static boolean isSrgb(BufferedImage image) {
+        return image.getColorModel().getColorSpace().isCS_sRGB();
+    }
+}
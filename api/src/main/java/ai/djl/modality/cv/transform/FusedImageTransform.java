@@ -0,0 +1,316 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.modality.cv.transform;
+
+import ai.djl.Device;
+import ai.djl.modality.cv.Image;
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.types.DataType;
+import ai.djl.ndarray.types.Shape;
+import ai.djl.translate.Transform;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A {@link Transform} that runs a sequence of image transforms as a single pass over the pixels.
+ *
+ * <p>The sequence {@code [CenterCrop] [Resize] [CenterCrop] ToTensor [Normalize]} is computed on
+ * the CPU straight from the HWC input into the CHW float32 output, without the intermediate arrays
+ * of the step by step path. Only {@link Image.Interpolation#BILINEAR} and {@link
+ * Image.Interpolation#NEAREST} resizing are fused. The result matches the step by step path up to
+ * the rounding of the resize implementation of the engine.
+ *
+ * <p>Inputs that are not a uint8 or float32 HWC image on the CPU, and engines that use the HWC
+ * tensor layout, go through the step by step path.
+ */
+public final class FusedImageTransform implements Transform {
+
+    private List<Transform> transforms;
+    private CenterCrop preCrop;
+    private Resize resize;
+    private CenterCrop postCrop;
+    private Normalize normalize;
+
+    private FusedImageTransform(
+            List<Transform> transforms,
+            CenterCrop preCrop,
+            Resize resize,
+            CenterCrop postCrop,
+            Normalize normalize) {
+        this.transforms = transforms;
+        this.preCrop = preCrop;
+        this.resize = resize;
+        this.postCrop = postCrop;
+        this.normalize = normalize;
+    }
+
+    /**
+     * Replaces the fusible sequences of the transforms with {@code FusedImageTransform}s.
+     *
+     * @param transforms the transforms that are applied one after another to the same array
+     * @return the transforms with the fusible sequences replaced
+     */
+    public static List<Transform> fuse(List<Transform> transforms) {
+        List<Transform> fused = new ArrayList<>(transforms.size());
+        int i = 0;
+        while (i < transforms.size()) {
+            int end = i;
+            CenterCrop preCrop = null;
+            Resize resize = null;
+            CenterCrop postCrop = null;
+            if (is(transforms, end, CenterCrop.class)) {
+                preCrop = (CenterCrop) transforms.get(end++);
+            }
+            if (is(transforms, end, Resize.class)) {
+                Resize r = (Resize) transforms.get(end);
+                Image.Interpolation interpolation = r.getInterpolation();
+                if (interpolation == Image.Interpolation.BILINEAR
+                        || interpolation == Image.Interpolation.NEAREST) {
+                    resize = r;
+                    ++end;
+                }
+            }
+            if (is(transforms, end, CenterCrop.class)) {
+                postCrop = (CenterCrop) transforms.get(end++);
+            }
+            if (!is(transforms, end, ToTensor.class)) {
+                fused.add(transforms.get(i++));
+                continue;
+            }
+            ++end;
+            Normalize normalize = null;
+            if (is(transforms, end, Normalize.class)) {
+                normalize = (Normalize) transforms.get(end++);
+            }
+            List<Transform> steps = new ArrayList<>(transforms.subList(i, end));
+            fused.add(
+                    new FusedImageTransform(
+                            Collections.unmodifiableList(steps),
+                            preCrop,
+                            resize,
+                            postCrop,
+                            normalize));
+            i = end;
+        }
+        return fused;
+    }
+
+    /**
+     * Returns the transforms that are fused.
+     *
+     * @return the transforms that are fused
+     */
+    public List<Transform> getTransforms() {
+        return transforms;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public NDArray transform(NDArray array) {
+        if (!canFuse(array)) {
+            for (Transform transform : transforms) {
+                array = transform.transform(array);
+            }
+            return array;
+        }
+
+        Shape shape = array.getShape();
+        int height = (int) shape.get(0);
+        int width = (int) shape.get(1);
+        int channels = (int) shape.get(2);
+
+        // the source window, after the first crop
+        int[] window = {0, 0, width, height};
+        if (preCrop != null) {
+            window = getCropRect(width, height, preCrop);
+        }
+        int resizedWidth = window[2];
+        int resizedHeight = window[3];
+        if (resize != null) {
+            resizedWidth = resize.getWidth();
+            resizedHeight = resize.getHeight();
+        }
+        // the output region of the resized image, after the second crop
+        int[] region = {0, 0, resizedWidth, resizedHeight};
+        if (postCrop != null) {
+            region = getCropRect(resizedWidth, resizedHeight, postCrop);
+        }
+
+        float[] scale = new float[channels];
+        float[] bias = new float[channels];
+        for (int c = 0; c < channels; ++c) {
+            float std = normalize == null ? 1f : normalize.getStd()[c];
+            float mean = normalize == null ? 0f : normalize.getMean()[c];
+            scale[c] = 1f / (255f * std);
+            bias[c] = -mean / std;
+        }
+
+        Pixels pixels = new Pixels(array);
+        boolean nearest =
+                resize != null && resize.getInterpolation() == Image.Interpolation.NEAREST;
+        Axis xAxis = new Axis(window[0], window[2], resizedWidth, region[0], region[2], nearest);
+        Axis yAxis = new Axis(window[1], window[3], resizedHeight, region[1], region[3], nearest);
+
+        int outWidth = region[2];
+        int outHeight = region[3];
+        int plane = outWidth * outHeight;
+        float[] out = new float[channels * plane];
+        for (int y = 0; y < outHeight; ++y) {
+            int rowA = yAxis.first[y] * width;
+            int rowB = yAxis.second[y] * width;
+            float wy = yAxis.weight[y];
+            for (int x = 0; x < outWidth; ++x) {
+                int topLeft = (rowA + xAxis.first[x]) * channels;
+                int topRight = (rowA + xAxis.second[x]) * channels;
+                int bottomLeft = (rowB + xAxis.first[x]) * channels;
+                int bottomRight = (rowB + xAxis.second[x]) * channels;
+                float wx = xAxis.weight[x];
+                int index = y * outWidth + x;
+                for (int c = 0; c < channels; ++c) {
+                    float top =
+                            pixels.get(topLeft + c) * (1 - wx) + pixels.get(topRight + c) * wx;
+                    float bottom =
+                            pixels.get(bottomLeft + c) * (1 - wx)
+                                    + pixels.get(bottomRight + c) * wx;
+                    float value = pixels.round(top * (1 - wy) + bottom * wy);
+                    out[c * plane + index] = value * scale[c] + bias[c];
+                }
+            }
+        }
+        return array.getManager().create(out, new Shape(channels, outHeight, outWidth));
+    }
+
+    private boolean canFuse(NDArray array) {
+        Shape shape = array.getShape();
+        if (shape.dimension() != 3) {
+            return false;
+        }
+        DataType dataType = array.getDataType();
+        if (dataType != DataType.UINT8 && dataType != DataType.FLOAT32) {
+            return false;
+        }
+        if (!Device.Type.CPU.equals(array.getDevice().getDeviceType())) {
+            return false;
+        }
+        if ("TensorFlow".equals(array.getManager().getEngine().getEngineName())) {
+            return false;
+        }
+        int channels = (int) shape.get(2);
+        return normalize == null
+                || (normalize.getMean().length == channels
+                        && normalize.getStd().length == channels);
+    }
+
+    private static boolean is(List<Transform> transforms, int index, Class<?> type) {
+        // subclasses may change the behavior, only the exact classes are fused
+        return index < transforms.size() && transforms.get(index).getClass() == type;
+    }
+
+    // the rectangle [x, y, width, height] of the crop, the same as NDImageUtils.centerCrop
+    private static int[] getCropRect(int w, int h, CenterCrop crop) {
+        int width = crop.getWidth();
+        int height = crop.getHeight();
+        if (width < 0) {
+            if (w == h) {
+                return new int[] {0, 0, w, h};
+            }
+            width = Math.min(w, h);
+            height = width;
+        }
+        int x = 0;
+        int y = 0;
+        int dw = (w - width) / 2;
+        int dh = (h - height) / 2;
+        if (dw > 0) {
+            x = dw;
+            w = width;
+        }
+        if (dh > 0) {
+            y = dh;
+            h = height;
+        }
+        return new int[] {x, y, w, h};
+    }
+
+    /** The source pixels, read as uint8 or float32. */
+    private static final class Pixels {
+
+        private byte[] bytes;
+        private float[] floats;
+
+        Pixels(NDArray array) {
+            if (array.getDataType() == DataType.UINT8) {
+                bytes = array.toByteArray();
+            } else {
+                floats = array.toFloatArray();
+            }
+        }
+
+        float get(int index) {
+            if (bytes != null) {
+                return bytes[index] & 0xFF;
+            }
+            return floats[index];
+        }
+
+        float round(float value) {
+            // a uint8 image is resized to uint8 by the step by step path
+            if (bytes != null) {
+                return Math.round(value);
+            }
+            return value;
+        }
+    }
+
+    /**
+     * The source coordinates of each output coordinate along one axis.
+     *
+     * <p>Bilinear sampling uses the pixel centers, like OpenCV and most engines: the output
+     * coordinate {@code i} maps to {@code (i + 0.5) * scale - 0.5} in the source window.
+     */
+    private static final class Axis {
+
+        int[] first;
+        int[] second;
+        float[] weight;
+
+        Axis(int start, int size, int resized, int offset, int length, boolean nearest) {
+            first = new int[length];
+            second = new int[length];
+            weight = new float[length];
+            double scale = (double) size / resized;
+            for (int i = 0; i < length; ++i) {
+                int index;
+                float w = 0f;
+                if (nearest) {
+                    index = Math.min((int) Math.floor((i + offset) * scale), size - 1);
+                } else {
+                    double f = (i + offset + 0.5) * scale - 0.5;
+                    index = (int) Math.floor(f);
+                    w = (float) (f - index);
+                    if (index < 0) {
+                        index = 0;
+                        w = 0f;
+                    } else if (index >= size - 1) {
+                        index = size - 1;
+                        w = 0f;
+                    }
+                }
+                first[i] = start + index;
+                second[i] = start + Math.min(index + 1, size - 1);
+                weight[i] = w;
+            }
+        }
+    }
+}
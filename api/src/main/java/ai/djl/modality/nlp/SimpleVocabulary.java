@@ -19,6 +19,7 @@ import java.net.URL;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -122,6 +123,15 @@ public class SimpleVocabulary implements Vocabulary {
         return tokens.size();
     }
 
+    /**
+     * Returns all the tokens of the vocabulary, including the tokens below the minimum frequency.
+     *
+     * @return an unmodifiable view of the tokens
+     */
+    public Set<String> getAllTokens() {
+        return Collections.unmodifiableSet(tokens.keySet());
+    }
+
     /**
      * Creates a new builder to build a {@code SimpleVocabulary}.
      *
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.modality.nlp.bert;
+
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.NDManager;
+import ai.djl.ndarray.types.Shape;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * {@code BertEncoding} holds the input ids, token type ids and attention masks of a batch of BERT
+ * inputs in primitive buffers.
+ *
+ * <p>The fields are stored row major with shape (batch size, sequence length), where the sequence
+ * length is the length of the longest input in the batch, and shorter inputs are padded. The
+ * buffers are reused and only grow when a larger batch is encoded into the same instance, so an
+ * encoding can be kept per thread and passed to {@link BertFullTokenizer#encode(java.util.List,
+ * java.util.List, int, BertEncoding)} for every batch.
+ *
+ * <pre>
+ * BertEncoding encoding = tokenizer.encode(questions, paragraphs, 384, encoding);
+ * NDList list = encoding.toNDList(manager); // input ids, token type ids, attention mask
+ * </pre>
+ */
+public final class BertEncoding {
+
+    private long[] inputIds;
+    private long[] tokenTypeIds;
+    private long[] attentionMask;
+    private int[] validLengths;
+    private int batchSize;
+    private int sequenceLength;
+
+    /** Creates an empty {@code BertEncoding}. */
+    public BertEncoding() {
+        inputIds = new long[0];
+        tokenTypeIds = new long[0];
+        attentionMask = new long[0];
+        validLengths = new int[0];
+    }
+
+    /**
+     * Resizes the encoding for a new batch and clears it, growing the buffers if necessary.
+     *
+     * @param batchSize the number of inputs in the batch
+     * @param sequenceLength the padded length of each input
+     * @param padId the id to fill the input ids with
+     */
+    void reset(int batchSize, int sequenceLength, long padId) {
+        int size = Math.multiplyExact(batchSize, sequenceLength);
+        if (size > inputIds.length) {
+            inputIds = new long[size];
+            tokenTypeIds = new long[size];
+            attentionMask = new long[size];
+        }
+        if (batchSize > validLengths.length) {
+            validLengths = new int[batchSize];
+        }
+        Arrays.fill(inputIds, 0, size, padId);
+        Arrays.fill(tokenTypeIds, 0, size, 0);
+        Arrays.fill(attentionMask, 0, size, 0);
+        Arrays.fill(validLengths, 0, batchSize, 0);
+        this.batchSize = batchSize;
+        this.sequenceLength = sequenceLength;
+    }
+
+    /**
+     * Writes one segment of an input into the buffers.
+     *
+     * @param row the index of the input in the batch
+     * @param offset the position of the segment in the input
+     * @param ids the token ids of the segment
+     * @param from the index of the first id to write
+     * @param to the index after the last id to write
+     * @param tokenType the token type of the segment
+     */
+    void put(int row, int offset, long[] ids, int from, int to, long tokenType) {
+        int base = row * sequenceLength + offset;
+        int length = to - from;
+        System.arraycopy(ids, from, inputIds, base, length);
+        Arrays.fill(tokenTypeIds, base, base + length, tokenType);
+        Arrays.fill(attentionMask, base, base + length, 1);
+        validLengths[row] = Math.max(validLengths[row], offset + length);
+    }
+
+    /**
+     * Writes one token of an input into the buffers.
+     *
+     * @param row the index of the input in the batch
+     * @param offset the position of the token in the input
+     * @param id the token id
+     * @param tokenType the token type of the token
+     */
+    void put(int row, int offset, long id, long tokenType) {
+        int index = row * sequenceLength + offset;
+        inputIds[index] = id;
+        tokenTypeIds[index] = tokenType;
+        attentionMask[index] = 1;
+        validLengths[row] = Math.max(validLengths[row], offset + 1);
+    }
+
+    /**
+     * Returns the number of inputs in the batch.
+     *
+     * @return the number of inputs in the batch
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Returns the padded length of each input in the batch.
+     *
+     * @return the padded length of each input
+     */
+    public int getSequenceLength() {
+        return sequenceLength;
+    }
+
+    /**
+     * Returns the input ids buffer.
+     *
+     * <p>Only the first {@code batchSize * sequenceLength} elements belong to the current batch.
+     *
+     * @return the input ids buffer
+     */
+    public long[] getInputIds() {
+        return inputIds;
+    }
+
+    /**
+     * Returns the token type ids buffer.
+     *
+     * <p>Only the first {@code batchSize * sequenceLength} elements belong to the current batch.
+     *
+     * @return the token type ids buffer
+     */
+    public long[] getTokenTypeIds() {
+        return tokenTypeIds;
+    }
+
+    /**
+     * Returns the attention mask buffer.
+     *
+     * <p>Only the first {@code batchSize * sequenceLength} elements belong to the current batch.
+     *
+     * @return the attention mask buffer
+     */
+    public long[] getAttentionMask() {
+        return attentionMask;
+    }
+
+    /**
+     * Returns the number of tokens of an input before padding, including the special tokens.
+     *
+     * @param index the index of the input in the batch
+     * @return the number of tokens of the input
+     */
+    public int getValidLength(int index) {
+        if (index < 0 || index >= batchSize) {
+            throw new IndexOutOfBoundsException("Invalid batch index: " + index);
+        }
+        return validLengths[index];
+    }
+
+    /**
+     * Returns the input ids, token type ids and attention mask of the batch as int64 {@link
+     * NDArray}s of shape (batch size, sequence length).
+     *
+     * @param manager the manager to create the arrays with
+     * @return the input ids, token type ids and attention mask
+     */
+    public NDList toNDList(NDManager manager) {
+        return new NDList(
+                create(manager, inputIds),
+                create(manager, tokenTypeIds),
+                create(manager, attentionMask));
+    }
+
+    private NDArray create(NDManager manager, long[] buffer) {
+        LongBuffer data = LongBuffer.wrap(buffer, 0, batchSize * sequenceLength);
+        return manager.create(data, new Shape(batchSize, sequenceLength));
+    }
+}
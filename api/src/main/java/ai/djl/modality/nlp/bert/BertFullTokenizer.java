@@ -41,6 +41,9 @@ public class BertFullTokenizer extends SimpleTokenizer {
     private SimpleVocabulary vocabulary;
     private List<TextProcessor> basicBertPreprocessors;
     private WordpieceTokenizer wordpieceTokenizer;
+    private long clsId;
+    private long sepId;
+    private long padId;
 
     /**
      * Creates an instance of {@code BertFullTokenizer}.
@@ -52,6 +55,9 @@ public class BertFullTokenizer extends SimpleTokenizer {
         this.vocabulary = vocabulary;
         basicBertPreprocessors = getPreprocessors(lowerCase);
         wordpieceTokenizer = new WordpieceTokenizer(vocabulary, "[UNK]", 200);
+        clsId = vocabulary.getIndex("[CLS]");
+        sepId = vocabulary.getIndex("[SEP]");
+        padId = vocabulary.contains("[PAD]") ? vocabulary.getIndex("[PAD]") : 0;
     }
 
     /**
@@ -66,11 +72,97 @@ public class BertFullTokenizer extends SimpleTokenizer {
     /** {@inheritDoc} */
     @Override
     public List<String> tokenize(String input) {
-        List<String> tokens = new ArrayList<>(Collections.singletonList(input));
-        for (TextProcessor processor : basicBertPreprocessors) {
-            tokens = processor.preprocess(tokens);
+        return wordpieceTokenizer.preprocess(basicTokenize(input));
+    }
+
+    /**
+     * Tokenizes the input into the vocabulary indices of its word pieces.
+     *
+     * @param input the input text
+     * @return the vocabulary indices of the word pieces
+     */
+    public long[] tokenizeToIds(String input) {
+        return wordpieceTokenizer.tokenizeToIds(basicTokenize(input));
+    }
+
+    /**
+     * Encodes a batch of sentences into input ids, token type ids and attention masks.
+     *
+     * @param inputs the sentences to encode
+     * @param maxLength the maximum length of an encoded sentence, or 0 for no limit
+     * @param encoding the encoding to reuse, or {@code null} to create a new one
+     * @return the encoded batch
+     * @see #encode(List, List, int, BertEncoding)
+     */
+    public BertEncoding encode(List<String> inputs, int maxLength, BertEncoding encoding) {
+        return encode(inputs, null, maxLength, encoding);
+    }
+
+    /**
+     * Encodes a batch of sentence pairs into input ids, token type ids and attention masks.
+     *
+     * <p>Each pair is encoded as {@code [CLS] first [SEP] second [SEP]}, where the second segment
+     * has token type 1. If an encoded pair is longer than {@code maxLength}, tokens are removed
+     * from the end of the longer segment until it fits. All inputs are padded to the longest one
+     * in the batch.
+     *
+     * @param first the first sentence of each pair
+     * @param second the second sentence of each pair, or {@code null} to encode single sentences
+     * @param maxLength the maximum length of an encoded pair, or 0 for no limit
+     * @param encoding the encoding to reuse, or {@code null} to create a new one
+     * @return the encoded batch
+     */
+    public BertEncoding encode(
+            List<String> first, List<String> second, int maxLength, BertEncoding encoding) {
+        int batchSize = first.size();
+        if (second != null && second.size() != batchSize) {
+            throw new IllegalArgumentException(
+                    "Batch size mismatch: " + batchSize + " vs " + second.size());
         }
-        return wordpieceTokenizer.preprocess(tokens);
+        int special = second == null ? 2 : 3;
+        if (maxLength > 0 && maxLength < special) {
+            throw new IllegalArgumentException("maxLength must be at least " + special);
+        }
+
+        long[][] firstIds = new long[batchSize][];
+        long[][] secondIds = new long[batchSize][];
+        int[] firstLengths = new int[batchSize];
+        int[] secondLengths = new int[batchSize];
+        int sequenceLength = 0;
+        for (int i = 0; i < batchSize; ++i) {
+            firstIds[i] = tokenizeToIds(first.get(i));
+            secondIds[i] = second == null ? new long[0] : tokenizeToIds(second.get(i));
+            int firstLength = firstIds[i].length;
+            int secondLength = secondIds[i].length;
+            if (maxLength > 0) {
+                while (firstLength + secondLength + special > maxLength) {
+                    if (firstLength > secondLength) {
+                        --firstLength;
+                    } else {
+                        --secondLength;
+                    }
+                }
+            }
+            firstLengths[i] = firstLength;
+            secondLengths[i] = secondLength;
+            sequenceLength = Math.max(sequenceLength, firstLength + secondLength + special);
+        }
+
+        BertEncoding ret = encoding == null ? new BertEncoding() : encoding;
+        ret.reset(batchSize, sequenceLength, padId);
+        for (int i = 0; i < batchSize; ++i) {
+            int offset = 0;
+            ret.put(i, offset++, clsId, 0);
+            ret.put(i, offset, firstIds[i], 0, firstLengths[i], 0);
+            offset += firstLengths[i];
+            ret.put(i, offset++, sepId, 0);
+            if (second != null) {
+                ret.put(i, offset, secondIds[i], 0, secondLengths[i], 1);
+                offset += secondLengths[i];
+                ret.put(i, offset, sepId, 1);
+            }
+        }
+        return ret;
     }
 
     /**
@@ -95,4 +187,12 @@ public class BertFullTokenizer extends SimpleTokenizer {
         processors.add(new LambdaProcessor(String::trim));
         return processors;
     }
+
+    private List<String> basicTokenize(String input) {
+        List<String> tokens = new ArrayList<>(Collections.singletonList(input));
+        for (TextProcessor processor : basicBertPreprocessors) {
+            tokens = processor.preprocess(tokens);
+        }
+        return tokens;
+    }
 }
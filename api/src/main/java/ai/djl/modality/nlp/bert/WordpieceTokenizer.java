@@ -16,6 +16,7 @@ import ai.djl.modality.nlp.SimpleVocabulary;
 import ai.djl.modality.nlp.preprocess.SimpleTokenizer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * WordpieceTokenizer tokenizes a piece of text into its word pieces.
@@ -29,15 +30,25 @@ import java.util.List;
  * ["un", "##aff", "##able"]
  * </pre>
  *
+ * <p>The vocabulary is compiled into a character trie when the tokenizer is created, so the longest
+ * match of each word piece is found in a single scan, without building candidate substrings. The
+ * tokenizer is immutable and can be shared between threads; {@link #tokenizeToIds(String)} returns
+ * the vocabulary indices directly, and {@link #batchTokenize(List)} tokenizes sentences in
+ * parallel.
+ *
  * <p>Reference implementation: <a
  * href="https://github.com/google-research/bert/blob/master/tokenization.py#L300">Google Research
  * Bert Tokenizer</a>
  */
 public class WordpieceTokenizer extends SimpleTokenizer {
 
+    private static final String CONTINUATION = "##";
+
     private String unknown;
     private int maxInputChars;
     private SimpleVocabulary vocabulary;
+    private WordpieceTrie trie;
+    private int continuation;
 
     /**
      * Creates an instance of {@code WordpieceTokenizer}.
@@ -50,57 +61,127 @@ public class WordpieceTokenizer extends SimpleTokenizer {
         this.unknown = unknown;
         this.maxInputChars = maxInputChars;
         this.vocabulary = vocabulary;
+        trie = new WordpieceTrie(vocabulary.getAllTokens(), vocabulary);
+        continuation = trie.find(trie.getRoot(), CONTINUATION);
     }
 
     /** {@inheritDoc} */
     @Override
     public List<String> tokenize(String sentence) {
-        StringBuilder sb = new StringBuilder();
-        List<String> subTokens = new ArrayList<>();
         List<String> outputTokens = new ArrayList<>();
+        int[] nodes = new int[maxInputChars];
         for (String token : super.tokenize(sentence.trim())) {
-            char[] chars = token.toCharArray();
-            if (chars.length > maxInputChars) {
+            int count = matchWord(token, nodes);
+            if (count < 0) {
                 outputTokens.add(unknown);
                 continue;
             }
-            boolean isBad = false;
-            int start = 0;
-            subTokens.clear();
-            String currentSubString = null;
-            while (start < chars.length) {
-                int end = chars.length;
-                while (start < end) {
-                    sb.setLength(0);
-                    sb.append(token, start, end);
-                    if (start > 0) {
-                        sb.insert(0, "##");
-                    }
-                    String subString = sb.toString();
-                    if (vocabulary.contains(subString)) {
-                        currentSubString = subString;
-                        break;
-                    } else {
-                        currentSubString = null;
-                    }
-                    end--;
-                }
-                if (currentSubString == null) {
-                    isBad = true;
-                    break;
-                }
-                subTokens.add(currentSubString);
-                if (subTokens.size() > maxInputChars) {
-                    throw new IllegalStateException("Too many subTokens for: '" + sentence + '\'');
+            for (int i = 0; i < count; ++i) {
+                outputTokens.add(trie.getToken(nodes[i]));
+            }
+        }
+        return outputTokens;
+    }
+
+    /**
+     * Tokenizes a sentence into the vocabulary indices of its word pieces.
+     *
+     * <p>The result is the same as looking up the index of each token of {@link
+     * #tokenize(String)}.
+     *
+     * @param sentence the sentence to tokenize
+     * @return the vocabulary indices of the word pieces
+     */
+    public long[] tokenizeToIds(String sentence) {
+        return tokenizeToIds(super.tokenize(sentence.trim()));
+    }
+
+    /**
+     * Tokenizes words that are already split on whitespace into the vocabulary indices of their
+     * word pieces.
+     *
+     * @param words the words to tokenize
+     * @return the vocabulary indices of the word pieces
+     */
+    public long[] tokenizeToIds(List<String> words) {
+        long[] ids = new long[16];
+        int size = 0;
+        int[] nodes = new int[maxInputChars];
+        for (String token : words) {
+            int count = matchWord(token, nodes);
+            int required = size + Math.max(count, 1);
+            if (required > ids.length) {
+                long[] grown = new long[Math.max(ids.length * 2, required)];
+                System.arraycopy(ids, 0, grown, 0, size);
+                ids = grown;
+            }
+            if (count < 0) {
+                ids[size++] = vocabulary.getIndex(unknown);
+                continue;
+            }
+            for (int i = 0; i < count; ++i) {
+                ids[size++] = trie.getId(nodes[i]);
+            }
+        }
+        if (size == ids.length) {
+            return ids;
+        }
+        long[] ret = new long[size];
+        System.arraycopy(ids, 0, ret, 0, size);
+        return ret;
+    }
+
+    /**
+     * Tokenizes a batch of sentences in parallel.
+     *
+     * @param sentences the sentences to tokenize
+     * @return the word pieces of each sentence, in the order of the input
+     */
+    public List<List<String>> batchTokenize(List<String> sentences) {
+        return sentences.parallelStream().map(this::tokenize).collect(Collectors.toList());
+    }
+
+    /**
+     * Tokenizes a batch of sentences into vocabulary indices in parallel.
+     *
+     * @param sentences the sentences to tokenize
+     * @return the vocabulary indices of the word pieces of each sentence, in the order of the input
+     */
+    public List<long[]> batchTokenizeToIds(List<String> sentences) {
+        return sentences.parallelStream().map(this::tokenizeToIds).collect(Collectors.toList());
+    }
+
+    /**
+     * Splits a word into the trie nodes of its longest-match-first word pieces.
+     *
+     * @param word the word to split
+     * @param nodes the array to store the trie nodes of the word pieces in
+     * @return the number of word pieces, or -1 if the word is unknown
+     */
+    private int matchWord(String word, int[] nodes) {
+        int length = word.length();
+        if (length > maxInputChars) {
+            return -1;
+        }
+        int count = 0;
+        int start = 0;
+        while (start < length) {
+            int node = start == 0 ? trie.getRoot() : continuation;
+            int match = -1;
+            int end = start;
+            for (int i = start; i < length && node >= 0; ++i) {
+                node = trie.getChild(node, word.charAt(i));
+                if (node >= 0 && trie.getToken(node) != null) {
+                    match = node;
+                    end = i + 1;
                 }
-                start = end;
             }
-            if (isBad) {
-                outputTokens.add(unknown);
-            } else {
-                outputTokens.addAll(subTokens);
+            if (match < 0) {
+                return -1;
             }
+            nodes[count++] = match;
+            start = end;
         }
-        return outputTokens;
+        return count;
     }
 }
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.modality.nlp.bert;
+
+import ai.djl.modality.nlp.Vocabulary;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An immutable character trie of the tokens of a {@link Vocabulary}.
+ *
+ * <p>The children of all nodes are stored in flat arrays, sorted by character, so a lookup is a
+ * binary search per character. Every token node keeps the token string and its index, so matches
+ * return them without building substrings.
+ */
+final class WordpieceTrie {
+
+    private int[] firstChild;
+    private char[] edgeChars;
+    private int[] edgeTargets;
+    private String[] tokens;
+    private long[] ids;
+
+    /**
+     * Builds the trie of the tokens.
+     *
+     * @param tokens the tokens to add
+     * @param vocabulary the vocabulary to look up the index of the tokens in
+     */
+    WordpieceTrie(Collection<String> tokens, Vocabulary vocabulary) {
+        List<Map<Character, Integer>> children = new ArrayList<>();
+        List<String> nodeTokens = new ArrayList<>();
+        children.add(new TreeMap<>());
+        nodeTokens.add(null);
+        for (String token : tokens) {
+            int node = 0;
+            for (int i = 0; i < token.length(); ++i) {
+                Map<Character, Integer> map = children.get(node);
+                Integer child = map.get(token.charAt(i));
+                if (child == null) {
+                    child = children.size();
+                    map.put(token.charAt(i), child);
+                    children.add(new TreeMap<>());
+                    nodeTokens.add(null);
+                }
+                node = child;
+            }
+            nodeTokens.set(node, token);
+        }
+
+        int size = children.size();
+        firstChild = new int[size + 1];
+        edgeChars = new char[size - 1];
+        edgeTargets = new int[size - 1];
+        this.tokens = nodeTokens.toArray(new String[0]);
+        ids = new long[size];
+        int edge = 0;
+        for (int node = 0; node < size; ++node) {
+            firstChild[node] = edge;
+            for (Map.Entry<Character, Integer> entry : children.get(node).entrySet()) {
+                edgeChars[edge] = entry.getKey();
+                edgeTargets[edge++] = entry.getValue();
+            }
+            if (this.tokens[node] != null) {
+                ids[node] = vocabulary.getIndex(this.tokens[node]);
+            }
+        }
+        firstChild[size] = edge;
+    }
+
+    /**
+     * Returns the root node.
+     *
+     * @return the root node
+     */
+    int getRoot() {
+        return 0;
+    }
+
+    /**
+     * Returns the node reached from a node by a sequence of characters.
+     *
+     * @param node the node to start from
+     * @param chars the characters to follow
+     * @return the node reached, or -1 if there is none
+     */
+    int find(int node, CharSequence chars) {
+        for (int i = 0; i < chars.length() && node >= 0; ++i) {
+            node = getChild(node, chars.charAt(i));
+        }
+        return node;
+    }
+
+    /**
+     * Returns the child of a node for a character.
+     *
+     * @param node the parent node
+     * @param c the character of the edge
+     * @return the child node, or -1 if there is none
+     */
+    int getChild(int node, char c) {
+        int low = firstChild[node];
+        int high = firstChild[node + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char value = edgeChars[mid];
+            if (value < c) {
+                low = mid + 1;
+            } else if (value > c) {
+                high = mid - 1;
+            } else {
+                return edgeTargets[mid];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the token that ends at a node.
+     *
+     * @param node the node
+     * @return the token, or {@code null} if no token ends at the node
+     */
+    String getToken(int node) {
+        return tokens[node];
+    }
+
+    /**
+     * Returns the vocabulary index of the token that ends at a node.
+     *
+     * @param node the node of a token
+     * @return the vocabulary index of the token
+     */
+    long getId(int node) {
+        return ids[node];
+    }
+}
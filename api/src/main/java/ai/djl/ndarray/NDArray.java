@@ -19,6 +19,8 @@ import ai.djl.ndarray.internal.NDFormat;
 import ai.djl.ndarray.types.DataType;
 import ai.djl.ndarray.types.Shape;
 import ai.djl.ndarray.types.SparseFormat;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.DoubleBuffer;
@@ -146,6 +148,19 @@ public interface NDArray extends AutoCloseable {
         return NDSerializer.encode(this);
     }
 
+    /**
+     * Encodes {@code NDArray} to an {@link OutputStream}.
+     *
+     * <p>The encoding is the same as {@link #encode()}. If the stream is also a {@link
+     * java.nio.channels.WritableByteChannel}, the data is written without intermediate copy.
+     *
+     * @param os the {@link OutputStream} to write to
+     * @throws IOException if failed to write to the stream
+     */
+    default void encode(OutputStream os) throws IOException {
+        NDSerializer.encode(this, os);
+    }
+
     /**
      * Attaches this {@code NDArray} to the specified {@link NDManager}.
      *
@@ -19,6 +19,10 @@ import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -90,6 +94,31 @@ public class NDList extends ArrayList<NDArray> implements AutoCloseable {
         }
     }
 
+    /**
+     * Decodes NDList from a {@link ByteBuffer} without intermediate copies.
+     *
+     * <p>The position of the buffer is advanced past the decoded {@code NDList}.
+     *
+     * @param manager manager assigned to {@link NDArray}
+     * @param bb the buffer to load from
+     * @return {@code NDList}
+     */
+    public static NDList decode(NDManager manager, ByteBuffer bb) {
+        try {
+            int size = bb.order(ByteOrder.BIG_ENDIAN).getInt();
+            if (size < 0) {
+                throw new IllegalArgumentException("Invalid NDList size: " + size);
+            }
+            NDList list = new NDList();
+            for (int i = 0; i < size; i++) {
+                list.add(i, manager.decode(bb));
+            }
+            return list;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Malformed data", e);
+        }
+    }
+
     /**
      * Removes the first occurrence of the specified element from this NDList if it is present.
      *
@@ -237,18 +266,31 @@ public class NDList extends ArrayList<NDArray> implements AutoCloseable {
      */
     public byte[] encode() {
         try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-            DataOutputStream dos = new DataOutputStream(baos);
-            dos.writeInt(size());
-            for (NDArray nd : this) {
-                dos.write(nd.encode());
-            }
-            dos.flush();
+            encode(baos);
             return baos.toByteArray();
         } catch (IOException e) {
             throw new AssertionError("NDList is not writable", e);
         }
     }
 
+    /**
+     * Encodes the NDList to an {@link OutputStream}.
+     *
+     * <p>The encoding is the same as {@link #encode()}.
+     *
+     * @param os the {@link OutputStream} to write to
+     * @throws IOException if failed to write to the stream
+     * @see NDArray#encode(OutputStream)
+     */
+    public void encode(OutputStream os) throws IOException {
+        DataOutputStream dos = new DataOutputStream(os);
+        dos.writeInt(size());
+        dos.flush();
+        for (NDArray nd : this) {
+            nd.encode(os);
+        }
+    }
+
     /**
      * Gets all of shapes in the {@code NDList}.
      *
@@ -25,6 +25,7 @@ import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.Buffer;
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.nio.DoubleBuffer;
 import java.nio.FloatBuffer;
@@ -608,6 +609,22 @@ public interface NDManager extends AutoCloseable {
         }
     }
 
+    /**
+     * Decodes {@link NDArray} from a {@link ByteBuffer} without intermediate copies.
+     *
+     * <p>The position of the buffer is advanced past the decoded {@link NDArray}.
+     *
+     * @param bb the buffer to load from
+     * @return {@link NDArray}
+     */
+    default NDArray decode(ByteBuffer bb) {
+        try {
+            return NDSerializer.decode(this, bb);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("NDArray decoding failed", e);
+        }
+    }
+
     /**
      * Decodes {@link NDArray} through {@link DataInputStream}.
      *
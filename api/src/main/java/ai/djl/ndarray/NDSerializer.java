@@ -20,7 +20,11 @@ import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 
 /** A class contains encoding and decoding logic for NDArray. */
 final class NDSerializer {
@@ -39,48 +43,68 @@ final class NDSerializer {
      */
     static byte[] encode(NDArray array) {
         try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-            DataOutputStream dos = new DataOutputStream(baos);
-            // magic string for version identification
-            dos.writeUTF(MAGIC_NUMBER);
-            dos.writeInt(VERSION);
-            String name = array.getName();
-            if (name == null) {
-                dos.write(0);
-            } else {
-                dos.write(1);
-                dos.writeUTF(name);
-            }
-            dos.writeUTF(array.getSparseFormat().name());
-            dos.writeUTF(array.getDataType().name());
-
-            Shape shape = array.getShape();
-            dos.write(shape.getEncoded());
-
-            ByteBuffer bb = array.toByteBuffer();
-            int length = bb.remaining();
-            dos.writeInt(length);
-
-            if (length > 0) {
-                if (length > BUFFER_SIZE) {
-                    byte[] buf = new byte[BUFFER_SIZE];
-                    while (length > BUFFER_SIZE) {
-                        bb.get(buf);
-                        dos.write(buf);
-                        length = bb.remaining();
-                    }
-                }
-
-                byte[] buf = new byte[length];
-                bb.get(buf);
-                dos.write(buf);
-            }
-            dos.flush();
+            encode(array, baos);
             return baos.toByteArray();
         } catch (IOException e) {
             throw new AssertionError("This should never happen", e);
         }
     }
 
+    /**
+     * Encodes {@link NDArray} to an {@link OutputStream}.
+     *
+     * <p>If the stream is also a {@link WritableByteChannel}, the data is written straight from
+     * {@link NDArray#toByteBuffer()} without intermediate copy.
+     *
+     * @param array the input {@link NDArray}
+     * @param os the {@link OutputStream} to write to
+     * @throws IOException if failed to write to the stream
+     */
+    static void encode(NDArray array, OutputStream os) throws IOException {
+        // the header is small, write it in one go
+        ByteArrayOutputStream header = new ByteArrayOutputStream(64);
+        DataOutputStream dos = new DataOutputStream(header);
+        // magic string for version identification
+        dos.writeUTF(MAGIC_NUMBER);
+        dos.writeInt(VERSION);
+        String name = array.getName();
+        if (name == null) {
+            dos.write(0);
+        } else {
+            dos.write(1);
+            dos.writeUTF(name);
+        }
+        dos.writeUTF(array.getSparseFormat().name());
+        dos.writeUTF(array.getDataType().name());
+
+        Shape shape = array.getShape();
+        dos.write(shape.getEncoded());
+
+        ByteBuffer bb = array.toByteBuffer();
+        int length = bb.remaining();
+        dos.writeInt(length);
+        header.writeTo(os);
+
+        if (length == 0) {
+            return;
+        }
+        if (os instanceof WritableByteChannel) {
+            WritableByteChannel channel = (WritableByteChannel) os;
+            while (bb.hasRemaining()) {
+                channel.write(bb);
+            }
+        } else if (bb.hasArray()) {
+            os.write(bb.array(), bb.arrayOffset() + bb.position(), length);
+        } else {
+            byte[] buf = new byte[Math.min(length, BUFFER_SIZE)];
+            while (bb.hasRemaining()) {
+                int size = Math.min(buf.length, bb.remaining());
+                bb.get(buf, 0, size);
+                os.write(buf, 0, size);
+            }
+        }
+    }
+
     /**
      * Decodes {@link NDArray} through {@link DataInputStream}.
      *
@@ -143,4 +167,65 @@ final class NDSerializer {
         array.setName(name);
         return array;
     }
+
+    /**
+     * Decodes {@link NDArray} from a {@link ByteBuffer}.
+     *
+     * <p>The data is copied only once, from the buffer straight into memory owned by the {@link
+     * NDManager}. The position of the buffer is advanced past the decoded {@link NDArray}.
+     *
+     * @param manager the {@link NDManager} assigned to the {@link NDArray}
+     * @param bb the buffer to load from
+     * @return {@link NDArray}
+     */
+    static NDArray decode(NDManager manager, ByteBuffer bb) {
+        bb.order(ByteOrder.BIG_ENDIAN);
+        if (!MAGIC_NUMBER.equals(readUTF(bb))) {
+            throw new IllegalArgumentException("Malformed NDArray data");
+        }
+
+        // NDArray encode version
+        int version = bb.getInt();
+        if (version < 1 || version > VERSION) {
+            throw new IllegalArgumentException("Unexpected NDArray encode version " + version);
+        }
+
+        String name = null;
+        if (version > 1) {
+            byte flag = bb.get();
+            if (flag == 1) {
+                name = readUTF(bb);
+            }
+        }
+
+        readUTF(bb); // ignore SparseFormat
+
+        DataType dataType = DataType.valueOf(readUTF(bb));
+
+        Shape shape = Shape.decode(bb);
+
+        // Data
+        int length = bb.getInt();
+        if (length < 0 || length > bb.remaining()) {
+            throw new IllegalArgumentException("Invalid NDArray data length: " + length);
+        }
+        ByteBuffer data = manager.allocateDirect(length);
+        if (length > 0) {
+            ByteBuffer src = bb.duplicate();
+            src.limit(src.position() + length);
+            data.put(src);
+            data.rewind();
+            bb.position(bb.position() + length);
+        }
+        NDArray array = manager.create(dataType.asDataType(data), shape);
+        array.setName(name);
+        return array;
+    }
+
+    private static String readUTF(ByteBuffer bb) {
+        int length = bb.getShort() & 0xFFFF;
+        byte[] buf = new byte[length];
+        bb.get(buf);
+        return new String(buf, StandardCharsets.UTF_8);
+    }
 }
@@ -476,4 +476,28 @@ public class Shape {
         }
         return new Shape(shapeValue, new String(layout));
     }
+
+    /**
+     * Decodes the data in the given {@link ByteBuffer} and converts it into the corresponding
+     * {@link Shape} object.
+     *
+     * @param bb the buffer to read from, in big endian order
+     * @return the corresponding {@link Shape} object
+     */
+    public static Shape decode(ByteBuffer bb) {
+        // Shape
+        int length = bb.getInt();
+        long[] shapeValue = new long[length];
+        for (int i = 0; i < length; ++i) {
+            shapeValue[i] = bb.getLong();
+        }
+
+        // Layout
+        length = bb.getInt();
+        char[] layout = new char[length];
+        for (int i = 0; i < length; ++i) {
+            layout[i] = bb.getChar();
+        }
+        return new Shape(shapeValue, new String(layout));
+    }
 }
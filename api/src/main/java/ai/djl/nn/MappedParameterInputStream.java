@@ -0,0 +1,117 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.nn;
+
+import ai.djl.ndarray.types.Shape;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link DataInputStream} over a memory-mapped parameter file, from which {@link Parameter}s are
+ * loaded lazily.
+ *
+ * <p>When a {@link Parameter} is loaded from this stream, it only keeps a read-only slice of the
+ * mapped file, and the {@link ai.djl.ndarray.NDArray} is decoded on first use. Since the slices
+ * refer to the same mapping, the parameter file is held in memory once, by the page cache, no
+ * matter how many models load it.
+ */
+public class MappedParameterInputStream extends DataInputStream {
+
+    private ByteBuffer buffer;
+
+    /**
+     * Constructs a new {@code MappedParameterInputStream} that reads from the buffer.
+     *
+     * @param buffer the mapped parameter file
+     */
+    public MappedParameterInputStream(ByteBuffer buffer) {
+        super(new BufferInputStream(buffer.duplicate()));
+        this.buffer = ((BufferInputStream) in).buffer;
+    }
+
+    /**
+     * Reads over an encoded {@link ai.djl.ndarray.NDArray} and returns its bytes without decoding.
+     *
+     * @return a read-only buffer of the encoded {@link ai.djl.ndarray.NDArray}
+     * @throws IOException if the encoded {@link ai.djl.ndarray.NDArray} is malformed
+     */
+    public ByteBuffer readEncodedArray() throws IOException {
+        int start = buffer.position();
+        if (!"NDAR".equals(readUTF())) {
+            throw new IOException("Malformed NDArray data");
+        }
+        int version = readInt();
+        if (version > 1 && readByte() == 1) {
+            readUTF(); // name
+        }
+        readUTF(); // SparseFormat
+        readUTF(); // DataType
+        Shape.decode(this);
+        int length = readInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new EOFException("Invalid NDArray data length: " + length);
+        }
+        buffer.position(buffer.position() + length);
+
+        ByteBuffer encoded = buffer.duplicate();
+        encoded.limit(buffer.position());
+        encoded.position(start);
+        return encoded.slice().asReadOnlyBuffer();
+    }
+
+    private static final class BufferInputStream extends InputStream {
+
+        ByteBuffer buffer;
+
+        BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int size = Math.min(len, buffer.remaining());
+            buffer.get(b, off, size);
+            return size;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public long skip(long n) {
+            int size = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + size);
+            return size;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
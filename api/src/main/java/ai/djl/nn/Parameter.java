@@ -22,6 +22,7 @@ import ai.djl.training.initializer.Initializer;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Objects;
 import java.util.UUID;
 
@@ -43,7 +44,9 @@ public class Parameter implements AutoCloseable {
     private ParameterType type;
     private DataType mandatoryDataType;
     private Initializer initializer;
-    private NDArray array;
+    private volatile NDArray array;
+    private NDManager manager;
+    private ByteBuffer encoded;
     private boolean requiresGrad;
     private SparseFormat gradientFormat;
 
@@ -130,6 +133,7 @@ public class Parameter implements AutoCloseable {
      * @param array the {@link NDArray} that contains values of this {@code Parameter}
      */
     public void setArray(NDArray array) {
+        encoded = null;
         this.array = array;
         array.setName(name);
     }
@@ -143,7 +147,11 @@ public class Parameter implements AutoCloseable {
         if (!isInitialized()) {
             throw new IllegalStateException("The array has not been initialized");
         }
-        return array;
+        NDArray result = array;
+        if (result == null) {
+            result = decodeArray();
+        }
+        return result;
     }
 
     /**
@@ -170,7 +178,7 @@ public class Parameter implements AutoCloseable {
      * @return {@code true} if this {@code Parameter} is initialized
      */
     public boolean isInitialized() {
-        return array != null;
+        return array != null || encoded != null;
     }
 
     /**
@@ -207,7 +215,7 @@ public class Parameter implements AutoCloseable {
         }
 
         if (requireGradient()) {
-            array.attachGradient(gradientFormat);
+            getArray().attachGradient(gradientFormat);
         }
     }
 
@@ -226,7 +234,7 @@ public class Parameter implements AutoCloseable {
         dos.writeChar('P');
         dos.writeByte(VERSION);
         dos.writeUTF(getName());
-        dos.write(array.encode());
+        dos.write(getArray().encode());
     }
 
     /**
@@ -235,6 +243,9 @@ public class Parameter implements AutoCloseable {
      * <p>Currently, we cannot deserialize into the exact subclass of NDArray. The SparseNDArray
      * will be loaded as NDArray only.
      *
+     * <p>If the stream is a {@link MappedParameterInputStream}, the NDArray is decoded from the
+     * mapped file on first use.
+     *
      * @param manager the NDManager
      * @param dis the InputStream
      * @throws IOException if failed to read
@@ -262,15 +273,37 @@ public class Parameter implements AutoCloseable {
                     "Unexpected parameter name: " + parameterName + ", expected: " + name);
         }
 
-        array = manager.decode(dis);
+        if (dis instanceof MappedParameterInputStream) {
+            encoded = ((MappedParameterInputStream) dis).readEncodedArray();
+            this.manager = manager;
+            array = null;
+        } else {
+            array = manager.decode(dis);
+        }
     }
 
     /** {@inheritDoc} */
     @Override
     public void close() {
+        encoded = null;
         if (array != null) {
             array.close();
             array = null;
         }
     }
+
+    private synchronized NDArray decodeArray() {
+        if (array == null) {
+            if (encoded == null) {
+                throw new IllegalStateException("The parameter has been closed");
+            }
+            NDArray decoded = manager.decode(encoded.duplicate());
+            decoded.setName(name);
+            array = decoded;
+            // the mapped file is released once all parameters are decoded
+            encoded = null;
+            manager = null;
+        }
+        return array;
+    }
 }
@@ -28,9 +28,17 @@ import java.nio.file.StandardCopyOption;
 import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.ZipInputStream;
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
@@ -43,12 +51,31 @@ import org.slf4j.LoggerFactory;
  * The {@code AbstractRepository} is the shared base for implementers of the {@link Repository}
  * interface.
  *
+ * <p>The items of an artifact are downloaded in parallel. HTTP downloads are split into concurrent
+ * range segments, and a failed download is resumed from its part files by the next {@link
+ * #prepare(Artifact, Progress)}. The number of parallel items, the number of segments per file and
+ * the minimum segment size can be set with the {@code ai.djl.repository.download.threads}, {@code
+ * ai.djl.repository.download.segments} and {@code ai.djl.repository.download.segment_size} system
+ * properties.
+ *
+ * <p>Artifacts prepared into the cache directory are managed by a content-addressed cache that can
+ * be shared by multiple JVMs. Identical files are stored once, and the least recently used
+ * artifacts are evicted when the cache is larger than the {@code DJL_CACHE_SIZE} system property
+ * or environment variable, for example {@code 20g}.
+ *
  * @see Repository
  */
 public abstract class AbstractRepository implements Repository {
 
     private static final Logger logger = LoggerFactory.getLogger(AbstractRepository.class);
 
+    private static final String DOWNLOAD_THREADS = "ai.djl.repository.download.threads";
+    private static final String DOWNLOAD_SEGMENTS = "ai.djl.repository.download.segments";
+    private static final String SEGMENT_SIZE = "ai.djl.repository.download.segment_size";
+
+    // the SHA1 hashes of the files saved into each temporary directory, known while saving them
+    private Map<Path, Map<Path, String>> fileHashes = new ConcurrentHashMap<>();
+
     /** {@inheritDoc} */
     @Override
     public InputStream openStream(Artifact.Item item, String path) throws IOException {
@@ -100,9 +127,29 @@ public abstract class AbstractRepository implements Repository {
     @Override
     public void prepare(Artifact artifact, Progress progress) throws IOException {
         Path resourceDir = getResourceDirectory(artifact);
+        CacheManager cache = CacheManager.newInstance(getCacheDirectory());
+        if (!cache.isManaged(resourceDir)) {
+            prepare(artifact, resourceDir, progress, null);
+            return;
+        }
+
+        // another JVM sharing the cache may be preparing the same artifact
+        try (CacheManager.CacheLock ignore = cache.lock(resourceDir)) {
+            Map<String, String> hashes = new ConcurrentHashMap<>();
+            if (prepare(artifact, resourceDir, progress, hashes)) {
+                cache.add(resourceDir, hashes);
+            } else {
+                cache.touch(resourceDir);
+            }
+        }
+    }
+
+    private boolean prepare(
+            Artifact artifact, Path resourceDir, Progress progress, Map<String, String> hashes)
+            throws IOException {
         if (Files.exists(resourceDir)) {
             logger.debug("Files have been downloaded already: {}", resourceDir);
-            return;
+            return false;
         }
 
         Metadata metadata = artifact.getMetadata();
@@ -116,21 +163,32 @@ public abstract class AbstractRepository implements Repository {
 
         Files.createDirectories(parentDir);
         Path tmp = Files.createTempDirectory(parentDir, resourceDir.toFile().getName());
+        ThroughputProgress tracker = null;
         if (progress != null) {
             long totalSize = 0;
             for (Artifact.Item item : files.values()) {
                 totalSize += item.getSize();
             }
-            progress.reset("Downloading", totalSize);
+            tracker = new ThroughputProgress(progress);
+            tracker.reset("Downloading", totalSize);
         }
 
+        if (hashes != null) {
+            fileHashes.put(tmp, new ConcurrentHashMap<>());
+        }
         try {
             logger.debug("Items to download: {}", files.size());
-            for (Artifact.Item item : files.values()) {
-                download(tmp, baseUri, item, progress);
+            downloadAll(tmp, baseUri, files.values(), tracker);
+            if (hashes != null) {
+                Path base = tmp.normalize();
+                for (Map.Entry<Path, String> entry : fileHashes.get(tmp).entrySet()) {
+                    hashes.put(base.relativize(entry.getKey()).toString(), entry.getValue());
+                }
             }
             Utils.moveQuietly(tmp, resourceDir);
+            return true;
         } finally {
+            fileHashes.remove(tmp);
             Utils.deleteQuietly(tmp);
             if (progress != null) {
                 progress.end();
@@ -171,10 +229,97 @@ public abstract class AbstractRepository implements Repository {
         if (!fileUri.isAbsolute()) {
             fileUri = getBaseUri().resolve(baseUri).resolve(fileUri);
         }
+        download(fileUri, tmp, baseUri, item, progress);
+    }
 
+    /**
+     * Downloads an item from the URI and saves it into the temporary directory.
+     *
+     * <p>HTTP URIs are downloaded in concurrent range segments into the {@code downloads} folder of
+     * the cache directory, where they are kept to be resumed if the download fails. The part files
+     * are locked against the other threads and JVMs downloading the same URI. The SHA1 hash is
+     * verified while the downloaded content is saved.
+     *
+     * @param fileUri the URI to download the item from
+     * @param tmp the temporary directory to save the item into
+     * @param baseUri the base URI of the artifact
+     * @param item the item to download
+     * @param progress the (optionally null) progress tracker
+     * @throws IOException if the download failed or the item is invalid
+     */
+    protected void download(
+            URI fileUri, Path tmp, URI baseUri, Artifact.Item item, Progress progress)
+            throws IOException {
         logger.debug("Downloading artifact: {} ...", fileUri);
-        try (InputStream is = fileUri.toURL().openStream()) {
-            save(is, tmp, baseUri, item, progress);
+        String scheme = fileUri.getScheme();
+        if (!"http".equalsIgnoreCase(scheme) && !"https".equalsIgnoreCase(scheme)) {
+            try (InputStream is = fileUri.toURL().openStream()) {
+                save(is, tmp, baseUri, item, progress);
+            }
+            return;
+        }
+
+        String key = md5hash(fileUri.toString());
+        Path downloads = getCacheDirectory().resolve("downloads");
+        Path dir = downloads.resolve(key);
+        int segments = Integer.getInteger(DOWNLOAD_SEGMENTS, 4);
+        long minSegmentSize = Long.getLong(SEGMENT_SIZE, 16L * 1024 * 1024);
+        // the lock file is kept outside of the part directory, which is deleted when done
+        Path lockFile = downloads.resolve(key + ".lock");
+        try (CacheManager.CacheLock ignore = CacheManager.CacheLock.lock(lockFile, true)) {
+            Downloader downloader =
+                    new Downloader(fileUri.toURL(), dir, item.getSize(), segments, minSegmentSize);
+            downloader.download(progress);
+            try (InputStream is = downloader.openStream()) {
+                // the progress was tracked while downloading
+                save(is, tmp, baseUri, item, null);
+            } finally {
+                // the content is either saved or invalid, only failed downloads are resumed
+                downloader.delete();
+            }
+        }
+    }
+
+    private void downloadAll(
+            Path tmp, URI baseUri, Collection<Artifact.Item> items, Progress progress)
+            throws IOException {
+        int threads = Math.min(items.size(), Integer.getInteger(DOWNLOAD_THREADS, 4));
+        if (threads <= 1) {
+            for (Artifact.Item item : items) {
+                download(tmp, baseUri, item, progress);
+            }
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Void>> futures = new ArrayList<>(items.size());
+            for (Artifact.Item item : items) {
+                futures.add(
+                        executor.submit(
+                                () -> {
+                                    download(tmp, baseUri, item, progress);
+                                    return null;
+                                }));
+            }
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof IOException) {
+                        throw (IOException) cause;
+                    } else if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    throw new IOException("Failed to download artifact", cause);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Download interrupted", e);
+        } finally {
+            executor.shutdownNow();
         }
     }
 
@@ -182,6 +327,8 @@ public abstract class AbstractRepository implements Repository {
             InputStream is, Path tmp, URI baseUri, Artifact.Item item, Progress progress)
             throws IOException {
         ProgressInputStream pis = new ProgressInputStream(is, progress);
+        Map<Path, String> hashes = fileHashes.get(tmp);
+        Path saved = null;
         String fileName = item.getName();
         String extension = item.getExtension();
         if ("dir".equals(item.getType())) {
@@ -196,9 +343,9 @@ public abstract class AbstractRepository implements Repository {
             if ("zip".equals(extension)) {
                 ZipUtils.unzip(pis, dir);
             } else if ("tgz".equals(extension)) {
-                untar(pis, dir, true);
+                untar(pis, dir, true, hashes);
             } else if ("tar".equals(extension)) {
-                untar(pis, dir, false);
+                untar(pis, dir, false, hashes);
             } else {
                 throw new IOException("File type is not supported: " + extension);
             }
@@ -212,12 +359,18 @@ public abstract class AbstractRepository implements Repository {
                 Files.copy(new GZIPInputStream(pis), file, StandardCopyOption.REPLACE_EXISTING);
             } else {
                 Files.copy(pis, file, StandardCopyOption.REPLACE_EXISTING);
+                saved = file;
             }
         }
-        pis.validateChecksum(item);
+        String sha1 = pis.validateChecksum(item);
+        if (hashes != null && saved != null) {
+            // the file is the downloaded content, so it has the same hash
+            hashes.put(saved.normalize(), sha1);
+        }
     }
 
-    private void untar(InputStream is, Path dir, boolean gzip) throws IOException {
+    private void untar(InputStream is, Path dir, boolean gzip, Map<Path, String> hashes)
+            throws IOException {
         InputStream bis;
         if (gzip) {
             bis = new GzipCompressorInputStream(new BufferedInputStream(is));
@@ -241,7 +394,15 @@ public abstract class AbstractRepository implements Repository {
                                 "Parent path should never be null: " + file.toString());
                     }
                     Files.createDirectories(parentFile);
-                    Files.copy(tis, file, StandardCopyOption.REPLACE_EXISTING);
+                    if (hashes == null) {
+                        Files.copy(tis, file, StandardCopyOption.REPLACE_EXISTING);
+                    } else {
+                        // hash the entry while extracting, so the cache doesn't read it again
+                        DigestInputStream dis = new DigestInputStream(tis, CacheManager.newSha1());
+                        Files.copy(dis, file, StandardCopyOption.REPLACE_EXISTING);
+                        String sha1 = Hex.toHexString(dis.getMessageDigest().digest());
+                        hashes.put(file.normalize(), sha1);
+                    }
                 }
             }
         }
@@ -306,10 +467,11 @@ public abstract class AbstractRepository implements Repository {
             return size;
         }
 
-        private void validateChecksum(Artifact.Item item) throws IOException {
+        private String validateChecksum(Artifact.Item item) throws IOException {
             String expectedHash = item.getSha1Hash();
             if (expectedHash == null) {
-                return;
+                // the hash of the content read so far
+                return Hex.toHexString(dis.getMessageDigest().digest());
             }
 
             // drain InputSteam to get correct sha1 hash
@@ -324,6 +486,7 @@ public abstract class AbstractRepository implements Repository {
                                 + ", actual sha1: "
                                 + sha1);
             }
+            return sha1;
         }
 
         /** {@inheritDoc} */
@@ -332,4 +495,65 @@ public abstract class AbstractRepository implements Repository {
             dis.close();
         }
     }
+
+    /**
+     * A thread safe {@link Progress} that is shared by the parallel downloads, and shows the
+     * download throughput as trailing message.
+     */
+    private static final class ThroughputProgress implements Progress {
+
+        private static final long REFRESH_NANOS = 500_000_000L;
+
+        private Progress progress;
+        private long current;
+        private long begin;
+        private long lastUpdate;
+        private String throughput;
+
+        ThroughputProgress(Progress progress) {
+            this.progress = progress;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public synchronized void reset(String message, long max, String trailingMessage) {
+            progress.reset(message, max, trailingMessage);
+            current = 0;
+            begin = System.nanoTime();
+            lastUpdate = begin;
+            throughput = trailingMessage;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public synchronized void start(long initialProgress) {
+            update(initialProgress, null);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void end() {
+            // a single item is finished, the end of all items is reported by prepare()
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public synchronized void increment(long increment) {
+            update(current + increment, null);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public synchronized void update(long progress, String message) {
+            current = progress;
+            long now = System.nanoTime();
+            if (now - lastUpdate >= REFRESH_NANOS) {
+                lastUpdate = now;
+                double seconds = (now - begin) / 1_000_000_000d;
+                double megabytes = current / (1024d * 1024d);
+                throughput = String.format(Locale.ROOT, "%.1f MB/s", megabytes / seconds);
+            }
+            this.progress.update(current, message == null ? throughput : message);
+        }
+    }
 }
@@ -0,0 +1,471 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.repository;
+
+import ai.djl.util.Hex;
+import ai.djl.util.Utils;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@code CacheManager} manages the prepared artifacts in the cache directory of a repository.
+ *
+ * <ul>
+ *   <li>Files are stored content-addressed: each file is hard linked to an object named by its
+ *       SHA1 hash in the {@code objects} folder, so identical files of different artifacts take
+ *       the disk space only once.
+ *   <li>The last access of each artifact is recorded in the {@code access} folder. When the cache
+ *       is larger than the {@code DJL_CACHE_SIZE} budget, for example {@code 20g}, the least
+ *       recently used artifacts are evicted. The cache is unbounded by default. Artifacts accessed
+ *       within the last ten minutes are never evicted, since another JVM may still be loading
+ *       them.
+ *   <li>The cache can be shared by multiple JVMs: preparing an artifact holds a file lock on it,
+ *       and storing or evicting artifacts holds a file lock on the whole cache.
+ * </ul>
+ */
+final class CacheManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheManager.class);
+
+    private static final String OBJECTS = "objects";
+    private static final String ACCESS = "access";
+    private static final String LOCKS = "locks";
+    private static final long MIN_LINK_SIZE = 64 * 1024;
+    private static final long GRACE_PERIOD = TimeUnit.MINUTES.toMillis(10);
+
+    // file locks are held per JVM, threads of the same JVM are serialized by these locks
+    private static final Map<Path, ReentrantLock> JVM_LOCKS = new ConcurrentHashMap<>();
+
+    private Path cacheDir;
+    private long budget;
+    private boolean linkable;
+
+    /**
+     * Constructs a {@code CacheManager} for the cache directory.
+     *
+     * @param cacheDir the cache directory
+     * @param budget the maximum size of the cache in bytes, 0 for unlimited
+     */
+    CacheManager(Path cacheDir, long budget) {
+        this.cacheDir = cacheDir.toAbsolutePath().normalize();
+        this.budget = budget;
+        linkable = FileSystems.getDefault().supportedFileAttributeViews().contains("unix");
+    }
+
+    /**
+     * Returns a {@code CacheManager} for the cache directory with the {@code DJL_CACHE_SIZE}
+     * budget.
+     *
+     * @param cacheDir the cache directory
+     * @return a {@code CacheManager}
+     */
+    static CacheManager newInstance(Path cacheDir) {
+        String size = System.getProperty("DJL_CACHE_SIZE");
+        if (size == null || size.isEmpty()) {
+            size = System.getenv("DJL_CACHE_SIZE");
+        }
+        return new CacheManager(cacheDir, parseSize(size));
+    }
+
+    /**
+     * Returns if the resource directory is managed by this cache.
+     *
+     * @param resourceDir the resource directory of an artifact
+     * @return {@code true} if the resource directory is inside the cache directory
+     */
+    boolean isManaged(Path resourceDir) {
+        Path dir = resourceDir.toAbsolutePath().normalize();
+        return dir.startsWith(cacheDir) && !dir.equals(cacheDir);
+    }
+
+    /**
+     * Locks the resource directory of an artifact against the other threads and JVMs.
+     *
+     * @param resourceDir the resource directory of an artifact
+     * @return the lock, to be closed when the artifact is prepared
+     * @throws IOException if the lock file cannot be opened
+     */
+    CacheLock lock(Path resourceDir) throws IOException {
+        return CacheLock.lock(getLockFile(getKey(resourceDir)), true);
+    }
+
+    /**
+     * Records an access to the resource directory of an artifact.
+     *
+     * @param resourceDir the resource directory of an artifact
+     * @throws IOException if the access cannot be recorded
+     */
+    void touch(Path resourceDir) throws IOException {
+        Path entry = cacheDir.resolve(ACCESS).resolve(getKey(resourceDir));
+        FileTime now = FileTime.fromMillis(System.currentTimeMillis());
+        if (Files.exists(entry)) {
+            Files.setLastModifiedTime(entry, now);
+            return;
+        }
+        Files.createDirectories(entry.getParent());
+        String relative = cacheDir.relativize(resourceDir.toAbsolutePath().normalize()).toString();
+        Files.write(entry, relative.getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(entry, now);
+    }
+
+    /**
+     * Adds a newly prepared artifact to the cache.
+     *
+     * <p>The files of the artifact are linked to the content-addressed objects, the access is
+     * recorded, and the least recently used artifacts are evicted if the cache is over budget.
+     * Only the files without a known hash are read to hash them.
+     *
+     * @param resourceDir the resource directory of an artifact
+     * @param knownHashes the SHA1 hashes of the files known while saving them, by their path
+     *     relative to the resource directory
+     * @throws IOException if the artifact cannot be added
+     */
+    void add(Path resourceDir, Map<String, String> knownHashes) throws IOException {
+        // hashing is the expensive part, it does not need to exclude the other JVMs
+        Map<Path, String> hashes = linkable ? hashFiles(resourceDir, knownHashes) : null;
+        try (CacheLock ignore = CacheLock.lock(getLockFile("cache"), true)) {
+            if (hashes != null) {
+                link(hashes);
+            }
+            touch(resourceDir);
+            if (budget > 0) {
+                evict(resourceDir);
+            }
+        }
+    }
+
+    /**
+     * Returns the disk space used by the artifacts in the cache.
+     *
+     * @return the disk space used in bytes, files linked to each other are counted once
+     * @throws IOException if the cache cannot be read
+     */
+    long size() throws IOException {
+        Map<Object, Long> files = new HashMap<>();
+        for (Entry entry : listEntries()) {
+            files.putAll(entry.files);
+        }
+        return files.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    private void link(Map<Path, String> hashes) {
+        for (Map.Entry<Path, String> pair : hashes.entrySet()) {
+            Path file = pair.getKey();
+            String hash = pair.getValue();
+            Path object = cacheDir.resolve(OBJECTS).resolve(hash.substring(0, 2)).resolve(hash);
+            try {
+                if (Files.notExists(object)) {
+                    Files.createDirectories(object.getParent());
+                    Files.createLink(object, file);
+                } else if (!Files.isSameFile(object, file)) {
+                    // link next to the file first, so the file is replaced atomically
+                    Path tmp = file.resolveSibling(file.getFileName() + ".link");
+                    Files.createLink(tmp, object);
+                    Files.move(
+                            tmp,
+                            file,
+                            StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE);
+                }
+            } catch (IOException | UnsupportedOperationException e) {
+                logger.debug("Hard links are not supported in the cache directory.", e);
+                return;
+            }
+        }
+    }
+
+    private void evict(Path current) throws IOException {
+        List<Entry> entries = listEntries();
+        Map<Object, Integer> refs = new HashMap<>();
+        Map<Object, Long> sizes = new HashMap<>();
+        for (Entry entry : entries) {
+            for (Map.Entry<Object, Long> file : entry.files.entrySet()) {
+                refs.merge(file.getKey(), 1, Integer::sum);
+                sizes.put(file.getKey(), file.getValue());
+            }
+        }
+        long usage = sizes.values().stream().mapToLong(Long::longValue).sum();
+        if (usage <= budget) {
+            return;
+        }
+
+        Path currentDir = current.toAbsolutePath().normalize();
+        long recent = System.currentTimeMillis() - GRACE_PERIOD;
+        entries.sort(Comparator.comparing(e -> e.lastAccess));
+        for (Entry entry : entries) {
+            if (usage <= budget) {
+                break;
+            }
+            if (entry.lastAccess.toMillis() > recent) {
+                // the remaining artifacts were accessed recently, and may be in use
+                break;
+            }
+            if (entry.dir.equals(currentDir)) {
+                continue;
+            }
+            // skip the artifacts that are being prepared by other threads or JVMs
+            try (CacheLock lock = CacheLock.lock(getLockFile(getKey(entry.dir)), false)) {
+                if (lock == null || isRecent(entry.accessFile, recent)) {
+                    continue;
+                }
+                logger.info("Evicting least recently used artifact: {}", entry.dir);
+                Utils.deleteQuietly(entry.dir);
+                Files.deleteIfExists(entry.accessFile);
+            }
+            for (Object key : entry.files.keySet()) {
+                if (refs.merge(key, -1, Integer::sum) == 0) {
+                    usage -= sizes.get(key);
+                }
+            }
+        }
+        if (usage > budget) {
+            logger.warn("Cache size {} exceeds DJL_CACHE_SIZE {}.", usage, budget);
+        }
+        if (linkable) {
+            deleteUnusedObjects();
+        }
+    }
+
+    private static boolean isRecent(Path accessFile, long recent) throws IOException {
+        // the artifact may have been accessed since the entries were listed
+        return Files.notExists(accessFile)
+                || Files.getLastModifiedTime(accessFile).toMillis() > recent;
+    }
+
+    private List<Entry> listEntries() throws IOException {
+        Path accessDir = cacheDir.resolve(ACCESS);
+        List<Entry> entries = new ArrayList<>();
+        if (Files.notExists(accessDir)) {
+            return entries;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(accessDir)) {
+            for (Path file : stream) {
+                String relative = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+                Path dir = cacheDir.resolve(relative).normalize();
+                if (relative.isEmpty() || !isManaged(dir) || Files.notExists(dir)) {
+                    // the artifact was deleted by the user
+                    Files.deleteIfExists(file);
+                    continue;
+                }
+                entries.add(new Entry(dir, file, Files.getLastModifiedTime(file)));
+            }
+        }
+        return entries;
+    }
+
+    private void deleteUnusedObjects() throws IOException {
+        Path objectsDir = cacheDir.resolve(OBJECTS);
+        if (Files.notExists(objectsDir)) {
+            return;
+        }
+        List<Path> objects;
+        try (Stream<Path> stream = Files.walk(objectsDir)) {
+            objects = stream.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+        for (Path object : objects) {
+            Object links = Files.getAttribute(object, "unix:nlink");
+            if (links instanceof Integer && (Integer) links <= 1) {
+                Files.deleteIfExists(object);
+            }
+        }
+    }
+
+    private Map<Path, String> hashFiles(Path dir, Map<String, String> knownHashes)
+            throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(dir)) {
+            files = stream.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+        Map<Path, String> hashes = new HashMap<>();
+        byte[] buf = new byte[81920];
+        for (Path file : files) {
+            if (Files.size(file) < MIN_LINK_SIZE) {
+                continue;
+            }
+            String known = knownHashes.get(dir.relativize(file).toString());
+            if (known != null) {
+                hashes.put(file, known);
+                continue;
+            }
+            MessageDigest md = newSha1();
+            try (InputStream is = Files.newInputStream(file)) {
+                int read;
+                while ((read = is.read(buf)) != -1) {
+                    md.update(buf, 0, read);
+                }
+            }
+            hashes.put(file, Hex.toHexString(md.digest()));
+        }
+        return hashes;
+    }
+
+    private String getKey(Path resourceDir) {
+        String relative = cacheDir.relativize(resourceDir.toAbsolutePath().normalize()).toString();
+        return AbstractRepository.md5hash(relative);
+    }
+
+    private Path getLockFile(String name) {
+        return cacheDir.resolve(LOCKS).resolve(name + ".lock");
+    }
+
+    /**
+     * Parses a size in bytes, with an optional {@code k}, {@code m}, {@code g} or {@code t} unit.
+     *
+     * @param size the size, for example {@code 512m}
+     * @return the size in bytes, 0 if the size is not set
+     */
+    static long parseSize(String size) {
+        if (size == null || size.trim().isEmpty()) {
+            return 0;
+        }
+        String value = size.trim().toLowerCase(Locale.ROOT);
+        if (value.endsWith("b")) {
+            value = value.substring(0, value.length() - 1);
+        }
+        long unit = 1;
+        int index = "kmgt".indexOf(value.charAt(value.length() - 1));
+        if (index >= 0) {
+            unit = 1L << (10 * (index + 1));
+            value = value.substring(0, value.length() - 1);
+        }
+        try {
+            return (long) (Double.parseDouble(value.trim()) * unit);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid DJL_CACHE_SIZE: " + size, e);
+        }
+    }
+
+    /**
+     * Returns a new SHA1 message digest.
+     *
+     * @return a new SHA1 message digest
+     */
+    static MessageDigest newSha1() {
+        try {
+            return MessageDigest.getInstance("SHA1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError("SHA1 algorithm not found.", e);
+        }
+    }
+
+    /** A lock on a cache file, held against both the other threads and the other JVMs. */
+    static final class CacheLock implements AutoCloseable {
+
+        private ReentrantLock jvmLock;
+        private FileChannel channel;
+
+        private CacheLock(ReentrantLock jvmLock, FileChannel channel) {
+            this.jvmLock = jvmLock;
+            this.channel = channel;
+        }
+
+        /**
+         * Acquires the lock on a file.
+         *
+         * @param file the lock file
+         * @param wait whether to wait for the lock to be released by its current holder
+         * @return the lock, or {@code null} if it is held and {@code wait} is {@code false}
+         * @throws IOException if the lock file cannot be opened
+         */
+        static CacheLock lock(Path file, boolean wait) throws IOException {
+            Path key = file.toAbsolutePath().normalize();
+            ReentrantLock jvmLock = JVM_LOCKS.computeIfAbsent(key, k -> new ReentrantLock());
+            if (wait) {
+                jvmLock.lock();
+            } else if (!jvmLock.tryLock()) {
+                return null;
+            }
+            FileChannel channel = null;
+            try {
+                Files.createDirectories(file.getParent());
+                channel =
+                        FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                FileLock lock = wait ? channel.lock() : channel.tryLock();
+                if (lock != null) {
+                    return new CacheLock(jvmLock, channel);
+                }
+            } catch (IOException | RuntimeException e) {
+                if (channel != null) {
+                    channel.close();
+                }
+                jvmLock.unlock();
+                throw e;
+            }
+            channel.close();
+            jvmLock.unlock();
+            return null;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void close() throws IOException {
+            try {
+                // closing the channel releases the file lock
+                channel.close();
+            } finally {
+                jvmLock.unlock();
+            }
+        }
+    }
+
+    private static final class Entry {
+
+        Path dir;
+        Path accessFile;
+        FileTime lastAccess;
+        Map<Object, Long> files;
+
+        Entry(Path dir, Path accessFile, FileTime lastAccess) throws IOException {
+            this.dir = dir;
+            this.accessFile = accessFile;
+            this.lastAccess = lastAccess;
+            files = new HashMap<>();
+            try (Stream<Path> stream = Files.walk(dir)) {
+                for (Path file : (Iterable<Path>) stream::iterator) {
+                    BasicFileAttributes attrs =
+                            Files.readAttributes(file, BasicFileAttributes.class);
+                    if (attrs.isRegularFile()) {
+                        Object key = attrs.fileKey() != null ? attrs.fileKey() : file;
+                        files.put(key, attrs.size());
+                    }
+                }
+            }
+        }
+    }
+}
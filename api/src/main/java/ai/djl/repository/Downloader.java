@@ -0,0 +1,326 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.repository;
+
+import ai.djl.util.Progress;
+import ai.djl.util.Utils;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@code Downloader} downloads a file from a HTTP URL in concurrent range segments.
+ *
+ * <p>Each segment is written to its own part file in the download directory. When a download
+ * fails, the part files are kept, and the next download of the same URL into the same directory
+ * continues every segment from the end of its part file. Servers that don't support range requests
+ * are downloaded in a single stream.
+ *
+ * <p>The downloaded content is read back in order with {@link #openStream()}, so it can be
+ * verified and extracted without joining the part files first.
+ *
+ * <p>The part files are not locked, the callers must make sure that only one {@code Downloader}
+ * uses a download directory at a time.
+ */
+final class Downloader {
+
+    private static final Logger logger = LoggerFactory.getLogger(Downloader.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int RETRIES = 3;
+    private static final String PLAN_FILE = "download.plan";
+    private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+
+    private URL url;
+    private Path dir;
+    private long size;
+    private int segments;
+    private AtomicLong reported;
+
+    /**
+     * Constructs a {@code Downloader}.
+     *
+     * @param url the URL to download
+     * @param dir the directory to keep the part files in
+     * @param size the size of the file, or a value less than 1 if it is unknown
+     * @param maxSegments the maximum number of concurrent segments
+     * @param minSegmentSize the minimum size of a segment
+     */
+    Downloader(URL url, Path dir, long size, int maxSegments, long minSegmentSize) {
+        this.url = url;
+        this.dir = dir;
+        this.size = size;
+        if (size > 0) {
+            long count = size / Math.max(minSegmentSize, 1);
+            segments = (int) Math.max(1, Math.min(maxSegments, count));
+        } else {
+            segments = 1;
+        }
+        reported = new AtomicLong();
+    }
+
+    /**
+     * Downloads the file, resuming the part files of a previous download.
+     *
+     * @param progress the (optionally null) progress tracker
+     * @throws IOException if the download failed, the part files are kept to resume from
+     */
+    void download(Progress progress) throws IOException {
+        try {
+            downloadSegments(progress);
+        } catch (RestartException e) {
+            logger.debug("Range download not possible, downloading in a single stream: {}", url);
+            // the part files are discarded, and so is their progress
+            increment(progress, -reported.get());
+            size = 0;
+            segments = 1;
+            downloadSegments(progress);
+        }
+    }
+
+    /**
+     * Opens a stream that reads the downloaded content.
+     *
+     * @return a stream that reads the part files in order
+     * @throws IOException if a part file cannot be opened
+     */
+    InputStream openStream() throws IOException {
+        List<InputStream> streams = new ArrayList<>(segments);
+        try {
+            for (int i = 0; i < segments; ++i) {
+                streams.add(Files.newInputStream(getPartFile(i)));
+            }
+        } catch (IOException e) {
+            for (InputStream is : streams) {
+                is.close();
+            }
+            throw e;
+        }
+        return new SequenceInputStream(Collections.enumeration(streams));
+    }
+
+    /** Deletes the part files. */
+    void delete() {
+        Utils.deleteQuietly(dir);
+    }
+
+    private void downloadSegments(Progress progress) throws IOException {
+        preparePlan();
+        if (segments == 1) {
+            downloadSegment(0, progress);
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(segments);
+        try {
+            List<Future<Void>> futures = new ArrayList<>(segments);
+            for (int i = 0; i < segments; ++i) {
+                int segment = i;
+                futures.add(
+                        executor.submit(
+                                () -> {
+                                    downloadSegment(segment, progress);
+                                    return null;
+                                }));
+            }
+            IOException error = null;
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RestartException) {
+                        error = (RestartException) cause;
+                    } else if (error == null) {
+                        error =
+                                cause instanceof IOException
+                                        ? (IOException) cause
+                                        : new IOException("Failed to download: " + url, cause);
+                    }
+                }
+            }
+            if (error != null) {
+                throw error;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Download interrupted: " + url, e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void preparePlan() throws IOException {
+        // the part files can only be resumed with the same segmentation
+        String plan = url + " " + size + " " + segments;
+        Path planFile = dir.resolve(PLAN_FILE);
+        if (Files.isRegularFile(planFile)) {
+            String previous = new String(Files.readAllBytes(planFile), StandardCharsets.UTF_8);
+            if (plan.equals(previous)) {
+                return;
+            }
+            Utils.deleteQuietly(dir);
+        }
+        Files.createDirectories(dir);
+        Files.write(planFile, plan.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void downloadSegment(int segment, Progress progress) throws IOException {
+        Path part = getPartFile(segment);
+        long start;
+        long length;
+        if (size > 0) {
+            long segmentSize = (size + segments - 1) / segments;
+            start = segment * segmentSize;
+            length = Math.max(0, Math.min(size - start, segmentSize));
+        } else {
+            start = 0;
+            length = -1;
+        }
+
+        if (Files.notExists(part)) {
+            Files.createFile(part);
+        }
+        long downloaded = Files.size(part);
+        if (length >= 0 && downloaded > length) {
+            Files.write(part, new byte[0]);
+            downloaded = 0;
+        }
+        if (downloaded > 0) {
+            increment(progress, downloaded);
+        }
+
+        for (int attempt = 1; ; ++attempt) {
+            if (downloaded == length) {
+                return;
+            }
+            try {
+                downloaded = fetch(part, start, length, downloaded, progress);
+                if (length < 0 || downloaded == length) {
+                    return;
+                }
+                throw new IOException("Unexpected end of stream: " + url);
+            } catch (RestartException e) {
+                throw e;
+            } catch (IOException e) {
+                if (attempt >= RETRIES) {
+                    throw e;
+                }
+                logger.debug("Download of segment {} failed, retrying: {}", segment, url, e);
+                downloaded = Files.size(part);
+            }
+        }
+    }
+
+    private long fetch(Path part, long start, long length, long downloaded, Progress progress)
+            throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        try {
+            if (length > 0) {
+                long end = start + length - 1;
+                conn.setRequestProperty("Range", "bytes=" + (start + downloaded) + '-' + end);
+            } else if (downloaded > 0) {
+                conn.setRequestProperty("Range", "bytes=" + downloaded + '-');
+            }
+            int code = conn.getResponseCode();
+            boolean append;
+            if (code == HttpURLConnection.HTTP_PARTIAL) {
+                checkContentRange(conn.getHeaderField("Content-Range"));
+                append = true;
+            } else if (code == HttpURLConnection.HTTP_OK) {
+                if (length > 0 && (segments > 1 || downloaded > 0)) {
+                    // the server ignored the range
+                    throw new RestartException();
+                }
+                if (downloaded > 0) {
+                    increment(progress, -downloaded);
+                }
+                append = false;
+                downloaded = 0;
+            } else if (code == HTTP_RANGE_NOT_SATISFIABLE && length < 0) {
+                // the file of unknown size is complete
+                return downloaded;
+            } else if (code == HTTP_RANGE_NOT_SATISFIABLE) {
+                throw new RestartException();
+            } else {
+                throw new IOException("Failed to download " + url + ", HTTP status: " + code);
+            }
+
+            StandardOpenOption mode =
+                    append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING;
+            try (InputStream is = conn.getInputStream();
+                    OutputStream os =
+                            Files.newOutputStream(part, StandardOpenOption.CREATE, mode)) {
+                byte[] buf = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = is.read(buf)) != -1) {
+                    os.write(buf, 0, read);
+                    downloaded += read;
+                    increment(progress, read);
+                }
+            }
+            return downloaded;
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    private void checkContentRange(String contentRange) throws RestartException {
+        if (size <= 0 || contentRange == null) {
+            return;
+        }
+        int index = contentRange.lastIndexOf('/');
+        if (index < 0) {
+            return;
+        }
+        String total = contentRange.substring(index + 1).trim();
+        if (!"*".equals(total) && Long.parseLong(total) != size) {
+            // the file size doesn't match the expected size, the segments are invalid
+            throw new RestartException();
+        }
+    }
+
+    private void increment(Progress progress, long bytes) {
+        reported.addAndGet(bytes);
+        if (progress != null) {
+            progress.increment(bytes);
+        }
+    }
+
+    private Path getPartFile(int segment) {
+        return dir.resolve("part-" + segment);
+    }
+
+    /** Thrown when the file cannot be downloaded in range segments. */
+    private static final class RestartException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+    }
+}
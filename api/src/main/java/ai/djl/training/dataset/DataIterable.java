@@ -13,18 +13,28 @@
 package ai.djl.training.dataset;
 
 import ai.djl.Device;
+import ai.djl.metric.Metrics;
+import ai.djl.ndarray.NDArray;
 import ai.djl.ndarray.NDList;
 import ai.djl.ndarray.NDManager;
+import ai.djl.ndarray.index.NDIndex;
+import ai.djl.ndarray.types.Shape;
 import ai.djl.translate.Batchifier;
 import ai.djl.translate.Pipeline;
+import ai.djl.translate.StackBatchifier;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -37,6 +47,19 @@ import org.slf4j.LoggerFactory;
  *
  * <p>We don't recommended using DataIterable directly. Instead use {@link RandomAccessDataset}
  * combined with {@link ai.djl.training.Trainer} to iterate over the {@link RandomAccessDataset}}
+ *
+ * <p>When buffer reuse is enabled and the batchifiers stack the records, each record is written
+ * straight into its slot of a batch array taken from a pool, instead of batchifying a new array for
+ * every batch. The arrays go back to the pool when the {@link Batch} is closed. With an executor,
+ * batches are returned in the order they finish loading, and are copied to the device on the
+ * loader threads so the transfer overlaps with the computation on the previous batch.
+ *
+ * <p>If the dataset supports {@link RandomAccessDataset#getBatch(NDManager, List) batch reads},
+ * the batchifiers stack the records and there is no data pipeline, each batch is read from the
+ * dataset in a single call.
+ *
+ * <p>If {@link #setMetrics(Metrics) metrics} are set, the time {@link #next()} waits for a batch
+ * is recorded as {@code loader-stall} in nanoseconds.
  */
 public class DataIterable implements Iterable<Batch>, Iterator<Batch> {
 
@@ -56,6 +79,13 @@ public class DataIterable implements Iterable<Batch>, Iterator<Batch> {
     private Queue<Future<Batch>> queue;
     private AtomicInteger progressCounter;
     private boolean autoClose;
+    // for buffer reuse
+    private BufferPool bufferPool;
+    private CompletionService<Batch> completionService;
+    private int pending;
+    private Metrics metrics;
+    // for datasets that read a whole batch at once
+    private volatile boolean batchReads;
 
     /**
      * Creates a new instance of {@code DataIterable} with the given parameters.
@@ -82,6 +112,47 @@ public class DataIterable implements Iterable<Batch>, Iterator<Batch> {
             ExecutorService executor,
             int preFetchNumber,
             Device device) {
+        this(
+                dataset,
+                manager,
+                sampler,
+                dataBatchifier,
+                labelBatchifier,
+                pipeline,
+                targetPipeline,
+                executor,
+                preFetchNumber,
+                device,
+                false);
+    }
+
+    /**
+     * Creates a new instance of {@code DataIterable} with the given parameters.
+     *
+     * @param dataset the dataset to iterate on
+     * @param manager the manager to create the arrays
+     * @param sampler a sampler to sample data with
+     * @param dataBatchifier a batchifier for data
+     * @param labelBatchifier a batchifier for labels
+     * @param pipeline the pipeline of transforms to apply on the data
+     * @param targetPipeline the pipeline of transforms to apply on the labels
+     * @param executor an {@link ExecutorService}
+     * @param preFetchNumber the number of samples to prefetch
+     * @param device the {@link Device}
+     * @param reuseBuffers whether to write the records into batch arrays taken from a pool
+     */
+    public DataIterable(
+            RandomAccessDataset dataset,
+            NDManager manager,
+            Sampler sampler,
+            Batchifier dataBatchifier,
+            Batchifier labelBatchifier,
+            Pipeline pipeline,
+            Pipeline targetPipeline,
+            ExecutorService executor,
+            int preFetchNumber,
+            Device device,
+            boolean reuseBuffers) {
         this.dataset = dataset;
         this.manager = manager.newSubManager();
         this.manager.setName("dataIter");
@@ -95,6 +166,15 @@ public class DataIterable implements Iterable<Batch>, Iterator<Batch> {
         String close = System.getProperty("ai.djl.dataiterator.autoclose", "true");
         autoClose = Boolean.parseBoolean(close);
 
+        batchReads = isStack(dataBatchifier) && isStack(labelBatchifier);
+        if (reuseBuffers && isStack(dataBatchifier) && isStack(labelBatchifier)) {
+            // the loader threads fill up to preFetchNumber batches while the caller holds one
+            bufferPool = new BufferPool(this.manager, Math.max(preFetchNumber, 0) + 2);
+            if (executor != null) {
+                completionService = new ExecutorCompletionService<>(executor);
+            }
+        }
+
         sample = sampler.sample(dataset);
         if (executor != null) {
             queue = new LinkedList<>();
@@ -115,7 +195,7 @@ public class DataIterable implements Iterable<Batch>, Iterator<Batch> {
     @Override
     public boolean hasNext() {
         if (executor != null) {
-            if (queue.isEmpty()) {
+            if (queue.isEmpty() && pending == 0) {
                 if (autoClose) {
                     manager.close();
                 }
@@ -135,12 +215,14 @@ public class DataIterable implements Iterable<Batch>, Iterator<Batch> {
     /** {@inheritDoc} */
     @Override
     public Batch next() {
+        long begin = System.nanoTime();
+        Batch batch;
         if (executor == null) {
             // single thread data loading with blocking fetch
             List<Long> indices = sample.next();
             try {
                 int progress = progressCounter.addAndGet(indices.size());
-                return fetch(indices, progress);
+                batch = fetch(indices, progress);
             } catch (IOException e) {
                 logger.error(e.getMessage());
                 throw new IllegalStateException("Data loading failed", e);
@@ -148,17 +230,49 @@ public class DataIterable implements Iterable<Batch>, Iterator<Batch> {
         } else {
             // multithreading data loading with async fetch
             preFetch();
-            Future<Batch> future = queue.poll();
             try {
-                return future.get();
+                if (completionService != null) {
+                    // take whichever batch is ready first
+                    --pending;
+                    batch = completionService.take().get();
+                } else {
+                    Future<Batch> future = queue.poll();
+                    batch = future.get();
+                }
             } catch (InterruptedException | ExecutionException e) {
                 logger.error(e.getMessage());
                 throw new IllegalStateException("Data loading failed", e);
             }
         }
+        if (metrics != null) {
+            metrics.addMetric("loader-stall", System.nanoTime() - begin, "nano");
+        }
+        return batch;
+    }
+
+    /**
+     * Sets the {@link Metrics} to record the loader stall time to.
+     *
+     * @param metrics the {@link Metrics} to record to
+     */
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics;
     }
 
     private Batch fetch(List<Long> indices, int progress) throws IOException {
+        if (batchReads && pipeline == null) {
+            Batch batch = fetchBatch(indices, progress);
+            if (batch != null) {
+                return batch;
+            }
+        }
+        if (bufferPool != null) {
+            BatchBuffers buffers = bufferPool.acquire();
+            if (buffers != null) {
+                return fetchInto(buffers, indices, progress);
+            }
+            // all buffers are held by unclosed batches
+        }
         NDManager subManager = manager.newSubManager();
         subManager.setName("dataIter fetch");
         int batchSize = indices.size();
@@ -179,7 +293,29 @@ public class DataIterable implements Iterable<Batch>, Iterator<Batch> {
 
         Arrays.stream(data).forEach(NDList::close);
         Arrays.stream(labels).forEach(NDList::close);
+        return newBatch(subManager, batchData, batchLabels, batchSize, progress);
+    }
 
+    private Batch fetchBatch(List<Long> indices, int progress) throws IOException {
+        NDManager subManager = manager.newSubManager();
+        subManager.setName("dataIter fetch");
+        Record record = dataset.getBatch(subManager, indices);
+        if (record == null) {
+            // the dataset reads items one by one, don't ask again
+            batchReads = false;
+            subManager.close();
+            return null;
+        }
+        return newBatch(
+                subManager, record.getData(), record.getLabels(), indices.size(), progress);
+    }
+
+    private Batch newBatch(
+            NDManager subManager,
+            NDList batchData,
+            NDList batchLabels,
+            int batchSize,
+            int progress) {
         // apply label transform
         if (targetPipeline != null) {
             batchLabels = targetPipeline.transform(batchLabels);
@@ -200,16 +336,80 @@ public class DataIterable implements Iterable<Batch>, Iterator<Batch> {
                 dataset.size());
     }
 
+    private Batch fetchInto(BatchBuffers buffers, List<Long> indices, int progress)
+            throws IOException {
+        int batchSize = indices.size();
+        NDManager batchManager = manager.newSubManager();
+        try {
+            try (NDManager subManager = manager.newSubManager()) {
+                subManager.setName("dataIter fetch");
+                for (int i = 0; i < batchSize; i++) {
+                    Record record = dataset.get(subManager, indices.get(i));
+                    NDList data = record.getData();
+                    // apply transform
+                    if (pipeline != null) {
+                        data = pipeline.transform(data);
+                    }
+                    buffers.data = buffers.write(buffers.data, i, batchSize, data);
+                    NDList labels = record.getLabels();
+                    buffers.labels = buffers.write(buffers.labels, i, batchSize, labels);
+                }
+            }
+            // the label transform and the device copy create their arrays in the manager of their
+            // input, lend the pooled arrays to the batch so those arrays are freed with it
+            buffers.data.attach(batchManager);
+            buffers.labels.attach(batchManager);
+            NDList batchData = buffers.data;
+            NDList batchLabels = buffers.labels;
+
+            // apply label transform
+            if (targetPipeline != null) {
+                batchLabels = targetPipeline.transform(batchLabels);
+            }
+            // pin to a specific device
+            if (device != null) {
+                batchData = batchData.toDevice(device, false);
+                batchLabels = batchLabels.toDevice(device, false);
+            }
+            return new PooledBatch(
+                    batchManager, batchData, batchLabels, batchSize, progress, buffers);
+        } catch (IOException | RuntimeException e) {
+            reclaim(buffers);
+            batchManager.close();
+            bufferPool.release(buffers);
+            throw e;
+        }
+    }
+
+    // takes the pooled arrays back before the batch manager frees them
+    private void reclaim(BatchBuffers buffers) {
+        if (buffers.data != null) {
+            buffers.data.attach(bufferPool.manager);
+        }
+        if (buffers.labels != null) {
+            buffers.labels.attach(bufferPool.manager);
+        }
+    }
+
     private void preFetch() {
         if (!sample.hasNext()) {
             return;
         }
         List<Long> indices = sample.next();
         Callable<Batch> task = new PreFetchCallable(indices);
+        if (completionService != null) {
+            completionService.submit(task);
+            ++pending;
+            return;
+        }
         Future<Batch> result = executor.submit(task);
         queue.offer(result);
     }
 
+    private static boolean isStack(Batchifier batchifier) {
+        return batchifier != null && batchifier.getClass() == StackBatchifier.class;
+    }
+
     class PreFetchCallable implements Callable<Batch> {
 
         private List<Long> indices;
@@ -226,4 +426,129 @@ public class DataIterable implements Iterable<Batch>, Iterator<Batch> {
             return fetch(indices, progress);
         }
     }
+
+    /** A {@link Batch} that returns its arrays to the pool when closed. */
+    private final class PooledBatch extends Batch {
+
+        private BatchBuffers buffers;
+
+        PooledBatch(
+                NDManager manager,
+                NDList data,
+                NDList labels,
+                int batchSize,
+                int progress,
+                BatchBuffers buffers) {
+            super(
+                    manager,
+                    data,
+                    labels,
+                    batchSize,
+                    dataBatchifier,
+                    labelBatchifier,
+                    progress,
+                    dataset.size());
+            this.buffers = buffers;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void close() {
+            reclaim(buffers);
+            super.close();
+            bufferPool.release(buffers);
+        }
+    }
+
+    /** A bounded pool of {@link BatchBuffers}. */
+    private static final class BufferPool {
+
+        NDManager manager;
+        private BlockingQueue<BatchBuffers> free;
+        private int capacity;
+        private int created;
+
+        BufferPool(NDManager parent, int capacity) {
+            manager = parent.newSubManager();
+            manager.setName("dataIter buffers");
+            this.capacity = capacity;
+            free = new ArrayBlockingQueue<>(capacity);
+        }
+
+        /**
+         * Returns free buffers, or {@code null} if all buffers are in use.
+         *
+         * @return free buffers, or {@code null} if all buffers are in use
+         * @throws InterruptedIOException if the pool is closed
+         */
+        BatchBuffers acquire() throws InterruptedIOException {
+            BatchBuffers buffers = free.poll();
+            if (buffers != null) {
+                return buffers;
+            }
+            synchronized (this) {
+                if (!manager.isOpen()) {
+                    throw new InterruptedIOException("Data loader is closed");
+                }
+                if (created < capacity) {
+                    ++created;
+                    return new BatchBuffers(manager);
+                }
+            }
+            return null;
+        }
+
+        void release(BatchBuffers buffers) {
+            free.offer(buffers);
+        }
+    }
+
+    /** The reusable batch arrays of the data and labels. */
+    private static final class BatchBuffers {
+
+        NDManager manager;
+        NDList data;
+        NDList labels;
+
+        BatchBuffers(NDManager manager) {
+            this.manager = manager;
+        }
+
+        // copies a record into its slot, reallocates if the first record does not fit
+        NDList write(NDList buffer, int index, int batchSize, NDList record) {
+            if (index == 0 && !fits(buffer, batchSize, record)) {
+                if (buffer != null) {
+                    buffer.close();
+                }
+                buffer = new NDList(record.size());
+                for (NDArray array : record) {
+                    Shape shape = new Shape(batchSize).addAll(array.getShape());
+                    NDArray batch = manager.create(shape, array.getDataType());
+                    batch.setName(array.getName());
+                    buffer.add(batch);
+                }
+            }
+            NDIndex slot = new NDIndex(index);
+            for (int i = 0; i < record.size(); ++i) {
+                buffer.get(i).set(slot, record.get(i));
+            }
+            return buffer;
+        }
+
+        private static boolean fits(NDList buffer, int batchSize, NDList record) {
+            if (buffer == null || buffer.size() != record.size()) {
+                return false;
+            }
+            for (int i = 0; i < record.size(); ++i) {
+                NDArray batch = buffer.get(i);
+                NDArray array = record.get(i);
+                Shape shape = new Shape(batchSize).addAll(array.getShape());
+                if (!batch.getShape().equals(shape)
+                        || batch.getDataType() != array.getDataType()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
 }
@@ -25,7 +25,9 @@ import ai.djl.util.Pair;
 import ai.djl.util.Progress;
 import ai.djl.util.RandomUtils;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
@@ -46,6 +48,7 @@ public abstract class RandomAccessDataset implements Dataset {
     protected int prefetchNumber;
     protected long limit;
     protected Device device;
+    protected boolean reuseBuffers;
 
     RandomAccessDataset() {}
 
@@ -65,6 +68,7 @@ public abstract class RandomAccessDataset implements Dataset {
         this.prefetchNumber = builder.prefetchNumber;
         this.limit = builder.limit;
         this.device = builder.device;
+        this.reuseBuffers = builder.reuseBuffers;
     }
 
     /**
@@ -77,6 +81,22 @@ public abstract class RandomAccessDataset implements Dataset {
      */
     public abstract Record get(NDManager manager, long index) throws IOException;
 
+    /**
+     * Gets the {@link Record} of a whole batch for the given indices, with the data and labels of
+     * the items stacked along a new first axis.
+     *
+     * <p>Datasets that can read a batch in a single pass override this. The default returns {@code
+     * null}, and the items are read one by one with {@link #get(NDManager, long)}.
+     *
+     * @param manager the manager used to create the arrays
+     * @param indices the indices of the requested data items
+     * @return the {@link Record} of the batch, or {@code null} if batch reads are not supported
+     * @throws IOException if an I/O error occurs
+     */
+    public Record getBatch(NDManager manager, List<Long> indices) throws IOException {
+        return null;
+    }
+
     /** {@inheritDoc} */
     @Override
     public Iterable<Batch> getData(NDManager manager) throws IOException, TranslateException {
@@ -91,7 +111,8 @@ public abstract class RandomAccessDataset implements Dataset {
                 targetPipeline,
                 executor,
                 prefetchNumber,
-                device);
+                device,
+                reuseBuffers);
     }
 
     /**
@@ -116,7 +137,8 @@ public abstract class RandomAccessDataset implements Dataset {
                 targetPipeline,
                 executor,
                 prefetchNumber,
-                device);
+                device,
+                reuseBuffers);
     }
 
     /**
@@ -237,6 +259,7 @@ public abstract class RandomAccessDataset implements Dataset {
         protected int prefetchNumber;
         protected long limit = Long.MAX_VALUE;
         protected Device device;
+        protected boolean reuseBuffers;
 
         /**
          * Gets the {@link Sampler} for the dataset.
@@ -387,6 +410,22 @@ public abstract class RandomAccessDataset implements Dataset {
             return self();
         }
 
+        /**
+         * Sets whether to write the records into batch arrays reused from a pool.
+         *
+         * <p>This avoids allocating new arrays for every batch. It only applies when the data and
+         * label batchifiers are {@link Batchifier#STACK}, and requires each {@link Batch} to be
+         * closed once it is used. With an executor, batches are returned in the order they finish
+         * loading rather than in the order of the sampler.
+         *
+         * @param reuseBuffers {@code true} to reuse the batch arrays
+         * @return this {@code BaseBuilder}
+         */
+        public T optReuseBuffers(boolean reuseBuffers) {
+            this.reuseBuffers = reuseBuffers;
+            return self();
+        }
+
         /**
          * Sets this dataset's limit.
          *
@@ -429,6 +468,7 @@ public abstract class RandomAccessDataset implements Dataset {
             this.executor = dataset.executor;
             this.prefetchNumber = dataset.prefetchNumber;
             this.device = dataset.device;
+            this.reuseBuffers = dataset.reuseBuffers;
 
             limit = Long.MAX_VALUE;
         }
@@ -442,6 +482,20 @@ public abstract class RandomAccessDataset implements Dataset {
             return dataset.get(manager, indices[Math.toIntExact(index) + from]);
         }
 
+        /** {@inheritDoc} */
+        @Override
+        public Record getBatch(NDManager manager, List<Long> batchIndices) throws IOException {
+            List<Long> mapped = new ArrayList<>(batchIndices.size());
+            for (long index : batchIndices) {
+                if (index >= size()) {
+                    throw new IndexOutOfBoundsException(
+                            "index(" + index + ") > size(" + size() + ").");
+                }
+                mapped.add((long) indices[Math.toIntExact(index) + from]);
+            }
+            return dataset.getBatch(manager, mapped);
+        }
+
         /** {@inheritDoc} */
         @Override
         protected long availableSize() {
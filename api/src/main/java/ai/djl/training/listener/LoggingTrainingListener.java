@@ -181,6 +181,12 @@ public class LoggingTrainingListener implements TrainingListener {
             logger.info(String.format("train P50: %.3f ms, P90: %.3f ms", p50, p90));
         }
 
+        if (metrics.hasMetric("loader-stall")) {
+            p50 = metrics.percentile("loader-stall", 50).getValue().longValue() / 1_000_000f;
+            p90 = metrics.percentile("loader-stall", 90).getValue().longValue() / 1_000_000f;
+            logger.info(String.format("loader-stall P50: %.3f ms, P90: %.3f ms", p50, p90));
+        }
+
         if (metrics.hasMetric("forward")) {
             p50 = metrics.percentile("forward", 50).getValue().longValue() / 1_000_000f;
             p90 = metrics.percentile("forward", 90).getValue().longValue() / 1_000_000f;
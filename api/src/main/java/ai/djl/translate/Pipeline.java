@@ -12,17 +12,33 @@
  */
 package ai.djl.translate;
 
+import ai.djl.modality.cv.transform.FusedImageTransform;
 import ai.djl.ndarray.NDArray;
 import ai.djl.ndarray.NDList;
 import ai.djl.util.Pair;
 import ai.djl.util.PairList;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 
-/** {@code Pipeline} allows applying multiple transforms on an input {@link NDList}. */
+/**
+ * {@code Pipeline} allows applying multiple transforms on an input {@link NDList}.
+ *
+ * <p>When the system property {@code ai.djl.pipeline.fuse} is set to {@code true}, consecutive
+ * transforms on the same array that form a known image preprocessing sequence, such as {@code
+ * Resize}, {@code CenterCrop}, {@code ToTensor} and {@code Normalize}, are run as a single {@link
+ * FusedImageTransform}. It is off by default, because the fused resize is not bit-identical to the
+ * resize of the engine.
+ */
 public class Pipeline {
 
+    private static final boolean FUSE =
+            Boolean.parseBoolean(System.getProperty("ai.djl.pipeline.fuse", "false"));
+
     private PairList<IndexKey, Transform> transforms;
+    private volatile PairList<IndexKey, Transform> compiled;
 
     /** Creates a new instance of {@code Pipeline} that has no {@link Transform} defined yet. */
     public Pipeline() {
@@ -58,6 +74,7 @@ public class Pipeline {
      */
     public Pipeline add(Transform transform) {
         transforms.add(new IndexKey(0), transform);
+        compiled = null;
         return this;
     }
 
@@ -72,6 +89,7 @@ public class Pipeline {
      */
     public Pipeline add(int index, Transform transform) {
         transforms.add(new IndexKey(index), transform);
+        compiled = null;
         return this;
     }
 
@@ -87,6 +105,7 @@ public class Pipeline {
      */
     public Pipeline add(String name, Transform transform) {
         transforms.add(new IndexKey(name), transform);
+        compiled = null;
         return this;
     }
 
@@ -103,6 +122,7 @@ public class Pipeline {
      */
     public Pipeline insert(int position, Transform transform) {
         transforms.add(position, new IndexKey(0), transform);
+        compiled = null;
         return this;
     }
 
@@ -118,6 +138,7 @@ public class Pipeline {
      */
     public Pipeline insert(int position, int index, Transform transform) {
         transforms.add(position, new IndexKey(index), transform);
+        compiled = null;
         return this;
     }
 
@@ -133,6 +154,7 @@ public class Pipeline {
      */
     public Pipeline insert(int position, String name, Transform transform) {
         transforms.add(position, new IndexKey(name), transform);
+        compiled = null;
         return this;
     }
 
@@ -162,8 +184,13 @@ public class Pipeline {
             }
             map.put(new IndexKey(i), i);
         }
+        PairList<IndexKey, Transform> plan = compiled;
+        if (plan == null) {
+            plan = compile();
+            compiled = plan;
+        }
         // apply transform
-        for (Pair<IndexKey, Transform> transform : transforms) {
+        for (Pair<IndexKey, Transform> transform : plan) {
             IndexKey key = transform.getKey();
             int index = map.get(key);
             NDArray array = arrays[index];
@@ -175,6 +202,26 @@ public class Pipeline {
         return new NDList(arrays);
     }
 
+    private PairList<IndexKey, Transform> compile() {
+        if (!FUSE) {
+            return transforms;
+        }
+        PairList<IndexKey, Transform> plan = new PairList<>(transforms.size());
+        int i = 0;
+        while (i < transforms.size()) {
+            // the run of consecutive transforms on the same array
+            IndexKey key = transforms.keyAt(i);
+            List<Transform> run = new ArrayList<>();
+            while (i < transforms.size() && key.isSame(transforms.keyAt(i))) {
+                run.add(transforms.valueAt(i++));
+            }
+            for (Transform transform : FusedImageTransform.fuse(run)) {
+                plan.add(key, transform);
+            }
+        }
+        return plan;
+    }
+
     private static final class IndexKey {
         private String key;
         private int index;
@@ -187,6 +234,11 @@ public class Pipeline {
             this.index = index;
         }
 
+        // unlike equals, an index key is never the same as a name key
+        boolean isSame(IndexKey other) {
+            return Objects.equals(key, other.key) && index == other.index;
+        }
+
         /** {@inheritDoc} */
         @Override
         public int hashCode() {
@@ -23,14 +23,14 @@ import ai.djl.modality.cv.translator.SingleShotDetectionTranslator;
 import ai.djl.ndarray.NDList;
 import ai.djl.ndarray.NDManager;
 import ai.djl.util.JsonUtils;
-import ai.djl.util.PairList;
-import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
 import java.lang.reflect.Constructor;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -253,15 +253,7 @@ public class ServingTranslatorFactory implements TranslatorFactory<Input, Output
         @Override
         public NDList processInput(TranslatorContext ctx, Input input) throws Exception {
             ctx.setAttachment("input", input);
-            PairList<String, byte[]> inputs = input.getContent();
-            byte[] data = inputs.get("data");
-            if (data == null) {
-                data = inputs.get("body");
-            }
-            if (data == null) {
-                data = input.getContent().valueAt(0);
-            }
-            Image image = factory.fromInputStream(new ByteArrayInputStream(data));
+            Image image = factory.fromInputStream(new ByteBufferInputStream(getData(input)));
             return translator.processInput(ctx, image);
         }
 
@@ -272,6 +264,14 @@ public class ServingTranslatorFactory implements TranslatorFactory<Input, Output
         }
     }
 
+    /**
+     * A translator that passes {@link NDList}s through.
+     *
+     * <p>The input is either a single {@link NDList} encoded with {@link NDList#encode()}, or a
+     * sequence of {@code ndarray} data entries that each hold one encoded {@link
+     * ai.djl.ndarray.NDArray}. In the latter case the output {@link NDList} is handed to the
+     * server as is, so it can be encoded straight into the response.
+     */
     private static final class RawTranslator implements Translator<Input, Output> {
 
         /** {@inheritDoc} */
@@ -284,16 +284,16 @@ public class ServingTranslatorFactory implements TranslatorFactory<Input, Output
         @Override
         public NDList processInput(TranslatorContext ctx, Input input) {
             ctx.setAttachment("input", input);
-            PairList<String, byte[]> inputs = input.getContent();
-            byte[] data = inputs.get("data");
-            if (data == null) {
-                data = inputs.get("body");
+            NDManager manager = ctx.getNDManager();
+            List<ByteBuffer> arrays = input.getAsByteBuffers("ndarray");
+            if (arrays.isEmpty()) {
+                return NDList.decode(manager, getData(input));
             }
-            if (data == null) {
-                data = input.getContent().valueAt(0);
+            NDList list = new NDList(arrays.size());
+            for (ByteBuffer bb : arrays) {
+                list.add(manager.decode(bb));
             }
-            NDManager manager = ctx.getNDManager();
-            return NDList.decode(manager, data);
+            return list;
         }
 
         /** {@inheritDoc} */
@@ -301,8 +301,69 @@ public class ServingTranslatorFactory implements TranslatorFactory<Input, Output
         public Output processOutput(TranslatorContext ctx, NDList list) {
             Input input = (Input) ctx.getAttachment("input");
             Output output = new Output(input.getRequestId(), 200, "OK");
-            output.setContent(list.encode());
+            if (input.getAsByteBuffers("ndarray").isEmpty()) {
+                output.setContent(list.encode());
+            } else {
+                output.setContent(list);
+            }
             return output;
         }
     }
+
+    private static ByteBuffer getData(Input input) {
+        ByteBuffer data = input.getAsByteBuffer("data");
+        if (data == null) {
+            data = input.getAsByteBuffer("body");
+        }
+        if (data == null) {
+            data = ByteBuffer.wrap(input.getContent().valueAt(0));
+        }
+        return data;
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private ByteBuffer bb;
+
+        ByteBufferInputStream(ByteBuffer bb) {
+            this.bb = bb;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int read() {
+            if (!bb.hasRemaining()) {
+                return -1;
+            }
+            return bb.get() & 0xFF;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!bb.hasRemaining()) {
+                return -1;
+            }
+            int size = Math.min(len, bb.remaining());
+            bb.get(b, off, size);
+            return size;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public long skip(long n) {
+            int size = (int) Math.max(0, Math.min(n, bb.remaining()));
+            bb.position(bb.position() + size);
+            return size;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int available() {
+            return bb.remaining();
+        }
+    }
 }
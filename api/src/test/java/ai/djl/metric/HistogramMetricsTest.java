@@ -0,0 +1,72 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.metric;
+
+import java.util.List;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class HistogramMetricsTest {
+
+    @Test
+    public void testHistogramMetrics() {
+        HistogramMetrics metrics = new HistogramMetrics(2);
+        metrics.addMetric(new Metric("m1", 1L));
+        metrics.addMetric("m1", 3L, "count");
+        metrics.addMetric("m1", 2L);
+        Metric p50 = metrics.percentile("m1", 50);
+        Assert.assertEquals(p50.getValue(), 2L);
+        Assert.assertEquals(metrics.latestMetric("m1").getValue(), 2L);
+
+        metrics.addMetric("m2", 1f);
+        metrics.addMetric("m2", 3f);
+        metrics.addMetric("m2", 2f);
+        p50 = metrics.percentile("m2", 50);
+        Assert.assertEquals(p50.getValue().floatValue(), 2f);
+
+        List<Metric> list = metrics.getMetric("m1");
+        Assert.assertEquals(list.size(), 2);
+        Assert.assertEquals(list.get(1).getValue(), 3L);
+        Assert.assertTrue(metrics.getMetric("m3").isEmpty());
+        Assert.assertTrue(metrics.hasMetric("m2"));
+        Assert.assertEquals(metrics.getMetricNames().size(), 2);
+
+        metrics.addMetric("m4", 2.4d);
+        metrics.addMetric("m4", 3.4d);
+        metrics.addMetric("m4", -1.3d);
+        Assert.assertEquals(metrics.mean("m4"), 1.5d, 1e-9);
+        Assert.assertEquals(metrics.percentile("m4", 0).getValue().doubleValue(), -1.3d, 0.02);
+
+        Assert.assertThrows(IllegalArgumentException.class, () -> metrics.mean("not_found"));
+        Assert.assertThrows(
+                IllegalArgumentException.class, () -> metrics.percentile("not_found", 1));
+    }
+
+    @Test
+    public void testHistogram() {
+        Histogram histogram = new Histogram();
+        Assert.assertTrue(Double.isNaN(histogram.getValueAtPercentile(50)));
+        for (int i = 1; i <= 100_000; ++i) {
+            histogram.record(i);
+        }
+        histogram.record(Double.NaN);
+        Assert.assertEquals(histogram.getCount(), 100_000);
+        Assert.assertEquals(histogram.getMin(), 1d);
+        Assert.assertEquals(histogram.getMax(), 100_000d);
+        Assert.assertEquals(histogram.getMean(), 50_000.5d);
+        double error = 1d / Histogram.SUB_BUCKETS;
+        Assert.assertEquals(histogram.getValueAtPercentile(50), 50_000d, 50_000 * error);
+        Assert.assertEquals(histogram.getValueAtPercentile(99), 99_000d, 99_000 * error);
+        Assert.assertEquals(histogram.getValueAtPercentile(100), 100_000d, 100_000 * error);
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.modality;
+
+import ai.djl.util.PairList;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class InputTest {
+
+    @Test
+    public void testDataOrder() {
+        Input input = new Input("1");
+        input.addData("ndarray", bytes("a"));
+        input.addData("ndarray", ByteBuffer.wrap(bytes("b")));
+        input.addData("ndarray", bytes("c"));
+        input.addData("ndarray", ByteBuffer.wrap(bytes("d")));
+
+        List<ByteBuffer> buffers = input.getAsByteBuffers("ndarray");
+        Assert.assertEquals(buffers.size(), 4);
+        String[] expected = {"a", "b", "c", "d"};
+        for (int i = 0; i < expected.length; ++i) {
+            String value = StandardCharsets.UTF_8.decode(buffers.get(i)).toString();
+            Assert.assertEquals(value, expected[i]);
+        }
+
+        PairList<String, byte[]> content = input.getContent();
+        Assert.assertEquals(content.size(), 4);
+        for (int i = 0; i < expected.length; ++i) {
+            Assert.assertEquals(content.valueAt(i), bytes(expected[i]));
+        }
+
+        // reading the content does not change the input
+        content.add("other", bytes("e"));
+        Assert.assertEquals(input.getAllAsByteBuffers().size(), 4);
+    }
+
+    @Test
+    public void testClose() {
+        AtomicBoolean released = new AtomicBoolean();
+        Input input = new Input("1");
+        input.addData("data", bytes("a"));
+        input.addData("buffer", ByteBuffer.wrap(bytes("b")));
+        input.addResource(() -> released.set(true));
+        input.close();
+
+        // the buffers are dropped with the resources that own their memory
+        Assert.assertTrue(released.get());
+        Assert.assertEquals(input.getContent().keys(), Arrays.asList("data"));
+        Assert.assertNull(input.getAsByteBuffer("buffer"));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.modality.nlp.bert;
+
+import ai.djl.modality.nlp.SimpleVocabulary;
+import java.util.Arrays;
+import java.util.List;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class BertFullTokenizerTest {
+
+    @Test
+    public void testTokenizeToIds() {
+        SimpleVocabulary vocabulary = newVocabulary();
+        BertFullTokenizer tokenizer = new BertFullTokenizer(vocabulary, true);
+        String input = "Who is  Running, unwanted?";
+        long[] expected =
+                tokenizer.tokenize(input).stream().mapToLong(vocabulary::getIndex).toArray();
+        Assert.assertEquals(tokenizer.tokenizeToIds(input), expected);
+    }
+
+    @Test
+    public void testEncode() {
+        SimpleVocabulary vocabulary = newVocabulary();
+        BertFullTokenizer tokenizer = new BertFullTokenizer(vocabulary, true);
+        List<String> questions = Arrays.asList("who", "who is running");
+        List<String> paragraphs = Arrays.asList("want", "unwanted");
+        BertEncoding encoding = tokenizer.encode(questions, paragraphs, 0, null);
+
+        Assert.assertEquals(encoding.getBatchSize(), 2);
+        Assert.assertEquals(encoding.getSequenceLength(), 10);
+        long[] ids = ids(vocabulary, "[CLS]", "who", "[SEP]", "want", "[SEP]");
+        long[] expected = padded(ids, 10, vocabulary.getIndex("[PAD]"));
+        long[] actual = Arrays.copyOfRange(encoding.getInputIds(), 0, 10);
+        Assert.assertEquals(actual, expected);
+        long[] types = Arrays.copyOfRange(encoding.getTokenTypeIds(), 10, 20);
+        Assert.assertEquals(types, new long[] {0, 0, 0, 0, 0, 0, 1, 1, 1, 1});
+        long[] mask = Arrays.copyOfRange(encoding.getAttentionMask(), 0, 10);
+        Assert.assertEquals(mask, new long[] {1, 1, 1, 1, 1, 0, 0, 0, 0, 0});
+        Assert.assertEquals(encoding.getValidLength(0), 5);
+        Assert.assertEquals(encoding.getValidLength(1), 10);
+
+        // the buffers are reused, and the longer segment is truncated first
+        long[] buffer = encoding.getInputIds();
+        BertEncoding truncated = tokenizer.encode(questions, paragraphs, 8, encoding);
+        Assert.assertSame(truncated, encoding);
+        Assert.assertSame(truncated.getInputIds(), buffer);
+        Assert.assertEquals(truncated.getSequenceLength(), 8);
+        ids = ids(vocabulary, "[CLS]", "who", "is", "run", "[SEP]", "un", "##want", "[SEP]");
+        actual = Arrays.copyOfRange(truncated.getInputIds(), 8, 16);
+        Assert.assertEquals(actual, ids);
+    }
+
+    private static long[] ids(SimpleVocabulary vocabulary, String... tokens) {
+        return Arrays.stream(tokens).mapToLong(vocabulary::getIndex).toArray();
+    }
+
+    private static long[] padded(long[] ids, int length, long padId) {
+        long[] ret = Arrays.copyOf(ids, length);
+        Arrays.fill(ret, ids.length, length, padId);
+        return ret;
+    }
+
+    private static SimpleVocabulary newVocabulary() {
+        List<String> tokens =
+                Arrays.asList(
+                        "[PAD]", "[UNK]", "[CLS]", "[SEP]", "who", "is", "run", "##ning", "un",
+                        "##want", "##ed", "want", ",", "?");
+        return SimpleVocabulary.builder()
+                .optMinFrequency(1)
+                .optUnknownToken("[UNK]")
+                .add(tokens)
+                .build();
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.modality.nlp.bert;
+
+import ai.djl.modality.nlp.SimpleVocabulary;
+import java.util.Arrays;
+import java.util.List;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class WordpieceTokenizerTest {
+
+    @Test
+    public void testTokenize() {
+        WordpieceTokenizer tokenizer = newTokenizer();
+        List<String> tokens = tokenizer.tokenize(" unaffable  runner unwanted xyz");
+        List<String> expected =
+                Arrays.asList("un", "##aff", "##able", "[UNK]", "un", "##want", "##ed", "[UNK]");
+        Assert.assertEquals(tokens, expected);
+        Assert.assertEquals(tokenizer.tokenize(""), Arrays.asList());
+        Assert.assertEquals(tokenizer.tokenize("unaffableunaffable"), Arrays.asList("[UNK]"));
+        // "##" alone is never a word piece
+        Assert.assertEquals(tokenizer.tokenize("un##"), Arrays.asList("[UNK]"));
+    }
+
+    @Test
+    public void testTokenizeToIds() {
+        SimpleVocabulary vocabulary = newVocabulary();
+        WordpieceTokenizer tokenizer = new WordpieceTokenizer(vocabulary, "[UNK]", 16);
+        String sentence = "unaffable runner unwanted";
+        long[] expected =
+                tokenizer.tokenize(sentence).stream().mapToLong(vocabulary::getIndex).toArray();
+        Assert.assertEquals(tokenizer.tokenizeToIds(sentence), expected);
+        Assert.assertEquals(tokenizer.tokenizeToIds(" "), new long[0]);
+    }
+
+    @Test
+    public void testBatchTokenize() {
+        WordpieceTokenizer tokenizer = newTokenizer();
+        List<String> sentences = Arrays.asList("unaffable", "unwanted running", "able");
+        List<List<String>> tokens = tokenizer.batchTokenize(sentences);
+        List<long[]> ids = tokenizer.batchTokenizeToIds(sentences);
+        Assert.assertEquals(tokens.size(), sentences.size());
+        for (int i = 0; i < sentences.size(); ++i) {
+            Assert.assertEquals(tokens.get(i), tokenizer.tokenize(sentences.get(i)));
+            Assert.assertEquals(ids.get(i), tokenizer.tokenizeToIds(sentences.get(i)));
+        }
+    }
+
+    private static WordpieceTokenizer newTokenizer() {
+        return new WordpieceTokenizer(newVocabulary(), "[UNK]", 16);
+    }
+
+    private static SimpleVocabulary newVocabulary() {
+        List<String> tokens =
+                Arrays.asList(
+                        "[UNK]", "##", "un", "##aff", "##able", "able", "want", "##want", "##ed",
+                        "run", "##ning", ",");
+        return SimpleVocabulary.builder()
+                .optMinFrequency(1)
+                .optUnknownToken("[UNK]")
+                .add(tokens)
+                .build();
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.repository;
+
+import ai.djl.util.Utils;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class CacheManagerTest {
+
+    private Path cacheDir = Paths.get("build/cache-manager/repo");
+
+    @BeforeMethod
+    public void setUp() {
+        Utils.deleteQuietly(cacheDir);
+    }
+
+    @Test
+    public void testParseSize() {
+        Assert.assertEquals(CacheManager.parseSize(null), 0);
+        Assert.assertEquals(CacheManager.parseSize("1000"), 1000);
+        Assert.assertEquals(CacheManager.parseSize("2k"), 2048);
+        Assert.assertEquals(CacheManager.parseSize("512MB"), 512L * 1024 * 1024);
+        Assert.assertEquals(CacheManager.parseSize("1.5g"), 3L * 512 * 1024 * 1024);
+    }
+
+    @Test
+    public void testDeduplicate() throws IOException {
+        if (!FileSystems.getDefault().supportedFileAttributeViews().contains("unix")) {
+            throw new SkipException("Hard links are not supported.");
+        }
+        CacheManager cache = new CacheManager(cacheDir, 0);
+        byte[] data = newData(1, 100 * 1024);
+        Path first = newArtifact("model/a", data, cache);
+        Path second = newArtifact("model/b", data, cache);
+
+        Assert.assertTrue(Files.isSameFile(first.resolve("data.bin"), second.resolve("data.bin")));
+        Assert.assertEquals(cache.size(), data.length);
+    }
+
+    @Test
+    public void testEviction() throws IOException {
+        CacheManager cache = new CacheManager(cacheDir, 250 * 1024);
+        Path first = newArtifact("model/a", newData(1, 100 * 1024), cache);
+        setLastAccess(first, 1000);
+        Path second = newArtifact("model/b", newData(2, 100 * 1024), cache);
+        setLastAccess(second, 2000);
+
+        // the first artifact is used again, the second one is the least recently used
+        cache.touch(first);
+        Path third = newArtifact("model/c", newData(3, 100 * 1024), cache);
+
+        Assert.assertTrue(Files.exists(first));
+        Assert.assertFalse(Files.exists(second));
+        Assert.assertTrue(Files.exists(third));
+        Assert.assertEquals(cache.size(), 200 * 1024);
+    }
+
+    @Test
+    public void testRecentNotEvicted() throws IOException {
+        CacheManager cache = new CacheManager(cacheDir, 150 * 1024);
+        Path first = newArtifact("model/a", newData(1, 100 * 1024), cache);
+        Path second = newArtifact("model/b", newData(2, 100 * 1024), cache);
+
+        // the first artifact may still be loading in another JVM
+        Assert.assertTrue(Files.exists(first));
+        Assert.assertTrue(Files.exists(second));
+
+        setLastAccess(first, 1000);
+        newArtifact("model/c", newData(3, 10 * 1024), cache);
+        Assert.assertFalse(Files.exists(first));
+        Assert.assertTrue(Files.exists(second));
+    }
+
+    @Test
+    public void testKnownHashes() throws IOException {
+        if (!FileSystems.getDefault().supportedFileAttributeViews().contains("unix")) {
+            throw new SkipException("Hard links are not supported.");
+        }
+        CacheManager cache = new CacheManager(cacheDir, 0);
+        // the known hash is used as is, the file is not hashed again
+        String hash = "00112233445566778899aabbccddeeff00112233";
+        Map<String, String> hashes = Collections.singletonMap("data.bin", hash);
+        Path dir = newArtifact("model/a", newData(1, 100 * 1024), cache, hashes);
+        Path object = cacheDir.resolve("objects").resolve("00").resolve(hash);
+        Assert.assertTrue(Files.isSameFile(object, dir.resolve("data.bin")));
+    }
+
+    @Test
+    public void testLock() throws IOException, InterruptedException {
+        CacheManager cache = new CacheManager(cacheDir, 0);
+        Path dir = cacheDir.resolve("model/a");
+        try (CacheManager.CacheLock ignore = cache.lock(dir)) {
+            boolean[] acquired = new boolean[1];
+            Thread thread =
+                    new Thread(
+                            () -> {
+                                Path lockFile = cacheDir.resolve("locks").resolve(getKey(dir));
+                                try (CacheManager.CacheLock lock =
+                                        CacheManager.CacheLock.lock(lockFile, false)) {
+                                    acquired[0] = lock != null;
+                                } catch (IOException e) {
+                                    throw new AssertionError(e);
+                                }
+                            });
+            thread.start();
+            thread.join();
+            Assert.assertFalse(acquired[0]);
+        }
+    }
+
+    private Path newArtifact(String name, byte[] data, CacheManager cache) throws IOException {
+        return newArtifact(name, data, cache, Collections.emptyMap());
+    }
+
+    private Path newArtifact(
+            String name, byte[] data, CacheManager cache, Map<String, String> hashes)
+            throws IOException {
+        Path dir = cacheDir.resolve(name);
+        try (CacheManager.CacheLock ignore = cache.lock(dir)) {
+            Files.createDirectories(dir);
+            Files.write(dir.resolve("data.bin"), data);
+            cache.add(dir, hashes);
+        }
+        return dir;
+    }
+
+    private void setLastAccess(Path dir, long time) throws IOException {
+        Path entry = cacheDir.resolve("access").resolve(AbstractRepository.md5hash(name(dir)));
+        Files.setLastModifiedTime(entry, FileTime.fromMillis(time));
+    }
+
+    private String getKey(Path dir) {
+        return AbstractRepository.md5hash(name(dir)) + ".lock";
+    }
+
+    private String name(Path dir) {
+        Path base = cacheDir.toAbsolutePath().normalize();
+        return base.relativize(dir.toAbsolutePath().normalize()).toString();
+    }
+
+    private static byte[] newData(int seed, int size) {
+        byte[] data = new byte[size];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+}
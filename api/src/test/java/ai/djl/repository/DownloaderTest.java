@@ -0,0 +1,244 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.repository;
+
+import ai.djl.util.Progress;
+import ai.djl.util.Utils;
+import ai.djl.util.ZipUtils;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class DownloaderTest {
+
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d*)");
+
+    private HttpServer server;
+    private byte[] content;
+    private volatile boolean supportRange;
+    private volatile int failAfter;
+    private AtomicLong served;
+
+    @BeforeClass
+    public void setUp() throws IOException {
+        Path dir = Paths.get("build/download/src");
+        Utils.deleteQuietly(dir);
+        Files.createDirectories(dir);
+        byte[] data = new byte[1024 * 1024];
+        new Random(1).nextBytes(data);
+        Files.write(dir.resolve("data.bin"), data);
+        Path zip = Paths.get("build/download/test.zip");
+        ZipUtils.zip(dir, zip, false);
+        content = Files.readAllBytes(zip);
+
+        served = new AtomicLong();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/test.zip", this::handle);
+        server.start();
+    }
+
+    @AfterClass
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testSegments() throws IOException {
+        reset(true, 0);
+        Path dir = Paths.get("build/download/segments");
+        Utils.deleteQuietly(dir);
+        Downloader downloader = new Downloader(getUrl(), dir, content.length, 4, 64 * 1024);
+        downloader.download(null);
+        assertContent(downloader);
+        Assert.assertEquals(served.get(), content.length);
+        downloader.delete();
+        Assert.assertTrue(Files.notExists(dir));
+    }
+
+    @Test
+    public void testResume() throws IOException {
+        Path dir = Paths.get("build/download/resume");
+        Utils.deleteQuietly(dir);
+        // every request is cut off, the retries don't finish the download
+        reset(true, 16 * 1024);
+        Downloader downloader = new Downloader(getUrl(), dir, content.length, 4, 64 * 1024);
+        Assert.assertThrows(IOException.class, () -> downloader.download(null));
+        long partial = served.get();
+        Assert.assertTrue(partial > 0 && partial < content.length);
+
+        reset(true, 0);
+        Downloader resumed = new Downloader(getUrl(), dir, content.length, 4, 64 * 1024);
+        resumed.download(null);
+        assertContent(resumed);
+        Assert.assertEquals(served.get(), content.length - partial);
+        resumed.delete();
+    }
+
+    @Test
+    public void testRangeNotSupported() throws IOException {
+        reset(false, 0);
+        Path dir = Paths.get("build/download/norange");
+        Utils.deleteQuietly(dir);
+        Downloader downloader = new Downloader(getUrl(), dir, content.length, 4, 64 * 1024);
+        downloader.download(null);
+        assertContent(downloader);
+        downloader.delete();
+    }
+
+    @Test
+    public void testRestartProgress() throws IOException {
+        Path dir = Paths.get("build/download/restart");
+        Utils.deleteQuietly(dir);
+        reset(true, 16 * 1024);
+        Downloader downloader = new Downloader(getUrl(), dir, content.length, 4, 64 * 1024);
+        Assert.assertThrows(IOException.class, () -> downloader.download(null));
+
+        // the server stops supporting ranges, the part files are downloaded again
+        reset(false, 0);
+        AtomicLong progress = new AtomicLong();
+        Downloader restarted = new Downloader(getUrl(), dir, content.length, 4, 64 * 1024);
+        restarted.download(new CountingProgress(progress));
+        assertContent(restarted);
+        Assert.assertEquals(progress.get(), content.length);
+        restarted.delete();
+    }
+
+    @Test
+    public void testSimpleUrlRepository() throws IOException {
+        reset(true, 0);
+        String cacheDir = System.getProperty("DJL_CACHE_DIR");
+        System.setProperty("DJL_CACHE_DIR", "build/download/cache");
+        System.setProperty("ai.djl.repository.download.segment_size", "65536");
+        try {
+            Repository repo = Repository.newInstance("test", getUrl().toString());
+            List<MRL> list = repo.getResources();
+            Artifact artifact = repo.resolve(list.get(0), null, null);
+            repo.prepare(artifact);
+            Path file = repo.getResourceDirectory(artifact).resolve("data.bin");
+            Assert.assertEquals(Files.size(file), 1024 * 1024);
+            // only the lock files are kept
+            Path downloads = repo.getCacheDirectory().resolve("downloads");
+            try (Stream<Path> stream = Files.list(downloads)) {
+                Assert.assertEquals(stream.filter(Files::isDirectory).count(), 0);
+            }
+        } finally {
+            if (cacheDir == null) {
+                System.clearProperty("DJL_CACHE_DIR");
+            } else {
+                System.setProperty("DJL_CACHE_DIR", cacheDir);
+            }
+            System.clearProperty("ai.djl.repository.download.segment_size");
+        }
+    }
+
+    private void assertContent(Downloader downloader) throws IOException {
+        try (InputStream is = downloader.openStream()) {
+            Assert.assertEquals(Utils.toByteArray(is), content);
+        }
+    }
+
+    private URL getUrl() throws IOException {
+        return new URL("http://localhost:" + server.getAddress().getPort() + "/test.zip");
+    }
+
+    private void reset(boolean supportRange, int failAfter) {
+        this.supportRange = supportRange;
+        this.failAfter = failAfter;
+        served.set(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        int start = 0;
+        int end = content.length - 1;
+        int code = 200;
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        if (supportRange && range != null) {
+            Matcher m = RANGE.matcher(range);
+            if (m.matches()) {
+                start = Integer.parseInt(m.group(1));
+                if (!m.group(2).isEmpty()) {
+                    end = Math.min(end, Integer.parseInt(m.group(2)));
+                }
+                code = 206;
+                String contentRange = "bytes " + start + '-' + end + '/' + content.length;
+                exchange.getResponseHeaders().add("Content-Range", contentRange);
+            }
+        }
+        int length = end - start + 1;
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().add("Content-Length", String.valueOf(content.length));
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+            return;
+        }
+        exchange.sendResponseHeaders(code, length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            int size = failAfter > 0 ? Math.min(failAfter, length) : length;
+            os.write(content, start, size);
+            served.addAndGet(size);
+            if (size < length) {
+                // drop the connection in the middle of the response
+                os.flush();
+                throw new IOException("Connection dropped");
+            }
+        }
+    }
+
+    private static final class CountingProgress implements Progress {
+
+        private AtomicLong count;
+
+        CountingProgress(AtomicLong count) {
+            this.count = count;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void reset(String message, long max, String trailingMessage) {}
+
+        /** {@inheritDoc} */
+        @Override
+        public void start(long initialProgress) {}
+
+        /** {@inheritDoc} */
+        @Override
+        public void end() {}
+
+        /** {@inheritDoc} */
+        @Override
+        public void increment(long increment) {
+            count.addAndGet(increment);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void update(long progress, String message) {}
+    }
+}
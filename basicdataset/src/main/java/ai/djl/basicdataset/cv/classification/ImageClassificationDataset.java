@@ -69,6 +69,20 @@ public abstract class ImageClassificationDataset extends RandomAccessDataset {
     /** {@inheritDoc} */
     @Override
     public Record get(NDManager manager, long index) throws IOException {
+        NDList data = new NDList(getImageArray(manager, index));
+        NDList label = new NDList(manager.create(getClassNumber(index)));
+        return new Record(data, label);
+    }
+
+    /**
+     * Returns the decoded image at the given index, resized if the image size is fixed.
+     *
+     * @param manager the manager used to create the array
+     * @param index the index (if the dataset is a list of data items)
+     * @return the image as an {@link NDArray}
+     * @throws IOException if the image could not be loaded
+     */
+    protected NDArray getImageArray(NDManager manager, long index) throws IOException {
         NDArray image = getImage(index).toNDArray(manager, flag);
 
         // Resize the image if the image size is fixed
@@ -77,10 +91,7 @@ public abstract class ImageClassificationDataset extends RandomAccessDataset {
         if (width.isPresent() && height.isPresent()) {
             image = NDImageUtils.resize(image, width.get(), height.get());
         }
-
-        NDList data = new NDList(image);
-        NDList label = new NDList(manager.create(getClassNumber(index)));
-        return new Record(data, label);
+        return image;
     }
 
     /**
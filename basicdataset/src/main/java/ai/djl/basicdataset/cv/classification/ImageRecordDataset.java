@@ -0,0 +1,427 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.basicdataset.cv.classification;
+
+import ai.djl.modality.cv.Image;
+import ai.djl.modality.cv.ImageFactory;
+import ai.djl.modality.cv.transform.ToTensor;
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.NDManager;
+import ai.djl.ndarray.types.DataType;
+import ai.djl.ndarray.types.Shape;
+import ai.djl.training.dataset.Record;
+import ai.djl.translate.Pipeline;
+import ai.djl.util.Progress;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A dataset for loading images from the packed record shards written by {@link
+ * ImageRecordWriter}.
+ *
+ * <p>The shards are memory-mapped by default, or read with positional reads, so an epoch reads a
+ * few large files instead of opening every image file. Optionally, the decoded and resized images
+ * are kept in a cache bounded by {@link Builder#optCacheSize(long) size}, so later epochs skip the
+ * decoding for the images that fit.
+ *
+ * <p>When the shards are not memory-mapped, they are kept open after {@link #prepare(Progress)},
+ * so the dataset should be closed once it is no longer used.
+ */
+public final class ImageRecordDataset extends ImageClassificationDataset implements AutoCloseable {
+
+    static final String INDEX_FILE = "index.bin";
+    static final int MAGIC = 0x444A4C52; // "DJLR"
+    static final int VERSION = 1;
+
+    private Path dir;
+    private boolean memoryMap;
+    private Integer imageWidth;
+    private Integer imageHeight;
+    private List<String> synset;
+    private int[] shards;
+    private long[] offsets;
+    private int[] lengths;
+    private int[] labels;
+    private ByteBuffer[] mappedShards;
+    private FileChannel[] channels;
+    private DecodedCache cache;
+    private boolean prepared;
+
+    private ImageRecordDataset(Builder builder) {
+        super(builder);
+        dir = builder.dir;
+        memoryMap = builder.memoryMap;
+        imageWidth = builder.imageWidth;
+        imageHeight = builder.imageHeight;
+        if (builder.cacheSize > 0) {
+            cache = new DecodedCache(builder.cacheSize);
+        }
+    }
+
+    /**
+     * Creates a new builder to build a {@link ImageRecordDataset}.
+     *
+     * @return a new builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    static String getShardName(int shard) {
+        return String.format(Locale.ROOT, "shard-%05d.rec", shard);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void prepare(Progress progress) throws IOException {
+        if (prepared) {
+            return;
+        }
+        Path index = dir.resolve(INDEX_FILE);
+        try (DataInputStream dis =
+                new DataInputStream(new BufferedInputStream(Files.newInputStream(index)))) {
+            if (dis.readInt() != MAGIC || dis.readInt() != VERSION) {
+                throw new IOException("Unsupported image record index: " + index);
+            }
+            int classes = dis.readInt();
+            List<String> names = new ArrayList<>(classes);
+            for (int i = 0; i < classes; ++i) {
+                names.add(dis.readUTF());
+            }
+            synset = Collections.unmodifiableList(names);
+
+            int shardCount = dis.readInt();
+            int size = dis.readInt();
+            shards = new int[size];
+            offsets = new long[size];
+            lengths = new int[size];
+            labels = new int[size];
+            for (int i = 0; i < size; ++i) {
+                shards[i] = dis.readInt();
+                offsets[i] = dis.readLong();
+                lengths[i] = dis.readInt();
+                labels[i] = dis.readInt();
+            }
+            openShards(shardCount);
+        } catch (EOFException e) {
+            throw new IOException("Truncated image record index: " + index, e);
+        }
+        prepared = true;
+    }
+
+    private void openShards(int shardCount) throws IOException {
+        if (memoryMap) {
+            mappedShards = new ByteBuffer[shardCount];
+        } else {
+            channels = new FileChannel[shardCount];
+        }
+        for (int i = 0; i < shardCount; ++i) {
+            Path file = dir.resolve(getShardName(i));
+            if (memoryMap) {
+                // the mapping stays valid after the channel is closed
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    mappedShards[i] = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                }
+                continue;
+            }
+            try {
+                // kept open for positional reads, which are safe from multiple threads
+                channels[i] = FileChannel.open(file, StandardOpenOption.READ);
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Closes the shards opened by {@link #prepare(Progress)}.
+     *
+     * <p>The dataset can be prepared again after it is closed.
+     *
+     * @throws IOException if a shard cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        IOException error = null;
+        if (channels != null) {
+            for (FileChannel channel : channels) {
+                if (channel == null) {
+                    continue;
+                }
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    if (error == null) {
+                        error = e;
+                    } else {
+                        error.addSuppressed(e);
+                    }
+                }
+            }
+            channels = null;
+        }
+        mappedShards = null;
+        prepared = false;
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Record get(NDManager manager, long index) throws IOException {
+        if (cache == null) {
+            return super.get(manager, index);
+        }
+        int i = Math.toIntExact(index);
+        DecodedImage decoded = cache.get(i);
+        NDArray image;
+        if (decoded == null) {
+            image = getImageArray(manager, index);
+            cache.put(i, new DecodedImage(image));
+        } else {
+            image = manager.create(ByteBuffer.wrap(decoded.data), decoded.shape, decoded.dataType);
+        }
+        NDList data = new NDList(image);
+        NDList label = new NDList(manager.create(getClassNumber(index)));
+        return new Record(data, label);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected Image getImage(long index) throws IOException {
+        byte[] buf = readRecord(Math.toIntExact(index));
+        return ImageFactory.getInstance().fromInputStream(new ByteArrayInputStream(buf));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected long getClassNumber(long index) {
+        return labels[Math.toIntExact(index)];
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected long availableSize() {
+        return labels.length;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Optional<Integer> getImageWidth() {
+        return Optional.ofNullable(imageWidth);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Optional<Integer> getImageHeight() {
+        return Optional.ofNullable(imageHeight);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<String> getClasses() {
+        return synset;
+    }
+
+    private byte[] readRecord(int index) throws IOException {
+        byte[] buf = new byte[lengths[index]];
+        int shard = shards[index];
+        if (mappedShards != null) {
+            // duplicate, the position of the shared mapping must not be touched by concurrent reads
+            ByteBuffer bb = mappedShards[shard].duplicate();
+            bb.position(Math.toIntExact(offsets[index]));
+            bb.get(buf);
+            return buf;
+        }
+        ByteBuffer bb = ByteBuffer.wrap(buf);
+        long position = offsets[index];
+        while (bb.hasRemaining()) {
+            if (channels[shard].read(bb, position + bb.position()) < 0) {
+                throw new EOFException("Truncated image record shard: " + getShardName(shard));
+            }
+        }
+        return buf;
+    }
+
+    /** A decoded image kept on the Java heap, so it outlives the manager of the batch. */
+    private static final class DecodedImage {
+
+        byte[] data;
+        Shape shape;
+        DataType dataType;
+
+        DecodedImage(NDArray array) {
+            data = array.toByteArray();
+            shape = array.getShape();
+            dataType = array.getDataType();
+        }
+    }
+
+    /** A least recently used cache of decoded images, bounded by their total size in bytes. */
+    private static final class DecodedCache {
+
+        private long maxBytes;
+        private long bytes;
+        private LinkedHashMap<Integer, DecodedImage> map;
+
+        DecodedCache(long maxBytes) {
+            this.maxBytes = maxBytes;
+            map = new LinkedHashMap<>(16, 0.75f, true);
+        }
+
+        synchronized DecodedImage get(int index) {
+            return map.get(index);
+        }
+
+        synchronized void put(int index, DecodedImage image) {
+            if (image.data.length > maxBytes) {
+                return;
+            }
+            DecodedImage old = map.put(index, image);
+            if (old != null) {
+                bytes -= old.data.length;
+            }
+            bytes += image.data.length;
+            Iterator<Map.Entry<Integer, DecodedImage>> it = map.entrySet().iterator();
+            while (bytes > maxBytes && it.hasNext()) {
+                bytes -= it.next().getValue().data.length;
+                it.remove();
+            }
+        }
+    }
+
+    /** A builder for the {@link ImageRecordDataset}. */
+    public static final class Builder extends BaseBuilder<Builder> {
+
+        Path dir;
+        boolean memoryMap;
+        long cacheSize;
+        Integer imageWidth;
+        Integer imageHeight;
+
+        Builder() {
+            memoryMap = true;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected Builder self() {
+            return this;
+        }
+
+        /**
+         * Sets the directory containing the shards and the index written by {@link
+         * ImageRecordWriter}.
+         *
+         * @param dir the directory containing the shards
+         * @return this builder
+         */
+        public Builder setRecordPath(Path dir) {
+            this.dir = dir;
+            return this;
+        }
+
+        /**
+         * Sets whether to memory-map the shards, or to read the records with positional reads.
+         *
+         * @param memoryMap {@code true} to memory-map the shards
+         * @return this builder
+         */
+        public Builder optMemoryMap(boolean memoryMap) {
+            this.memoryMap = memoryMap;
+            return this;
+        }
+
+        /**
+         * Sets the maximum size in bytes of the cache of decoded images, 0 disables the cache.
+         *
+         * <p>The images are cached after decoding and resizing, so set a fixed {@link
+         * #optImageSize(int) image size} to keep the cached images small.
+         *
+         * @param cacheSize the maximum size in bytes of the decoded images to keep
+         * @return this builder
+         */
+        public Builder optCacheSize(long cacheSize) {
+            this.cacheSize = cacheSize;
+            return this;
+        }
+
+        /**
+         * Sets the size of the images.
+         *
+         * @param size the size (both width and height)
+         * @return this builder
+         */
+        public Builder optImageSize(int size) {
+            this.imageWidth = size;
+            this.imageHeight = size;
+            return this;
+        }
+
+        /**
+         * Sets the width of the images.
+         *
+         * @param width the width of the images
+         * @return this builder
+         */
+        public Builder optImageWidth(int width) {
+            this.imageWidth = width;
+            return this;
+        }
+
+        /**
+         * Sets the height of the images.
+         *
+         * @param height the height of the images
+         * @return this builder
+         */
+        public Builder optImageHeight(int height) {
+            this.imageHeight = height;
+            return this;
+        }
+
+        /**
+         * Builds the {@link ImageRecordDataset}.
+         *
+         * @return the {@link ImageRecordDataset}
+         */
+        public ImageRecordDataset build() {
+            if (dir == null) {
+                throw new IllegalArgumentException("Missing record path.");
+            }
+            if (pipeline == null) {
+                pipeline = new Pipeline(new ToTensor());
+            }
+            return new ImageRecordDataset(this);
+        }
+    }
+}
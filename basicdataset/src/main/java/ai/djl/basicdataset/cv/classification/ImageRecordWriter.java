@@ -0,0 +1,135 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.basicdataset.cv.classification;
+
+import ai.djl.translate.TranslateException;
+import ai.djl.util.Pair;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Converts an {@link AbstractImageFolder} into the packed record shards read by {@link
+ * ImageRecordDataset}.
+ *
+ * <p>The encoded image files are copied as they are into shard files of about the given size, and
+ * an index file records the shard, offset, length and class of every image. The conversion only
+ * needs to run once, after that the dataset reads a few large files sequentially instead of
+ * opening every image file on each epoch.
+ *
+ * <pre>
+ * ImageFolder folder = ImageFolder.builder().setRepositoryPath(imagePath).build();
+ * ImageRecordWriter.write(folder, recordPath);
+ * </pre>
+ */
+public final class ImageRecordWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageRecordWriter.class);
+
+    private static final long DEFAULT_SHARD_SIZE = 256L * 1024 * 1024;
+
+    private ImageRecordWriter() {}
+
+    /**
+     * Writes the images of the folder into shards of about 256MB.
+     *
+     * @param folder the image folder to convert
+     * @param dir the directory to write the shards and the index to
+     * @throws IOException if an image cannot be read or a shard cannot be written
+     * @throws TranslateException if the image folder cannot be prepared
+     */
+    public static void write(AbstractImageFolder folder, Path dir)
+            throws IOException, TranslateException {
+        write(folder, dir, DEFAULT_SHARD_SIZE);
+    }
+
+    /**
+     * Writes the images of the folder into shards of about the given size.
+     *
+     * @param folder the image folder to convert
+     * @param dir the directory to write the shards and the index to
+     * @param shardSize the size in bytes after which a new shard is started
+     * @throws IOException if an image cannot be read or a shard cannot be written
+     * @throws TranslateException if the image folder cannot be prepared
+     */
+    public static void write(AbstractImageFolder folder, Path dir, long shardSize)
+            throws IOException, TranslateException {
+        if (shardSize <= 0 || shardSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid shard size: " + shardSize);
+        }
+        List<String> synset = folder.getSynset();
+        int size = folder.items.size();
+        int[] shards = new int[size];
+        long[] offsets = new long[size];
+        int[] lengths = new int[size];
+        int[] labels = new int[size];
+
+        Files.createDirectories(dir);
+        Files.deleteIfExists(dir.resolve(ImageRecordDataset.INDEX_FILE));
+        int shard = 0;
+        long offset = 0;
+        OutputStream os = null;
+        try {
+            for (int i = 0; i < size; ++i) {
+                Pair<String, Integer> item = folder.items.get(i);
+                byte[] buf = Files.readAllBytes(folder.getImagePath(item.getKey()));
+                if (os == null || (offset > 0 && offset + buf.length > shardSize)) {
+                    if (os != null) {
+                        os.close();
+                        ++shard;
+                        offset = 0;
+                    }
+                    Path file = dir.resolve(ImageRecordDataset.getShardName(shard));
+                    os = new BufferedOutputStream(Files.newOutputStream(file));
+                }
+                os.write(buf);
+                shards[i] = shard;
+                offsets[i] = offset;
+                lengths[i] = buf.length;
+                labels[i] = item.getValue();
+                offset += buf.length;
+            }
+        } finally {
+            if (os != null) {
+                os.close();
+            }
+        }
+
+        // the index is written last, an interrupted conversion leaves no usable index behind
+        Path index = dir.resolve(ImageRecordDataset.INDEX_FILE);
+        try (DataOutputStream dos =
+                new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(index)))) {
+            dos.writeInt(ImageRecordDataset.MAGIC);
+            dos.writeInt(ImageRecordDataset.VERSION);
+            dos.writeInt(synset.size());
+            for (String name : synset) {
+                dos.writeUTF(name);
+            }
+            dos.writeInt(size == 0 ? 0 : shard + 1);
+            dos.writeInt(size);
+            for (int i = 0; i < size; ++i) {
+                dos.writeInt(shards[i]);
+                dos.writeLong(offsets[i]);
+                dos.writeInt(lengths[i]);
+                dos.writeInt(labels[i]);
+            }
+        }
+        logger.info("Wrote {} images into {} shards in {}", size, shard + 1, dir);
+    }
+}
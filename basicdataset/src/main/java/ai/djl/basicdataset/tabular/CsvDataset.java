@@ -24,10 +24,14 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.net.MalformedURLException;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.net.URLConnection;
 import java.nio.FloatBuffer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -38,7 +42,13 @@ import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
 
-/** {@code CsvDataset} represents the dataset that stored in a .csv file. */
+/**
+ * {@code CsvDataset} represents the dataset that stored in a .csv file.
+ *
+ * <p>With {@link CsvBuilder#optCacheFile(Path)}, the CSV file is parsed and featurized once in a
+ * streaming pass into a memory-mapped cache file, and later runs read the records from the cache
+ * without parsing the CSV file again.
+ */
 public class CsvDataset extends RandomAccessDataset {
 
     private static final Featurizer NUMERIC_FEATURIZER = new NumericFeaturizer();
@@ -49,17 +59,24 @@ public class CsvDataset extends RandomAccessDataset {
     protected List<Feature> labels;
     protected List<CSVRecord> csvRecords;
 
+    private Path cacheFile;
+    private TabularCache cache;
+
     protected CsvDataset(CsvBuilder<?> builder) {
         super(builder);
         csvUrl = builder.csvUrl;
         csvFormat = builder.csvFormat;
         features = builder.features;
         labels = builder.labels;
+        cacheFile = builder.cacheFile;
     }
 
     /** {@inheritDoc} */
     @Override
     public Record get(NDManager manager, long index) {
+        if (cache != null) {
+            return cache.get(manager, index);
+        }
         CSVRecord csvRecord = csvRecords.get(Math.toIntExact(index));
         NDList data = toNDList(manager, csvRecord, features);
         NDList label = toNDList(manager, csvRecord, labels);
@@ -67,21 +84,86 @@ public class CsvDataset extends RandomAccessDataset {
         return new Record(data, label);
     }
 
+    /**
+     * Gets the {@link Record} of a whole batch in a single pass over the cache file.
+     *
+     * <p>{@inheritDoc}
+     */
+    @Override
+    public Record getBatch(NDManager manager, List<Long> indices) {
+        if (cache != null) {
+            return cache.getBatch(manager, indices);
+        }
+        return null;
+    }
+
     /** {@inheritDoc} */
     @Override
     protected long availableSize() {
+        if (cache != null) {
+            return cache.size();
+        }
         return csvRecords.size();
     }
 
     /** {@inheritDoc} */
     @Override
     public void prepare(Progress progress) throws IOException {
+        if (cacheFile != null) {
+            if (cache == null) {
+                String source = getCacheSource();
+                cache = TabularCache.open(cacheFile, source);
+                if (cache == null) {
+                    writeCache(source);
+                    cache = TabularCache.open(cacheFile, source);
+                }
+            }
+            return;
+        }
         try (Reader reader = new InputStreamReader(getCsvStream(), StandardCharsets.UTF_8)) {
             CSVParser csvParser = new CSVParser(reader, csvFormat);
             csvRecords = csvParser.getRecords();
         }
     }
 
+    private void writeCache(String source) throws IOException {
+        try (Reader reader = new InputStreamReader(getCsvStream(), StandardCharsets.UTF_8);
+                CSVParser csvParser = new CSVParser(reader, csvFormat);
+                TabularCache.Writer writer =
+                        new TabularCache.Writer(cacheFile, source, csvParser.getHeaderNames())) {
+            for (CSVRecord record : csvParser) {
+                writer.addRow(featurize(record, features), featurize(record, labels));
+            }
+            writer.commit();
+        }
+    }
+
+    private String getCacheSource() throws IOException {
+        StringBuilder sb = new StringBuilder(csvUrl.toString());
+        if ("file".equals(csvUrl.getProtocol())) {
+            Path file;
+            try {
+                file = Paths.get(csvUrl.toURI());
+            } catch (URISyntaxException e) {
+                throw new IOException("Invalid file url: " + csvUrl, e);
+            }
+            sb.append('|').append(Files.size(file));
+            sb.append('|').append(Files.getLastModifiedTime(file).toMillis());
+        } else {
+            URLConnection conn = csvUrl.openConnection();
+            sb.append('|').append(conn.getContentLengthLong());
+            sb.append('|').append(conn.getLastModified());
+        }
+        sb.append('|').append(csvFormat);
+        for (Feature feature : features) {
+            sb.append("|f:").append(feature.getName());
+        }
+        for (Feature label : labels) {
+            sb.append("|l:").append(label.getName());
+        }
+        return sb.toString();
+    }
+
     private InputStream getCsvStream() throws IOException {
         if (csvUrl.getFile().endsWith(".gz")) {
             return new GZIPInputStream(csvUrl.openStream());
@@ -104,6 +186,9 @@ public class CsvDataset extends RandomAccessDataset {
      * @return a list of column name
      */
     public List<String> getColumnNames() {
+        if (cache != null) {
+            return cache.getColumnNames();
+        }
         if (csvRecords.isEmpty()) {
             return Collections.emptyList();
         }
@@ -111,14 +196,18 @@ public class CsvDataset extends RandomAccessDataset {
     }
 
     protected NDList toNDList(NDManager manager, CSVRecord record, List<Feature> selected) {
+        FloatBuffer buf = featurize(record, selected);
+        return new NDList(manager.create(buf, new Shape(buf.remaining())));
+    }
+
+    private static FloatBuffer featurize(CSVRecord record, List<Feature> selected) {
         DynamicBuffer bb = new DynamicBuffer();
         for (Feature feature : selected) {
             String name = feature.getName();
             String value = record.get(name);
             feature.featurizer.featurize(bb, value);
         }
-        FloatBuffer buf = bb.getBuffer();
-        return new NDList(manager.create(buf, new Shape(bb.getLength())));
+        return bb.getBuffer();
     }
 
     /** Used to build a {@link CsvDataset}. */
@@ -128,6 +217,7 @@ public class CsvDataset extends RandomAccessDataset {
         protected CSVFormat csvFormat;
         protected List<Feature> features;
         protected List<Feature> labels;
+        protected Path cacheFile;
 
         protected CsvBuilder() {
             features = new ArrayList<>();
@@ -171,6 +261,24 @@ public class CsvDataset extends RandomAccessDataset {
             return self();
         }
 
+        /**
+         * Sets the optional cache file of the featurized records.
+         *
+         * <p>On the first {@code prepare}, the CSV file is streamed and the featurized records are
+         * written to the cache file. Later runs memory-map the cache file as long as the CSV file,
+         * its format and the selected features and labels are unchanged, otherwise the cache is
+         * built again. Records are then read from the cache instead of {@link
+         * CsvDataset#toNDList}, so subclasses that override it or read {@link
+         * CsvDataset#csvRecords} don't support the cache.
+         *
+         * @param cacheFile the path of the cache file
+         * @return this builder
+         */
+        public T optCacheFile(Path cacheFile) {
+            this.cacheFile = cacheFile;
+            return self();
+        }
+
         /**
          * Sets the CSV file format.
          *
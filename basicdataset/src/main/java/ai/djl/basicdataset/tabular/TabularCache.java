@@ -0,0 +1,367 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.basicdataset.tabular;
+
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.NDManager;
+import ai.djl.ndarray.types.Shape;
+import ai.djl.training.dataset.Record;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A memory-mapped file that holds the featurized rows of a {@link CsvDataset}.
+ *
+ * <p>The file starts with a fixed size header, followed by one float32 row per record with the
+ * features and then the labels of the record, and ends with the description of the source and
+ * the column names. Since the rows have a fixed width, a record is a slice of the mapped file and
+ * a batch is gathered with bulk copies, without parsing or featurizing again.
+ */
+final class TabularCache {
+
+    private static final int MAGIC = 0x434C4A44; // "DJLC"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+
+    private long rows;
+    private int featureWidth;
+    private int labelWidth;
+    private List<String> columnNames;
+    private FloatBuffer[] chunks;
+    private int rowsPerChunk;
+
+    private TabularCache(
+            long rows,
+            int featureWidth,
+            int labelWidth,
+            List<String> columnNames,
+            FloatBuffer[] chunks,
+            int rowsPerChunk) {
+        this.rows = rows;
+        this.featureWidth = featureWidth;
+        this.labelWidth = labelWidth;
+        this.columnNames = columnNames;
+        this.chunks = chunks;
+        this.rowsPerChunk = rowsPerChunk;
+    }
+
+    /**
+     * Maps the cache file if it exists and was built from the same source.
+     *
+     * @param file the cache file
+     * @param source the description of the source of the rows
+     * @return the mapped cache, or {@code null} if the file is missing or stale
+     * @throws IOException if the file cannot be read
+     */
+    static TabularCache open(Path file, String source) throws IOException {
+        if (Files.notExists(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE) {
+                return null;
+            }
+            ByteBuffer header = read(channel, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                return null;
+            }
+            long rows = header.getLong();
+            int featureWidth = header.getInt();
+            int labelWidth = header.getInt();
+            long trailerOffset = header.getLong();
+            int rowBytes = (featureWidth + labelWidth) * Float.BYTES;
+            if (trailerOffset != HEADER_SIZE + rows * rowBytes || trailerOffset > fileSize) {
+                return null;
+            }
+
+            ByteBuffer trailer =
+                    read(channel, trailerOffset, Math.toIntExact(fileSize - trailerOffset));
+            if (!source.equals(getString(trailer))) {
+                return null;
+            }
+            int columns = trailer.getInt();
+            List<String> columnNames = new ArrayList<>(columns);
+            for (int i = 0; i < columns; ++i) {
+                columnNames.add(getString(trailer));
+            }
+
+            // a single mapping cannot exceed 2GB
+            int rowsPerChunk = Integer.MAX_VALUE / Math.max(rowBytes, 1);
+            int chunkCount = Math.toIntExact((rows + rowsPerChunk - 1) / rowsPerChunk);
+            FloatBuffer[] chunks = new FloatBuffer[chunkCount];
+            for (int i = 0; i < chunkCount; ++i) {
+                long first = (long) i * rowsPerChunk;
+                long size = Math.min(rowsPerChunk, rows - first) * rowBytes;
+                chunks[i] =
+                        channel.map(
+                                        FileChannel.MapMode.READ_ONLY,
+                                        HEADER_SIZE + first * rowBytes,
+                                        size)
+                                .order(ByteOrder.LITTLE_ENDIAN)
+                                .asFloatBuffer();
+            }
+            return new TabularCache(
+                    rows,
+                    featureWidth,
+                    labelWidth,
+                    Collections.unmodifiableList(columnNames),
+                    chunks,
+                    rowsPerChunk);
+        }
+    }
+
+    /**
+     * Returns the number of rows in the cache.
+     *
+     * @return the number of rows
+     */
+    long size() {
+        return rows;
+    }
+
+    /**
+     * Returns the column names of the source CSV file.
+     *
+     * @return the column names
+     */
+    List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    /**
+     * Returns the record of a row.
+     *
+     * @param manager the manager used to create the arrays
+     * @param index the index of the row
+     * @return the record of the row
+     */
+    Record get(NDManager manager, long index) {
+        FloatBuffer row = getRow(index);
+        NDArray data = manager.create(slice(row, 0, featureWidth), new Shape(featureWidth));
+        NDArray label =
+                manager.create(slice(row, featureWidth, labelWidth), new Shape(labelWidth));
+        return new Record(new NDList(data), new NDList(label));
+    }
+
+    /**
+     * Returns the rows as a batch, with one array for the features and one for the labels.
+     *
+     * @param manager the manager used to create the arrays
+     * @param indices the indices of the rows
+     * @return the record of the batch
+     */
+    Record getBatch(NDManager manager, List<Long> indices) {
+        int size = indices.size();
+        FloatBuffer data =
+                manager.allocateDirect(size * featureWidth * Float.BYTES).asFloatBuffer();
+        FloatBuffer label =
+                manager.allocateDirect(size * labelWidth * Float.BYTES).asFloatBuffer();
+        for (long index : indices) {
+            FloatBuffer row = getRow(index);
+            data.put(slice(row, 0, featureWidth));
+            label.put(slice(row, featureWidth, labelWidth));
+        }
+        data.rewind();
+        label.rewind();
+        NDArray dataArray = manager.create(data, new Shape(size, featureWidth));
+        NDArray labelArray = manager.create(label, new Shape(size, labelWidth));
+        return new Record(new NDList(dataArray), new NDList(labelArray));
+    }
+
+    private FloatBuffer getRow(long index) {
+        if (index < 0 || index >= rows) {
+            throw new IndexOutOfBoundsException("index(" + index + ") > size(" + rows + ").");
+        }
+        FloatBuffer chunk = chunks[Math.toIntExact(index / rowsPerChunk)];
+        int position = Math.toIntExact(index % rowsPerChunk) * (featureWidth + labelWidth);
+        // duplicate, the position of the shared mapping must not be touched by concurrent reads
+        FloatBuffer row = chunk.duplicate();
+        row.position(position);
+        return row;
+    }
+
+    private static FloatBuffer slice(FloatBuffer row, int offset, int length) {
+        FloatBuffer buf = row.duplicate();
+        buf.position(row.position() + offset);
+        buf.limit(buf.position() + length);
+        return buf.slice();
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int size)
+            throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, position + buf.position()) < 0) {
+                throw new IOException("Unexpected end of cache file");
+            }
+        }
+        buf.flip();
+        return buf;
+    }
+
+    private static String getString(ByteBuffer buf) {
+        byte[] bytes = new byte[buf.getInt()];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Writes a cache file in a single pass over the rows. */
+    static final class Writer implements AutoCloseable {
+
+        private Path file;
+        private Path tmp;
+        private String source;
+        private List<String> columnNames;
+        private FileChannel channel;
+        private ByteBuffer buf;
+        private long rows;
+        private int featureWidth;
+        private int labelWidth;
+        private boolean committed;
+
+        /**
+         * Constructs a new {@code Writer} instance.
+         *
+         * @param file the cache file to write
+         * @param source the description of the source of the rows
+         * @param columnNames the column names of the source CSV file
+         * @throws IOException if the file cannot be created
+         */
+        Writer(Path file, String source, List<String> columnNames) throws IOException {
+            this.file = file;
+            this.source = source;
+            this.columnNames = columnNames;
+            Path dir = file.toAbsolutePath().getParent();
+            if (dir != null) {
+                Files.createDirectories(dir);
+            }
+            tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            channel =
+                    FileChannel.open(
+                            tmp,
+                            StandardOpenOption.CREATE,
+                            StandardOpenOption.WRITE,
+                            StandardOpenOption.TRUNCATE_EXISTING);
+            channel.position(HEADER_SIZE);
+            buf = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            featureWidth = -1;
+        }
+
+        /**
+         * Appends a row.
+         *
+         * @param features the featurized features of the row
+         * @param labels the featurized labels of the row
+         * @throws IOException if the row cannot be written
+         */
+        void addRow(FloatBuffer features, FloatBuffer labels) throws IOException {
+            if (featureWidth < 0) {
+                featureWidth = features.remaining();
+                labelWidth = labels.remaining();
+            } else if (features.remaining() != featureWidth || labels.remaining() != labelWidth) {
+                throw new IllegalArgumentException(
+                        "Row " + rows + " has a different number of values than the first row.");
+            }
+            put(features);
+            put(labels);
+            ++rows;
+        }
+
+        /**
+         * Completes the file and moves it in place.
+         *
+         * @throws IOException if the file cannot be written
+         */
+        void commit() throws IOException {
+            flush();
+            long trailerOffset = channel.position();
+            putString(source);
+            reserve(Integer.BYTES);
+            buf.putInt(columnNames.size());
+            for (String name : columnNames) {
+                putString(name);
+            }
+            flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC);
+            header.putInt(VERSION);
+            header.putLong(rows);
+            header.putInt(Math.max(featureWidth, 0));
+            header.putInt(labelWidth);
+            header.putLong(trailerOffset);
+            header.rewind();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.close();
+
+            Files.move(
+                    tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            committed = true;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void close() throws IOException {
+            channel.close();
+            if (!committed) {
+                Files.deleteIfExists(tmp);
+            }
+        }
+
+        private void put(FloatBuffer values) throws IOException {
+            while (values.hasRemaining()) {
+                reserve(Float.BYTES);
+                buf.putFloat(values.get());
+            }
+        }
+
+        private void putString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            reserve(bytes.length + Integer.BYTES);
+            buf.putInt(bytes.length);
+            buf.put(bytes);
+        }
+
+        private void reserve(int bytes) throws IOException {
+            if (buf.remaining() < bytes) {
+                flush();
+                if (buf.capacity() < bytes) {
+                    buf = ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+                }
+            }
+        }
+
+        private void flush() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining()) {
+                channel.write(buf);
+            }
+            buf.clear();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.basicdataset;
+
+import ai.djl.basicdataset.tabular.CsvDataset;
+import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.NDManager;
+import ai.djl.training.dataset.Record;
+import ai.djl.util.Utils;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import org.apache.commons.csv.CSVFormat;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class CsvDatasetTest {
+
+    @Test
+    public void testCacheFile() throws IOException {
+        Path dir = Paths.get("build/tmp/test/csv");
+        Utils.deleteQuietly(dir);
+        Files.createDirectories(dir);
+        Path csvFile = dir.resolve("data.csv");
+        Path cacheFile = dir.resolve("data.cache");
+        String csv = "x,color,y\n1.5,red,10\n2.5,blue,20\n3.5,red,30\n";
+        Files.write(csvFile, csv.getBytes(StandardCharsets.UTF_8));
+
+        try (NDManager manager = NDManager.newBaseManager()) {
+            for (int run = 0; run < 2; ++run) {
+                CsvDataset dataset = newDataset(csvFile, cacheFile);
+                dataset.prepare();
+                Assert.assertTrue(Files.exists(cacheFile));
+                Assert.assertEquals(dataset.size(), 3);
+                Assert.assertEquals(dataset.getColumnNames(), Arrays.asList("x", "color", "y"));
+
+                Record record = dataset.get(manager, 2);
+                Assert.assertEquals(
+                        record.getData().head().toFloatArray(), new float[] {3.5f, 0f});
+                Assert.assertEquals(record.getLabels().head().toFloatArray(), new float[] {30f});
+
+                Record batch = dataset.getBatch(manager, Arrays.asList(1L, 0L));
+                NDList data = batch.getData();
+                Assert.assertEquals(data.head().getShape().toString(), "(2, 2)");
+                Assert.assertEquals(
+                        data.head().toFloatArray(), new float[] {2.5f, 1f, 1.5f, 0f});
+                Assert.assertEquals(batch.getLabels().head().toFloatArray(), new float[] {20, 10});
+            }
+
+            // a changed source rebuilds the cache
+            Files.write(csvFile, (csv + "4.5,blue,40\n").getBytes(StandardCharsets.UTF_8));
+            CsvDataset dataset = newDataset(csvFile, cacheFile);
+            dataset.prepare();
+            Assert.assertEquals(dataset.size(), 4);
+        }
+    }
+
+    private static CsvDataset newDataset(Path csvFile, Path cacheFile) {
+        return CsvDataset.builder()
+                .optCsvFile(csvFile)
+                .optCacheFile(cacheFile)
+                .setCsvFormat(CSVFormat.DEFAULT.withFirstRecordAsHeader())
+                .addNumericFeature("x")
+                .addCategoricalFeature("color")
+                .addNumericLabel("y")
+                .setSampling(2, false)
+                .build();
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.basicdataset;
+
+import ai.djl.basicdataset.cv.classification.ImageFolder;
+import ai.djl.basicdataset.cv.classification.ImageRecordDataset;
+import ai.djl.basicdataset.cv.classification.ImageRecordWriter;
+import ai.djl.ndarray.NDManager;
+import ai.djl.training.dataset.Record;
+import ai.djl.translate.TranslateException;
+import ai.djl.util.Utils;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ImageRecordDatasetTest {
+
+    @Test
+    public void testImageRecords() throws IOException, TranslateException {
+        Path dir = Paths.get("build/tmp/test/records");
+        Utils.deleteQuietly(dir);
+        ImageFolder folder =
+                ImageFolder.builder()
+                        .setRepositoryPath("src/test/resources/imagefolder")
+                        .optImageSize(32)
+                        .setSampling(1, false)
+                        .build();
+        // a tiny shard size puts every image in its own shard
+        ImageRecordWriter.write(folder, dir, 1);
+        Assert.assertTrue(Files.exists(dir.resolve("shard-00002.rec")));
+
+        for (boolean memoryMap : new boolean[] {true, false}) {
+            try (ImageRecordDataset dataset =
+                    ImageRecordDataset.builder()
+                            .setRecordPath(dir)
+                            .optMemoryMap(memoryMap)
+                            .optCacheSize(1024 * 1024)
+                            .optImageSize(32)
+                            .setSampling(1, false)
+                            .build()) {
+                dataset.prepare();
+                Assert.assertEquals(dataset.size(), 3);
+                Assert.assertEquals(dataset.getClasses(), folder.getSynset());
+
+                try (NDManager manager = NDManager.newBaseManager()) {
+                    for (int i = 0; i < 3; ++i) {
+                        Record expected = folder.get(manager, i);
+                        // the second read is served from the decoded cache
+                        for (int j = 0; j < 2; ++j) {
+                            Record record = dataset.get(manager, i);
+                            Assert.assertEquals(record.getData().head(), expected.getData().head());
+                            Assert.assertEquals(
+                                    record.getLabels().head(), expected.getLabels().head());
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
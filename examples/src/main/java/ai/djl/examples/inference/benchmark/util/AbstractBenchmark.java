@@ -16,6 +16,7 @@ import ai.djl.Device;
 import ai.djl.ModelException;
 import ai.djl.engine.Engine;
 import ai.djl.examples.inference.benchmark.MultithreadedBenchmark;
+import ai.djl.metric.HistogramMetrics;
 import ai.djl.metric.Metrics;
 import ai.djl.ndarray.NDList;
 import ai.djl.ndarray.types.Shape;
@@ -126,7 +127,7 @@ public abstract class AbstractBenchmark {
                 iteration = Math.max(iteration, 10) * numOfThreads;
             }
             while (!duration.isNegative()) {
-                Metrics metrics = new Metrics(); // Reset Metrics for each test loop.
+                Metrics metrics = new HistogramMetrics(); // Reset Metrics for each test loop.
                 progressBar = new ProgressBar("Iteration", iteration);
                 long begin = System.currentTimeMillis();
                 lastResult = predict(arguments, metrics, iteration);
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.integration.tests.inference;
+
+import ai.djl.Model;
+import ai.djl.inference.PipelinedPredictor;
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.NDManager;
+import ai.djl.nn.LambdaBlock;
+import ai.djl.translate.Batchifier;
+import ai.djl.translate.TranslateException;
+import ai.djl.translate.Translator;
+import ai.djl.translate.TranslatorContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class PipelinedPredictorTest {
+
+    @Test
+    public void testPredictAsync() throws ExecutionException, InterruptedException {
+        try (Model model = Model.newInstance("model")) {
+            model.setBlock(new LambdaBlock(list -> new NDList(list.singletonOrThrow().mul(2))));
+            try (PipelinedPredictor<float[], float[]> predictor =
+                    new PipelinedPredictor<>(model, new DoubleTranslator(), false, 2, 2, 4)) {
+                List<CompletableFuture<float[]>> futures = new ArrayList<>();
+                for (int i = 0; i < 20; ++i) {
+                    futures.add(predictor.predictAsync(new float[] {i, -i}));
+                }
+                for (int i = 0; i < futures.size(); ++i) {
+                    float[] expected = {2 * i, -2 * i};
+                    Assert.assertEquals(futures.get(i).get(), expected);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBatchPredict() throws TranslateException {
+        try (Model model = Model.newInstance("model")) {
+            model.setBlock(new LambdaBlock(list -> new NDList(list.singletonOrThrow().mul(2))));
+            try (PipelinedPredictor<float[], float[]> predictor =
+                    new PipelinedPredictor<>(model, new DoubleTranslator(), false, 2, 2, 4)) {
+                List<float[]> inputs = Arrays.asList(new float[] {1, 2}, new float[] {3, 4});
+                List<float[]> outputs = predictor.batchPredict(inputs);
+                Assert.assertEquals(outputs.get(0), new float[] {2, 4});
+                Assert.assertEquals(outputs.get(1), new float[] {6, 8});
+                Assert.assertEquals(predictor.getPreprocessQueueSize(), 0);
+                Assert.assertEquals(predictor.getInferenceQueueSize(), 0);
+                Assert.assertEquals(predictor.getPostprocessQueueSize(), 0);
+
+                Assert.assertThrows(
+                        TranslateException.class,
+                        () -> predictor.batchPredict(Arrays.asList(new float[] {1}, null)));
+            }
+        }
+    }
+
+    @Test
+    public void testClosed() {
+        try (Model model = Model.newInstance("model")) {
+            model.setBlock(new LambdaBlock(list -> new NDList(list.singletonOrThrow().mul(2))));
+            PipelinedPredictor<float[], float[]> predictor =
+                    new PipelinedPredictor<>(model, new DoubleTranslator(), false, 2, 2, 4);
+            predictor.close();
+
+            CompletableFuture<float[]> future = predictor.predictAsync(new float[] {1});
+            Assert.assertTrue(future.isCompletedExceptionally());
+            Assert.assertThrows(
+                    IllegalStateException.class,
+                    () -> predictor.batchPredict(Arrays.asList(new float[] {1}, new float[] {2})));
+        }
+    }
+
+    @Test
+    public void testPrepareOnce() throws ExecutionException, InterruptedException {
+        try (Model model = Model.newInstance("model")) {
+            model.setBlock(new LambdaBlock(list -> new NDList(list.singletonOrThrow().mul(2))));
+            DoubleTranslator translator = new DoubleTranslator();
+            try (PipelinedPredictor<float[], float[]> predictor =
+                    new PipelinedPredictor<>(model, translator, false, 4, 4, 4)) {
+                // the stage threads of concurrent batches prepare the translator only once
+                List<CompletableFuture<List<float[]>>> futures = new ArrayList<>();
+                for (int i = 0; i < 8; ++i) {
+                    List<float[]> inputs = Arrays.asList(new float[] {i}, new float[] {-i});
+                    futures.add(predictor.batchPredictAsync(inputs));
+                }
+                for (CompletableFuture<List<float[]>> future : futures) {
+                    future.get();
+                }
+                Assert.assertEquals(translator.prepared.get(), 1);
+            }
+        }
+    }
+
+    private static final class DoubleTranslator implements Translator<float[], float[]> {
+
+        AtomicInteger prepared = new AtomicInteger();
+
+        /** {@inheritDoc} */
+        @Override
+        public void prepare(NDManager manager, Model model) {
+            prepared.incrementAndGet();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public NDList processInput(TranslatorContext ctx, float[] input)
+                throws TranslateException {
+            if (input == null) {
+                throw new TranslateException("Invalid input");
+            }
+            return new NDList(ctx.getNDManager().create(input));
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public float[] processOutput(TranslatorContext ctx, NDList list) {
+            NDArray array = list.singletonOrThrow();
+            return array.toFloatArray();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Batchifier getBatchifier() {
+            return Batchifier.STACK;
+        }
+    }
+}
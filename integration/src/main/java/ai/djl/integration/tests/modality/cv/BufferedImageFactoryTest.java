@@ -14,12 +14,15 @@ package ai.djl.integration.tests.modality.cv;
 
 import ai.djl.modality.cv.Image;
 import ai.djl.modality.cv.ImageFactory;
+import ai.djl.modality.cv.util.NDImageUtils;
 import ai.djl.ndarray.NDArray;
 import ai.djl.ndarray.NDManager;
 import ai.djl.ndarray.types.DataType;
 import ai.djl.ndarray.types.Shape;
 import ai.djl.testing.Assertions;
+import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.util.Random;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -47,4 +50,37 @@ public class BufferedImageFactoryTest {
             Assertions.assertAlmostEquals(array, converted);
         }
     }
+
+    @Test
+    public void testToTensor() {
+        float[] mean = {0.485f, 0.456f, 0.406f};
+        float[] std = {0.229f, 0.224f, 0.225f};
+        int[] types = {
+            BufferedImage.TYPE_3BYTE_BGR,
+            BufferedImage.TYPE_INT_RGB,
+            BufferedImage.TYPE_INT_ARGB,
+            BufferedImage.TYPE_USHORT_565_RGB
+        };
+        Random random = new Random(0);
+        try (NDManager manager = NDManager.newBaseManager()) {
+            ImageFactory factory = ImageFactory.getInstance();
+            for (int type : types) {
+                BufferedImage buf = new BufferedImage(9, 7, type);
+                for (int y = 0; y < 7; ++y) {
+                    for (int x = 0; x < 9; ++x) {
+                        buf.setRGB(x, y, random.nextInt());
+                    }
+                }
+                // sub images read from the shared raster of their parent
+                Image image = factory.fromImage(buf).getSubimage(1, 2, 6, 4);
+
+                NDArray expected = NDImageUtils.toTensor(image.toNDArray(manager));
+                Assertions.assertAlmostEquals(
+                        image.toTensor(manager, Image.Flag.COLOR, null, null), expected);
+                Assertions.assertAlmostEquals(
+                        image.toTensor(manager, Image.Flag.COLOR, mean, std),
+                        NDImageUtils.normalize(expected, mean, std));
+            }
+        }
+    }
 }
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.integration.tests.modality.cv;
+
+import ai.djl.engine.Engine;
+import ai.djl.modality.cv.Image;
+import ai.djl.modality.cv.transform.CenterCrop;
+import ai.djl.modality.cv.transform.FusedImageTransform;
+import ai.djl.modality.cv.transform.Normalize;
+import ai.djl.modality.cv.transform.RandomFlipLeftRight;
+import ai.djl.modality.cv.transform.Resize;
+import ai.djl.modality.cv.transform.ToTensor;
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.NDManager;
+import ai.djl.ndarray.types.DataType;
+import ai.djl.ndarray.types.Shape;
+import ai.djl.testing.Assertions;
+import ai.djl.translate.Pipeline;
+import ai.djl.translate.Transform;
+import java.util.Arrays;
+import java.util.List;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+public class FusedImageTransformTest {
+
+    private static final float[] MEAN = {0.485f, 0.456f, 0.406f};
+    private static final float[] STD = {0.229f, 0.224f, 0.225f};
+
+    @Test
+    public void testFuse() {
+        Transform flip = new RandomFlipLeftRight();
+        List<Transform> fused =
+                FusedImageTransform.fuse(
+                        Arrays.asList(
+                                flip,
+                                new Resize(32),
+                                new ToTensor(),
+                                new Normalize(MEAN, STD),
+                                new ToTensor()));
+        Assert.assertEquals(fused.size(), 3);
+        Assert.assertSame(fused.get(0), flip);
+        Assert.assertEquals(((FusedImageTransform) fused.get(1)).getTransforms().size(), 3);
+        Assert.assertEquals(((FusedImageTransform) fused.get(2)).getTransforms().size(), 1);
+
+        // no ToTensor, nothing to fuse
+        List<Transform> steps = Arrays.asList(new Resize(32), new CenterCrop());
+        Assert.assertEquals(FusedImageTransform.fuse(steps), steps);
+    }
+
+    @Test
+    public void testTransform() {
+        if ("TensorFlow".equals(Engine.getInstance().getEngineName())) {
+            throw new SkipException("TensorFlow use channels last by default.");
+        }
+        try (NDManager manager = NDManager.newBaseManager()) {
+            NDArray image = manager.randomUniform(0, 255, new Shape(37, 53, 3));
+            image = image.toType(DataType.UINT8, false);
+
+            // without resizing the result is exact
+            assertFused(image, 1e-5, new CenterCrop(20, 16), new ToTensor());
+            assertFused(image, 1e-5, new CenterCrop(), new ToTensor(), new Normalize(MEAN, STD));
+
+            // resizing may round differently by one step of uint8, scaled by the smallest std
+            double atol = 1.01 / 255 / STD[1];
+            assertFused(
+                    image,
+                    atol,
+                    new Resize(32, 24),
+                    new CenterCrop(20, 20),
+                    new ToTensor(),
+                    new Normalize(MEAN, STD));
+            assertFused(
+                    image,
+                    atol,
+                    new CenterCrop(),
+                    new Resize(16, 16, Image.Interpolation.NEAREST),
+                    new ToTensor());
+        }
+    }
+
+    @Test
+    public void testPipelineNotFusedByDefault() {
+        try (NDManager manager = NDManager.newBaseManager()) {
+            NDArray image = manager.randomUniform(0, 255, new Shape(37, 53, 3));
+            image = image.toType(DataType.UINT8, false);
+            Transform[] steps = {new Resize(32, 24), new ToTensor(), new Normalize(MEAN, STD)};
+
+            NDArray expected = image;
+            for (Transform transform : steps) {
+                expected = transform.transform(expected);
+            }
+            // the fused path is opt-in, by default the result is bit-identical to the steps
+            NDArray actual = new Pipeline(steps).transform(new NDList(image)).singletonOrThrow();
+            Assert.assertEquals(actual, expected);
+        }
+    }
+
+    private static void assertFused(NDArray image, double atol, Transform... transforms) {
+        List<Transform> steps = Arrays.asList(transforms);
+        List<Transform> fused = FusedImageTransform.fuse(steps);
+        Assert.assertEquals(fused.size(), 1);
+
+        NDArray expected = image;
+        for (Transform transform : steps) {
+            expected = transform.transform(expected);
+        }
+        NDArray actual = fused.get(0).transform(image);
+        Assert.assertEquals(actual.getShape(), expected.getShape());
+        Assertions.assertAlmostEquals(actual, expected, 0, atol);
+    }
+}
@@ -14,6 +14,9 @@ package ai.djl.integration.tests.ndarray;
 
 import ai.djl.ndarray.NDList;
 import ai.djl.ndarray.NDManager;
+import ai.djl.ndarray.types.Shape;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -54,4 +57,27 @@ public class NDListTest {
                     });
         }
     }
+
+    @Test
+    public void testDecodeByteBuffer() {
+        try (NDManager manager = NDManager.newBaseManager()) {
+            NDList list = new NDList(manager.arange(6f).reshape(2, 3), manager.ones(new Shape(2)));
+            list.get(0).setName("x");
+            ByteBuffer bb = ByteBuffer.wrap(list.encode()).asReadOnlyBuffer();
+            NDList decoded = NDList.decode(manager, bb);
+            Assert.assertFalse(bb.hasRemaining());
+            Assert.assertEquals(decoded.size(), 2);
+            Assert.assertEquals(decoded.get(0).getName(), "x");
+            Assert.assertEquals(decoded.get(0), list.get(0));
+            Assert.assertEquals(decoded.get(1), list.get(1));
+
+            Assert.assertThrows(
+                    IllegalArgumentException.class,
+                    () -> {
+                        // truncated NDArray data
+                        byte[] data = Arrays.copyOf(list.encode(), 40);
+                        NDList.decode(manager, ByteBuffer.wrap(data));
+                    });
+        }
+    }
 }
@@ -15,6 +15,7 @@ package ai.djl.integration.tests.training;
 import ai.djl.Device;
 import ai.djl.Model;
 import ai.djl.basicdataset.cv.classification.Cifar10;
+import ai.djl.metric.Metrics;
 import ai.djl.ndarray.NDArray;
 import ai.djl.ndarray.NDManager;
 import ai.djl.ndarray.types.DataType;
@@ -298,6 +299,89 @@ public class DatasetTest {
         }
     }
 
+    @Test
+    public void testReuseBuffers() throws IOException, InterruptedException, TranslateException {
+        try (Model model = Model.newInstance("model")) {
+            model.setBlock(Blocks.identityBlock());
+            NDManager manager = model.getNDManager();
+
+            ExecutorService executor = Executors.newFixedThreadPool(2);
+            ArrayDataset dataset =
+                    new ArrayDataset.Builder()
+                            .setData(manager.arange(200f).reshape(100, 2))
+                            .optLabels(manager.arange(100f))
+                            .setSampling(8, false)
+                            .optExecutor(executor, 2)
+                            .optReuseBuffers(true)
+                            .build();
+
+            try (Trainer trainer = model.newTrainer(config)) {
+                Metrics metrics = new Metrics();
+                trainer.setMetrics(metrics);
+                // batches may complete out of order, compare the sums instead
+                float dataSum = 0;
+                float labelSum = 0;
+                int size = 0;
+                for (Batch batch : trainer.iterateDataset(dataset)) {
+                    NDArray data = batch.getData().singletonOrThrow();
+                    NDArray labels = batch.getLabels().singletonOrThrow();
+                    Assert.assertEquals(data.getShape().get(0), batch.getSize());
+                    Assert.assertEquals(data.get(":, 0"), labels.mul(2));
+                    dataSum += data.sum().getFloat();
+                    labelSum += labels.sum().getFloat();
+                    size += batch.getSize();
+                    batch.close();
+                }
+                Assert.assertEquals(size, 100);
+                Assert.assertEquals(dataSum, 199f * 100);
+                Assert.assertEquals(labelSum, 99f * 50);
+                Assert.assertEquals(metrics.getMetric("loader-stall").size(), 13);
+            }
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testReuseBuffersWithTransforms() throws IOException, TranslateException {
+        try (Model model = Model.newInstance("model")) {
+            model.setBlock(Blocks.identityBlock());
+            NDManager manager = model.getNDManager();
+
+            ArrayDataset dataset =
+                    new ArrayDataset.Builder()
+                            .setData(manager.arange(200f).reshape(100, 2))
+                            .optLabels(manager.arange(100f))
+                            .setSampling(8, false)
+                            .addTargetTransform(array -> array.add(1))
+                            .addTargetTransform(array -> array.mul(2))
+                            .optDevice(manager.getDevice())
+                            .optReuseBuffers(true)
+                            .build();
+
+            try (Trainer trainer = model.newTrainer(config)) {
+                NDManager pool = null;
+                int poolSize = 0;
+                int size = 0;
+                for (Batch batch : trainer.iterateDataset(dataset)) {
+                    NDArray data = batch.getData().singletonOrThrow();
+                    NDArray labels = batch.getLabels().singletonOrThrow();
+                    Assert.assertEquals(labels, data.get(":, 0").div(2).add(1).mul(2));
+                    size += batch.getSize();
+                    batch.close();
+
+                    // the arrays derived from the pooled arrays are freed with the batch
+                    if (pool == null) {
+                        pool = data.getManager();
+                        poolSize = getResourceCount(pool);
+                    }
+                    Assert.assertEquals(getResourceCount(pool), poolSize);
+                }
+                Assert.assertEquals(size, 100);
+            }
+        }
+    }
+
     @Test
     public void testDatasetToArray() throws IOException, TranslateException {
         try (NDManager manager = NDManager.newBaseManager()) {
@@ -321,4 +405,10 @@ public class DatasetTest {
             Assert.assertEquals(labels[0][0], 0f);
         }
     }
+
+    private static int getResourceCount(NDManager manager) {
+        // the manager reports the number of arrays it holds in its description
+        String description = manager.toString();
+        return Integer.parseInt(description.substring(description.lastIndexOf(' ') + 1));
+    }
 }
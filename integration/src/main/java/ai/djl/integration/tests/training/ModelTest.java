@@ -16,6 +16,8 @@ import ai.djl.MalformedModelException;
 import ai.djl.Model;
 import ai.djl.ndarray.types.DataType;
 import ai.djl.ndarray.types.Shape;
+import ai.djl.nn.Block;
+import ai.djl.nn.Parameter;
 import ai.djl.nn.ParameterList;
 import ai.djl.nn.SequentialBlock;
 import ai.djl.nn.convolutional.Conv2d;
@@ -23,7 +25,10 @@ import ai.djl.nn.norm.BatchNorm;
 import ai.djl.testing.Assertions;
 import ai.djl.training.initializer.XavierInitializer;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Map;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -50,6 +55,42 @@ public class ModelTest {
         }
     }
 
+    @Test
+    public void testLazyParameters() throws IOException, MalformedModelException {
+        Path modelDir = Paths.get("build/tmp/test/models");
+        Map<String, String> options = Collections.singletonMap("lazyParameters", "true");
+        try (Model saveModel = Model.newInstance("saveModel");
+                Model model1 = Model.newInstance("lazyModel1");
+                Model model2 = Model.newInstance("lazyModel2")) {
+            Block block = newBlock();
+            block.setInitializer(new XavierInitializer());
+            block.initialize(saveModel.getNDManager(), DataType.FLOAT32, new Shape(1, 3, 32, 32));
+            saveModel.setBlock(block);
+            saveModel.save(modelDir, "lazy");
+
+            // both models share the mapped parameter file
+            model1.setBlock(newBlock());
+            model1.load(modelDir, "lazy", options);
+            model2.setBlock(newBlock());
+            model2.load(modelDir, "lazy", options);
+
+            for (Model model : new Model[] {model1, model2}) {
+                Assert.assertTrue(model.getBlock().isInitialized());
+                for (Parameter parameter : model.getBlock().getParameters().values()) {
+                    Assert.assertTrue(parameter.isInitialized());
+                }
+                compareParameters(block.getParameters(), model.getBlock().getParameters());
+            }
+        }
+    }
+
+    private static Block newBlock() {
+        SequentialBlock block = new SequentialBlock();
+        block.add(Conv2d.builder().setKernelShape(new Shape(1, 1)).setFilters(10).build());
+        block.add(BatchNorm.builder().build());
+        return block;
+    }
+
     private void compareParameters(ParameterList savedParameters, ParameterList loadedParameters) {
         Assert.assertEquals(savedParameters.size(), loadedParameters.size());
         for (int i = 0; i < savedParameters.size(); i++) {
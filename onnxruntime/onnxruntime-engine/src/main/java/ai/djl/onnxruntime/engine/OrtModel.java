@@ -19,10 +19,13 @@ import ai.djl.ndarray.NDManager;
 import ai.djl.ndarray.types.DataType;
 import ai.onnxruntime.OrtEnvironment;
 import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import ai.onnxruntime.OrtSession.SessionOptions;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Locale;
 import java.util.Map;
 
 /**
@@ -65,14 +68,53 @@ public class OrtModel extends BaseModel {
                 throw new FileNotFoundException(".onnx file not found in: " + modelPath);
             }
         }
-        // TODO: Support SessionOption here for further optimization
-        try {
-            block = new OrtSymbolBlock(env.createSession(modelFile.toString()));
+        try (SessionOptions sessionOptions = getSessionOptions(options)) {
+            OrtSession session = env.createSession(modelFile.toString(), sessionOptions);
+            block = new OrtSymbolBlock(session, env);
         } catch (OrtException e) {
             throw new MalformedModelException("ONNX Model cannot be loaded", e);
         }
     }
 
+    private SessionOptions getSessionOptions(Map<String, ?> options) throws OrtException {
+        SessionOptions sessionOptions = new SessionOptions();
+        if (options == null) {
+            return sessionOptions;
+        }
+        try {
+            Object value = options.get("interOpNumThreads");
+            if (value != null) {
+                sessionOptions.setInterOpNumThreads(Integer.parseInt(value.toString()));
+            }
+            value = options.get("intraOpNumThreads");
+            if (value != null) {
+                sessionOptions.setIntraOpNumThreads(Integer.parseInt(value.toString()));
+            }
+            value = options.get("executionMode");
+            if (value != null) {
+                String mode = value.toString().toUpperCase(Locale.ROOT);
+                sessionOptions.setExecutionMode(SessionOptions.ExecutionMode.valueOf(mode));
+            }
+            value = options.get("optLevel");
+            if (value != null) {
+                String level = value.toString().toUpperCase(Locale.ROOT);
+                sessionOptions.setOptimizationLevel(SessionOptions.OptLevel.valueOf(level));
+            }
+            value = options.get("memoryPatternOptimization");
+            if (value != null) {
+                sessionOptions.setMemoryPatternOptimization(Boolean.parseBoolean(value.toString()));
+            }
+            value = options.get("cpuArenaAllocator");
+            if (value != null) {
+                sessionOptions.setCPUArenaAllocator(Boolean.parseBoolean(value.toString()));
+            }
+        } catch (OrtException | IllegalArgumentException e) {
+            sessionOptions.close();
+            throw e;
+        }
+        return sessionOptions;
+    }
+
     private Path findModelFile(String prefix) {
         if (Files.isRegularFile(modelDir)) {
             Path file = modelDir;
@@ -104,7 +146,9 @@ public class OrtModel extends BaseModel {
     /** {@inheritDoc} */
     @Override
     public void close() {
-        ((OrtSymbolBlock) block).close();
+        if (block != null) {
+            ((OrtSymbolBlock) block).close();
+        }
         super.close();
     }
 }
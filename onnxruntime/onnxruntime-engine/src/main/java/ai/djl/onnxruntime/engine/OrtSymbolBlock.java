@@ -32,22 +32,31 @@ import ai.onnxruntime.OrtException;
 import ai.onnxruntime.OrtSession;
 import ai.onnxruntime.SequenceInfo;
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * {@code OrtSymbolBlock} is the ONNX Runtime implementation of {@link SymbolBlock}.
  *
  * <p>You can create a {@code OrtSymbolBlock} using {@link ai.djl.Model#load(java.nio.file.Path,
  * String)}.
+ *
+ * <p>The input names of the session are read once when the block is created. Inputs from another
+ * engine are passed to ONNX Runtime without a copy when they are backed by native memory, otherwise
+ * they are copied into direct buffers that are reused by later calls with the same input size.
  */
 public class OrtSymbolBlock extends AbstractSymbolBlock implements AutoCloseable {
 
     private static final byte VERSION = 1;
 
     private OrtSession session;
+    private OrtEnvironment env;
+    private String[] inputNames;
+    private ConcurrentLinkedQueue<ByteBuffer>[] inputBuffers;
 
     /**
      * Constructs a {@code OrtSymbolBlock}.
@@ -58,8 +67,25 @@ public class OrtSymbolBlock extends AbstractSymbolBlock implements AutoCloseable
      * @param session the {@link OrtSession} contains the model information
      */
     public OrtSymbolBlock(OrtSession session) {
+        this(session, OrtEnvironment.getEnvironment());
+    }
+
+    /**
+     * Constructs a {@code OrtSymbolBlock} with the environment the session was created in.
+     *
+     * @param session the {@link OrtSession} contains the model information
+     * @param env the {@link OrtEnvironment} to create input tensors in
+     */
+    @SuppressWarnings("unchecked")
+    public OrtSymbolBlock(OrtSession session, OrtEnvironment env) {
         super(VERSION);
         this.session = session;
+        this.env = env;
+        inputNames = session.getInputNames().toArray(new String[0]);
+        inputBuffers = new ConcurrentLinkedQueue[inputNames.length];
+        for (int i = 0; i < inputBuffers.length; ++i) {
+            inputBuffers[i] = new ConcurrentLinkedQueue<>();
+        }
     }
 
     /** {@inheritDoc} */
@@ -78,21 +104,22 @@ public class OrtSymbolBlock extends AbstractSymbolBlock implements AutoCloseable
         NDManager inputManager = inputs.head().getManager();
         boolean foreignEngine =
                 !OrtEngine.ENGINE_NAME.equals(inputManager.getEngine().getEngineName());
-        List<String> inputNames = new ArrayList<>(session.getInputNames());
-        if (inputs.size() != inputNames.size()) {
-            throw new IllegalArgumentException("Input mismatch, looking for: " + inputNames);
+        if (inputs.size() != inputNames.length) {
+            throw new IllegalArgumentException(
+                    "Input mismatch, looking for: " + Arrays.toString(inputNames));
         }
-        Map<String, OnnxTensor> container = new ConcurrentHashMap<>();
+        Map<String, OnnxTensor> container = new HashMap<>(inputNames.length * 2);
+        ByteBuffer[] borrowed = foreignEngine ? new ByteBuffer[inputNames.length] : null;
         // feed data in to match names
-        try (OrtEnvironment env = OrtEnvironment.getEnvironment()) {
-            for (int i = 0; i < inputNames.size(); ++i) {
+        try {
+            for (int i = 0; i < inputNames.length; ++i) {
                 OnnxTensor tensor;
                 if (foreignEngine) {
-                    tensor = OrtUtils.toTensor(env, inputs.get(i));
+                    tensor = toTensor(i, inputs.get(i), borrowed);
                 } else {
                     tensor = ((OrtNDArray) inputs.get(i)).getTensor();
                 }
-                container.put(inputNames.get(i), tensor);
+                container.put(inputNames[i], tensor);
             }
             // forward
             OrtSession.Result results = session.run(container);
@@ -102,10 +129,37 @@ public class OrtSymbolBlock extends AbstractSymbolBlock implements AutoCloseable
         } finally {
             if (foreignEngine) {
                 container.values().forEach(OnnxTensor::close);
+                for (int i = 0; i < borrowed.length; ++i) {
+                    if (borrowed[i] != null) {
+                        inputBuffers[i].offer(borrowed[i]);
+                    }
+                }
             }
         }
     }
 
+    private OnnxTensor toTensor(int index, NDArray array, ByteBuffer[] borrowed)
+            throws OrtException {
+        ByteBuffer bb = array.toByteBuffer();
+        DataType dataType = array.getDataType();
+        Shape shape = array.getShape();
+        if (bb.isDirect() && bb.order() == ByteOrder.nativeOrder()) {
+            // ONNX Runtime uses direct buffers in place
+            return OrtUtils.toTensor(env, dataType.asDataType(bb), shape, dataType);
+        }
+        // reuse a buffer of a previous call, the queue only holds buffers of the latest size
+        int size = bb.remaining();
+        ByteBuffer buf = inputBuffers[index].poll();
+        if (buf == null || buf.capacity() != size) {
+            buf = ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
+        }
+        buf.clear();
+        OrtUtils.copy(bb, buf, dataType);
+        buf.rewind();
+        borrowed[index] = buf;
+        return OrtUtils.toTensor(env, dataType.asDataType(buf), shape, dataType);
+    }
+
     private NDList evaluateOutput(OrtSession.Result results, NDManager inputManager) {
         NDList output = new NDList();
         for (Map.Entry<String, OnnxValue> r : results) {
@@ -126,41 +180,60 @@ public class OrtSymbolBlock extends AbstractSymbolBlock implements AutoCloseable
     private NDArray seq2Nd(OnnxSequence seq, NDManager manager) {
         try {
             List<Object> values = seq.getValue();
-            OnnxJavaType type = seq.getInfo().sequenceType;
-            Shape shape = new Shape(values.size());
-            DataType dp;
             SequenceInfo info = seq.getInfo();
+            OnnxJavaType type = info.sequenceType;
+            Shape shape = new Shape(values.size());
+            Iterable<Object> elements = values;
+            int size = values.size();
             if (info.sequenceOfMaps) {
                 type = info.mapInfo.valueType;
-                List<Object> valuesTmp = new ArrayList<>();
-                values.forEach(map -> valuesTmp.addAll(((Map<Object, Object>) map).values()));
-                shape = new Shape(values.size(), valuesTmp.size() / values.size());
-                values = valuesTmp;
+                // iterate the map values in place instead of collecting them into another list
+                size = 0;
+                for (Object map : values) {
+                    size += ((Map<Object, Object>) map).size();
+                }
+                int columns = values.isEmpty() ? 0 : size / values.size();
+                shape = new Shape(values.size(), columns);
+                elements =
+                        () ->
+                                values.stream()
+                                        .flatMap(m -> ((Map<Object, Object>) m).values().stream())
+                                        .iterator();
             }
-            ByteBuffer buffer = ByteBuffer.allocate(values.size() * type.size);
+            int i = 0;
             switch (type) {
                 case FLOAT:
-                    values.forEach(ele -> buffer.putFloat((Float) ele));
-                    buffer.rewind();
-                    return manager.create(buffer.asFloatBuffer(), shape, DataType.FLOAT32);
+                    float[] floats = new float[size];
+                    for (Object ele : elements) {
+                        floats[i++] = (Float) ele;
+                    }
+                    return manager.create(floats, shape);
                 case DOUBLE:
-                    values.forEach(ele -> buffer.putDouble((Double) ele));
-                    buffer.rewind();
-                    return manager.create(buffer.asDoubleBuffer(), shape, DataType.FLOAT64);
+                    double[] doubles = new double[size];
+                    for (Object ele : elements) {
+                        doubles[i++] = (Double) ele;
+                    }
+                    return manager.create(doubles, shape);
                 case BOOL:
                 case INT8:
-                    dp = (type == OnnxJavaType.BOOL) ? DataType.BOOLEAN : DataType.INT8;
-                    values.forEach(ele -> buffer.put((Byte) ele));
-                    buffer.rewind();
-                    return manager.create(buffer, shape, dp);
+                    byte[] bytes = new byte[size];
+                    for (Object ele : elements) {
+                        bytes[i++] = (Byte) ele;
+                    }
+                    DataType dp = (type == OnnxJavaType.BOOL) ? DataType.BOOLEAN : DataType.INT8;
+                    return manager.create(ByteBuffer.wrap(bytes), shape, dp);
                 case INT32:
-                    values.forEach(ele -> buffer.putInt((Integer) ele));
-                    buffer.rewind();
-                    return manager.create(buffer.asIntBuffer(), shape, DataType.INT32);
+                    int[] ints = new int[size];
+                    for (Object ele : elements) {
+                        ints[i++] = (Integer) ele;
+                    }
+                    return manager.create(ints, shape);
                 case INT64:
-                    values.forEach(ele -> buffer.putLong((Long) ele));
-                    buffer.rewind();
-                    return manager.create(buffer.asLongBuffer(), shape, DataType.INT64);
+                    long[] longs = new long[size];
+                    for (Object ele : elements) {
+                        longs[i++] = (Long) ele;
+                    }
+                    return manager.create(longs, shape);
                 default:
                     throw new UnsupportedOperationException("type is not supported: " + type);
             }
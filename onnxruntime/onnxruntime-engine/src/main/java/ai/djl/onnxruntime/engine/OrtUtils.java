@@ -63,6 +63,27 @@ final class OrtUtils {
         }
     }
 
+    public static void copy(ByteBuffer src, ByteBuffer dst, DataType dataType) {
+        // copy through typed views, the source may not be in native byte order
+        switch (dataType) {
+            case FLOAT32:
+                dst.asFloatBuffer().put(src.asFloatBuffer());
+                break;
+            case FLOAT64:
+                dst.asDoubleBuffer().put(src.asDoubleBuffer());
+                break;
+            case INT32:
+                dst.asIntBuffer().put(src.asIntBuffer());
+                break;
+            case INT64:
+                dst.asLongBuffer().put(src.asLongBuffer());
+                break;
+            default:
+                dst.put(src.duplicate());
+                break;
+        }
+    }
+
     public static NDArray toNDArray(NDManager manager, OnnxTensor tensor) {
         if (manager instanceof OrtNDManager) {
             return ((OrtNDManager) manager).create(tensor);
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.onnxruntime.engine;
+
+import ai.djl.Model;
+import ai.djl.ModelException;
+import ai.djl.engine.Engine;
+import ai.djl.inference.Predictor;
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDArrayAdapter;
+import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.NDManager;
+import ai.djl.ndarray.types.DataType;
+import ai.djl.ndarray.types.Shape;
+import ai.djl.nn.Block;
+import ai.djl.training.ParameterStore;
+import ai.djl.translate.NoopTranslator;
+import ai.djl.translate.TranslateException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class OrtSymbolBlockTest {
+
+    private Path modelDir;
+
+    @BeforeClass
+    public void setUp() throws IOException {
+        modelDir = Paths.get("build/models/add");
+        Files.createDirectories(modelDir);
+        Files.write(modelDir.resolve("add.onnx"), newAddModel());
+    }
+
+    @Test
+    public void testSessionOptions() throws IOException, ModelException, TranslateException {
+        Map<String, String> options = new HashMap<>();
+        options.put("intraOpNumThreads", "1");
+        options.put("executionMode", "sequential");
+        try (Model model = Model.newInstance("add", "OnnxRuntime")) {
+            model.load(modelDir, "add", options);
+            try (Predictor<NDList, NDList> predictor = model.newPredictor(new NoopTranslator())) {
+                NDManager manager = model.getNDManager();
+                NDList output = predictor.predict(new NDList(manager.create(new float[] {1, 2})));
+                Assert.assertEquals(output.singletonOrThrow().toFloatArray(), new float[] {2, 4});
+            }
+        }
+
+        options.put("executionMode", "invalid");
+        try (Model model = Model.newInstance("add", "OnnxRuntime")) {
+            Assert.assertThrows(
+                    IllegalArgumentException.class, () -> model.load(modelDir, "add", options));
+        }
+    }
+
+    @Test
+    public void testForeignEngineInputs() throws IOException, ModelException {
+        Engine foreign = null;
+        for (String name : Engine.getAllEngines()) {
+            if (!OrtEngine.ENGINE_NAME.equals(name)) {
+                foreign = Engine.getEngine(name);
+                break;
+            }
+        }
+        if (foreign == null) {
+            throw new SkipException("No other engine to create the inputs.");
+        }
+
+        try (Model model = Model.newInstance("add", "OnnxRuntime");
+                NDManager manager = foreign.newBaseManager()) {
+            model.load(modelDir, "add");
+            Block block = model.getBlock();
+            ParameterStore ps = new ParameterStore(manager, false);
+
+            // heap buffers in big endian order are copied into the pooled input buffers
+            float[][] inputs = {{1, 2}, {3, 4}, {5, 6, 7}, {8, 9, 10}};
+            for (float[] input : inputs) {
+                NDList list = new NDList(new HeapNDArray(manager, input));
+                NDArray array = block.forward(ps, list, false).singletonOrThrow();
+                Assert.assertEquals(array.getManager().getEngine(), foreign);
+                float[] expected = new float[input.length];
+                for (int i = 0; i < input.length; ++i) {
+                    expected[i] = input[i] * 2;
+                }
+                Assert.assertEquals(array.toFloatArray(), expected);
+            }
+        }
+    }
+
+    /** Returns an ONNX model that adds its float vector input {@code x} to itself. */
+    private static byte[] newAddModel() {
+        byte[] node =
+                concat(
+                        field(1, "x"),
+                        field(1, "x"),
+                        field(2, "y"),
+                        field(4, "Add"));
+        byte[] graph =
+                concat(
+                        field(1, node),
+                        field(2, "add"),
+                        field(11, valueInfo("x")),
+                        field(12, valueInfo("y")));
+        byte[] opset = concat(field(1, new byte[0]), varintField(2, 11));
+        return concat(varintField(1, 6), field(7, graph), field(8, opset));
+    }
+
+    private static byte[] valueInfo(String name) {
+        // a float tensor of one dimension with a symbolic size
+        byte[] dim = field(2, "n");
+        byte[] tensorType = concat(varintField(1, 1), field(2, field(1, dim)));
+        return concat(field(1, name), field(2, field(1, tensorType)));
+    }
+
+    private static byte[] field(int number, String value) {
+        return field(number, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] field(int number, byte[] value) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        writeVarint(bos, number << 3 | 2);
+        writeVarint(bos, value.length);
+        bos.write(value, 0, value.length);
+        return bos.toByteArray();
+    }
+
+    private static byte[] varintField(int number, long value) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        writeVarint(bos, number << 3);
+        writeVarint(bos, value);
+        return bos.toByteArray();
+    }
+
+    private static void writeVarint(ByteArrayOutputStream bos, long value) {
+        while ((value & ~0x7FL) != 0) {
+            bos.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bos.write((int) value);
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            bos.write(part, 0, part.length);
+        }
+        return bos.toByteArray();
+    }
+
+    /** A float vector of another engine whose data is a heap buffer in big endian order. */
+    private static final class HeapNDArray implements NDArrayAdapter {
+
+        private NDManager manager;
+        private float[] data;
+
+        HeapNDArray(NDManager manager, float[] data) {
+            this.manager = manager;
+            this.data = data;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public NDManager getManager() {
+            return manager;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public DataType getDataType() {
+            return DataType.FLOAT32;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Shape getShape() {
+            return new Shape(data.length);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public ByteBuffer toByteBuffer() {
+            ByteBuffer bb = ByteBuffer.allocate(data.length * 4);
+            bb.asFloatBuffer().put(data);
+            return bb;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void close() {}
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.serving.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Compares the job queue throughput of {@link RingBufferQueue} and {@link LinkedBlockingDeque}.
+ *
+ * <p>A number of producer threads offer jobs as fast as they can, like the Netty I/O threads do
+ * in {@code WorkLoadManager.addJob}, while the benchmark thread drains batches like a {@code
+ * BatchAggregator}. The score is the number of batches drained per second.
+ *
+ * <pre>
+ * ./gradlew :serving:jmh
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JobQueueBenchmark {
+
+    private static final int QUEUE_SIZE = 100;
+    private static final int BATCH_SIZE = 8;
+
+    @Param({"ring", "deque"})
+    private String queueType;
+
+    @Param({"1", "2", "4", "8", "16", "32", "64"})
+    private int producers;
+
+    private BlockingQueue<Object> queue;
+    private List<Thread> threads;
+    private AtomicBoolean running;
+    private List<Object> batch;
+
+    /** Starts the producer threads. */
+    @Setup(Level.Trial)
+    public void setup() {
+        if ("ring".equals(queueType)) {
+            queue = new RingBufferQueue<>(QUEUE_SIZE);
+        } else {
+            queue = new LinkedBlockingDeque<>(QUEUE_SIZE);
+        }
+        batch = new ArrayList<>(BATCH_SIZE);
+        running = new AtomicBoolean(true);
+        threads = new ArrayList<>(producers);
+        Object job = new Object();
+        for (int i = 0; i < producers; ++i) {
+            Thread thread =
+                    new Thread(
+                            () -> {
+                                while (running.get()) {
+                                    if (!queue.offer(job)) {
+                                        Thread.yield();
+                                    }
+                                }
+                            });
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+    }
+
+    /**
+     * Stops the producer threads.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    /**
+     * Takes one job and drains the rest of a batch.
+     *
+     * @return the number of jobs in the batch
+     * @throws InterruptedException if interrupted
+     */
+    @Benchmark
+    public int pollBatch() throws InterruptedException {
+        batch.clear();
+        batch.add(queue.take());
+        queue.drainTo(batch, BATCH_SIZE - 1);
+        return batch.size();
+    }
+}
@@ -55,7 +55,7 @@ public class ModelServer {
     private static final Logger logger = LoggerFactory.getLogger(ModelServer.class);
 
     private ServerGroups serverGroups;
-    private List<ChannelFuture> futures = new ArrayList<>(2);
+    private List<ChannelFuture> futures = new ArrayList<>(3);
     private AtomicBoolean stopped = new AtomicBoolean(false);
 
     private ConfigManager configManager;
@@ -142,8 +142,15 @@ public class ModelServer {
                 configManager.getConnector(Connector.ConnectorType.INFERENCE);
         Connector managementConnector =
                 configManager.getConnector(Connector.ConnectorType.MANAGEMENT);
+        Connector grpcConnector = configManager.getConnector(Connector.ConnectorType.GRPC);
         inferenceConnector.clean();
         managementConnector.clean();
+        if (grpcConnector != null) {
+            if (grpcConnector.isSsl()) {
+                throw new IllegalArgumentException("gRPC connector does not support TLS.");
+            }
+            grpcConnector.clean();
+        }
 
         EventLoopGroup serverGroup = serverGroups.getServerGroup();
         EventLoopGroup workerGroup = serverGroups.getChildGroup();
@@ -159,6 +166,10 @@ public class ModelServer {
                     initializeServer(managementConnector, serverGroup, workerGroup, "Management"));
         }
 
+        if (grpcConnector != null) {
+            futures.add(initializeServer(grpcConnector, serverGroup, workerGroup, "gRPC"));
+        }
+
         return futures;
     }
 
@@ -306,7 +317,12 @@ public class ModelServer {
                             configManager.getMaxBatchDelay(),
                             configManager.getMaxIdleTime());
             ModelInfo modelInfo = future.join();
-            modelManager.triggerModelUpdated(modelInfo.scaleWorkers(workers, workers));
+            modelManager.triggerModelUpdated(
+                    modelInfo
+                            .scaleWorkers(workers, workers)
+                            .configureAdaptiveBatch(
+                                    configManager.isAdaptiveBatching(),
+                                    configManager.getTargetLatency()));
             startupModels.add(modelInfo.getModelName());
         }
     }
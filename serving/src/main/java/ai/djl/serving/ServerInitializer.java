@@ -12,9 +12,11 @@
  */
 package ai.djl.serving;
 
+import ai.djl.serving.grpc.GrpcRequestHandler;
 import ai.djl.serving.http.InferenceRequestHandler;
 import ai.djl.serving.http.InvalidRequestHandler;
 import ai.djl.serving.http.ManagementRequestHandler;
+import ai.djl.serving.http.TensorStreamDecoder;
 import ai.djl.serving.util.ConfigManager;
 import ai.djl.serving.util.Connector;
 import io.netty.channel.Channel;
@@ -22,6 +24,8 @@ import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2MultiplexHandler;
 import io.netty.handler.ssl.SslContext;
 
 /**
@@ -53,7 +57,23 @@ public class ServerInitializer extends ChannelInitializer<Channel> {
         if (sslCtx != null) {
             pipeline.addLast("ssl", sslCtx.newHandler(ch.alloc()));
         }
+        if (connectorType == Connector.ConnectorType.GRPC) {
+            pipeline.addLast("http2", Http2FrameCodecBuilder.forServer().build());
+            pipeline.addLast(
+                    "grpc",
+                    new Http2MultiplexHandler(
+                            new ChannelInitializer<Channel>() {
+                                /** {@inheritDoc} */
+                                @Override
+                                protected void initChannel(Channel stream) {
+                                    stream.pipeline()
+                                            .addLast(new GrpcRequestHandler(maxRequestSize));
+                                }
+                            }));
+            return;
+        }
         pipeline.addLast("http", new HttpServerCodec());
+        pipeline.addLast("tensor", new TensorStreamDecoder(maxRequestSize));
         pipeline.addLast("aggregator", new HttpObjectAggregator(maxRequestSize, true));
         switch (connectorType) {
             case MANAGEMENT:
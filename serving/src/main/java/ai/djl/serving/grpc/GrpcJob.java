@@ -0,0 +1,63 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.serving.grpc;
+
+import ai.djl.modality.Input;
+import ai.djl.modality.Output;
+import ai.djl.serving.wlm.Job;
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+/** An inference {@link Job} that answers on a gRPC stream instead of an HTTP/1.1 connection. */
+class GrpcJob extends Job {
+
+    private GrpcRequestHandler handler;
+
+    /**
+     * Constructs a new {@code GrpcJob} instance.
+     *
+     * @param handler the handler of the stream to answer on
+     * @param modelName the model name
+     * @param input the input data
+     * @param deadline the time in milliseconds since epoch after which the job is not worth running
+     */
+    GrpcJob(GrpcRequestHandler handler, String modelName, Input input, long deadline) {
+        super(null, modelName, input, Priority.NORMAL, deadline);
+        this.handler = handler;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void sendOutput(Output output) {
+        try {
+            int code = output.getCode() == 0 ? HttpResponseStatus.OK.code() : output.getCode();
+            handler.sendResponse(
+                    new PredictResponse(
+                            getRequestId(), code, output.getMessage(), output.getContent()));
+        } finally {
+            output.close();
+            getInput().close();
+        }
+        recordResponse(true);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void sendError(HttpResponseStatus status, String error) {
+        try {
+            handler.sendResponse(new PredictResponse(getRequestId(), status.code(), error, null));
+        } finally {
+            getInput().close();
+        }
+        recordResponse(false);
+    }
+}
@@ -0,0 +1,338 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.serving.grpc;
+
+import ai.djl.modality.Input;
+import ai.djl.repository.zoo.ModelNotFoundException;
+import ai.djl.serving.wlm.ModelManager;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http2.DefaultHttp2DataFrame;
+import io.netty.handler.codec.http2.DefaultHttp2Headers;
+import io.netty.handler.codec.http2.DefaultHttp2HeadersFrame;
+import io.netty.handler.codec.http2.Http2DataFrame;
+import io.netty.handler.codec.http2.Http2Headers;
+import io.netty.handler.codec.http2.Http2HeadersFrame;
+import io.netty.util.ReferenceCountUtil;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A handler for one HTTP/2 stream of the gRPC compatible inference service.
+ *
+ * <p>The service {@code djl.serving.Inference} has a unary {@code Predict} and a bidirectional
+ * streaming {@code StreamPredict} method, both take {@link PredictRequest} messages and answer
+ * with {@link PredictResponse} messages. Every request message becomes a job of the model, and
+ * responses are written as soon as their batch finishes, so they may come back in a different
+ * order than the requests were sent. The stream is closed with an OK status once the client has
+ * half-closed it and all its jobs are answered.
+ *
+ * <p>All writes and state changes happen on the event loop of the stream, in the order they were
+ * issued, while jobs finish on worker threads.
+ */
+public class GrpcRequestHandler extends ChannelInboundHandlerAdapter {
+
+    private static final Logger logger = LoggerFactory.getLogger(GrpcRequestHandler.class);
+
+    private static final String SERVICE = "/djl.serving.Inference/";
+    private static final String CONTENT_TYPE = "application/grpc";
+
+    private static final int STATUS_OK = 0;
+    private static final int STATUS_INVALID_ARGUMENT = 3;
+    private static final int STATUS_UNIMPLEMENTED = 12;
+    private static final int STATUS_INTERNAL = 13;
+
+    private int maxMessageSize;
+    private Channel channel;
+    private CompositeByteBuf cumulation;
+    private long deadline;
+    private int pending;
+    private boolean halfClosed;
+    private boolean headersSent;
+    private boolean finished;
+
+    /**
+     * Constructs a new {@code GrpcRequestHandler} instance.
+     *
+     * @param maxMessageSize the maximum size of a request message in bytes
+     */
+    public GrpcRequestHandler(int maxMessageSize) {
+        this.maxMessageSize = maxMessageSize;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        try {
+            if (finished) {
+                return;
+            }
+            if (msg instanceof Http2HeadersFrame) {
+                Http2HeadersFrame frame = (Http2HeadersFrame) msg;
+                if (channel == null) {
+                    onHeaders(ctx, frame.headers());
+                }
+                if (frame.isEndStream()) {
+                    onHalfClosed();
+                }
+            } else if (msg instanceof Http2DataFrame) {
+                Http2DataFrame frame = (Http2DataFrame) msg;
+                if (cumulation != null) {
+                    cumulation.addComponent(true, frame.content().retain());
+                    decodeMessages();
+                }
+                if (frame.isEndStream()) {
+                    onHalfClosed();
+                }
+            }
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            // the request could not be decoded, it is a client error
+            logger.debug("Invalid gRPC request", e);
+            finish(STATUS_INVALID_ARGUMENT, e.getMessage());
+        } catch (RuntimeException e) {
+            logger.warn("Failed to handle gRPC request", e);
+            finish(STATUS_INTERNAL, e.getMessage());
+        } finally {
+            ReferenceCountUtil.release(msg);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        finished = true;
+        releaseCumulation();
+        super.channelInactive(ctx);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        logger.error("", cause);
+        ctx.close();
+    }
+
+    /**
+     * Writes a response message to the stream.
+     *
+     * <p>This method can be called from any thread.
+     *
+     * @param response the response message
+     */
+    void sendResponse(PredictResponse response) {
+        channel.eventLoop().execute(() -> writeResponse(response));
+    }
+
+    /**
+     * Adds a job to the job queue of its model.
+     *
+     * @param job the job of a request message
+     * @return {@code true} if the job was added
+     * @throws ModelNotFoundException if the model is not registered
+     */
+    boolean addJob(GrpcJob job) throws ModelNotFoundException {
+        return ModelManager.getInstance().addJob(job);
+    }
+
+    private void onHeaders(ChannelHandlerContext ctx, Http2Headers headers) {
+        channel = ctx.channel();
+        CharSequence contentType = headers.get("content-type");
+        if (contentType == null || !contentType.toString().startsWith(CONTENT_TYPE)) {
+            finish(STATUS_INVALID_ARGUMENT, "Invalid content type: " + contentType);
+            return;
+        }
+        CharSequence path = headers.path();
+        if (path == null
+                || !"POST".contentEquals(headers.method())
+                || (!(SERVICE + "Predict").contentEquals(path)
+                        && !(SERVICE + "StreamPredict").contentEquals(path))) {
+            finish(STATUS_UNIMPLEMENTED, "Method not found: " + path);
+            return;
+        }
+        CharSequence timeout = headers.get("grpc-timeout");
+        if (timeout != null) {
+            deadline = System.currentTimeMillis() + parseTimeout(timeout.toString());
+        }
+        cumulation = ctx.alloc().compositeBuffer(Integer.MAX_VALUE);
+    }
+
+    private void decodeMessages() {
+        // length-prefixed message: 1 byte compressed flag and 4 bytes length
+        while (cumulation.readableBytes() >= 5) {
+            int index = cumulation.readerIndex();
+            if (cumulation.getByte(index) != 0) {
+                throw new IllegalArgumentException("Compressed messages are not supported");
+            }
+            int length = cumulation.getInt(index + 1);
+            if (length < 0 || length > maxMessageSize) {
+                throw new IllegalArgumentException("Invalid message length: " + length);
+            }
+            if (cumulation.readableBytes() < length + 5) {
+                break;
+            }
+            cumulation.skipBytes(5);
+            ByteBuf message = readMessage(length);
+            try {
+                submit(PredictRequest.decode(message));
+            } finally {
+                message.release();
+            }
+        }
+        cumulation.discardReadComponents();
+    }
+
+    private ByteBuf readMessage(int length) {
+        // slices of the received buffers themselves, unlike a slice of the cumulation they stay
+        // valid after its read components are discarded, as long as a job holds them
+        List<ByteBuf> parts = cumulation.decompose(cumulation.readerIndex(), length);
+        cumulation.skipBytes(length);
+        ByteBuf[] buffers = new ByteBuf[parts.size()];
+        for (int i = 0; i < buffers.length; ++i) {
+            buffers[i] = parts.get(i).retain();
+        }
+        return Unpooled.wrappedBuffer(buffers);
+    }
+
+    private void submit(PredictRequest request) {
+        String requestId = request.getRequestId();
+        if (requestId == null) {
+            requestId = UUID.randomUUID().toString();
+        }
+        Input input = new Input(requestId);
+        if (request.getContentType() != null) {
+            input.addProperty("Content-Type", request.getContentType());
+        }
+        ByteBuf data = request.getData();
+        if (data != null) {
+            if (data.nioBufferCount() == 1) {
+                data.retain();
+                input.addResource(data::release);
+                input.addData("data", data.nioBuffer());
+            } else {
+                // a message split over several frames can only be passed on by copying it
+                input.addData("data", ByteBufUtil.getBytes(data));
+            }
+        }
+
+        ++pending;
+        GrpcJob job = new GrpcJob(this, request.getModelName(), input, deadline);
+        if (request.getModelName() == null) {
+            job.sendError(HttpResponseStatus.BAD_REQUEST, "Parameter model_name is required.");
+            return;
+        }
+        try {
+            if (!addJob(job)) {
+                job.sendError(
+                        HttpResponseStatus.SERVICE_UNAVAILABLE,
+                        "No worker is available to serve request: " + request.getModelName());
+            }
+        } catch (ModelNotFoundException e) {
+            job.sendError(HttpResponseStatus.NOT_FOUND, e.getMessage());
+        }
+    }
+
+    private void writeResponse(PredictResponse response) {
+        --pending;
+        if (finished) {
+            return;
+        }
+        writeHeaders();
+        ByteBuf buf = channel.alloc().buffer();
+        buf.writeByte(0);
+        buf.writeInt(0); // placeholder for the message length
+        response.encode(buf);
+        buf.setInt(1, buf.readableBytes() - 5);
+        channel.writeAndFlush(new DefaultHttp2DataFrame(buf));
+        if (halfClosed && pending == 0) {
+            finish(STATUS_OK, null);
+        }
+    }
+
+    private void onHalfClosed() {
+        halfClosed = true;
+        if (pending == 0) {
+            finish(STATUS_OK, null);
+        }
+    }
+
+    private void writeHeaders() {
+        if (!headersSent) {
+            headersSent = true;
+            Http2Headers headers = new DefaultHttp2Headers();
+            headers.status(HttpResponseStatus.OK.codeAsText());
+            headers.set("content-type", CONTENT_TYPE);
+            channel.write(new DefaultHttp2HeadersFrame(headers));
+        }
+    }
+
+    private void finish(int status, String message) {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        releaseCumulation();
+        Http2Headers trailers = new DefaultHttp2Headers();
+        if (!headersSent) {
+            // trailers-only response
+            headersSent = true;
+            trailers.status(HttpResponseStatus.OK.codeAsText());
+            trailers.set("content-type", CONTENT_TYPE);
+        }
+        trailers.setInt("grpc-status", status);
+        if (message != null) {
+            trailers.set("grpc-message", message);
+        }
+        channel.writeAndFlush(new DefaultHttp2HeadersFrame(trailers, true));
+    }
+
+    private void releaseCumulation() {
+        if (cumulation != null) {
+            cumulation.release();
+            cumulation = null;
+        }
+    }
+
+    private static long parseTimeout(String value) {
+        try {
+            long amount = Long.parseLong(value.substring(0, value.length() - 1));
+            switch (value.charAt(value.length() - 1)) {
+                case 'H':
+                    return TimeUnit.HOURS.toMillis(amount);
+                case 'M':
+                    return TimeUnit.MINUTES.toMillis(amount);
+                case 'S':
+                    return TimeUnit.SECONDS.toMillis(amount);
+                case 'm':
+                    return amount;
+                case 'u':
+                    return Math.max(1, TimeUnit.MICROSECONDS.toMillis(amount));
+                case 'n':
+                    return Math.max(1, TimeUnit.NANOSECONDS.toMillis(amount));
+                default:
+                    break;
+            }
+        } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+            logger.debug("Invalid grpc-timeout: {}", value, e);
+        }
+        throw new IllegalArgumentException("Invalid grpc-timeout: " + value);
+    }
+}
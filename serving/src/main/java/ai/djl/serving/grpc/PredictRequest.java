@@ -0,0 +1,92 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.serving.grpc;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * The request message of the inference service.
+ *
+ * <pre>
+ * message PredictRequest {
+ *     string model_name = 1;
+ *     string request_id = 2;
+ *     bytes data = 3;
+ *     string content_type = 4;
+ * }
+ * </pre>
+ */
+final class PredictRequest {
+
+    private String modelName;
+    private String requestId;
+    private ByteBuf data;
+    private String contentType;
+
+    private PredictRequest() {}
+
+    /**
+     * Decodes a {@code PredictRequest} from its protocol buffers encoding.
+     *
+     * <p>The data of the request is a slice of the buffer, without copy.
+     *
+     * @param buf the buffer to decode
+     * @return the decoded request
+     * @throws IllegalArgumentException if the message is malformed
+     */
+    static PredictRequest decode(ByteBuf buf) {
+        PredictRequest request = new PredictRequest();
+        try {
+            while (buf.isReadable()) {
+                long tag = Protobuf.readVarint(buf);
+                int wireType = (int) (tag & 0x7);
+                switch ((int) (tag >>> 3)) {
+                    case 1:
+                        request.modelName = Protobuf.readString(buf, wireType);
+                        break;
+                    case 2:
+                        request.requestId = Protobuf.readString(buf, wireType);
+                        break;
+                    case 3:
+                        request.data = Protobuf.readBytes(buf, wireType);
+                        break;
+                    case 4:
+                        request.contentType = Protobuf.readString(buf, wireType);
+                        break;
+                    default:
+                        Protobuf.skipField(buf, wireType);
+                        break;
+                }
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated PredictRequest", e);
+        }
+        return request;
+    }
+
+    String getModelName() {
+        return modelName;
+    }
+
+    String getRequestId() {
+        return requestId;
+    }
+
+    ByteBuf getData() {
+        return data;
+    }
+
+    String getContentType() {
+        return contentType;
+    }
+}
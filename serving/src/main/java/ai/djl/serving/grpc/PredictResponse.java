@@ -0,0 +1,56 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.serving.grpc;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * The response message of the inference service.
+ *
+ * <p>The code is the HTTP status of the inference, so one failed input does not end a stream.
+ *
+ * <pre>
+ * message PredictResponse {
+ *     string request_id = 1;
+ *     int32 code = 2;
+ *     string message = 3;
+ *     bytes data = 4;
+ * }
+ * </pre>
+ */
+final class PredictResponse {
+
+    private String requestId;
+    private int code;
+    private String message;
+    private byte[] data;
+
+    PredictResponse(String requestId, int code, String message, byte[] data) {
+        this.requestId = requestId;
+        this.code = code;
+        this.message = message;
+        this.data = data;
+    }
+
+    /**
+     * Encodes the response in protocol buffers format.
+     *
+     * @param buf the buffer to write to
+     */
+    void encode(ByteBuf buf) {
+        Protobuf.writeString(buf, 1, requestId);
+        Protobuf.writeInt(buf, 2, code);
+        Protobuf.writeString(buf, 3, message);
+        Protobuf.writeBytes(buf, 4, data);
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.serving.grpc;
+
+import io.netty.buffer.ByteBuf;
+import java.nio.charset.StandardCharsets;
+
+/** Reads and writes the protocol buffers wire format for the predict messages. */
+final class Protobuf {
+
+    static final int VARINT = 0;
+    static final int FIXED64 = 1;
+    static final int LENGTH_DELIMITED = 2;
+    static final int FIXED32 = 5;
+
+    private Protobuf() {}
+
+    static long readVarint(ByteBuf buf) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buf.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    static ByteBuf readBytes(ByteBuf buf, int wireType) {
+        checkWireType(wireType, LENGTH_DELIMITED);
+        long length = readVarint(buf);
+        if (length < 0 || length > buf.readableBytes()) {
+            throw new IllegalArgumentException("Invalid field length: " + length);
+        }
+        return buf.readSlice((int) length);
+    }
+
+    static String readString(ByteBuf buf, int wireType) {
+        return readBytes(buf, wireType).toString(StandardCharsets.UTF_8);
+    }
+
+    static void skipField(ByteBuf buf, int wireType) {
+        switch (wireType) {
+            case VARINT:
+                readVarint(buf);
+                break;
+            case FIXED64:
+                buf.skipBytes(8);
+                break;
+            case LENGTH_DELIMITED:
+                readBytes(buf, wireType);
+                break;
+            case FIXED32:
+                buf.skipBytes(4);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported wire type: " + wireType);
+        }
+    }
+
+    static void writeVarint(ByteBuf buf, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buf.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buf.writeByte((int) value);
+    }
+
+    static void writeTag(ByteBuf buf, int field, int wireType) {
+        writeVarint(buf, (field << 3) | wireType);
+    }
+
+    static void writeString(ByteBuf buf, int field, String value) {
+        if (value != null && !value.isEmpty()) {
+            writeBytes(buf, field, value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    static void writeBytes(ByteBuf buf, int field, byte[] value) {
+        if (value != null && value.length > 0) {
+            writeTag(buf, field, LENGTH_DELIMITED);
+            writeVarint(buf, value.length);
+            buf.writeBytes(value);
+        }
+    }
+
+    static void writeInt(ByteBuf buf, int field, int value) {
+        if (value != 0) {
+            writeTag(buf, field, VARINT);
+            writeVarint(buf, value);
+        }
+    }
+
+    private static void checkWireType(int actual, int expected) {
+        if (actual != expected) {
+            throw new IllegalArgumentException("Unexpected wire type: " + actual);
+        }
+    }
+}
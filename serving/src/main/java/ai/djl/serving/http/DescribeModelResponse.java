@@ -20,15 +20,24 @@ import java.util.List;
 public class DescribeModelResponse {
 
     private String modelName;
+    private String version;
     private String modelUrl;
     private int minWorkers;
     private int maxWorkers;
     private int batchSize;
     private int maxBatchDelay;
     private int maxIdleTime;
+    private boolean adaptiveBatching;
+    private int targetLatency;
     private String status;
     private boolean loadedAtStartup;
+    private long shedJobs;
+    private long lateJobs;
+    private String stagedVersion;
+    private int stagedWeight;
 
+    private AdaptiveBatch adaptiveBatch;
+    private ResponseCache responseCache;
     private List<Worker> workers;
 
     /** Constructs a {@code DescribeModelResponse} instance. */
@@ -54,6 +63,53 @@ public class DescribeModelResponse {
         this.modelName = modelName;
     }
 
+    /**
+     * Returns the version of the model that serves the requests.
+     *
+     * @return the version of the model, or {@code null} if the model is not versioned
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the version of the model that serves the requests.
+     *
+     * @param version the version of the model
+     */
+    public void setVersion(String version) {
+        this.version = version;
+    }
+
+    /**
+     * Returns the staged version of the model that is being rolled out.
+     *
+     * @return the staged version, or {@code null} if there is no staged version
+     */
+    public String getStagedVersion() {
+        return stagedVersion;
+    }
+
+    /**
+     * Returns the percentage of the requests routed to the staged version.
+     *
+     * @return the percentage of the requests routed to the staged version
+     */
+    public int getStagedWeight() {
+        return stagedWeight;
+    }
+
+    /**
+     * Sets the staged version of the model and the percentage of the requests routed to it.
+     *
+     * @param stagedVersion the staged version
+     * @param stagedWeight the percentage of the requests routed to the staged version
+     */
+    public void setStagedVersion(String stagedVersion, int stagedWeight) {
+        this.stagedVersion = stagedVersion;
+        this.stagedWeight = stagedWeight;
+    }
+
     /**
      * Returns if the models was loaded at startup.
      *
@@ -198,6 +254,131 @@ public class DescribeModelResponse {
         return maxIdleTime;
     }
 
+    /**
+     * Returns the number of jobs that were dropped because their deadline had passed.
+     *
+     * @return the number of shed jobs
+     */
+    public long getShedJobs() {
+        return shedJobs;
+    }
+
+    /**
+     * Sets the number of jobs that were dropped because their deadline had passed.
+     *
+     * @param shedJobs the number of shed jobs
+     */
+    public void setShedJobs(long shedJobs) {
+        this.shedJobs = shedJobs;
+    }
+
+    /**
+     * Returns the number of jobs that were answered after their deadline.
+     *
+     * @return the number of late jobs
+     */
+    public long getLateJobs() {
+        return lateJobs;
+    }
+
+    /**
+     * Sets the number of jobs that were answered after their deadline.
+     *
+     * @param lateJobs the number of late jobs
+     */
+    public void setLateJobs(long lateJobs) {
+        this.lateJobs = lateJobs;
+    }
+
+    /**
+     * Returns if adaptive batching is enabled.
+     *
+     * @return {@code true} if adaptive batching is enabled
+     */
+    public boolean isAdaptiveBatching() {
+        return adaptiveBatching;
+    }
+
+    /**
+     * Sets if adaptive batching is enabled.
+     *
+     * @param adaptiveBatching {@code true} if adaptive batching is enabled
+     */
+    public void setAdaptiveBatching(boolean adaptiveBatching) {
+        this.adaptiveBatching = adaptiveBatching;
+    }
+
+    /**
+     * Returns the p99 latency target in milliseconds for adaptive batching.
+     *
+     * @return the p99 latency target in milliseconds
+     */
+    public int getTargetLatency() {
+        return targetLatency;
+    }
+
+    /**
+     * Sets the p99 latency target in milliseconds for adaptive batching.
+     *
+     * @param targetLatency the p99 latency target in milliseconds
+     */
+    public void setTargetLatency(int targetLatency) {
+        this.targetLatency = targetLatency;
+    }
+
+    /**
+     * Returns the current decisions of adaptive batching.
+     *
+     * @return the current decisions of adaptive batching, {@code null} if not enabled
+     */
+    public AdaptiveBatch getAdaptiveBatch() {
+        return adaptiveBatch;
+    }
+
+    /**
+     * Sets the current decisions of adaptive batching.
+     *
+     * @param batchSize the current batch size
+     * @param batchDelay the current batch delay in milliseconds
+     * @param latencyP99 the p99 latency in milliseconds of the recent batches
+     */
+    public void setAdaptiveBatch(int batchSize, int batchDelay, long latencyP99) {
+        adaptiveBatch = new AdaptiveBatch();
+        adaptiveBatch.setBatchSize(batchSize);
+        adaptiveBatch.setBatchDelay(batchDelay);
+        adaptiveBatch.setLatencyP99(latencyP99);
+    }
+
+    /**
+     * Returns the configuration and the counters of the response cache.
+     *
+     * @return the response cache information, {@code null} if not enabled
+     */
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    /**
+     * Sets the configuration and the counters of the response cache.
+     *
+     * @param maxSize the maximum number of cached responses
+     * @param ttl the time to live of a cached response in seconds
+     * @param size the number of cached responses
+     * @param hits the number of requests answered from the cache
+     * @param misses the number of requests not found in the cache
+     * @param coalesced the number of requests answered with the response of an identical request
+     */
+    public void setResponseCache(
+            int maxSize, int ttl, int size, long hits, long misses, long coalesced) {
+        responseCache = new ResponseCache();
+        responseCache.setMaxSize(maxSize);
+        responseCache.setTtl(ttl);
+        responseCache.setSize(size);
+        responseCache.setHits(hits);
+        responseCache.setMisses(misses);
+        responseCache.setCoalesced(coalesced);
+    }
+
     /**
      * Returns all workers information of the model.
      *
@@ -224,6 +405,187 @@ public class DescribeModelResponse {
         workers.add(worker);
     }
 
+    /** A class that holds the current decisions of adaptive batching. */
+    public static final class AdaptiveBatch {
+
+        private int batchSize;
+        private int batchDelay;
+        private long latencyP99;
+
+        /**
+         * Returns the current batch size.
+         *
+         * @return the current batch size
+         */
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        /**
+         * Sets the current batch size.
+         *
+         * @param batchSize the current batch size
+         */
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        /**
+         * Returns the current batch delay in milliseconds.
+         *
+         * @return the current batch delay in milliseconds
+         */
+        public int getBatchDelay() {
+            return batchDelay;
+        }
+
+        /**
+         * Sets the current batch delay in milliseconds.
+         *
+         * @param batchDelay the current batch delay in milliseconds
+         */
+        public void setBatchDelay(int batchDelay) {
+            this.batchDelay = batchDelay;
+        }
+
+        /**
+         * Returns the p99 latency in milliseconds of the recent batches.
+         *
+         * @return the p99 latency in milliseconds of the recent batches
+         */
+        public long getLatencyP99() {
+            return latencyP99;
+        }
+
+        /**
+         * Sets the p99 latency in milliseconds of the recent batches.
+         *
+         * @param latencyP99 the p99 latency in milliseconds of the recent batches
+         */
+        public void setLatencyP99(long latencyP99) {
+            this.latencyP99 = latencyP99;
+        }
+    }
+
+    /** A class that holds the configuration and the counters of the response cache. */
+    public static final class ResponseCache {
+
+        private int maxSize;
+        private int ttl;
+        private int size;
+        private long hits;
+        private long misses;
+        private long coalesced;
+
+        /**
+         * Returns the maximum number of cached responses.
+         *
+         * @return the maximum number of cached responses
+         */
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        /**
+         * Sets the maximum number of cached responses.
+         *
+         * @param maxSize the maximum number of cached responses
+         */
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        /**
+         * Returns the time to live of a cached response in seconds.
+         *
+         * @return the time to live of a cached response in seconds
+         */
+        public int getTtl() {
+            return ttl;
+        }
+
+        /**
+         * Sets the time to live of a cached response in seconds.
+         *
+         * @param ttl the time to live of a cached response in seconds
+         */
+        public void setTtl(int ttl) {
+            this.ttl = ttl;
+        }
+
+        /**
+         * Returns the number of cached responses.
+         *
+         * @return the number of cached responses
+         */
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * Sets the number of cached responses.
+         *
+         * @param size the number of cached responses
+         */
+        public void setSize(int size) {
+            this.size = size;
+        }
+
+        /**
+         * Returns the number of requests answered from the cache.
+         *
+         * @return the number of requests answered from the cache
+         */
+        public long getHits() {
+            return hits;
+        }
+
+        /**
+         * Sets the number of requests answered from the cache.
+         *
+         * @param hits the number of requests answered from the cache
+         */
+        public void setHits(long hits) {
+            this.hits = hits;
+        }
+
+        /**
+         * Returns the number of requests not found in the cache.
+         *
+         * @return the number of requests not found in the cache
+         */
+        public long getMisses() {
+            return misses;
+        }
+
+        /**
+         * Sets the number of requests not found in the cache.
+         *
+         * @param misses the number of requests not found in the cache
+         */
+        public void setMisses(long misses) {
+            this.misses = misses;
+        }
+
+        /**
+         * Returns the number of requests answered with the response of an identical request.
+         *
+         * @return the number of coalesced requests
+         */
+        public long getCoalesced() {
+            return coalesced;
+        }
+
+        /**
+         * Sets the number of requests answered with the response of an identical request.
+         *
+         * @param coalesced the number of coalesced requests
+         */
+        public void setCoalesced(long coalesced) {
+            this.coalesced = coalesced;
+        }
+    }
+
     /** A class that holds workers information. */
     public static final class Worker {
 
@@ -25,6 +25,7 @@ import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.QueryStringDecoder;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.regex.Pattern;
 import org.slf4j.Logger;
@@ -97,37 +98,48 @@ public class InferenceRequestHandler extends HttpRequestHandler {
             throw new ResourceNotFoundException();
         }
         Input input = requestParser.parseRequest(ctx, req, decoder);
-        predict(ctx, req, input, segments[2]);
+        try {
+            predict(ctx, req, input, segments[2]);
+        } catch (ModelNotFoundException | RuntimeException e) {
+            input.close();
+            throw e;
+        }
     }
 
     private void handleInvocations(
             ChannelHandlerContext ctx, FullHttpRequest req, QueryStringDecoder decoder)
             throws ModelNotFoundException {
         Input input = requestParser.parseRequest(ctx, req, decoder);
-        String modelName = NettyUtils.getParameter(decoder, "model_name", null);
-        if ((modelName == null || modelName.isEmpty())) {
-            modelName = input.getProperty("model_name", null);
-            if (modelName == null) {
-                byte[] buf = input.getContent().get("model_name");
-                if (buf != null) {
-                    modelName = new String(buf, StandardCharsets.UTF_8);
+        try {
+            String modelName = NettyUtils.getParameter(decoder, "model_name", null);
+            if ((modelName == null || modelName.isEmpty())) {
+                modelName = input.getProperty("model_name", null);
+                if (modelName == null) {
+                    ByteBuffer buf = input.getAsByteBuffer("model_name");
+                    if (buf != null) {
+                        modelName = StandardCharsets.UTF_8.decode(buf).toString();
+                    }
                 }
             }
-        }
-        if (modelName == null) {
-            if (ModelManager.getInstance().getStartupModels().size() == 1) {
-                modelName = ModelManager.getInstance().getStartupModels().iterator().next();
-            }
             if (modelName == null) {
-                throw new BadRequestException("Parameter model_name is required.");
+                if (ModelManager.getInstance().getStartupModels().size() == 1) {
+                    modelName = ModelManager.getInstance().getStartupModels().iterator().next();
+                }
+                if (modelName == null) {
+                    throw new BadRequestException("Parameter model_name is required.");
+                }
             }
+            predict(ctx, req, input, modelName);
+        } catch (ModelNotFoundException | RuntimeException e) {
+            input.close();
+            throw e;
         }
-        predict(ctx, req, input, modelName);
     }
 
     private void predict(
             ChannelHandlerContext ctx, FullHttpRequest req, Input input, String modelName)
             throws ModelNotFoundException {
+        Job job = requestParser.createJob(ctx, req, modelName, input);
         ModelManager modelManager = ModelManager.getInstance();
         ModelInfo model = modelManager.getModels().get(modelName);
         if (model == null) {
@@ -137,11 +149,11 @@ public class InferenceRequestHandler extends HttpRequestHandler {
             }
             String modelUrl = input.getProperty("model_url", null);
             if (modelUrl == null) {
-                byte[] buf = input.getContent().get("model_url");
+                ByteBuffer buf = input.getAsByteBuffer("model_url");
                 if (buf == null) {
                     throw new ModelNotFoundException("Parameter model_url is required.");
                 }
-                modelUrl = new String(buf, StandardCharsets.UTF_8);
+                modelUrl = StandardCharsets.UTF_8.decode(buf).toString();
                 if (!modelUrl.matches(regex)) {
                     throw new ModelNotFoundException("Permission denied: " + modelUrl);
                 }
@@ -149,30 +161,39 @@ public class InferenceRequestHandler extends HttpRequestHandler {
 
             logger.info("Loading model {} from: {}", modelName, modelUrl);
 
+            ConfigManager configManager = ConfigManager.getInstance();
             modelManager
                     .registerModel(
                             modelName,
                             modelUrl,
-                            ConfigManager.getInstance().getBatchSize(),
-                            ConfigManager.getInstance().getMaxBatchDelay(),
-                            ConfigManager.getInstance().getMaxIdleTime())
-                    .thenAccept(m -> modelManager.triggerModelUpdated(m.scaleWorkers(1, 1)))
+                            configManager.getBatchSize(),
+                            configManager.getMaxBatchDelay(),
+                            configManager.getMaxIdleTime())
+                    .thenAccept(
+                            m ->
+                                    modelManager.triggerModelUpdated(
+                                            m.scaleWorkers(1, 1)
+                                                    .configureAdaptiveBatch(
+                                                            configManager.isAdaptiveBatching(),
+                                                            configManager.getTargetLatency())))
                     .thenAccept(
                             p -> {
                                 try {
-                                    if (!modelManager.addJob(new Job(ctx, modelName, input))) {
+                                    if (!modelManager.addJob(job)) {
                                         throw new ServiceUnavailableException(
                                                 "No worker is available to serve request: "
                                                         + modelName);
                                     }
                                 } catch (ModelNotFoundException e) {
                                     logger.warn("Unexpected error", e);
+                                    input.close();
                                     NettyUtils.sendError(ctx, e);
                                 }
                             })
                     .exceptionally(
                             t -> {
                                 logger.warn("Unexpected error", t);
+                                input.close();
                                 NettyUtils.sendError(ctx, t);
                                 return null;
                             });
@@ -180,12 +201,12 @@ public class InferenceRequestHandler extends HttpRequestHandler {
         }
 
         if (HttpMethod.OPTIONS.equals(req.method())) {
+            input.close();
             NettyUtils.sendJsonResponse(ctx, "{}");
             return;
         }
 
-        Job job = new Job(ctx, modelName, input);
-        if (!ModelManager.getInstance().addJob(job)) {
+        if (!modelManager.addJob(job)) {
             logger.error("unable to process prediction. no free worker available.");
             throw new ServiceUnavailableException(
                     "No worker is available to serve request: " + modelName);
@@ -14,18 +14,26 @@ package ai.djl.serving.http;
 
 import ai.djl.ModelException;
 import ai.djl.repository.zoo.ModelNotFoundException;
+import ai.djl.serving.util.ConfigManager;
 import ai.djl.serving.util.NettyUtils;
 import ai.djl.serving.wlm.ModelInfo;
 import ai.djl.serving.wlm.ModelManager;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http.QueryStringDecoder;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.regex.Pattern;
 
 /**
@@ -53,8 +61,24 @@ public class ManagementRequestHandler extends HttpRequestHandler {
     private static final String MAX_WORKER_PARAMETER = "max_worker";
     /** HTTP Paramater "min_worker". */
     private static final String MIN_WORKER_PARAMETER = "min_worker";
+    /** HTTP Paramater "adaptive_batching". */
+    private static final String ADAPTIVE_BATCHING_PARAMETER = "adaptive_batching";
+    /** HTTP Paramater "target_latency". */
+    private static final String TARGET_LATENCY_PARAMETER = "target_latency";
+    /** HTTP Paramater "response_cache_size". */
+    private static final String RESPONSE_CACHE_SIZE_PARAMETER = "response_cache_size";
+    /** HTTP Paramater "response_cache_ttl". */
+    private static final String RESPONSE_CACHE_TTL_PARAMETER = "response_cache_ttl";
+    /** HTTP Paramater "version". */
+    private static final String VERSION_PARAMETER = "version";
+    /** HTTP Paramater "canary_weight". */
+    private static final String CANARY_WEIGHT_PARAMETER = "canary_weight";
 
-    private static final Pattern PATTERN = Pattern.compile("^/models([/?].*)?");
+    /** The content type of the Prometheus text exposition format. */
+    private static final String PROMETHEUS_CONTENT_TYPE =
+            "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final Pattern PATTERN = Pattern.compile("^/(models|metrics)([/?].*)?");
 
     /** {@inheritDoc} */
     @Override
@@ -75,6 +99,13 @@ public class ManagementRequestHandler extends HttpRequestHandler {
             String[] segments)
             throws ModelException {
         HttpMethod method = req.method();
+        if ("metrics".equals(segments[1])) {
+            if (!HttpMethod.GET.equals(method)) {
+                throw new MethodNotAllowedException();
+            }
+            handleMetrics(ctx);
+            return;
+        }
         if (segments.length < 3) {
             if (HttpMethod.GET.equals(method)) {
                 handleListModels(ctx, decoder);
@@ -91,12 +122,21 @@ public class ManagementRequestHandler extends HttpRequestHandler {
         } else if (HttpMethod.PUT.equals(method)) {
             handleScaleModel(ctx, decoder, segments[2]);
         } else if (HttpMethod.DELETE.equals(method)) {
-            handleUnregisterModel(ctx, segments[2]);
+            handleUnregisterModel(ctx, decoder, segments[2]);
         } else {
             throw new MethodNotAllowedException();
         }
     }
 
+    private void handleMetrics(ChannelHandlerContext ctx) {
+        String metrics = ModelManager.getInstance().exportMetrics();
+        FullHttpResponse resp =
+                new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, false);
+        resp.headers().set(HttpHeaderNames.CONTENT_TYPE, PROMETHEUS_CONTENT_TYPE);
+        resp.content().writeCharSequence(metrics, StandardCharsets.UTF_8);
+        NettyUtils.sendHttpResponse(ctx, resp, true);
+    }
+
     private void handleListModels(ChannelHandlerContext ctx, QueryStringDecoder decoder) {
         int limit = NettyUtils.getIntParameter(decoder, "limit", 100);
         int pageToken = NettyUtils.getIntParameter(decoder, "next_page_token", 0);
@@ -144,6 +184,8 @@ public class ManagementRequestHandler extends HttpRequestHandler {
         }
 
         final String modelName = NettyUtils.getParameter(decoder, MODEL_NAME_PARAMETER, null);
+        String version = NettyUtils.getParameter(decoder, VERSION_PARAMETER, null);
+        int canaryWeight = getCanaryWeight(decoder);
         int batchSize = NettyUtils.getIntParameter(decoder, BATCH_SIZE_PARAMETER, 1);
         int maxBatchDelay = NettyUtils.getIntParameter(decoder, MAX_BATCH_DELAY_PARAMETER, 100);
         int maxIdleTime = NettyUtils.getIntParameter(decoder, MAX_IDLE_TIME__PARAMETER, 60);
@@ -152,23 +194,56 @@ public class ManagementRequestHandler extends HttpRequestHandler {
         boolean synchronous =
                 Boolean.parseBoolean(
                         NettyUtils.getParameter(decoder, SYNCHRONOUS_PARAMETER, "true"));
+        ConfigManager configManager = ConfigManager.getInstance();
+        boolean adaptiveBatching =
+                Boolean.parseBoolean(
+                        NettyUtils.getParameter(
+                                decoder,
+                                ADAPTIVE_BATCHING_PARAMETER,
+                                String.valueOf(configManager.isAdaptiveBatching())));
+        int targetLatency =
+                NettyUtils.getIntParameter(
+                        decoder, TARGET_LATENCY_PARAMETER, configManager.getTargetLatency());
+        int cacheSize =
+                NettyUtils.getIntParameter(
+                        decoder,
+                        RESPONSE_CACHE_SIZE_PARAMETER,
+                        configManager.getResponseCacheSize());
+        int cacheTtl =
+                NettyUtils.getIntParameter(
+                        decoder, RESPONSE_CACHE_TTL_PARAMETER, configManager.getResponseCacheTtl());
 
         final ModelManager modelManager = ModelManager.getInstance();
         CompletableFuture<ModelInfo> future =
                 modelManager.registerModel(
-                        modelName, modelUrl, batchSize, maxBatchDelay, maxIdleTime);
-        CompletableFuture<Void> f =
-                future.thenAccept(
-                        modelInfo ->
-                                modelManager.triggerModelUpdated(
-                                        modelInfo
-                                                .scaleWorkers(initialWorkers, initialWorkers)
-                                                .configurePool(maxIdleTime, maxBatchDelay)
-                                                .configureModelBatch(batchSize)));
+                        modelName, version, modelUrl, batchSize, maxBatchDelay, maxIdleTime);
+        CompletableFuture<ModelInfo> f =
+                future.thenApply(
+                        modelInfo -> {
+                            ModelInfo configured =
+                                    modelInfo
+                                            .scaleWorkers(initialWorkers, initialWorkers)
+                                            .configurePool(maxIdleTime, maxBatchDelay)
+                                            .configureModelBatch(batchSize)
+                                            .configureAdaptiveBatch(
+                                                    adaptiveBatching, targetLatency)
+                                            .configureResponseCache(cacheSize, cacheTtl);
+                            modelManager.triggerModelUpdated(configured);
+                            return configured;
+                        });
+        if (version != null) {
+            // a new version of a registered model takes over once its workers are ready
+            f = f.thenCompose(modelInfo -> rolloutStaged(modelInfo, canaryWeight));
+        }
 
         if (synchronous) {
             final String msg = "Model \"" + modelName + "\" registered.";
-            f = f.thenAccept(m -> NettyUtils.sendJsonResponse(ctx, new StatusResponse(msg)));
+            f =
+                    f.thenApply(
+                            m -> {
+                                NettyUtils.sendJsonResponse(ctx, new StatusResponse(msg));
+                                return m;
+                            });
         } else {
             String msg = "Model \"" + modelName + "\" registration scheduled.";
             NettyUtils.sendJsonResponse(ctx, new StatusResponse(msg));
@@ -181,9 +256,74 @@ public class ManagementRequestHandler extends HttpRequestHandler {
                 });
     }
 
-    private void handleUnregisterModel(ChannelHandlerContext ctx, String modelName)
+    private static CompletableFuture<ModelInfo> rolloutStaged(ModelInfo modelInfo, int weight) {
+        ModelManager modelManager = ModelManager.getInstance();
+        String modelName = modelInfo.getModelName();
+        if (modelManager.getStagedVersion(modelName) != modelInfo) {
+            // the first version of a model serves the requests right away
+            return CompletableFuture.completedFuture(modelInfo);
+        }
+        try {
+            return modelManager.rolloutVersion(modelName, weight);
+        } catch (ModelNotFoundException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private static int getCanaryWeight(QueryStringDecoder decoder) {
+        int weight;
+        try {
+            weight = NettyUtils.getIntParameter(decoder, CANARY_WEIGHT_PARAMETER, 100);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Parameter canary_weight is not a number.", e);
+        }
+        if (weight < 0 || weight > 100) {
+            throw new BadRequestException("Parameter canary_weight must be between 0 and 100.");
+        }
+        return weight;
+    }
+
+    private void handleRolloutModel(ChannelHandlerContext ctx, String modelName, int weight)
+            throws ModelNotFoundException {
+        ModelManager modelManager = ModelManager.getInstance();
+        modelManager
+                .rolloutVersion(modelName, weight)
+                .thenAccept(
+                        m -> {
+                            String msg =
+                                    "Model \""
+                                            + modelName
+                                            + "\" version \""
+                                            + m.getVersion()
+                                            + "\" receives "
+                                            + weight
+                                            + "% of the requests.";
+                            NettyUtils.sendJsonResponse(ctx, new StatusResponse(msg));
+                        })
+                .exceptionally(
+                        t -> {
+                            NettyUtils.sendError(ctx, t.getCause());
+                            return null;
+                        });
+    }
+
+    private void handleUnregisterModel(
+            ChannelHandlerContext ctx, QueryStringDecoder decoder, String modelName)
             throws ModelNotFoundException {
         ModelManager modelManager = ModelManager.getInstance();
+        String version = NettyUtils.getParameter(decoder, VERSION_PARAMETER, null);
+        if (version != null) {
+            ModelInfo staged = modelManager.getStagedVersion(modelName);
+            if (staged == null
+                    || !version.equals(staged.getVersion())
+                    || !modelManager.rollbackVersion(modelName)) {
+                throw new ModelNotFoundException(
+                        "Staged version not found: " + modelName + ':' + version);
+            }
+            String msg = "Model \"" + modelName + "\" version \"" + version + "\" unregistered";
+            NettyUtils.sendJsonResponse(ctx, new StatusResponse(msg));
+            return;
+        }
         if (!modelManager.unregisterModel(modelName)) {
             throw new ModelNotFoundException("Model not found: " + modelName);
         }
@@ -201,6 +341,10 @@ public class ManagementRequestHandler extends HttpRequestHandler {
             if (modelInfo == null) {
                 throw new ModelNotFoundException("Model not found: " + modelName);
             }
+            if (NettyUtils.getParameter(decoder, CANARY_WEIGHT_PARAMETER, null) != null) {
+                handleRolloutModel(ctx, modelName, getCanaryWeight(decoder));
+                return;
+            }
             int minWorkers =
                     NettyUtils.getIntParameter(
                             decoder, MIN_WORKER_PARAMETER, modelInfo.getMinWorkers());
@@ -217,11 +361,34 @@ public class ManagementRequestHandler extends HttpRequestHandler {
             int maxBatchDelay =
                     NettyUtils.getIntParameter(
                             decoder, MAX_BATCH_DELAY_PARAMETER, modelInfo.getMaxBatchDelay());
+            boolean adaptiveBatching =
+                    Boolean.parseBoolean(
+                            NettyUtils.getParameter(
+                                    decoder,
+                                    ADAPTIVE_BATCHING_PARAMETER,
+                                    String.valueOf(modelInfo.isAdaptiveBatching())));
+            int targetLatency =
+                    NettyUtils.getIntParameter(
+                            decoder, TARGET_LATENCY_PARAMETER, modelInfo.getTargetLatency());
+            int cacheSize =
+                    NettyUtils.getIntParameter(
+                            decoder,
+                            RESPONSE_CACHE_SIZE_PARAMETER,
+                            modelInfo.getResponseCacheSize());
+            int cacheTtl =
+                    NettyUtils.getIntParameter(
+                            decoder,
+                            RESPONSE_CACHE_TTL_PARAMETER,
+                            modelInfo.getResponseCacheSize() > 0
+                                    ? modelInfo.getResponseCacheTtl()
+                                    : ConfigManager.getInstance().getResponseCacheTtl());
 
             modelInfo =
                     modelInfo
                             .scaleWorkers(minWorkers, maxWorkers)
-                            .configurePool(maxIdleTime, maxBatchDelay);
+                            .configurePool(maxIdleTime, maxBatchDelay)
+                            .configureAdaptiveBatch(adaptiveBatching, targetLatency)
+                            .configureResponseCache(cacheSize, cacheTtl);
             modelManager.triggerModelUpdated(modelInfo);
 
             String msg =
@@ -14,6 +14,10 @@ package ai.djl.serving.http;
 
 import ai.djl.modality.Input;
 import ai.djl.serving.util.NettyUtils;
+import ai.djl.serving.util.TensorFrames;
+import ai.djl.serving.wlm.Job;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.HttpHeaderValues;
@@ -24,6 +28,7 @@ import io.netty.handler.codec.http.multipart.HttpDataFactory;
 import io.netty.handler.codec.http.multipart.HttpPostRequestDecoder;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,11 +40,19 @@ import org.slf4j.LoggerFactory;
  */
 public class RequestParser {
 
+    /** HTTP header to set the priority class of a request: high, normal or low. */
+    public static final String PRIORITY_HEADER = "x-djl-priority";
+    /** HTTP header to set the time in milliseconds after which a request is not worth running. */
+    public static final String DEADLINE_HEADER = "x-djl-deadline";
+
     private static final Logger logger = LoggerFactory.getLogger(RequestParser.class);
 
     /**
      * parsing a request.
      *
+     * <p>The body of a raw request is kept in the network buffer, the returned {@link Input} must
+     * be closed to release it.
+     *
      * @param ctx the context.
      * @param req the full request.
      * @param decoder a decoder to decode the query string.
@@ -63,7 +76,12 @@ public class RequestParser {
             input.addProperty(entry.getKey(), entry.getValue());
         }
 
-        if (HttpPostRequestDecoder.isMultipart(req)
+        if (req instanceof TensorRequest) {
+            // frames were split while the body was received
+            for (ByteBuf frame : ((TensorRequest) req).getFrames()) {
+                addBuffer(input, TensorFrames.DATA_KEY, frame);
+            }
+        } else if (HttpPostRequestDecoder.isMultipart(req)
                 || HttpHeaderValues.APPLICATION_X_WWW_FORM_URLENCODED.contentEqualsIgnoreCase(
                         contentType)) {
             HttpDataFactory factory = new DefaultHttpDataFactory(6553500);
@@ -79,9 +97,62 @@ public class RequestParser {
                 form.destroy();
             }
         } else {
-            byte[] content = NettyUtils.getBytes(req.content());
-            input.addData("body", content);
+            addBuffer(input, "body", req.content());
         }
         return input;
     }
+
+    /**
+     * Creates an inference job for a parsed request.
+     *
+     * <p>The priority class of the job is read from the {@value #PRIORITY_HEADER} header, and the
+     * deadline from the {@value #DEADLINE_HEADER} header, which holds the time budget in
+     * milliseconds counted from now.
+     *
+     * @param ctx the context.
+     * @param req the full request.
+     * @param modelName the model to run the job with.
+     * @param input the parsed input object.
+     * @return the inference job.
+     */
+    public Job createJob(
+            ChannelHandlerContext ctx, FullHttpRequest req, String modelName, Input input) {
+        Job.Priority priority = Job.Priority.NORMAL;
+        String value = req.headers().get(PRIORITY_HEADER);
+        if (value != null) {
+            try {
+                priority = Job.Priority.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Invalid " + PRIORITY_HEADER + ": " + value, e);
+            }
+        }
+
+        long deadline = 0;
+        value = req.headers().get(DEADLINE_HEADER);
+        if (value != null) {
+            try {
+                long timeout = Long.parseLong(value.trim());
+                if (timeout <= 0) {
+                    throw new BadRequestException("Invalid " + DEADLINE_HEADER + ": " + value);
+                }
+                deadline = System.currentTimeMillis() + timeout;
+            } catch (NumberFormatException e) {
+                throw new BadRequestException("Invalid " + DEADLINE_HEADER + ": " + value, e);
+            }
+        }
+        return new Job(ctx, modelName, input, priority, deadline);
+    }
+
+    private static void addBuffer(Input input, String key, ByteBuf buf) {
+        if (buf.nioBufferCount() == 1) {
+            // hand a contiguous buffer to the model without copy, it is released with the job
+            ByteBuf data = buf.retain();
+            input.addResource(data::release);
+            input.addData(key, data.nioBuffer());
+        } else {
+            // a buffer of several components, like a body received in chunks, can only be
+            // passed on as one ByteBuffer by copying it
+            input.addData(key, ByteBufUtil.getBytes(buf));
+        }
+    }
 }
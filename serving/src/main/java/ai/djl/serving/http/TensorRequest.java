@@ -0,0 +1,83 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.serving.http;
+
+import ai.djl.serving.util.TensorFrames;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpRequest;
+import java.util.List;
+
+/**
+ * A {@link io.netty.handler.codec.http.FullHttpRequest} with a {@value TensorFrames#CONTENT_TYPE}
+ * body that has been split into frames while it was received.
+ *
+ * <p>The frames are released together with the request.
+ */
+public class TensorRequest extends DefaultFullHttpRequest {
+
+    private List<ByteBuf> frames;
+
+    /**
+     * Constructs a new {@code TensorRequest} instance.
+     *
+     * @param request the head of the request
+     * @param trailingHeaders the trailing headers of the request
+     * @param frames the content of each frame, without the length prefix
+     */
+    public TensorRequest(HttpRequest request, HttpHeaders trailingHeaders, List<ByteBuf> frames) {
+        super(
+                request.protocolVersion(),
+                request.method(),
+                request.uri(),
+                Unpooled.EMPTY_BUFFER,
+                request.headers(),
+                trailingHeaders);
+        setDecoderResult(request.decoderResult());
+        this.frames = frames;
+    }
+
+    /**
+     * Returns the content of each frame, without the length prefix.
+     *
+     * @return the content of each frame
+     */
+    public List<ByteBuf> getFrames() {
+        return frames;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean release() {
+        releaseFrames();
+        return super.release();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean release(int decrement) {
+        releaseFrames();
+        return super.release(decrement);
+    }
+
+    private synchronized void releaseFrames() {
+        if (frames != null) {
+            for (ByteBuf frame : frames) {
+                frame.release();
+            }
+            frames = null;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.serving.http;
+
+import ai.djl.serving.util.NettyUtils;
+import ai.djl.serving.util.TensorFrames;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpMessage;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.ReferenceCountUtil;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A handler that splits {@value TensorFrames#CONTENT_TYPE} request bodies into frames as the
+ * chunks arrive, instead of aggregating the full body first.
+ *
+ * <p>The handler must be placed in front of the {@link
+ * io.netty.handler.codec.http.HttpObjectAggregator}. Complete frames are kept as slices of the
+ * received buffers, without copy. Once the last chunk arrived, a {@link TensorRequest} carrying the
+ * frames is passed on. The received buffers are held until all frames are released. Other requests
+ * pass through untouched.
+ */
+public class TensorStreamDecoder extends ChannelInboundHandlerAdapter {
+
+    private int maxRequestSize;
+    private HttpRequest request;
+    private CompositeByteBuf cumulation;
+    private List<ByteBuf> frames;
+    private long received;
+    private boolean discarding;
+
+    /**
+     * Constructs a new {@code TensorStreamDecoder} instance.
+     *
+     * @param maxRequestSize the maximum size of a request body in bytes
+     */
+    public TensorStreamDecoder(int maxRequestSize) {
+        this.maxRequestSize = maxRequestSize;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (msg instanceof HttpRequest
+                && !(msg instanceof FullHttpMessage)
+                && TensorFrames.isTensorMessage((HttpRequest) msg)) {
+            reset();
+            request = (HttpRequest) msg;
+            cumulation = ctx.alloc().compositeBuffer(Integer.MAX_VALUE);
+            frames = new ArrayList<>();
+            if (HttpUtil.is100ContinueExpected(request)) {
+                ctx.writeAndFlush(
+                        new DefaultFullHttpResponse(
+                                HttpVersion.HTTP_1_1, HttpResponseStatus.CONTINUE));
+            }
+            return;
+        }
+        if (!(msg instanceof HttpContent) || (request == null && !discarding)) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+
+        HttpContent chunk = (HttpContent) msg;
+        boolean last = chunk instanceof LastHttpContent;
+        if (discarding) {
+            chunk.release();
+            discarding = !last;
+            return;
+        }
+
+        ByteBuf content = chunk.content();
+        received += content.readableBytes();
+        if (received > maxRequestSize) {
+            chunk.release();
+            fail(ctx, HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE, "Request is too large", last);
+            return;
+        }
+        cumulation.addComponent(true, content.retain());
+        try {
+            int length;
+            while ((length = TensorFrames.peekFrameLength(cumulation)) >= 0
+                    && cumulation.readableBytes() >= length + 4) {
+                cumulation.skipBytes(4);
+                // the frames are slices of the cumulation, its read components must not be
+                // discarded before the frames are released
+                frames.add(cumulation.readRetainedSlice(length));
+            }
+        } catch (IllegalArgumentException e) {
+            chunk.release();
+            fail(ctx, HttpResponseStatus.BAD_REQUEST, e.getMessage(), last);
+            return;
+        }
+
+        if (!last) {
+            chunk.release();
+            return;
+        }
+        if (cumulation.isReadable()) {
+            chunk.release();
+            fail(ctx, HttpResponseStatus.BAD_REQUEST, "Truncated tensor frame", true);
+            return;
+        }
+        TensorRequest req =
+                new TensorRequest(request, ((LastHttpContent) chunk).trailingHeaders(), frames);
+        chunk.release();
+        frames = null;
+        reset();
+        ctx.fireChannelRead(req);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        reset();
+        super.channelInactive(ctx);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        reset();
+    }
+
+    private void fail(
+            ChannelHandlerContext ctx, HttpResponseStatus status, String message, boolean last) {
+        reset();
+        discarding = !last;
+        NettyUtils.sendError(ctx, status, new BadRequestException(message));
+    }
+
+    private void reset() {
+        if (frames != null) {
+            for (ByteBuf frame : frames) {
+                ReferenceCountUtil.release(frame);
+            }
+            frames = null;
+        }
+        if (cumulation != null) {
+            cumulation.release();
+            cumulation = null;
+        }
+        request = null;
+        received = 0;
+        discarding = false;
+    }
+}
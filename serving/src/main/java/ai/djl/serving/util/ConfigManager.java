@@ -46,6 +46,7 @@ public final class ConfigManager {
     private static final String DEBUG = "debug";
     private static final String INFERENCE_ADDRESS = "inference_address";
     private static final String MANAGEMENT_ADDRESS = "management_address";
+    private static final String GRPC_ADDRESS = "grpc_address";
     private static final String LOAD_MODELS = "load_models";
     private static final String DEFAULT_WORKERS_PER_MODEL = "default_workers_per_model";
     private static final String NUMBER_OF_NETTY_THREADS = "number_of_netty_threads";
@@ -55,6 +56,15 @@ public final class ConfigManager {
     private static final String NUMBER_OF_GPU = "number_of_gpu";
     private static final String BATCH_SIZE = "batch_size";
     private static final String MAX_BATCH_DELAY = "max_batch_delay";
+    private static final String ADAPTIVE_BATCHING = "adaptive_batching";
+    private static final String TARGET_LATENCY = "target_latency";
+    private static final String SWAP_TIMEOUT = "swap_timeout";
+    private static final String WARMUP_ITERATIONS = "warmup_iterations";
+    private static final String MODEL_MEMORY_BUDGET = "model_memory_budget";
+    private static final String RESPONSE_CACHE_SIZE = "response_cache_size";
+    private static final String RESPONSE_CACHE_TTL = "response_cache_ttl";
+    private static final String AUTOSCALING = "autoscaling";
+    private static final String AUTOSCALE_INTERVAL = "autoscale_interval";
     private static final String CORS_ALLOWED_ORIGIN = "cors_allowed_origin";
     private static final String CORS_ALLOWED_METHODS = "cors_allowed_methods";
     private static final String CORS_ALLOWED_HEADERS = "cors_allowed_headers";
@@ -136,11 +146,16 @@ public final class ConfigManager {
      * Returns the models server socket connector.
      *
      * @param type the type of connector
-     * @return the {@code Connector}
+     * @return the {@code Connector}, or {@code null} if the gRPC connector is not configured
      */
     public Connector getConnector(Connector.ConnectorType type) {
         String binding;
-        if (type == Connector.ConnectorType.MANAGEMENT) {
+        if (type == Connector.ConnectorType.GRPC) {
+            binding = prop.getProperty(GRPC_ADDRESS);
+            if (binding == null) {
+                return null;
+            }
+        } else if (type == Connector.ConnectorType.MANAGEMENT) {
             binding = prop.getProperty(MANAGEMENT_ADDRESS, "http://127.0.0.1:8080");
         } else {
             binding = prop.getProperty(INFERENCE_ADDRESS, "http://127.0.0.1:8080");
@@ -202,6 +217,92 @@ public final class ConfigManager {
         return getIntProperty(MAX_BATCH_DELAY, 300);
     }
 
+    /**
+     * Returns if adaptive batching is enabled by default for new registered models.
+     *
+     * @return {@code true} if adaptive batching is enabled by default
+     */
+    public boolean isAdaptiveBatching() {
+        return Boolean.parseBoolean(prop.getProperty(ADAPTIVE_BATCHING, "false"));
+    }
+
+    /**
+     * Returns the default p99 latency target in milliseconds for adaptive batching.
+     *
+     * @return the default p99 latency target in milliseconds
+     */
+    public int getTargetLatency() {
+        return getIntProperty(TARGET_LATENCY, 100);
+    }
+
+    /**
+     * Returns the time in seconds to wait for the workers of a new model version to become ready,
+     * and for the replaced version to finish its pending jobs.
+     *
+     * @return the model version swap timeout in seconds
+     */
+    public int getSwapTimeout() {
+        return getIntProperty(SWAP_TIMEOUT, 120);
+    }
+
+    /**
+     * Returns how many times a new worker replays the warm-up samples of its model at each batch
+     * size before it takes requests, 0 disables the warm-up.
+     *
+     * @return the number of warm-up iterations
+     */
+    public int getWarmUpIterations() {
+        return getIntProperty(WARMUP_ITERATIONS, 1);
+    }
+
+    /**
+     * Returns the host memory budget in megabytes for all loaded models, 0 for no limit. The least
+     * recently used idle models are unloaded when the budget is exceeded.
+     *
+     * @return the model memory budget in megabytes
+     */
+    public int getModelMemoryBudget() {
+        return getIntProperty(MODEL_MEMORY_BUDGET, 0);
+    }
+
+    /**
+     * Returns the default maximum number of cached responses per model, 0 disables the response
+     * cache.
+     *
+     * @return the default response cache size
+     */
+    public int getResponseCacheSize() {
+        return getIntProperty(RESPONSE_CACHE_SIZE, 0);
+    }
+
+    /**
+     * Returns the default time to live of a cached response in seconds, 0 for no expiry.
+     *
+     * @return the default response cache time to live in seconds
+     */
+    public int getResponseCacheTtl() {
+        return getIntProperty(RESPONSE_CACHE_TTL, 300);
+    }
+
+    /**
+     * Returns if the number of workers of each model follows its load between the minimum and
+     * maximum number of workers.
+     *
+     * @return {@code true} if autoscaling is enabled
+     */
+    public boolean isAutoScaling() {
+        return Boolean.parseBoolean(prop.getProperty(AUTOSCALING, "false"));
+    }
+
+    /**
+     * Returns the interval in milliseconds at which the autoscaler samples the load of the models.
+     *
+     * @return the autoscaler sampling interval in milliseconds
+     */
+    public int getAutoScaleInterval() {
+        return getIntProperty(AUTOSCALE_INTERVAL, 1000);
+    }
+
     /**
      * Returns the number of GPUs to be used.
      *
@@ -409,6 +510,8 @@ public final class ConfigManager {
                 + getConnector(Connector.ConnectorType.INFERENCE)
                 + "\nManagement address: "
                 + getConnector(Connector.ConnectorType.MANAGEMENT)
+                + "\ngRPC address: "
+                + prop.getProperty(GRPC_ADDRESS, "N/A")
                 + "\nModel Store: "
                 + (getModelStore() == null ? "N/A" : getModelStore())
                 + "\nInitial Models: "
@@ -257,6 +257,7 @@ public final class Connector {
     public enum ConnectorType {
         INFERENCE,
         MANAGEMENT,
-        BOTH
+        BOTH,
+        GRPC
     }
 }
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.serving.util;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The threads parked until a lock-free queue has an element (or a free slot) for them.
+ *
+ * <p>A waiting thread registers itself before it re-checks the queue, so a concurrent {@link
+ * #signal()} is never missed. Each signal wakes up a single parked thread, instead of all of them.
+ * Signals only touch the list when there are parked threads.
+ */
+public final class ParkedThreads {
+
+    private final ConcurrentLinkedQueue<Thread> threads = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Parks the calling thread until it is signaled, unless the queue is already ready for it.
+     *
+     * <p>The caller retries its operation on return, a wake-up does not guarantee success.
+     *
+     * @param ready checks if the queue has an element (or a free slot) for the caller
+     * @param nanos the maximum time to wait in nanoseconds, or 0 to wait until signaled
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void await(BooleanSupplier ready, long nanos) throws InterruptedException {
+        Thread thread = Thread.currentThread();
+        threads.add(thread);
+        boolean signaled;
+        try {
+            // re-check after registering, a concurrent signal may have been missed
+            if (!ready.getAsBoolean()) {
+                if (nanos > 0) {
+                    LockSupport.parkNanos(this, nanos);
+                } else {
+                    LockSupport.park(this);
+                }
+            }
+        } finally {
+            // a thread that was taken off the list has been handed a wake-up
+            signaled = !threads.remove(thread);
+        }
+        if (Thread.interrupted()) {
+            if (signaled) {
+                // pass the wake-up on, this thread does not retry
+                signal();
+            }
+            throw new InterruptedException();
+        }
+    }
+
+    /** Wakes up one parked thread, if any. */
+    public void signal() {
+        Thread thread = threads.poll();
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Returns if no thread is parked.
+     *
+     * @return {@code true} if no thread is parked
+     */
+    public boolean isEmpty() {
+        return threads.isEmpty();
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.serving.util;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded lock-free multi-producer/multi-consumer {@link BlockingQueue} backed by a ring buffer.
+ *
+ * <p>Each slot of the ring carries a sequence number that tells producers and consumers whether
+ * the slot is free or holds a published element, so {@link #offer(Object)} and {@link #poll()}
+ * only need a single compare-and-set on the tail or the head. {@link #drainTo(Collection, int)}
+ * claims all ready slots of a batch with one compare-and-set on the head.
+ *
+ * <p>The blocking operations spin on the lock-free path and only park the calling thread when the
+ * queue is empty (or full). Producers and consumers only touch the list of parked threads when
+ * there are any, so the hot path under load stays free of locks. Each published element or freed
+ * slot wakes up a single parked thread, instead of all of them.
+ *
+ * @param <E> the type of elements held in this queue
+ */
+public final class RingBufferQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+    private final int capacity;
+    private final AtomicReferenceArray<E> items;
+    private final AtomicLongArray sequences;
+    private final AtomicLong head;
+    private final AtomicLong tail;
+    private final ParkedThreads waitingConsumers;
+    private final ParkedThreads waitingProducers;
+
+    /**
+     * Constructs a new {@code RingBufferQueue} instance.
+     *
+     * @param capacity the maximum number of elements in this queue
+     */
+    public RingBufferQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        items = new AtomicReferenceArray<>(capacity);
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; ++i) {
+            sequences.set(i, i);
+        }
+        head = new AtomicLong();
+        tail = new AtomicLong();
+        waitingConsumers = new ParkedThreads();
+        waitingProducers = new ParkedThreads();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        long pos = tail.get();
+        int index;
+        while (true) {
+            index = (int) (pos % capacity);
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    break;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return false; // full
+            } else {
+                pos = tail.get();
+            }
+        }
+        items.lazySet(index, e);
+        sequences.set(index, pos + 1);
+        waitingConsumers.signal();
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public E poll() {
+        long pos = head.get();
+        int index;
+        while (true) {
+            index = (int) (pos % capacity);
+            long diff = sequences.get(index) - (pos + 1);
+            if (diff == 0) {
+                if (head.compareAndSet(pos, pos + 1)) {
+                    break;
+                }
+                pos = head.get();
+            } else if (diff < 0) {
+                return null; // empty
+            } else {
+                pos = head.get();
+            }
+        }
+        E e = release(index, pos);
+        waitingProducers.signal();
+        return e;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        if (maxElements <= 0) {
+            return 0;
+        }
+        int limit = Math.min(maxElements, capacity);
+        long pos;
+        int count;
+        while (true) {
+            pos = head.get();
+            count = 0;
+            while (count < limit) {
+                int index = (int) ((pos + count) % capacity);
+                if (sequences.get(index) != pos + count + 1) {
+                    break;
+                }
+                ++count;
+            }
+            if (count == 0) {
+                if (pos == head.get()) {
+                    return 0;
+                }
+            } else if (head.compareAndSet(pos, pos + count)) {
+                break;
+            }
+        }
+        for (int i = 0; i < count; ++i) {
+            long p = pos + i;
+            c.add(release((int) (p % capacity), p));
+        }
+        for (int i = 0; i < count && !waitingProducers.isEmpty(); ++i) {
+            waitingProducers.signal();
+        }
+        return count;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void put(E e) throws InterruptedException {
+        while (!offer(e)) {
+            waitingProducers.await(() -> size() < capacity, 0);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!offer(e)) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            waitingProducers.await(() -> size() < capacity, remaining);
+        }
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public E take() throws InterruptedException {
+        E e;
+        while ((e = poll()) == null) {
+            waitingConsumers.await(() -> size() > 0, 0);
+        }
+        return e;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        E e;
+        while ((e = poll()) == null) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            waitingConsumers.await(() -> size() > 0, remaining);
+        }
+        return e;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public E peek() {
+        long pos = head.get();
+        int index = (int) (pos % capacity);
+        if (sequences.get(index) != pos + 1) {
+            return null;
+        }
+        E e = items.get(index);
+        return head.get() == pos ? e : null;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int size() {
+        while (true) {
+            long h = head.get();
+            long t = tail.get();
+            if (h == head.get()) {
+                return (int) Math.max(0, Math.min(capacity, t - h));
+            }
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int remainingCapacity() {
+        return capacity - size();
+    }
+
+    /**
+     * Returns a weakly consistent snapshot iterator over the elements in this queue.
+     *
+     * <p>The iterator does not support {@code remove()}.
+     *
+     * @return a snapshot iterator over the elements in this queue
+     */
+    @Override
+    public Iterator<E> iterator() {
+        List<E> list = new ArrayList<>();
+        long t = tail.get();
+        for (long p = head.get(); p < t; ++p) {
+            int index = (int) (p % capacity);
+            E e = items.get(index);
+            if (e != null && sequences.get(index) == p + 1) {
+                list.add(e);
+            }
+        }
+        return Collections.unmodifiableList(list).iterator();
+    }
+
+    private E release(int index, long pos) {
+        E e = items.get(index);
+        items.lazySet(index, null);
+        sequences.set(index, pos + capacity);
+        return e;
+    }
+}
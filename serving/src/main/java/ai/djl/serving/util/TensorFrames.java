@@ -0,0 +1,116 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.serving.util;
+
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDList;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.handler.codec.http.HttpMessage;
+import io.netty.handler.codec.http.HttpUtil;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * The binary tensor wire protocol.
+ *
+ * <p>A request or response body of type {@value #CONTENT_TYPE} is a sequence of frames, each frame
+ * is a 4-byte big endian length followed by one {@link NDArray} in the {@link NDArray#encode()}
+ * format. The body ends after the last frame, so clients can stream any number of tensors.
+ */
+public final class TensorFrames {
+
+    /** The content type of the binary tensor protocol. */
+    public static final String CONTENT_TYPE = "application/x-djl-tensor";
+
+    /** The name of the {@link ai.djl.modality.Input} data entries that hold one frame each. */
+    public static final String DATA_KEY = "ndarray";
+
+    private TensorFrames() {}
+
+    /**
+     * Returns if the body of the message uses the binary tensor protocol.
+     *
+     * @param msg the HTTP message
+     * @return {@code true} if the body of the message uses the binary tensor protocol
+     */
+    public static boolean isTensorMessage(HttpMessage msg) {
+        CharSequence contentType = HttpUtil.getMimeType(msg);
+        return contentType != null && CONTENT_TYPE.contentEquals(contentType);
+    }
+
+    /**
+     * Returns the length of the next frame in the buffer, without consuming it.
+     *
+     * @param buf the buffer to read from
+     * @return the length of the frame content, or -1 if the length is not available yet
+     * @throws IllegalArgumentException if the frame length is invalid
+     */
+    public static int peekFrameLength(ByteBuf buf) {
+        if (buf.readableBytes() < 4) {
+            return -1;
+        }
+        int length = buf.getInt(buf.readerIndex());
+        if (length <= 0) {
+            throw new IllegalArgumentException("Invalid tensor frame length: " + length);
+        }
+        return length;
+    }
+
+    /**
+     * Encodes an {@link NDList} as frames into the buffer.
+     *
+     * <p>The tensor data is written straight from {@link NDArray#toByteBuffer()} into the buffer.
+     *
+     * @param list the {@link NDList} to encode
+     * @param buf the buffer to write to
+     */
+    public static void encode(NDList list, ByteBuf buf) {
+        try (ByteBufChannel os = new ByteBufChannel(buf)) {
+            for (NDArray array : list) {
+                int index = buf.writerIndex();
+                buf.writeInt(0); // placeholder for the frame length
+                array.encode(os);
+                buf.setInt(index, buf.writerIndex() - index - 4);
+            }
+        } catch (IOException e) {
+            throw new AssertionError("ByteBuf is not writable", e);
+        }
+    }
+
+    private static final class ByteBufChannel extends ByteBufOutputStream
+            implements WritableByteChannel {
+
+        private ByteBuf buf;
+
+        ByteBufChannel(ByteBuf buf) {
+            super(buf);
+            this.buf = buf;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int write(ByteBuffer src) {
+            int size = src.remaining();
+            buf.writeBytes(src);
+            return size;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+    }
+}
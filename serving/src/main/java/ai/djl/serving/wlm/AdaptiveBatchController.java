@@ -0,0 +1,166 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.serving.wlm;
+
+import java.util.Arrays;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A controller that decides the batch size and the batch delay at runtime for all workers of a
+ * model.
+ *
+ * <p>The controller keeps a sliding window of the request latencies of the most recent batches,
+ * measured from the arrival of the oldest job of each batch, so the queue wait is included. When
+ * the p99 latency exceeds the target latency, the batch size and the delay are halved and the
+ * window starts over, so one slow batch does not keep shrinking them; the next shrink waits for
+ * {@value #MIN_SAMPLES} batches measured with the new values. When there is enough headroom, the
+ * batch size grows by one as long as there is a backlog in the queue, and the delay grows towards
+ * the available headroom as long as batches are filled. Under low load, where batches are not
+ * filled within the delay, the delay is halved so requests are not kept waiting for nothing.
+ */
+final class AdaptiveBatchController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveBatchController.class);
+
+    private static final int WINDOW_SIZE = 128;
+    private static final int MIN_SAMPLES = 8;
+
+    private int maxBatchSize;
+    private int maxBatchDelay;
+    private int targetLatency;
+
+    private volatile int batchSize;
+    private volatile int batchDelay;
+    private volatile long latencyP99;
+
+    private long[] latencies;
+    private int index;
+    private int count;
+
+    /**
+     * Constructs a new {@code AdaptiveBatchController} instance.
+     *
+     * @param model the model to control the batches for
+     */
+    AdaptiveBatchController(ModelInfo model) {
+        latencies = new long[WINDOW_SIZE];
+        batchSize = 1;
+        configure(model);
+    }
+
+    /**
+     * Updates the upper bounds and the latency target from a changed model configuration.
+     *
+     * @param model the changed model
+     */
+    synchronized void configure(ModelInfo model) {
+        maxBatchSize = Math.max(1, model.getBatchSize());
+        maxBatchDelay = Math.max(0, model.getMaxBatchDelay());
+        targetLatency = model.getTargetLatency();
+        batchSize = Math.min(batchSize, maxBatchSize);
+        batchDelay = Math.min(batchDelay, maxBatchDelay);
+    }
+
+    /**
+     * Returns the batch size the workers should currently aggregate.
+     *
+     * @return the current batch size
+     */
+    int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Returns the time in milliseconds a worker should currently wait to fill a batch.
+     *
+     * @return the current batch delay in milliseconds
+     */
+    int getBatchDelay() {
+        return batchDelay;
+    }
+
+    /**
+     * Returns the p99 latency in milliseconds over the recent batches.
+     *
+     * @return the p99 latency in milliseconds
+     */
+    long getLatencyP99() {
+        return latencyP99;
+    }
+
+    /**
+     * Returns the p99 latency target in milliseconds.
+     *
+     * @return the p99 latency target in milliseconds
+     */
+    int getTargetLatency() {
+        return targetLatency;
+    }
+
+    /**
+     * Records a completed batch and adjusts the batch size and batch delay.
+     *
+     * @param size the number of jobs in the completed batch
+     * @param latency the time in milliseconds between the arrival of the oldest job of the batch
+     *     and the response
+     * @param queueDepth the number of jobs waiting in the queue
+     */
+    synchronized void update(int size, long latency, int queueDepth) {
+        latencies[index] = latency;
+        index = (index + 1) % WINDOW_SIZE;
+        if (count < WINDOW_SIZE) {
+            ++count;
+        }
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        latencyP99 = sorted[(int) Math.ceil(count * 0.99) - 1];
+
+        int newBatchSize = batchSize;
+        int newBatchDelay = batchDelay;
+        if (latencyP99 > targetLatency) {
+            if (count >= MIN_SAMPLES) {
+                newBatchSize = Math.max(1, batchSize / 2);
+                newBatchDelay = batchDelay / 2;
+                // measure the new values without the latencies that caused the shrink
+                index = 0;
+                count = 0;
+            }
+        } else if (latencyP99 * 5 < targetLatency * 4L) {
+            // keep 20% headroom before growing
+            if (size >= batchSize) {
+                if (queueDepth > 0) {
+                    newBatchSize = Math.min(maxBatchSize, batchSize + 1);
+                }
+                long headroom = targetLatency - latencyP99;
+                newBatchDelay = (int) Math.min(maxBatchDelay, batchDelay + 1 + headroom / 4);
+            } else if (queueDepth == 0) {
+                newBatchDelay = batchDelay / 2;
+            }
+        }
+
+        if (newBatchSize != batchSize || newBatchDelay != batchDelay) {
+            logger.debug(
+                    "adaptive batch: p99 latency {}ms, target {}ms, queue depth {}, batch size {} -> {}, batch delay {}ms -> {}ms",
+                    latencyP99,
+                    targetLatency,
+                    queueDepth,
+                    batchSize,
+                    newBatchSize,
+                    batchDelay,
+                    newBatchDelay);
+            batchSize = newBatchSize;
+            batchDelay = newBatchDelay;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.serving.wlm;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Scales the workers of each model between its minimum and maximum number of workers based on the
+ * load of its queue.
+ *
+ * <p>At every interval the autoscaler samples the queue depth, the utilization of the workers,
+ * that is the fraction of time they spend in inference, and the load, that is the arrival rate
+ * times the inference time per job, or the number of fully busy workers the arrivals need:
+ *
+ * <ul>
+ *   <li>workers are added as soon as the utilization or the load is above 75% of the workers, or
+ *       the queue holds more than a batch per worker, enough to bring the utilization and the
+ *       load down to 60% and to take a batch each from the queue
+ *   <li>a worker is removed after 10 consecutive samples with an empty queue and a utilization
+ *       and a load below 30%
+ *   <li>if the minimum is 0, all workers are removed once no job arrived for the max idle time of
+ *       the model, the next job starts a worker right away
+ * </ul>
+ *
+ * <p>The gap between the thresholds and the number of samples required to scale down keep the
+ * number of workers from flapping under a steady load. Every decision is logged with its inputs.
+ */
+final class AutoScaler {
+
+    private static final Logger logger = LoggerFactory.getLogger(AutoScaler.class);
+
+    static final double SCALE_UP_UTILIZATION = 0.75;
+    static final double TARGET_UTILIZATION = 0.6;
+    static final double SCALE_DOWN_UTILIZATION = 0.3;
+    static final int SCALE_DOWN_SAMPLES = 10;
+
+    private WorkLoadManager wlm;
+    private Map<String, LoadState> states;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Constructs an {@code AutoScaler} and starts sampling.
+     *
+     * @param wlm the workload manager that runs the workers
+     * @param interval the sampling interval in milliseconds
+     */
+    AutoScaler(WorkLoadManager wlm, int interval) {
+        this.wlm = wlm;
+        states = new ConcurrentHashMap<>();
+        scheduler =
+                Executors.newSingleThreadScheduledExecutor(
+                        r -> {
+                            Thread thread = new Thread(r, "djl-autoscaler");
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+        scheduler.scheduleWithFixedDelay(this::sample, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts a worker for a model that was scaled to zero, so a new job does not wait for the
+     * next sample.
+     *
+     * @param model the model to start a worker for
+     */
+    void coldStart(ModelInfo model) {
+        logger.info("Cold start of model {}: 0 -> 1 workers", model.getVersionedName());
+        LoadState state = states.get(model.getVersionedName());
+        if (state != null) {
+            state.lastArrival = System.nanoTime();
+        }
+        wlm.resize(model, 1);
+    }
+
+    private void sample() {
+        long now = System.nanoTime();
+        Set<String> names =
+                wlm.getWorkerPools().stream()
+                        .map(p -> p.model.getVersionedName())
+                        .collect(Collectors.toSet());
+        states.keySet().retainAll(names);
+        for (WorkLoadManager.WorkerPool pool : wlm.getWorkerPools()) {
+            try {
+                scale(pool, now);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to scale model {}", pool.model.getVersionedName(), e);
+            }
+        }
+    }
+
+    private void scale(WorkLoadManager.WorkerPool pool, long now) {
+        ModelInfo model = pool.model;
+        String name = model.getVersionedName();
+        ModelMetrics metrics = model.getMetrics();
+        long submitted = metrics.getSubmittedJobs();
+        long inferred = metrics.getInferredJobs();
+        double busy = metrics.getInferenceTime().getSum();
+        LoadState state = states.get(name);
+        if (state == null) {
+            states.put(name, new LoadState(now, submitted, inferred, busy));
+            return;
+        }
+
+        double seconds = (now - state.lastSample) / 1_000_000_000d;
+        long arrivals = submitted - state.submitted;
+        int workers = wlm.getNumRunningWorkers(name);
+        int depth = pool.getJobQueue().size();
+        double rate = arrivals / seconds;
+        double utilization = workers == 0 ? 0 : (busy - state.busy) / (seconds * workers);
+        if (inferred > state.inferred) {
+            // the inference time of a job, amortized over its batch
+            state.jobSeconds = (busy - state.busy) / (inferred - state.inferred);
+        }
+        double load = rate * state.jobSeconds;
+        state.lastSample = now;
+        state.submitted = submitted;
+        state.inferred = inferred;
+        state.busy = busy;
+        if (arrivals > 0) {
+            state.lastArrival = now;
+        }
+        long idleMillis = TimeUnit.NANOSECONDS.toMillis(now - state.lastArrival);
+
+        int desired =
+                state.desiredWorkers(
+                        workers,
+                        utilization,
+                        load,
+                        depth,
+                        model.getBatchSize(),
+                        idleMillis,
+                        model.getMaxIdleTime() * 1000L,
+                        model.getMinWorkers(),
+                        model.getMaxWorkers());
+        if (desired != workers) {
+            logger.info(
+                    "Scaling model {}: {} -> {} workers (queue={}, rate={}/s, load={},"
+                            + " utilization={}%)",
+                    name,
+                    workers,
+                    desired,
+                    depth,
+                    String.format("%.1f", rate),
+                    String.format("%.2f", load),
+                    Math.round(utilization * 100));
+            wlm.resize(model, desired);
+        } else if (logger.isDebugEnabled()) {
+            logger.debug(
+                    "Keeping model {} at {} workers (queue={}, rate={}/s, load={},"
+                            + " utilization={}%)",
+                    name,
+                    workers,
+                    depth,
+                    String.format("%.1f", rate),
+                    String.format("%.2f", load),
+                    Math.round(utilization * 100));
+        }
+    }
+
+    /** The load of a model at the previous sample. */
+    static final class LoadState {
+
+        long lastSample;
+        long lastArrival;
+        long submitted;
+        long inferred;
+        double busy;
+        double jobSeconds;
+        int lowSamples;
+
+        LoadState(long now, long submitted, long inferred, double busy) {
+            lastSample = now;
+            lastArrival = now;
+            this.submitted = submitted;
+            this.inferred = inferred;
+            this.busy = busy;
+        }
+
+        /**
+         * Returns the number of workers a model should have.
+         *
+         * @param workers the current number of workers
+         * @param utilization the fraction of time the workers spent in inference
+         * @param load the arrival rate times the inference time per job, in workers
+         * @param depth the number of jobs in the queue
+         * @param batchSize the batch size of the model
+         * @param idleMillis the time since the last job arrived in milliseconds
+         * @param maxIdleMillis the time without jobs after which a model is scaled to zero
+         * @param min the minimum number of workers
+         * @param max the maximum number of workers
+         * @return the number of workers the model should have
+         */
+        int desiredWorkers(
+                int workers,
+                double utilization,
+                double load,
+                int depth,
+                int batchSize,
+                long idleMillis,
+                long maxIdleMillis,
+                int min,
+                int max) {
+            int desired = workers;
+            if (utilization > SCALE_UP_UTILIZATION
+                    || load > workers * SCALE_UP_UTILIZATION
+                    || depth > workers * batchSize) {
+                lowSamples = 0;
+                double demand = Math.max(workers * utilization, load);
+                int needed = (int) Math.ceil(demand / TARGET_UTILIZATION);
+                int backlog = (depth + batchSize - 1) / batchSize;
+                desired = Math.max(workers + 1, Math.max(needed, backlog));
+            } else if (depth == 0
+                    && utilization < SCALE_DOWN_UTILIZATION
+                    && load < workers * SCALE_DOWN_UTILIZATION) {
+                if (min == 0 && idleMillis >= maxIdleMillis) {
+                    lowSamples = 0;
+                    desired = 0;
+                } else if (++lowSamples >= SCALE_DOWN_SAMPLES) {
+                    lowSamples = 0;
+                    desired = workers - 1;
+                }
+            } else {
+                lowSamples = 0;
+            }
+            return Math.max(min, Math.min(desired, max));
+        }
+    }
+}
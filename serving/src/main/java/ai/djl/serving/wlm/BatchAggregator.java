@@ -17,7 +17,7 @@ import ai.djl.modality.Output;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
 
 /**
  * abstract class for all BatchAggregators. A batch aggregator check working queue and combines
@@ -29,7 +29,9 @@ abstract class BatchAggregator {
 
     protected int batchSize;
     protected List<Job> jobs;
-    protected LinkedBlockingDeque<Job> jobQueue;
+    protected JobQueue jobQueue;
+    protected AdaptiveBatchController controller;
+    private ModelMetrics metrics;
 
     /**
      * Constructs a new {@code BbatchAggregator} instance.
@@ -37,9 +39,22 @@ abstract class BatchAggregator {
      * @param model the model to use.
      * @param jobQueue the job queue for polling data from.
      */
-    public BatchAggregator(ModelInfo model, LinkedBlockingDeque<Job> jobQueue) {
+    public BatchAggregator(ModelInfo model, JobQueue jobQueue) {
+        this(model, jobQueue, null);
+    }
+
+    /**
+     * Constructs a new {@code BbatchAggregator} instance.
+     *
+     * @param model the model to use.
+     * @param jobQueue the job queue for polling data from.
+     * @param controller the adaptive batch controller, or {@code null} to use a fixed batch size
+     */
+    BatchAggregator(ModelInfo model, JobQueue jobQueue, AdaptiveBatchController controller) {
         this.batchSize = model.getBatchSize();
         this.jobQueue = jobQueue;
+        this.controller = controller;
+        metrics = model.getMetrics();
         jobs = new ArrayList<>();
     }
 
@@ -57,6 +72,9 @@ abstract class BatchAggregator {
             job.setScheduled();
             list.add(job.getInput());
         }
+        if (!jobs.isEmpty()) {
+            metrics.recordBatch(jobs.size(), batchSize);
+        }
         return list;
     }
 
@@ -77,8 +95,11 @@ abstract class BatchAggregator {
             if (!job.getRequestId().equals(requestId)) {
                 throw new IllegalStateException("Request response mismatched.");
             }
+            job.retainOutput(output);
             job.sendOutput(output);
+            jobQueue.checkLate(job);
         }
+        updateController();
         jobs.clear();
     }
 
@@ -87,9 +108,62 @@ abstract class BatchAggregator {
         for (Job job : jobs) {
             job.sendError(HttpResponseStatus.INTERNAL_SERVER_ERROR, "Internal server error");
         }
+        updateController();
         jobs.clear();
     }
 
+    /**
+     * Adds more jobs from the queue to a list that already holds the first job of a batch.
+     *
+     * <p>With a fixed batch size, only the jobs that are already in the queue are added. With
+     * adaptive batching, this waits up to the current batch delay for the batch to fill.
+     *
+     * @param list the list holding the first job of the batch
+     * @throws InterruptedException if interrupted while waiting for jobs
+     */
+    protected void fillBatch(List<Job> list) throws InterruptedException {
+        if (controller == null) {
+            jobQueue.drainTo(list, batchSize - 1);
+            return;
+        }
+
+        int size = controller.getBatchSize();
+        jobQueue.drainTo(list, size - list.size());
+        long delay = TimeUnit.MILLISECONDS.toNanos(controller.getBatchDelay());
+        long deadline = System.nanoTime() + delay;
+        while (list.size() < size) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            Job job;
+            try {
+                job = jobQueue.poll(remaining, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                // the jobs already taken from the queue must still be answered
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (job == null) {
+                break;
+            }
+            list.add(job);
+            jobQueue.drainTo(list, size - list.size());
+        }
+    }
+
+    private void updateController() {
+        if (controller != null && !jobs.isEmpty()) {
+            // the latency of the batch is the request latency of its oldest job
+            long arrival = Long.MAX_VALUE;
+            for (Job job : jobs) {
+                arrival = Math.min(arrival, job.getBegin());
+            }
+            long latency = System.currentTimeMillis() - arrival;
+            controller.update(jobs.size(), latency, jobQueue.size());
+        }
+    }
+
     /**
      * Fills in the list with a batch of jobs.
      *
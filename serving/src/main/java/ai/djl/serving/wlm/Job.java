@@ -14,11 +14,15 @@ package ai.djl.serving.wlm;
 
 import ai.djl.modality.Input;
 import ai.djl.modality.Output;
+import ai.djl.ndarray.NDList;
 import ai.djl.serving.http.InternalServerException;
 import ai.djl.serving.util.NettyUtils;
+import ai.djl.serving.util.TensorFrames;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpVersion;
 import java.util.Map;
@@ -34,8 +38,12 @@ public class Job {
 
     private String modelName;
     private Input input;
+    private Priority priority;
+    private long deadline;
     private long begin;
     private long scheduled;
+    private ModelMetrics metrics;
+    private ResponseCache.Flight flight;
 
     /**
      * Constructs an new {@code Job} instance.
@@ -45,9 +53,30 @@ public class Job {
      * @param input the input data
      */
     public Job(ChannelHandlerContext ctx, String modelName, Input input) {
+        this(ctx, modelName, input, Priority.NORMAL, 0);
+    }
+
+    /**
+     * Constructs an new {@code Job} instance.
+     *
+     * @param ctx the {@code ChannelHandlerContext}
+     * @param modelName the model name
+     * @param input the input data
+     * @param priority the priority class of the job
+     * @param deadline the time in milliseconds since epoch after which the job is not worth
+     *     running anymore, 0 for no deadline
+     */
+    public Job(
+            ChannelHandlerContext ctx,
+            String modelName,
+            Input input,
+            Priority priority,
+            long deadline) {
         this.ctx = ctx;
         this.modelName = modelName;
         this.input = input;
+        this.priority = priority;
+        this.deadline = deadline;
 
         begin = System.currentTimeMillis();
         scheduled = begin;
@@ -80,9 +109,100 @@ public class Job {
         return input;
     }
 
+    /**
+     * Returns the priority class of the job.
+     *
+     * @return the priority class of the job
+     */
+    public Priority getPriority() {
+        return priority;
+    }
+
+    /**
+     * Returns the time the job arrived in milliseconds since epoch.
+     *
+     * @return the arrival time of the job
+     */
+    long getBegin() {
+        return begin;
+    }
+
+    /**
+     * Returns the deadline of the job in milliseconds since epoch.
+     *
+     * @return the deadline of the job, 0 if the job has no deadline
+     */
+    public long getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * Returns if the deadline of the job has passed.
+     *
+     * @return {@code true} if the deadline of the job has passed
+     */
+    public boolean isExpired() {
+        return deadline > 0 && System.currentTimeMillis() > deadline;
+    }
+
     /** Marks the job has been scheduled. */
     public void setScheduled() {
         scheduled = System.currentTimeMillis();
+        if (metrics != null) {
+            metrics.recordQueueTime(scheduled - begin);
+        }
+    }
+
+    /**
+     * Sets the metrics of the model the job is submitted to.
+     *
+     * @param metrics the metrics of the model
+     */
+    void setMetrics(ModelMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Makes this job answer the identical jobs that arrive while it runs.
+     *
+     * @param flight the identical jobs waiting for the response of this job
+     */
+    void setFlight(ResponseCache.Flight flight) {
+        this.flight = flight;
+    }
+
+    /**
+     * Returns the identical jobs waiting for the response of this job.
+     *
+     * @return the identical jobs waiting for this job, or {@code null} if not coalescing
+     */
+    ResponseCache.Flight getFlight() {
+        return flight;
+    }
+
+    /**
+     * Keeps a copy of the output for the identical jobs waiting for this job, if any.
+     *
+     * @param output the output of this job
+     */
+    void retainOutput(Output output) {
+        ResponseCache.Flight f = flight;
+        if (f != null) {
+            f.setOutput(output);
+        }
+    }
+
+    /**
+     * Answers the identical jobs waiting for this job, if any.
+     *
+     * @param success {@code true} if this job was answered successfully
+     */
+    void releaseFlight(boolean success) {
+        ResponseCache.Flight f = flight;
+        if (f != null) {
+            flight = null;
+            f.finish(success);
+        }
     }
 
     /**
@@ -91,12 +211,23 @@ public class Job {
      * @param output the output
      */
     public void sendOutput(Output output) {
-        FullHttpResponse resp =
-                new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, false);
+        FullHttpResponse resp;
+        NDList list = output.getNDList();
+        if (list != null && ctx != null) {
+            ByteBuf content = ctx.alloc().buffer();
+            TensorFrames.encode(list, content);
+            resp =
+                    new DefaultFullHttpResponse(
+                            HttpVersion.HTTP_1_1, HttpResponseStatus.OK, content, false);
+            resp.headers().set(HttpHeaderNames.CONTENT_TYPE, TensorFrames.CONTENT_TYPE);
+        } else {
+            resp = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, false);
+            resp.content().writeBytes(output.getContent());
+        }
+        output.close();
         for (Map.Entry<String, String> entry : output.getProperties().entrySet()) {
             resp.headers().set(entry.getKey(), entry.getValue());
         }
-        resp.content().writeBytes(output.getContent());
 
         /*
          * We can load the models based on the configuration file.Since this Job is
@@ -112,6 +243,8 @@ public class Job {
                 "Waiting time: {}, Backend time: {}",
                 scheduled - begin,
                 System.currentTimeMillis() - scheduled);
+        recordResponse(true);
+        release();
     }
 
     /**
@@ -135,5 +268,57 @@ public class Job {
                 "Waiting time: {}, Inference time: {}",
                 scheduled - begin,
                 System.currentTimeMillis() - begin);
+        recordResponse(false);
+        release();
+    }
+
+    /**
+     * Records the latency and outcome of the job in the metrics of the model.
+     *
+     * <p>Subclasses that override {@link #sendOutput(Output)} or {@link
+     * #sendError(HttpResponseStatus, String)} must call this once the job is answered.
+     *
+     * @param success {@code false} if the job was answered with an error
+     */
+    protected void recordResponse(boolean success) {
+        if (metrics != null) {
+            metrics.recordRequestTime(System.currentTimeMillis() - begin);
+            metrics.jobAnswered();
+            if (!success) {
+                metrics.jobFailed();
+            }
+        }
+        releaseFlight(success);
+    }
+
+    private void release() {
+        try {
+            input.close();
+        } catch (IllegalStateException e) {
+            logger.warn("Failed to release input of job: " + getRequestId(), e);
+        }
+    }
+
+    /** The priority classes of jobs. */
+    public enum Priority {
+        HIGH(4),
+        NORMAL(2),
+        LOW(1);
+
+        private int weight;
+
+        Priority(int weight) {
+            this.weight = weight;
+        }
+
+        /**
+         * Returns the share of the workers this priority class gets, relative to the other
+         * priority classes, when jobs of all priority classes are waiting.
+         *
+         * @return the weight of the priority class
+         */
+        public int getWeight() {
+            return weight;
+        }
     }
 }
@@ -0,0 +1,271 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.serving.wlm;
+
+import ai.djl.serving.util.ParkedThreads;
+import ai.djl.serving.util.RingBufferQueue;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The job queue of a model, with one lock-free {@link RingBufferQueue} per {@link Job.Priority}.
+ *
+ * <p>Consumers serve the priority classes in a weighted round robin: out of every {@code
+ * HIGH+NORMAL+LOW} polls, each priority class is tried first as often as its weight, so latency
+ * critical jobs overtake bulk jobs without starving them.
+ *
+ * <p>The capacity applies to the jobs of all priority classes together, any class can use all of
+ * it.
+ *
+ * <p>Jobs whose deadline has already passed are shed when they are polled, before they take a
+ * slot in a batch.
+ */
+final class JobQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobQueue.class);
+
+    private static final Job.Priority[] PRIORITIES = Job.Priority.values();
+    private static final Job.Priority[] SCHEDULE = buildSchedule();
+
+    private RingBufferQueue<Job>[] queues;
+    private int capacity;
+    private AtomicInteger size;
+    private AtomicInteger cursor;
+    private ParkedThreads waitingConsumers;
+    private ParkedThreads waitingProducers;
+    private AtomicLong shedJobs;
+    private AtomicLong lateJobs;
+
+    /**
+     * Constructs a new {@code JobQueue} instance.
+     *
+     * @param capacity the maximum number of waiting jobs of all priority classes
+     */
+    @SuppressWarnings("unchecked")
+    JobQueue(int capacity) {
+        this.capacity = capacity;
+        queues = new RingBufferQueue[PRIORITIES.length];
+        for (int i = 0; i < queues.length; ++i) {
+            queues[i] = new RingBufferQueue<>(capacity);
+        }
+        size = new AtomicInteger();
+        cursor = new AtomicInteger();
+        waitingConsumers = new ParkedThreads();
+        waitingProducers = new ParkedThreads();
+        shedJobs = new AtomicLong();
+        lateJobs = new AtomicLong();
+    }
+
+    /**
+     * Adds a job to the queue if there is space.
+     *
+     * @param job the job to add
+     * @return {@code true} if the job was added
+     */
+    boolean offer(Job job) {
+        int count;
+        do {
+            count = size.get();
+            if (count >= capacity) {
+                return false;
+            }
+        } while (!size.compareAndSet(count, count + 1));
+
+        // each ring holds the whole capacity, it can only be briefly full while a consumer is
+        // releasing a slot
+        RingBufferQueue<Job> queue = queues[job.getPriority().ordinal()];
+        while (!queue.offer(job)) {
+            Thread.yield();
+        }
+        waitingConsumers.signal();
+        return true;
+    }
+
+    /**
+     * Adds a job to the queue, waiting up to the specified time for space.
+     *
+     * @param job the job to add
+     * @param timeout how long to wait
+     * @param unit the unit of the timeout
+     * @return {@code true} if the job was added
+     * @throws InterruptedException if interrupted while waiting
+     */
+    boolean offer(Job job, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!offer(job)) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            waitingProducers.await(() -> size() < capacity, remaining);
+        }
+        return true;
+    }
+
+    /**
+     * Retrieves the next job, waiting if necessary until a job becomes available.
+     *
+     * @return the next job
+     * @throws InterruptedException if interrupted while waiting
+     */
+    Job take() throws InterruptedException {
+        while (true) {
+            Job job = poll();
+            if (job != null) {
+                return job;
+            }
+            waitingConsumers.await(() -> size() > 0, 0);
+        }
+    }
+
+    /**
+     * Retrieves the next job, waiting up to the specified time for a job to become available.
+     *
+     * @param timeout how long to wait
+     * @param unit the unit of the timeout
+     * @return the next job, or {@code null} if the time elapsed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    Job poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (true) {
+            Job job = poll();
+            if (job != null) {
+                return job;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            waitingConsumers.await(() -> size() > 0, remaining);
+        }
+    }
+
+    /**
+     * Retrieves the next job without waiting.
+     *
+     * @return the next job, or {@code null} if the queue is empty
+     */
+    Job poll() {
+        // try the scheduled priority class first, then the others in priority order
+        int first = nextScheduled();
+        for (int i = 0; i < queues.length; ++i) {
+            RingBufferQueue<Job> queue = queues[i == 0 ? first : (i <= first ? i - 1 : i)];
+            Job job;
+            while ((job = queue.poll()) != null) {
+                size.decrementAndGet();
+                waitingProducers.signal();
+                if (!shedIfExpired(job)) {
+                    return job;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Moves up to {@code maxJobs} waiting jobs into the list, in the same weighted order as {@link
+     * #poll()}.
+     *
+     * @param list the list to add the jobs to
+     * @param maxJobs the maximum number of jobs to add
+     * @return the number of jobs added
+     */
+    int drainTo(List<Job> list, int maxJobs) {
+        int added = 0;
+        Job job;
+        while (added < maxJobs && (job = poll()) != null) {
+            list.add(job);
+            ++added;
+        }
+        return added;
+    }
+
+    /**
+     * Returns the number of waiting jobs of all priority classes.
+     *
+     * @return the number of waiting jobs
+     */
+    int size() {
+        return size.get();
+    }
+
+    /**
+     * Returns the maximum number of waiting jobs of all priority classes.
+     *
+     * @return the capacity of the queue
+     */
+    int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Counts a job that was answered after its deadline.
+     *
+     * @param job the job that was answered
+     */
+    void checkLate(Job job) {
+        if (job.isExpired()) {
+            lateJobs.incrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the number of jobs that were dropped because their deadline had passed.
+     *
+     * @return the number of shed jobs
+     */
+    long getShedJobs() {
+        return shedJobs.get();
+    }
+
+    /**
+     * Returns the number of jobs that were answered after their deadline.
+     *
+     * @return the number of late jobs
+     */
+    long getLateJobs() {
+        return lateJobs.get();
+    }
+
+    private boolean shedIfExpired(Job job) {
+        if (!job.isExpired()) {
+            return false;
+        }
+        shedJobs.incrementAndGet();
+        logger.debug("Deadline exceeded, shedding job: {}", job.getRequestId());
+        job.sendError(HttpResponseStatus.SERVICE_UNAVAILABLE, "Request deadline exceeded");
+        return true;
+    }
+
+    private int nextScheduled() {
+        int index = (cursor.getAndIncrement() & Integer.MAX_VALUE) % SCHEDULE.length;
+        return SCHEDULE[index].ordinal();
+    }
+
+    private static Job.Priority[] buildSchedule() {
+        List<Job.Priority> schedule = new ArrayList<>();
+        for (Job.Priority priority : PRIORITIES) {
+            for (int i = 0; i < priority.getWeight(); ++i) {
+                schedule.add(priority);
+            }
+        }
+        return schedule.toArray(new Job.Priority[0]);
+    }
+}
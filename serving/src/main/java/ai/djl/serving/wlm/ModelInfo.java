@@ -25,6 +25,8 @@ public final class ModelInfo implements AutoCloseable, Cloneable {
     private static final Logger logger = LoggerFactory.getLogger(ModelInfo.class);
 
     private String modelName;
+    private String version;
+    private String versionedName;
     private String modelUrl;
 
     private int minWorkers;
@@ -33,8 +35,13 @@ public final class ModelInfo implements AutoCloseable, Cloneable {
     private int batchSize;
     private int maxBatchDelay;
     private int maxIdleTime;
+    private boolean adaptiveBatching;
+    private int targetLatency;
+    private ResponseCache responseCache;
 
     private ZooModel<Input, Output> model;
+    private ModelMetrics metrics;
+    private WarmUp warmUp;
 
     /**
      * Constructs a new {@code ModelInfo} instance.
@@ -55,13 +62,41 @@ public final class ModelInfo implements AutoCloseable, Cloneable {
             int maxIdleTime,
             int maxBatchDelay,
             int batchSize) {
+        this(modelName, null, modelUrl, model, queueSize, maxIdleTime, maxBatchDelay, batchSize);
+    }
+
+    /**
+     * Constructs a new {@code ModelInfo} instance for a version of a model.
+     *
+     * @param modelName the name of the model that will be used as HTTP endpoint
+     * @param version the version of the model, or {@code null} if the model is not versioned
+     * @param modelUrl the model url
+     * @param model the {@link ZooModel}
+     * @param queueSize the maximum request queue size
+     * @param maxIdleTime the initial maximum idle time for workers.
+     * @param maxBatchDelay the initial maximum delay when scaling up before giving up.
+     * @param batchSize the batch size for this model.
+     */
+    public ModelInfo(
+            String modelName,
+            String version,
+            String modelUrl,
+            ZooModel<Input, Output> model,
+            int queueSize,
+            int maxIdleTime,
+            int maxBatchDelay,
+            int batchSize) {
         this.modelName = modelName;
+        this.version = version;
+        versionedName = version == null ? modelName : modelName + ':' + version;
         this.modelUrl = modelUrl;
         this.model = model;
         this.maxBatchDelay = maxBatchDelay;
         this.maxIdleTime = maxIdleTime; // default max idle time 60s
         this.queueSize = queueSize;
         this.batchSize = batchSize;
+        metrics = new ModelMetrics();
+        warmUp = new WarmUp();
     }
 
     /**
@@ -127,15 +162,98 @@ public final class ModelInfo implements AutoCloseable, Cloneable {
         return clone;
     }
 
+    /**
+     * Sets the adaptive batching configuration and returns a new configured ModelInfo object. You
+     * have to triggerUpdates in the {@code ModelManager} using this new model.
+     *
+     * <p>In adaptive mode, the configured batch size and max batch delay become upper bounds, the
+     * workers grow and shrink the actual batch size and wait time at runtime to keep the p99
+     * latency of a batch within the target latency.
+     *
+     * @param adaptiveBatching {@code true} to enable adaptive batching
+     * @param targetLatency the p99 latency target in milliseconds
+     * @return new configured ModelInfo.
+     */
+    public ModelInfo configureAdaptiveBatch(boolean adaptiveBatching, int targetLatency) {
+        ModelInfo clone;
+        try {
+            clone = (ModelInfo) this.clone();
+            clone.adaptiveBatching = adaptiveBatching;
+            clone.targetLatency = targetLatency;
+        } catch (CloneNotSupportedException e) {
+            // this should never happen, cause we know we are cloneable.
+            throw new AssertionError(e);
+        }
+        return clone;
+    }
+
+    /**
+     * Sets the response cache configuration and returns a new configured ModelInfo object. You have
+     * to triggerUpdates in the {@code ModelManager} using this new model.
+     *
+     * <p>The cached responses are kept if the configuration does not change.
+     *
+     * @param size the maximum number of cached responses, 0 to disable the cache
+     * @param ttl the time to live of a cached response in seconds, 0 for no expiry
+     * @return new configured ModelInfo.
+     */
+    public ModelInfo configureResponseCache(int size, int ttl) {
+        ModelInfo clone;
+        try {
+            clone = (ModelInfo) this.clone();
+            if (size <= 0) {
+                clone.responseCache = null;
+            } else if (responseCache == null
+                    || responseCache.getMaxSize() != size
+                    || responseCache.getTtl() != ttl) {
+                clone.responseCache = new ResponseCache(size, ttl, metrics);
+            }
+        } catch (CloneNotSupportedException e) {
+            // this should never happen, cause we know we are cloneable.
+            throw new AssertionError(e);
+        }
+        return clone;
+    }
+
+    /**
+     * Sets the loaded {@link ZooModel} and returns a new ModelInfo object, with the same
+     * configuration and metrics.
+     *
+     * @param model the loaded model, or {@code null} if the model was unloaded
+     * @return new configured ModelInfo.
+     */
+    ModelInfo attachModel(ZooModel<Input, Output> model) {
+        ModelInfo clone;
+        try {
+            clone = (ModelInfo) this.clone();
+            clone.model = model;
+        } catch (CloneNotSupportedException e) {
+            // this should never happen, cause we know we are cloneable.
+            throw new AssertionError(e);
+        }
+        return clone;
+    }
+
     /**
      * Returns the loaded {@link ZooModel}.
      *
-     * @return the loaded {@link ZooModel}
+     * @return the loaded {@link ZooModel}, or {@code null} if the model was unloaded to stay within
+     *     the memory budget
      */
     public ZooModel<Input, Output> getModel() {
         return model;
     }
 
+    /**
+     * Returns if the model is loaded. A model that was unloaded to stay within the memory budget
+     * stays registered and is reloaded by the next request.
+     *
+     * @return {@code true} if the model is loaded
+     */
+    public boolean isLoaded() {
+        return model != null;
+    }
+
     /**
      * Returns the model name.
      *
@@ -145,6 +263,25 @@ public final class ModelInfo implements AutoCloseable, Cloneable {
         return modelName;
     }
 
+    /**
+     * Returns the version of the model.
+     *
+     * @return the version of the model, or {@code null} if the model is not versioned
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the name that identifies this version of the model, {@code name:version} for
+     * versioned models. The workers and the job queue of each version are kept under this name.
+     *
+     * @return the name that identifies this version of the model
+     */
+    public String getVersionedName() {
+        return versionedName;
+    }
+
     /**
      * Returns the model url.
      *
@@ -208,6 +345,51 @@ public final class ModelInfo implements AutoCloseable, Cloneable {
         return maxBatchDelay;
     }
 
+    /**
+     * Returns if adaptive batching is enabled for this model.
+     *
+     * @return {@code true} if adaptive batching is enabled
+     */
+    public boolean isAdaptiveBatching() {
+        return adaptiveBatching;
+    }
+
+    /**
+     * Returns the p99 latency target in milliseconds used by adaptive batching.
+     *
+     * @return the p99 latency target in milliseconds
+     */
+    public int getTargetLatency() {
+        return targetLatency;
+    }
+
+    /**
+     * Returns the maximum number of cached responses.
+     *
+     * @return the maximum number of cached responses, 0 if the response cache is disabled
+     */
+    public int getResponseCacheSize() {
+        return responseCache == null ? 0 : responseCache.getMaxSize();
+    }
+
+    /**
+     * Returns the time to live of a cached response in seconds.
+     *
+     * @return the time to live of a cached response in seconds, 0 for no expiry
+     */
+    public int getResponseCacheTtl() {
+        return responseCache == null ? 0 : responseCache.getTtl();
+    }
+
+    /**
+     * Returns the response cache of the model.
+     *
+     * @return the response cache, or {@code null} if the response cache is disabled
+     */
+    ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
     /**
      * returns the configured size of the workers queue.
      *
@@ -217,6 +399,24 @@ public final class ModelInfo implements AutoCloseable, Cloneable {
         return queueSize;
     }
 
+    /**
+     * Returns the runtime metrics of the model, shared by all configurations of the model.
+     *
+     * @return the runtime metrics of the model
+     */
+    public ModelMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the warm-up of the model, shared by all configurations of the model.
+     *
+     * @return the warm-up of the model
+     */
+    WarmUp getWarmUp() {
+        return warmUp;
+    }
+
     /** {@inheritDoc} */
     @Override
     public void close() {
@@ -21,6 +21,7 @@ import ai.djl.repository.zoo.ModelZoo;
 import ai.djl.repository.zoo.ZooModel;
 import ai.djl.serving.http.BadRequestException;
 import ai.djl.serving.http.DescribeModelResponse;
+import ai.djl.serving.http.ServiceUnavailableException;
 import ai.djl.serving.util.ConfigManager;
 import java.io.IOException;
 import java.util.HashSet;
@@ -30,10 +31,19 @@ import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-/** A class that in charge of managing models. */
+/**
+ * A class that in charge of managing models.
+ *
+ * <p>A model can be replaced by a new version without downtime: the new version is registered
+ * under the same name and staged, its workers are started while the current version keeps serving,
+ * and once they are ready the traffic is switched to the new version, either at once or gradually
+ * as a weighted canary. The replaced version is drained and unloaded after the switch.
+ */
 public final class ModelManager {
 
     private static final Logger logger = LoggerFactory.getLogger(ModelManager.class);
@@ -43,12 +53,23 @@ public final class ModelManager {
     private ConfigManager configManager;
     private WorkLoadManager wlm;
     private ConcurrentHashMap<String, ModelInfo> models;
+    private ConcurrentHashMap<String, Rollout> rollouts;
+    private ResidencyManager residency;
     private Set<String> startupModels;
 
-    private ModelManager(ConfigManager configManager) {
+    /**
+     * Constructs a new {@code ModelManager} instance, use {@link #init(ConfigManager)} to create
+     * the global instance.
+     *
+     * @param configManager the configuration
+     */
+    ModelManager(ConfigManager configManager) {
         this.configManager = configManager;
         wlm = new WorkLoadManager(configManager);
         models = new ConcurrentHashMap<>();
+        rollouts = new ConcurrentHashMap<>();
+        long budget = configManager.getModelMemoryBudget() * 1024L * 1024;
+        residency = new ResidencyManager(this, wlm, budget);
         startupModels = new HashSet<>();
     }
 
@@ -86,15 +107,35 @@ public final class ModelManager {
             final int batchSize,
             final int maxBatchDelay,
             final int maxIdleTime) {
+        return registerModel(modelName, null, modelUrl, batchSize, maxBatchDelay, maxIdleTime);
+    }
+
+    /**
+     * Registers and loads a version of a model.
+     *
+     * <p>If another version of the model is already registered, the new version is staged: it gets
+     * its own workers, but receives no traffic until it is rolled out with {@link
+     * #rolloutVersion(String, int)}.
+     *
+     * @param modelName the name of the model for HTTP endpoint
+     * @param version the version of the model, or {@code null} if the model is not versioned
+     * @param modelUrl the model url
+     * @param batchSize the batch size
+     * @param maxBatchDelay the maximum delay for batching
+     * @param maxIdleTime the maximum idle time of the worker threads before scaling down.
+     * @return a {@code CompletableFuture} instance
+     */
+    public CompletableFuture<ModelInfo> registerModel(
+            final String modelName,
+            final String version,
+            final String modelUrl,
+            final int batchSize,
+            final int maxBatchDelay,
+            final int maxIdleTime) {
         return CompletableFuture.supplyAsync(
                 () -> {
                     try {
-                        Criteria<Input, Output> criteria =
-                                Criteria.builder()
-                                        .setTypes(Input.class, Output.class)
-                                        .optModelUrls(modelUrl)
-                                        .build();
-                        ZooModel<Input, Output> model = ModelZoo.loadModel(criteria);
+                        ZooModel<Input, Output> model = loadModel(modelUrl);
                         String actualModelName;
                         if (modelName == null || modelName.isEmpty()) {
                             actualModelName = model.getName();
@@ -106,21 +147,26 @@ public final class ModelManager {
                         ModelInfo modelInfo =
                                 new ModelInfo(
                                         actualModelName,
+                                        version,
                                         modelUrl,
                                         model,
                                         configManager.getJobQueueSize(),
                                         maxIdleTime,
                                         maxBatchDelay,
                                         batchSize);
+                        modelInfo =
+                                modelInfo.configureResponseCache(
+                                        configManager.getResponseCacheSize(),
+                                        configManager.getResponseCacheTtl());
 
                         ModelInfo existingModel = models.putIfAbsent(actualModelName, modelInfo);
                         if (existingModel != null) {
-                            // model already exists
-                            model.close();
-                            throw new BadRequestException(
-                                    "Model " + actualModelName + " is already registered.");
+                            stageVersion(existingModel, modelInfo);
+                            logger.info("Model {} staged.", modelInfo.getVersionedName());
+                            return modelInfo;
                         }
-                        logger.info("Model {} loaded.", modelInfo.getModelName());
+                        logger.info("Model {} loaded.", modelInfo.getVersionedName());
+                        residency.add(modelInfo);
 
                         return modelInfo;
                     } catch (ModelException | IOException e) {
@@ -129,6 +175,87 @@ public final class ModelManager {
                 });
     }
 
+    /**
+     * Switches the given percentage of the traffic of a model to its staged version, once the
+     * workers of the staged version are ready.
+     *
+     * <p>With a weight of 100, the staged version replaces the current version atomically, and the
+     * replaced version is unloaded once its pending jobs are answered. A lower weight runs the
+     * staged version as a canary next to the current version.
+     *
+     * @param modelName the name of the model
+     * @param weight the percentage of the requests to route to the staged version
+     * @return a {@code CompletableFuture} of the staged version
+     * @throws ModelNotFoundException if the model has no staged version
+     */
+    public CompletableFuture<ModelInfo> rolloutVersion(String modelName, int weight)
+            throws ModelNotFoundException {
+        if (weight < 0 || weight > 100) {
+            throw new BadRequestException("Weight must be between 0 and 100: " + weight);
+        }
+        Rollout rollout = rollouts.get(modelName);
+        if (rollout == null) {
+            throw new ModelNotFoundException("No staged version found for model: " + modelName);
+        }
+        return CompletableFuture.supplyAsync(
+                () -> {
+                    awaitReady(rollout.model);
+                    ModelInfo replaced;
+                    synchronized (this) {
+                        if (rollouts.get(modelName) != rollout) {
+                            throw new BadRequestException(
+                                    "Rollout of model " + modelName + " was cancelled.");
+                        }
+                        if (weight < 100) {
+                            rollout.weight = weight;
+                            logger.info(
+                                    "Routing {}% of model {} to {}.",
+                                    weight,
+                                    modelName,
+                                    rollout.model.getVersionedName());
+                            return rollout.model;
+                        }
+                        replaced = models.put(modelName, rollout.model);
+                        rollouts.remove(modelName);
+                    }
+                    logger.info(
+                            "Model {} switched from {} to {}.",
+                            modelName,
+                            replaced.getVersionedName(),
+                            rollout.model.getVersionedName());
+                    residency.add(rollout.model);
+                    drain(replaced);
+                    return rollout.model;
+                });
+    }
+
+    /**
+     * Removes the staged version of a model, the current version keeps serving all requests.
+     *
+     * @param modelName the name of the model
+     * @return {@code true} if the model had a staged version
+     */
+    public synchronized boolean rollbackVersion(String modelName) {
+        Rollout rollout = rollouts.remove(modelName);
+        if (rollout == null) {
+            return false;
+        }
+        logger.info("Rolling back model {}.", rollout.model.getVersionedName());
+        drain(rollout.model);
+        return true;
+    }
+
+    /**
+     * Returns the staged version of a model.
+     *
+     * @param modelName the name of the model
+     * @return the staged version, or {@code null} if the model has no staged version
+     */
+    public ModelInfo getStagedVersion(String modelName) {
+        Rollout rollout = rollouts.get(modelName);
+        return rollout == null ? null : rollout.model;
+    }
+
     /**
      * Unregisters a model by its name.
      *
@@ -136,11 +263,21 @@ public final class ModelManager {
      * @return {@code true} if unregister success
      */
     public boolean unregisterModel(String modelName) {
-        ModelInfo model = models.remove(modelName);
+        ModelInfo model;
+        Rollout rollout;
+        synchronized (this) {
+            model = models.remove(modelName);
+            rollout = rollouts.remove(modelName);
+        }
         if (model == null) {
             logger.warn("Model not found: " + modelName);
             return false;
         }
+        residency.remove(modelName);
+        if (rollout != null) {
+            wlm.modelChanged(rollout.model.scaleWorkers(0, 0));
+            rollout.model.close();
+        }
         model = model.scaleWorkers(0, 0);
         wlm.modelChanged(model);
         startupModels.remove(modelName);
@@ -156,12 +293,23 @@ public final class ModelManager {
      * @param modelInfo the model that has been updated
      */
     public void triggerModelUpdated(ModelInfo modelInfo) {
-        if (!models.containsKey(modelInfo.getModelName())) {
-            throw new AssertionError("Model not found: " + modelInfo.getModelName());
+        String modelName = modelInfo.getModelName();
+        synchronized (this) {
+            Rollout rollout = rollouts.get(modelName);
+            if (rollout != null
+                    && rollout.model.getVersionedName().equals(modelInfo.getVersionedName())) {
+                rollout.model = modelInfo;
+            } else if (models.containsKey(modelName)) {
+                models.put(modelName, modelInfo);
+            } else {
+                throw new AssertionError("Model not found: " + modelName);
+            }
+        }
+        logger.debug("updateModel: {}", modelInfo.getVersionedName());
+        if (modelInfo.isLoaded()) {
+            // an unloaded model starts its workers when it is reloaded
+            wlm.modelChanged(modelInfo);
         }
-        logger.debug("updateModel: {}", modelInfo.getModelName());
-        models.put(modelInfo.getModelName(), modelInfo);
-        wlm.modelChanged(modelInfo);
     }
 
     /**
@@ -182,20 +330,43 @@ public final class ModelManager {
         return startupModels;
     }
 
+    /**
+     * Returns the metrics of all models in the Prometheus text exposition format.
+     *
+     * @return the metrics of all models in the Prometheus text format
+     */
+    public String exportMetrics() {
+        return new PrometheusExporter(models, wlm).export();
+    }
+
     /**
      * Adds an inference job to the job queue. Assign the job to the next free worker.
      *
+     * <p>If the model has a response cache, the job may be answered from the cache, or with the
+     * response of an identical job that is running.
+     *
      * @param job an inference job to be executed
      * @return {@code true} if submit success
      * @throws ModelNotFoundException if the model is not registered
      */
     public boolean addJob(Job job) throws ModelNotFoundException {
         String modelName = job.getModelName();
-        ModelInfo model = models.get(modelName);
-        if (model == null) {
+        ModelInfo registered = models.get(modelName);
+        if (registered == null) {
             throw new ModelNotFoundException("Model not found: " + modelName);
         }
-        return wlm.addJob(model, job);
+        Rollout rollout = rollouts.get(modelName);
+        ModelInfo model = rollout == null ? registered : rollout.route(registered);
+        ResponseCache cache = model.getResponseCache();
+        if (cache != null && cache.admit(job, j -> residency.addJob(model, j))) {
+            return true;
+        }
+        if (!residency.addJob(model, job)) {
+            // the identical jobs attached to this one won't get its response
+            job.releaseFlight(false);
+            return false;
+        }
+        return true;
     }
 
     /**
@@ -213,6 +384,7 @@ public final class ModelManager {
 
         DescribeModelResponse resp = new DescribeModelResponse();
         resp.setModelName(modelName);
+        resp.setVersion(model.getVersion());
         resp.setModelUrl(model.getModelUrl());
         resp.setBatchSize(model.getBatchSize());
         resp.setMaxBatchDelay(model.getMaxBatchDelay());
@@ -220,12 +392,46 @@ public final class ModelManager {
         resp.setMinWorkers(model.getMinWorkers());
         resp.setMaxIdleTime(model.getMaxIdleTime());
         resp.setLoadedAtStartup(startupModels.contains(modelName));
+        resp.setAdaptiveBatching(model.isAdaptiveBatching());
+        resp.setTargetLatency(model.getTargetLatency());
+        ResponseCache cache = model.getResponseCache();
+        if (cache != null) {
+            ModelMetrics metrics = model.getMetrics();
+            resp.setResponseCache(
+                    cache.getMaxSize(),
+                    cache.getTtl(),
+                    cache.size(),
+                    metrics.getCacheHits(),
+                    metrics.getCacheMisses(),
+                    metrics.getCoalescedJobs());
+        }
+        Rollout rollout = rollouts.get(modelName);
+        if (rollout != null) {
+            resp.setStagedVersion(rollout.model.getVersion(), rollout.weight);
+        }
+        String versionedName = model.getVersionedName();
+        JobQueue jobQueue = wlm.getJobQueue(versionedName);
+        if (jobQueue != null) {
+            resp.setShedJobs(jobQueue.getShedJobs());
+            resp.setLateJobs(jobQueue.getLateJobs());
+        }
+        AdaptiveBatchController controller = wlm.getBatchController(versionedName);
+        if (controller != null) {
+            resp.setAdaptiveBatch(
+                    controller.getBatchSize(),
+                    controller.getBatchDelay(),
+                    controller.getLatencyP99());
+        }
 
-        int activeWorker = wlm.getNumRunningWorkers(modelName);
+        int activeWorker = wlm.getNumRunningWorkers(versionedName);
         int targetWorker = model.getMinWorkers();
-        resp.setStatus(activeWorker >= targetWorker ? "Healthy" : "Unhealthy");
+        if (!model.isLoaded()) {
+            resp.setStatus("Unloaded");
+        } else {
+            resp.setStatus(activeWorker >= targetWorker ? "Healthy" : "Unhealthy");
+        }
 
-        List<WorkerThread> workers = wlm.getWorkers(modelName);
+        List<WorkerThread> workers = wlm.getWorkers(versionedName);
         for (WorkerThread worker : workers) {
             int workerId = worker.getWorkerId();
             long startTime = worker.getStartTime();
@@ -249,8 +455,11 @@ public final class ModelManager {
 
                     int numScaled = 0;
                     for (Map.Entry<String, ModelInfo> m : models.entrySet()) {
+                        if (!m.getValue().isLoaded()) {
+                            continue;
+                        }
                         numScaled += m.getValue().getMinWorkers();
-                        numWorking += wlm.getNumRunningWorkers(m.getValue().getModelName());
+                        numWorking += wlm.getNumRunningWorkers(m.getValue().getVersionedName());
                     }
 
                     if ((numWorking > 0) && (numWorking < numScaled)) {
@@ -262,4 +471,139 @@ public final class ModelManager {
                     return response;
                 });
     }
+
+    /**
+     * Loads a model from its url.
+     *
+     * @param modelUrl the model url
+     * @return the loaded model
+     * @throws ModelException if the model cannot be loaded
+     * @throws IOException if the model artifacts cannot be read
+     */
+    static ZooModel<Input, Output> loadModel(String modelUrl) throws ModelException, IOException {
+        Criteria<Input, Output> criteria =
+                Criteria.builder()
+                        .setTypes(Input.class, Output.class)
+                        .optModelUrls(modelUrl)
+                        .build();
+        return ModelZoo.loadModel(criteria);
+    }
+
+    /**
+     * Returns the workload manager that runs the workers of the models.
+     *
+     * @return the workload manager that runs the workers of the models
+     */
+    WorkLoadManager getWorkLoadManager() {
+        return wlm;
+    }
+
+    /**
+     * Puts a reloaded model back into the registry.
+     *
+     * @param modelName the name of the model
+     * @param model the reloaded model
+     * @return the registered model, or {@code null} if the model was unregistered or is loaded
+     */
+    synchronized ModelInfo attachModel(String modelName, ZooModel<Input, Output> model) {
+        ModelInfo current = models.get(modelName);
+        if (current == null || current.isLoaded()) {
+            return null;
+        }
+        ModelInfo loaded = current.attachModel(model);
+        models.put(modelName, loaded);
+        return loaded;
+    }
+
+    /**
+     * Marks a model as unloaded in the registry, the caller stops its workers and closes it.
+     *
+     * @param modelName the name of the model
+     * @return the loaded model, or {@code null} if the model cannot be unloaded
+     */
+    synchronized ModelInfo detachModel(String modelName) {
+        ModelInfo current = models.get(modelName);
+        if (current == null || !current.isLoaded() || rollouts.containsKey(modelName)) {
+            return null;
+        }
+        models.put(modelName, current.attachModel(null));
+        return current;
+    }
+
+    private synchronized void stageVersion(ModelInfo current, ModelInfo staged) {
+        String modelName = staged.getModelName();
+        String error = null;
+        if (staged.getVersion() == null || staged.getVersion().equals(current.getVersion())) {
+            error = "Model " + modelName + " is already registered.";
+        } else if (rollouts.putIfAbsent(modelName, new Rollout(staged)) != null) {
+            error = "Model " + modelName + " already has a staged version.";
+        }
+        if (error != null) {
+            staged.close();
+            throw new BadRequestException(error);
+        }
+    }
+
+    private void awaitReady(ModelInfo model) {
+        long deadline =
+                System.nanoTime() + TimeUnit.SECONDS.toNanos(configManager.getSwapTimeout());
+        String versionedName = model.getVersionedName();
+        while (wlm.getNumReadyWorkers(versionedName) < model.getMinWorkers()) {
+            if (System.nanoTime() > deadline) {
+                throw new ServiceUnavailableException(
+                        "Workers of model " + versionedName + " are not ready.");
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+        }
+    }
+
+    private void drain(ModelInfo model) {
+        CompletableFuture.runAsync(
+                () -> {
+                    // jobs routed to this version before the switch are still answered by it
+                    long timeout = TimeUnit.SECONDS.toNanos(configManager.getSwapTimeout());
+                    long deadline = System.nanoTime() + timeout;
+                    ModelMetrics metrics = model.getMetrics();
+                    try {
+                        while (metrics.getPendingJobs() > 0 && System.nanoTime() < deadline) {
+                            Thread.sleep(50);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    if (metrics.getPendingJobs() > 0) {
+                        logger.warn(
+                                "Model {} still has {} pending jobs, unloading anyway.",
+                                model.getVersionedName(),
+                                metrics.getPendingJobs());
+                    }
+                    wlm.modelChanged(model.scaleWorkers(0, 0));
+                    model.close();
+                    logger.info("Model {} unloaded.", model.getVersionedName());
+                });
+    }
+
+    /** A staged version of a model, and the share of the traffic routed to it. */
+    private static final class Rollout {
+
+        volatile ModelInfo model;
+        volatile int weight;
+
+        Rollout(ModelInfo model) {
+            this.model = model;
+        }
+
+        ModelInfo route(ModelInfo current) {
+            int w = weight;
+            if (w > 0 && ThreadLocalRandom.current().nextInt(100) < w) {
+                return model;
+            }
+            return current;
+        }
+    }
 }
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.serving.wlm;
+
+import ai.djl.metric.Histogram;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The runtime metrics of a model.
+ *
+ * <p>All counters and histograms are lock-free and do not allocate when a value is recorded, so
+ * they can be updated on the request path. The metrics are shared by all configurations of a
+ * {@link ModelInfo} and live as long as the model is registered.
+ */
+public final class ModelMetrics {
+
+    private LongAdder submittedJobs;
+    private LongAdder rejectedJobs;
+    private LongAdder failedJobs;
+    private LongAdder pendingJobs;
+    private LongAdder inferredJobs;
+    private LongAdder cacheHits;
+    private LongAdder cacheMisses;
+    private LongAdder coalescedJobs;
+    private Histogram queueTime;
+    private Histogram inferenceTime;
+    private Histogram requestTime;
+    private Histogram batchFill;
+
+    /** Constructs a new {@code ModelMetrics} instance. */
+    public ModelMetrics() {
+        submittedJobs = new LongAdder();
+        rejectedJobs = new LongAdder();
+        failedJobs = new LongAdder();
+        pendingJobs = new LongAdder();
+        inferredJobs = new LongAdder();
+        cacheHits = new LongAdder();
+        cacheMisses = new LongAdder();
+        coalescedJobs = new LongAdder();
+        queueTime = new Histogram();
+        inferenceTime = new Histogram();
+        requestTime = new Histogram();
+        batchFill = new Histogram();
+    }
+
+    /**
+     * Returns the number of jobs submitted to the model.
+     *
+     * @return the number of jobs submitted to the model
+     */
+    public long getSubmittedJobs() {
+        return submittedJobs.sum();
+    }
+
+    /**
+     * Returns the number of jobs rejected because the job queue was full.
+     *
+     * @return the number of rejected jobs
+     */
+    public long getRejectedJobs() {
+        return rejectedJobs.sum();
+    }
+
+    /**
+     * Returns the number of jobs that were answered with an error.
+     *
+     * @return the number of failed jobs
+     */
+    public long getFailedJobs() {
+        return failedJobs.sum();
+    }
+
+    /**
+     * Returns the number of accepted jobs that have not been answered yet.
+     *
+     * @return the number of jobs waiting in the queue or being processed
+     */
+    public long getPendingJobs() {
+        return pendingJobs.sum();
+    }
+
+    /**
+     * Returns the number of jobs that were run through the model.
+     *
+     * @return the number of jobs in the batches run by the workers
+     */
+    public long getInferredJobs() {
+        return inferredJobs.sum();
+    }
+
+    /**
+     * Returns the number of jobs answered from the response cache.
+     *
+     * @return the number of response cache hits
+     */
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    /**
+     * Returns the number of jobs that were not found in the response cache and were run.
+     *
+     * @return the number of response cache misses
+     */
+    public long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    /**
+     * Returns the number of jobs answered with the response of an identical job that was running.
+     *
+     * @return the number of coalesced jobs
+     */
+    public long getCoalescedJobs() {
+        return coalescedJobs.sum();
+    }
+
+    /**
+     * Returns the time in seconds jobs wait in the queue before they are scheduled.
+     *
+     * @return the queue time histogram
+     */
+    public Histogram getQueueTime() {
+        return queueTime;
+    }
+
+    /**
+     * Returns the time in seconds the model takes to run a batch.
+     *
+     * @return the inference time histogram
+     */
+    public Histogram getInferenceTime() {
+        return inferenceTime;
+    }
+
+    /**
+     * Returns the time in seconds from the arrival of a job until it is answered.
+     *
+     * @return the request time histogram
+     */
+    public Histogram getRequestTime() {
+        return requestTime;
+    }
+
+    /**
+     * Returns the ratio of the size of the batches to the maximum batch size.
+     *
+     * @return the batch fill ratio histogram
+     */
+    public Histogram getBatchFill() {
+        return batchFill;
+    }
+
+    void jobSubmitted() {
+        submittedJobs.increment();
+        pendingJobs.increment();
+    }
+
+    void jobRejected() {
+        rejectedJobs.increment();
+        pendingJobs.decrement();
+    }
+
+    void jobAnswered() {
+        pendingJobs.decrement();
+    }
+
+    void jobFailed() {
+        failedJobs.increment();
+    }
+
+    void cacheHit() {
+        cacheHits.increment();
+    }
+
+    void cacheMissed() {
+        cacheMisses.increment();
+    }
+
+    void jobCoalesced() {
+        coalescedJobs.increment();
+    }
+
+    void recordQueueTime(long millis) {
+        queueTime.record(millis / 1000d);
+    }
+
+    void recordInferenceTime(long nanos) {
+        inferenceTime.record(nanos / 1_000_000_000d);
+    }
+
+    void recordRequestTime(long millis) {
+        requestTime.record(millis / 1000d);
+    }
+
+    void recordBatch(int size, int maxBatchSize) {
+        inferredJobs.add(size);
+        batchFill.record((double) size / Math.max(1, maxBatchSize));
+    }
+}
@@ -14,7 +14,6 @@ package ai.djl.serving.wlm;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.LinkedBlockingDeque;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,17 +33,29 @@ public class PermanentBatchAggregator extends BatchAggregator {
      * @param model the model to use.
      * @param jobQueue the job queue for polling data from.
      */
-    public PermanentBatchAggregator(ModelInfo model, LinkedBlockingDeque<Job> jobQueue) {
+    public PermanentBatchAggregator(ModelInfo model, JobQueue jobQueue) {
         super(model, jobQueue);
     }
 
+    /**
+     * Constructs a {@code PermanentBatchAggregator} instance.
+     *
+     * @param model the model to use.
+     * @param jobQueue the job queue for polling data from.
+     * @param controller the adaptive batch controller, or {@code null} to use a fixed batch size
+     */
+    PermanentBatchAggregator(
+            ModelInfo model, JobQueue jobQueue, AdaptiveBatchController controller) {
+        super(model, jobQueue, controller);
+    }
+
     /** {@inheritDoc} */
     @Override
     protected List<Job> pollBatch() throws InterruptedException {
         List<Job> list = new ArrayList<>(batchSize);
         Job job = jobQueue.take();
         list.add(job);
-        jobQueue.drainTo(list, batchSize - 1);
+        fillBatch(list);
         logger.trace("sending jobs, size: {}", list.size());
         return list;
     }
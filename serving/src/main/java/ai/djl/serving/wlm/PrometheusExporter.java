@@ -0,0 +1,218 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.serving.wlm;
+
+import ai.djl.metric.Histogram;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Writes the metrics of the models in the Prometheus text exposition format.
+ *
+ * <p>Counters and histograms are read from the {@link ModelMetrics} of each model, queue depth
+ * and worker states are sampled when the metrics are scraped. Latencies are exported as summaries
+ * with the 0.5, 0.9 and 0.99 quantiles.
+ */
+final class PrometheusExporter {
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+    private List<ModelState> models;
+    private StringBuilder sb;
+
+    /**
+     * Constructs a new {@code PrometheusExporter} instance.
+     *
+     * @param models the registered models
+     * @param wlm the {@link WorkLoadManager} running the models
+     */
+    PrometheusExporter(Map<String, ModelInfo> models, WorkLoadManager wlm) {
+        this.models = new ArrayList<>();
+        for (Map.Entry<String, ModelInfo> entry : new TreeMap<>(models).entrySet()) {
+            String modelName = entry.getKey();
+            ModelState state = new ModelState();
+            state.name = modelName;
+            state.metrics = entry.getValue().getMetrics();
+            String versionedName = entry.getValue().getVersionedName();
+            state.jobQueue = wlm.getJobQueue(versionedName);
+            state.workers = new int[WorkerState.values().length];
+            List<WorkerThread> workers = wlm.getWorkers(versionedName);
+            synchronized (workers) {
+                for (WorkerThread worker : workers) {
+                    WorkerState workerState = worker.getState();
+                    if (workerState != null) {
+                        ++state.workers[workerState.ordinal()];
+                    }
+                }
+            }
+            this.models.add(state);
+        }
+        sb = new StringBuilder();
+    }
+
+    /**
+     * Returns the metrics in the Prometheus text format.
+     *
+     * @return the metrics in the Prometheus text format
+     */
+    String export() {
+        gauge(
+                "djl_queue_size",
+                "Number of jobs waiting in the job queue.",
+                m -> m.jobQueue == null ? 0 : m.jobQueue.size());
+        gauge(
+                "djl_queue_capacity",
+                "Maximum number of jobs the job queue can hold.",
+                m -> m.jobQueue == null ? 0 : m.jobQueue.getCapacity());
+        counter(
+                "djl_jobs_submitted_total",
+                "Number of jobs submitted to the model.",
+                m -> m.metrics.getSubmittedJobs());
+        counter(
+                "djl_jobs_rejected_total",
+                "Number of jobs rejected because the job queue was full.",
+                m -> m.metrics.getRejectedJobs());
+        counter(
+                "djl_jobs_failed_total",
+                "Number of jobs answered with an error.",
+                m -> m.metrics.getFailedJobs());
+        counter(
+                "djl_jobs_shed_total",
+                "Number of jobs dropped because their deadline had passed.",
+                m -> m.jobQueue == null ? 0 : m.jobQueue.getShedJobs());
+        counter(
+                "djl_jobs_late_total",
+                "Number of jobs answered after their deadline.",
+                m -> m.jobQueue == null ? 0 : m.jobQueue.getLateJobs());
+        counter(
+                "djl_cache_hits_total",
+                "Number of jobs answered from the response cache.",
+                m -> m.metrics.getCacheHits());
+        counter(
+                "djl_cache_misses_total",
+                "Number of jobs not found in the response cache.",
+                m -> m.metrics.getCacheMisses());
+        counter(
+                "djl_jobs_coalesced_total",
+                "Number of jobs answered with the response of an identical running job.",
+                m -> m.metrics.getCoalescedJobs());
+        workers();
+        summary(
+                "djl_queue_time_seconds",
+                "Time jobs wait in the job queue.",
+                ModelMetrics::getQueueTime);
+        summary(
+                "djl_inference_time_seconds",
+                "Time the model takes to run a batch.",
+                ModelMetrics::getInferenceTime);
+        summary(
+                "djl_request_time_seconds",
+                "Time from the arrival of a job until it is answered.",
+                ModelMetrics::getRequestTime);
+        summary(
+                "djl_batch_fill_ratio",
+                "Size of the batches relative to the maximum batch size.",
+                ModelMetrics::getBatchFill);
+        return sb.toString();
+    }
+
+    private void gauge(String name, String help, ToDoubleFunction<ModelState> value) {
+        header(name, help, "gauge");
+        for (ModelState m : models) {
+            sample(name, m, null, null, value.applyAsDouble(m));
+        }
+    }
+
+    private void counter(String name, String help, ToDoubleFunction<ModelState> value) {
+        header(name, help, "counter");
+        for (ModelState m : models) {
+            sample(name, m, null, null, value.applyAsDouble(m));
+        }
+    }
+
+    private void workers() {
+        String name = "djl_workers";
+        header(name, "Number of workers by state.", "gauge");
+        for (ModelState m : models) {
+            for (WorkerState state : WorkerState.values()) {
+                String label = state.name().substring("WORKER_".length()).toLowerCase(Locale.ROOT);
+                sample(name, m, "state", label, m.workers[state.ordinal()]);
+            }
+        }
+    }
+
+    private void summary(String name, String help, Function<ModelMetrics, Histogram> getter) {
+        header(name, help, "summary");
+        for (ModelState m : models) {
+            Histogram histogram = getter.apply(m.metrics);
+            for (double quantile : QUANTILES) {
+                double value = histogram.getValueAtPercentile(quantile * 100);
+                sample(name, m, "quantile", String.valueOf(quantile), value);
+            }
+            sample(name + "_sum", m, null, null, histogram.getSum());
+            sample(name + "_count", m, null, null, histogram.getCount());
+        }
+    }
+
+    private void header(String name, String help, String type) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private void sample(String name, ModelState m, String label, String labelValue, double value) {
+        sb.append(name).append("{model=\"");
+        escape(m.name);
+        sb.append('"');
+        if (label != null) {
+            sb.append(',').append(label).append("=\"");
+            escape(labelValue);
+            sb.append('"');
+        }
+        sb.append("} ");
+        if (Double.isInfinite(value)) {
+            sb.append(value > 0 ? "+Inf" : "-Inf");
+        } else if (value == Math.rint(value)) {
+            sb.append((long) value);
+        } else {
+            sb.append(value);
+        }
+        sb.append('\n');
+    }
+
+    private void escape(String value) {
+        for (int i = 0; i < value.length(); ++i) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '"') {
+                sb.append('\\').append(c);
+            } else if (c == '\n') {
+                sb.append("\\n");
+            } else {
+                sb.append(c);
+            }
+        }
+    }
+
+    /** A snapshot of the state of a model. */
+    private static final class ModelState {
+
+        String name;
+        ModelMetrics metrics;
+        JobQueue jobQueue;
+        int[] workers;
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.serving.wlm;
+
+import ai.djl.ModelException;
+import ai.djl.modality.Input;
+import ai.djl.modality.Output;
+import ai.djl.repository.zoo.ZooModel;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the loaded models within a host memory budget.
+ *
+ * <p>The footprint of a model is estimated from the size of its files, which the engines load into
+ * native memory. When loading a model exceeds the budget, the least recently used models without
+ * pending jobs are unloaded: their workers are stopped and the {@link ZooModel} is closed, but they
+ * stay registered with their configuration and the artifacts stay in the cache directory.
+ *
+ * <p>The next request for an unloaded model reloads it in the background. Requests are queued
+ * while the model is loading, and submitted to the workers once it is ready. Models with a staged
+ * version are never unloaded.
+ */
+final class ResidencyManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResidencyManager.class);
+
+    private ModelManager modelManager;
+    private WorkLoadManager wlm;
+    private long budget;
+    private Map<String, Residency> residencies;
+
+    /**
+     * Constructs a new {@code ResidencyManager} instance.
+     *
+     * @param modelManager the model registry
+     * @param wlm the workload manager that runs the workers of the models
+     * @param budget the memory budget for all loaded models in bytes, 0 for no limit
+     */
+    ResidencyManager(ModelManager modelManager, WorkLoadManager wlm, long budget) {
+        this.modelManager = modelManager;
+        this.wlm = wlm;
+        this.budget = budget;
+        residencies = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Tracks a newly loaded model, and unloads other models if the budget is exceeded.
+     *
+     * @param model the loaded model
+     */
+    void add(ModelInfo model) {
+        if (budget <= 0) {
+            return;
+        }
+        String modelName = model.getModelName();
+        Residency residency = new Residency(estimateFootprint(model));
+        Residency previous = residencies.put(modelName, residency);
+        if (previous != null) {
+            residency.lastUsed = previous.lastUsed;
+        }
+        logger.debug("Model {} uses about {} bytes.", modelName, residency.footprint);
+        makeRoom(modelName, 0);
+    }
+
+    /**
+     * Stops tracking a model that was unregistered.
+     *
+     * @param modelName the name of the model
+     */
+    void remove(String modelName) {
+        Residency residency = residencies.remove(modelName);
+        if (residency == null) {
+            return;
+        }
+        List<Job> jobs;
+        synchronized (residency) {
+            jobs = residency.waiting;
+            residency.waiting = null;
+        }
+        failJobs(jobs, "Model unregistered: " + modelName);
+    }
+
+    /**
+     * Adds an inference job to a model, reloading the model first if it was unloaded.
+     *
+     * @param model the model to run the job
+     * @param job the inference job
+     * @return {@code true} if the job was accepted
+     */
+    boolean addJob(ModelInfo model, Job job) {
+        Residency residency = residencies.get(model.getModelName());
+        if (residency == null) {
+            return wlm.addJob(model, job);
+        }
+        residency.lastUsed = System.nanoTime();
+        synchronized (residency) {
+            if (residency.loaded) {
+                return wlm.addJob(model, job);
+            }
+            if (residency.waiting == null) {
+                residency.waiting = new ArrayList<>();
+                reload(model.getModelName(), residency);
+            } else if (residency.waiting.size() >= model.getQueueSize()) {
+                return false;
+            }
+            residency.waiting.add(job);
+            return true;
+        }
+    }
+
+    /**
+     * Returns the estimated memory used by the loaded models.
+     *
+     * @return the estimated memory used by the loaded models in bytes
+     */
+    long getUsedMemory() {
+        long used = 0;
+        for (Residency residency : residencies.values()) {
+            if (residency.loaded) {
+                used += residency.footprint;
+            }
+        }
+        return used;
+    }
+
+    private void reload(String modelName, Residency residency) {
+        logger.info("Reloading model {}.", modelName);
+        CompletableFuture.runAsync(
+                () -> {
+                    ModelInfo model = modelManager.getModels().get(modelName);
+                    ModelInfo loaded = null;
+                    if (model != null) {
+                        makeRoom(modelName, residency.footprint);
+                        try {
+                            ZooModel<Input, Output> zooModel =
+                                    ModelManager.loadModel(model.getModelUrl());
+                            loaded = modelManager.attachModel(modelName, zooModel);
+                            if (loaded == null) {
+                                zooModel.close();
+                            }
+                        } catch (ModelException | IOException | RuntimeException e) {
+                            logger.warn("Failed to reload model {}", modelName, e);
+                        }
+                    }
+
+                    List<Job> jobs;
+                    synchronized (residency) {
+                        jobs = residency.waiting;
+                        residency.waiting = null;
+                        if (loaded != null) {
+                            wlm.modelChanged(loaded);
+                            residency.loaded = true;
+                            residency.lastUsed = System.nanoTime();
+                        }
+                    }
+                    if (loaded == null) {
+                        failJobs(jobs, "Failed to load model: " + modelName);
+                        return;
+                    }
+                    logger.info("Model {} reloaded.", modelName);
+                    if (jobs != null) {
+                        for (Job job : jobs) {
+                            if (!wlm.addJob(loaded, job)) {
+                                job.sendError(
+                                        HttpResponseStatus.SERVICE_UNAVAILABLE,
+                                        "No worker is available to serve request: " + modelName);
+                            }
+                        }
+                    }
+                });
+    }
+
+    private synchronized void makeRoom(String modelName, long required) {
+        long used = getUsedMemory();
+        while (used + required > budget) {
+            String victim = null;
+            Residency lru = null;
+            for (Map.Entry<String, Residency> entry : residencies.entrySet()) {
+                Residency residency = entry.getValue();
+                if (!entry.getKey().equals(modelName)
+                        && residency.loaded
+                        && (lru == null || residency.lastUsed < lru.lastUsed)
+                        && isIdle(entry.getKey())) {
+                    victim = entry.getKey();
+                    lru = residency;
+                }
+            }
+            if (victim == null) {
+                logger.warn(
+                        "Loaded models use {} bytes, above the budget of {} bytes, but no model is"
+                                + " idle.",
+                        used + required,
+                        budget);
+                return;
+            }
+            if (unload(victim, lru)) {
+                used -= lru.footprint;
+            }
+        }
+    }
+
+    private boolean isIdle(String modelName) {
+        ModelInfo model = modelManager.getModels().get(modelName);
+        return model != null
+                && model.getMetrics().getPendingJobs() == 0
+                && modelManager.getStagedVersion(modelName) == null;
+    }
+
+    private boolean unload(String modelName, Residency residency) {
+        synchronized (residency) {
+            if (!residency.loaded || !isIdle(modelName)) {
+                return false;
+            }
+            ModelInfo model = modelManager.detachModel(modelName);
+            if (model == null) {
+                return false;
+            }
+            residency.loaded = false;
+            wlm.modelChanged(model.scaleWorkers(0, 0));
+            model.close();
+        }
+        logger.info("Model {} unloaded to stay within the memory budget.", modelName);
+        return true;
+    }
+
+    private static void failJobs(List<Job> jobs, String error) {
+        if (jobs != null) {
+            for (Job job : jobs) {
+                job.sendError(HttpResponseStatus.SERVICE_UNAVAILABLE, error);
+            }
+        }
+    }
+
+    private static long estimateFootprint(ModelInfo model) {
+        Path dir = model.getModelDir();
+        if (dir == null || !Files.exists(dir)) {
+            return 0;
+        }
+        try (Stream<Path> stream = Files.walk(dir)) {
+            return stream.filter(Files::isRegularFile)
+                    .mapToLong(
+                            file -> {
+                                try {
+                                    return Files.size(file);
+                                } catch (IOException e) {
+                                    throw new UncheckedIOException(e);
+                                }
+                            })
+                    .sum();
+        } catch (IOException | UncheckedIOException e) {
+            logger.warn("Failed to estimate the footprint of model {}", model.getModelName(), e);
+            return 0;
+        }
+    }
+
+    /** The residency state of a model. */
+    private static final class Residency {
+
+        long footprint;
+        volatile long lastUsed;
+        volatile boolean loaded;
+        List<Job> waiting;
+
+        Residency(long footprint) {
+            this.footprint = footprint;
+            lastUsed = System.nanoTime();
+            loaded = true;
+        }
+    }
+}
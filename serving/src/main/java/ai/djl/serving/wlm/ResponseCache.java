@@ -0,0 +1,323 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.serving.wlm;
+
+import ai.djl.modality.Input;
+import ai.djl.modality.Output;
+import ai.djl.serving.http.RequestParser;
+import ai.djl.serving.util.TensorFrames;
+import ai.djl.util.PairList;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * A cache of the responses of a model, keyed by the content and properties of the requests.
+ *
+ * <p>A request that is identical to a cached one is answered from the cache without running the
+ * model. A request that is identical to one that is still running is attached to it, and answered
+ * with its response, so N concurrent duplicates take one inference slot. If the running request
+ * fails, is shed, or has a response that cannot be shared, the first attached request is submitted
+ * in its place, and the others stay attached to it.
+ *
+ * <p>The key is the SHA-256 hash of the request data and of the request properties, except the
+ * transport headers that don't change the response. A cryptographic hash keeps a crafted request
+ * from colliding with the cached response of another client. Responses expire after the time to
+ * live, and the least recently used response is evicted when the cache is full. Only successful
+ * responses are cached, and requests of the binary tensor protocol are not cached.
+ */
+final class ResponseCache {
+
+    private static final Set<String> IGNORED_PROPERTIES =
+            new HashSet<>(
+                    Arrays.asList(
+                            "host",
+                            "connection",
+                            "keep-alive",
+                            "content-length",
+                            "user-agent",
+                            "accept-encoding",
+                            RequestParser.PRIORITY_HEADER,
+                            RequestParser.DEADLINE_HEADER));
+
+    private int maxSize;
+    private int ttl;
+    private long ttlNanos;
+    private ModelMetrics metrics;
+    private LinkedHashMap<ByteBuffer, Entry> entries;
+    private Map<ByteBuffer, Flight> flights;
+
+    /**
+     * Constructs a new {@code ResponseCache} instance.
+     *
+     * @param maxSize the maximum number of cached responses
+     * @param ttl the time to live of a response in seconds, 0 for no expiry
+     * @param metrics the metrics of the model to count hits and misses in
+     */
+    ResponseCache(int maxSize, int ttl, ModelMetrics metrics) {
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+        ttlNanos = TimeUnit.SECONDS.toNanos(ttl);
+        this.metrics = metrics;
+        entries = new LinkedHashMap<>(16, 0.75f, true);
+        flights = new HashMap<>();
+    }
+
+    /**
+     * Answers a job from the cache, or attaches it to an identical job that is running.
+     *
+     * <p>If neither is possible, the job becomes the one that answers the identical jobs arriving
+     * while it runs, and must be submitted to the workers.
+     *
+     * @param job the job to answer
+     * @param submitter submits an attached job to the workers if the job it waits for fails,
+     *     returns {@code false} if the job was rejected
+     * @return {@code true} if the job was answered or will be answered with the response of
+     *     another job, {@code false} if the job must be submitted to the workers
+     */
+    boolean admit(Job job, Predicate<Job> submitter) {
+        ByteBuffer key = key(job.getInput());
+        if (key == null) {
+            return false;
+        }
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry != null && entry.isExpired()) {
+                entries.remove(key);
+                entry = null;
+            }
+            if (entry == null) {
+                Flight flight = flights.get(key);
+                if (flight != null) {
+                    flight.followers.add(job);
+                    metrics.jobCoalesced();
+                    return true;
+                }
+                flight = new Flight(this, key, submitter);
+                flights.put(key, flight);
+                job.setFlight(flight);
+                metrics.cacheMissed();
+                return false;
+            }
+        }
+        metrics.cacheHit();
+        job.sendOutput(entry.toOutput(job.getRequestId()));
+        return true;
+    }
+
+    /**
+     * Returns the number of cached responses.
+     *
+     * @return the number of cached responses
+     */
+    synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the maximum number of cached responses.
+     *
+     * @return the maximum number of cached responses
+     */
+    int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the time to live of a response in seconds.
+     *
+     * @return the time to live of a response in seconds, 0 for no expiry
+     */
+    int getTtl() {
+        return ttl;
+    }
+
+    private void complete(Flight flight, boolean success) {
+        Entry entry = success ? flight.entry : null;
+        List<Job> followers;
+        Job next = null;
+        synchronized (this) {
+            flights.remove(flight.key, flight);
+            followers = flight.followers;
+            if (entry != null) {
+                entries.put(flight.key, entry);
+                evict();
+            } else if (!followers.isEmpty()) {
+                // the response cannot be shared, the next identical job runs in place of this one
+                next = followers.remove(0);
+                Flight promoted = new Flight(this, flight.key, flight.submitter);
+                promoted.followers = followers;
+                flights.put(flight.key, promoted);
+                next.setFlight(promoted);
+            }
+        }
+        if (entry != null) {
+            for (Job job : followers) {
+                job.sendOutput(entry.toOutput(job.getRequestId()));
+            }
+        } else if (next != null && !flight.submitter.test(next)) {
+            // the identical jobs would be rejected as well
+            synchronized (this) {
+                flights.remove(flight.key, next.getFlight());
+            }
+            next.setFlight(null);
+            String error = "No worker is available to serve request: " + next.getModelName();
+            next.sendError(HttpResponseStatus.SERVICE_UNAVAILABLE, error);
+            for (Job job : followers) {
+                job.sendError(HttpResponseStatus.SERVICE_UNAVAILABLE, error);
+            }
+        }
+    }
+
+    private void evict() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (entries.size() > maxSize || entry.isExpired()) {
+                it.remove();
+            } else {
+                break;
+            }
+        }
+    }
+
+    private static ByteBuffer key(Input input) {
+        PairList<String, ByteBuffer> data = input.getAllAsByteBuffers();
+        if (data.contains(TensorFrames.DATA_KEY)) {
+            return null;
+        }
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError("SHA-256 not supported", e);
+        }
+        Map<String, String> properties = new TreeMap<>();
+        for (Map.Entry<String, String> entry : input.getProperties().entrySet()) {
+            String name = entry.getKey().toLowerCase(Locale.ROOT);
+            if (!IGNORED_PROPERTIES.contains(name)) {
+                properties.put(name, entry.getValue());
+            }
+        }
+        for (Map.Entry<String, String> entry : properties.entrySet()) {
+            update(md, entry.getKey());
+            update(md, entry.getValue());
+        }
+        for (int i = 0; i < data.size(); ++i) {
+            String name = data.keyAt(i);
+            update(md, name == null ? "" : name);
+            ByteBuffer bb = data.valueAt(i);
+            update(md, bb.remaining());
+            md.update(bb);
+        }
+        return ByteBuffer.wrap(md.digest());
+    }
+
+    private static void update(MessageDigest md, String value) {
+        byte[] buf = value.getBytes(StandardCharsets.UTF_8);
+        update(md, buf.length);
+        md.update(buf);
+    }
+
+    private static void update(MessageDigest md, int length) {
+        md.update((byte) (length >>> 24));
+        md.update((byte) (length >>> 16));
+        md.update((byte) (length >>> 8));
+        md.update((byte) length);
+    }
+
+    /** A job that is running, and the identical jobs waiting for its response. */
+    static final class Flight {
+
+        private ResponseCache cache;
+        private ByteBuffer key;
+        private Predicate<Job> submitter;
+        private List<Job> followers;
+        private Entry entry;
+
+        Flight(ResponseCache cache, ByteBuffer key, Predicate<Job> submitter) {
+            this.cache = cache;
+            this.key = key;
+            this.submitter = submitter;
+            followers = new ArrayList<>();
+        }
+
+        /**
+         * Keeps a copy of the response of the running job.
+         *
+         * @param output the response of the running job
+         */
+        void setOutput(Output output) {
+            int code = output.getCode();
+            if ((code == 0 || (code >= 200 && code < 300)) && output.getNDList() == null) {
+                entry = new Entry(output, cache.ttlNanos);
+            }
+        }
+
+        /**
+         * Answers the waiting jobs, and caches the response if the running job succeeded.
+         *
+         * <p>Otherwise, the first waiting job is submitted in place of the running job.
+         *
+         * @param success {@code true} if the running job was answered successfully
+         */
+        void finish(boolean success) {
+            cache.complete(this, success);
+        }
+    }
+
+    /** A cached response. */
+    private static final class Entry {
+
+        private int code;
+        private String message;
+        private Map<String, String> properties;
+        private byte[] content;
+        private long expiry;
+
+        Entry(Output output, long ttlNanos) {
+            code = output.getCode();
+            message = output.getMessage();
+            properties = new HashMap<>(output.getProperties());
+            content = output.getContent();
+            expiry = ttlNanos > 0 ? System.nanoTime() + ttlNanos : 0;
+        }
+
+        boolean isExpired() {
+            return expiry != 0 && System.nanoTime() - expiry > 0;
+        }
+
+        Output toOutput(String requestId) {
+            Output output = new Output(requestId, code, message);
+            output.setProperties(new HashMap<>(properties));
+            output.setContent(content);
+            return output;
+        }
+    }
+}
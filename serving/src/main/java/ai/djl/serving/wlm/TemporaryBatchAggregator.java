@@ -14,7 +14,6 @@ package ai.djl.serving.wlm;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,8 +36,20 @@ public class TemporaryBatchAggregator extends BatchAggregator {
      * @param model the model to run for.
      * @param jobQueue reference to external job queue for polling.
      */
-    public TemporaryBatchAggregator(ModelInfo model, LinkedBlockingDeque<Job> jobQueue) {
-        super(model, jobQueue);
+    public TemporaryBatchAggregator(ModelInfo model, JobQueue jobQueue) {
+        this(model, jobQueue, null);
+    }
+
+    /**
+     * a batch aggregator that terminates after a maximum idle time.
+     *
+     * @param model the model to run for.
+     * @param jobQueue reference to external job queue for polling.
+     * @param controller the adaptive batch controller, or {@code null} to use a fixed batch size
+     */
+    TemporaryBatchAggregator(
+            ModelInfo model, JobQueue jobQueue, AdaptiveBatchController controller) {
+        super(model, jobQueue, controller);
         this.idleSince = System.currentTimeMillis();
         this.maxIdleTime = model.getMaxIdleTime();
     }
@@ -50,7 +61,7 @@ public class TemporaryBatchAggregator extends BatchAggregator {
         Job job = jobQueue.poll(maxIdleTime, TimeUnit.SECONDS);
         if (job != null) {
             list.add(job);
-            jobQueue.drainTo(list, batchSize - 1);
+            fillBatch(list);
             logger.trace("sending jobs, size: {}", list.size());
             idleSince = System.currentTimeMillis();
         }
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.serving.wlm;
+
+import ai.djl.inference.Predictor;
+import ai.djl.modality.Input;
+import ai.djl.modality.Output;
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDManager;
+import ai.djl.ndarray.types.Shape;
+import ai.djl.repository.zoo.ZooModel;
+import ai.djl.translate.TranslateException;
+import ai.djl.util.Pair;
+import ai.djl.util.PairList;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Replays sample inputs through the predictor of a new worker before it takes jobs from the queue,
+ * so the engine has optimized its graph and allocated its memory before the first request.
+ *
+ * <p>The samples are the files in the {@value #SAMPLE_DIR} directory of the model, each file is
+ * sent as the {@code data} of one request. Without such a directory, one sample of zeros is
+ * generated from {@link ai.djl.Model#describeInput()}, with dynamic dimensions set to 1. Each
+ * sample is replayed at every batch size the worker may run.
+ *
+ * <p>The samples are loaded once and shared by all workers of the model. The warm-up of each worker
+ * is independent: a worker whose warm-up fails starts serving right away, and the later workers of
+ * the model still warm up.
+ */
+final class WarmUp {
+
+    private static final Logger logger = LoggerFactory.getLogger(WarmUp.class);
+
+    static final String SAMPLE_DIR = "warmup";
+
+    private List<PairList<String, byte[]>> samples;
+
+    /**
+     * Runs the sample inputs through the predictor.
+     *
+     * @param predictor the predictor of the worker
+     * @param model the model of the worker
+     * @param iterations the number of times each batch is replayed
+     * @throws TranslateException if a sample failed to predict
+     * @throws InterruptedException if the worker was interrupted during the warm-up
+     */
+    void run(Predictor<Input, Output> predictor, ModelInfo model, int iterations)
+            throws TranslateException, InterruptedException {
+        if (iterations <= 0) {
+            return;
+        }
+        List<PairList<String, byte[]>> list = getSamples(model);
+        if (list.isEmpty()) {
+            return;
+        }
+        long begin = System.nanoTime();
+        for (int batchSize : getBatchSizes(model.getBatchSize())) {
+            List<Input> batch = new ArrayList<>(batchSize);
+            for (int i = 0; i < batchSize; ++i) {
+                Input input = new Input("warmup");
+                input.setContent(list.get(i % list.size()));
+                batch.add(input);
+            }
+            for (int i = 0; i < iterations; ++i) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                for (Output output : predictor.batchPredict(batch)) {
+                    output.close();
+                }
+            }
+        }
+        logger.info(
+                "Model {} warmed up in {} ms.",
+                model.getVersionedName(),
+                (System.nanoTime() - begin) / 1_000_000);
+    }
+
+    /**
+     * Returns the batch sizes to warm up for a maximum batch size: the powers of two below the
+     * maximum and the maximum itself.
+     *
+     * @param maxBatchSize the maximum batch size of the model
+     * @return the batch sizes to warm up
+     */
+    static int[] getBatchSizes(int maxBatchSize) {
+        List<Integer> sizes = new ArrayList<>();
+        for (int size = 1; size < maxBatchSize; size *= 2) {
+            sizes.add(size);
+        }
+        sizes.add(Math.max(1, maxBatchSize));
+        return sizes.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private synchronized List<PairList<String, byte[]>> getSamples(ModelInfo model) {
+        if (samples == null) {
+            samples = loadSamples(model.getModelDir());
+            if (samples.isEmpty()) {
+                samples = generateSamples(model.getModel());
+            }
+        }
+        return samples;
+    }
+
+    private static List<PairList<String, byte[]>> loadSamples(Path modelDir) {
+        Path dir = modelDir == null ? null : modelDir.resolve(SAMPLE_DIR);
+        if (dir == null || !Files.isDirectory(dir)) {
+            return Collections.emptyList();
+        }
+        List<PairList<String, byte[]>> list = new ArrayList<>();
+        try (Stream<Path> stream = Files.list(dir)) {
+            List<Path> files =
+                    stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            for (Path file : files) {
+                PairList<String, byte[]> content = new PairList<>();
+                content.add("data", Files.readAllBytes(file));
+                list.add(content);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to read warm-up samples from {}", dir, e);
+        }
+        return list;
+    }
+
+    private static List<PairList<String, byte[]>> generateSamples(ZooModel<Input, Output> model) {
+        PairList<String, byte[]> content = new PairList<>();
+        try (NDManager manager = model.getNDManager().newSubManager()) {
+            PairList<String, Shape> inputs = model.describeInput();
+            if (inputs == null || inputs.isEmpty()) {
+                return Collections.emptyList();
+            }
+            for (Pair<String, Shape> pair : inputs) {
+                long[] shape = pair.getValue().getShape().clone();
+                for (int i = 0; i < shape.length; ++i) {
+                    if (shape[i] < 0) {
+                        shape[i] = 1;
+                    }
+                }
+                NDArray array = manager.zeros(new Shape(shape));
+                content.add("ndarray", array.encode());
+            }
+        } catch (RuntimeException e) {
+            logger.debug("Cannot generate warm-up samples for model {}", model.getName(), e);
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(content);
+    }
+}
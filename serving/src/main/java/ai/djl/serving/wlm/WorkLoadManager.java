@@ -14,12 +14,12 @@ package ai.djl.serving.wlm;
 
 import ai.djl.serving.util.ConfigManager;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
@@ -36,6 +36,8 @@ class WorkLoadManager {
     private static final Logger logger = LoggerFactory.getLogger(WorkLoadManager.class);
     private GpuAssignmentStrategy gpuAssignmentStrategy;
     private ExecutorService threadPool;
+    private int warmUpIterations;
+    private AutoScaler autoScaler;
 
     private ConcurrentHashMap<String, WorkerPool> workerPools;
 
@@ -47,13 +49,17 @@ class WorkLoadManager {
     public WorkLoadManager(ConfigManager configManager) {
         this.gpuAssignmentStrategy = new RoundRobinGpuAssignmentStrategy(configManager);
         threadPool = Executors.newCachedThreadPool();
+        warmUpIterations = configManager.getWarmUpIterations();
         workerPools = new ConcurrentHashMap<>();
+        if (configManager.isAutoScaling()) {
+            autoScaler = new AutoScaler(this, configManager.getAutoScaleInterval());
+        }
     }
 
     /**
      * get the workers for the specific model.
      *
-     * @param modelName The name of the model we are looking for.
+     * @param modelName The versioned name of the model we are looking for.
      * @return the list of workers responsible to handle predictions for this model.
      */
     public List<WorkerThread> getWorkers(String modelName) {
@@ -80,15 +86,26 @@ class WorkLoadManager {
      */
     public boolean addJob(ModelInfo modelInfo, Job job) {
         boolean accepted = false;
+        ModelMetrics metrics = modelInfo.getMetrics();
+        metrics.jobSubmitted();
+        job.setMetrics(metrics);
         WorkerPool pool = getWorkerPoolForModel(modelInfo);
-        if (getNumRunningWorkers(modelInfo.getModelName()) > 0) {
+        if (autoScaler != null
+                && modelInfo.getMaxWorkers() > 0
+                && getNumRunningWorkers(modelInfo.getVersionedName()) == 0) {
+            // the model was scaled to zero, start a worker right away instead of on the next sample
+            autoScaler.coldStart(modelInfo);
+        }
+        if (getNumRunningWorkers(modelInfo.getVersionedName()) > 0) {
 
             try {
                 accepted = pool.getJobQueue().offer(job);
 
                 if (!accepted) {
-                    synchronized (modelInfo.getModelName()) {
-                        scaleUpWorkers(modelInfo, pool);
+                    synchronized (modelInfo.getVersionedName()) {
+                        if (autoScaler == null) {
+                            scaleUpWorkers(modelInfo, pool);
+                        }
                         accepted =
                                 pool.getJobQueue()
                                         .offer(
@@ -103,11 +120,14 @@ class WorkLoadManager {
                         "Worker Queue Capacity Exceeded. cannot add to worker queue in appropriate time. You can configure max batch delay time for this model.");
             }
         }
+        if (!accepted) {
+            metrics.jobRejected();
+        }
         return accepted;
     }
 
     private void scaleUpWorkers(ModelInfo modelInfo, WorkerPool pool) {
-        int currentWorkers = getNumRunningWorkers(modelInfo.getModelName());
+        int currentWorkers = getNumRunningWorkers(modelInfo.getVersionedName());
         if (currentWorkers < modelInfo.getMaxWorkers()) {
             logger.debug("scaling up workers for model {} to {} ", modelInfo, currentWorkers + 1);
             addThreads(pool.getWorkers(), modelInfo, 1, false);
@@ -122,7 +142,7 @@ class WorkLoadManager {
      * returns the number of running workers of a model. running workers are workers which are not
      * stopped, in error or scheduled to scale down.
      *
-     * @param modelName the model we are interested in.
+     * @param modelName the versioned name of the model we are interested in.
      * @return number of running workers.
      */
     public int getNumRunningWorkers(String modelName) {
@@ -142,66 +162,162 @@ class WorkLoadManager {
         return numWorking;
     }
 
+    /**
+     * Returns the number of workers of a model that are ready to take jobs from the queue.
+     *
+     * @param modelName the versioned name of the model we are interested in.
+     * @return number of ready workers.
+     */
+    public int getNumReadyWorkers(String modelName) {
+        int numReady = 0;
+        WorkerPool pool = workerPools.get(modelName);
+        if (pool != null) {
+            List<WorkerThread> threads = pool.getWorkers();
+            synchronized (threads) {
+                for (WorkerThread thread : threads) {
+                    if (thread.isReady()) {
+                        ++numReady;
+                    }
+                }
+            }
+        }
+        return numReady;
+    }
+
     /**
      * trigger a model change event. scales up and down workers to match minWorkers/maxWorkers.
      *
      * @param modelInfo the changed model.
      */
     public void modelChanged(ModelInfo modelInfo) {
-        synchronized (modelInfo.getModelName()) {
+        synchronized (modelInfo.getVersionedName()) {
             int minWorker = modelInfo.getMinWorkers();
 
             WorkerPool pool = getWorkerPoolForModel(modelInfo);
             if (pool != null) {
                 pool.cleanup();
+                pool.configureBatch(modelInfo);
+                pool.model = modelInfo;
 
-                List<WorkerThread> threads;
-                if (minWorker == 0) {
-                    workerPools.remove(modelInfo.getModelName());
+                if (modelInfo.getMaxWorkers() == 0 || (autoScaler == null && minWorker == 0)) {
+                    workerPools.remove(modelInfo.getVersionedName());
                 }
 
-                threads = pool.getWorkers();
-                List<WorkerThread> fixedPoolThread =
-                        threads.stream()
-                                .filter(WorkerThread::isFixPoolThread)
-                                .collect(Collectors.toList());
-
-                int numberOfCurrentFixedWorkers = fixedPoolThread.size();
-
-                if (numberOfCurrentFixedWorkers < minWorker) {
-                    // scale up the fixed pool
-                    addThreads(threads, modelInfo, minWorker - numberOfCurrentFixedWorkers, true);
-                } else {
-                    // scale down the fixed pool
-                    fixedPoolThread
-                            .subList(minWorker, numberOfCurrentFixedWorkers)
-                            .forEach(
-                                    t -> {
-                                        threads.remove(t);
-                                        t.shutdown(WorkerState.WORKER_SCALED_DOWN);
-                                    });
+                int workers = minWorker;
+                if (autoScaler != null && pool.target >= 0) {
+                    // keep the number of workers the autoscaler decided on, within the new limits
+                    workers = Math.max(minWorker, Math.min(pool.target, modelInfo.getMaxWorkers()));
                 }
+                scaleFixedPool(pool, modelInfo, workers, false);
                 pool.log();
             }
         }
     }
 
+    /**
+     * Scales the workers of a model to the number decided by the autoscaler.
+     *
+     * <p>Workers that are removed finish their current batch before they stop.
+     *
+     * @param modelInfo the model to scale
+     * @param workers the number of workers
+     */
+    void resize(ModelInfo modelInfo, int workers) {
+        synchronized (modelInfo.getVersionedName()) {
+            WorkerPool pool = workerPools.get(modelInfo.getVersionedName());
+            if (pool == null) {
+                return;
+            }
+            pool.cleanup();
+            pool.target = workers;
+            scaleFixedPool(pool, modelInfo, workers, true);
+            pool.log();
+        }
+    }
+
+    /**
+     * Returns the worker pools of all models.
+     *
+     * @return the worker pools of all models
+     */
+    Collection<WorkerPool> getWorkerPools() {
+        return workerPools.values();
+    }
+
+    /**
+     * Returns the job queue of a model.
+     *
+     * @param modelName the versioned name of the model we are interested in.
+     * @return the job queue, or {@code null} if the model has no worker pool.
+     */
+    JobQueue getJobQueue(String modelName) {
+        WorkerPool pool = workerPools.get(modelName);
+        if (pool == null) {
+            return null;
+        }
+        return pool.getJobQueue();
+    }
+
+    /**
+     * Returns the adaptive batch controller of a model.
+     *
+     * @param modelName the versioned name of the model we are interested in.
+     * @return the adaptive batch controller, or {@code null} if the model uses a fixed batch size.
+     */
+    AdaptiveBatchController getBatchController(String modelName) {
+        WorkerPool pool = workerPools.get(modelName);
+        if (pool == null) {
+            return null;
+        }
+        return pool.getBatchController();
+    }
+
     private WorkerPool getWorkerPoolForModel(ModelInfo modelInfo) {
         return workerPools.computeIfAbsent(
-                modelInfo.getModelName(), k -> new WorkerPool(modelInfo));
+                modelInfo.getVersionedName(), k -> new WorkerPool(modelInfo));
+    }
+
+    private void scaleFixedPool(
+            WorkerPool pool, ModelInfo modelInfo, int workers, boolean graceful) {
+        List<WorkerThread> threads = pool.getWorkers();
+        List<WorkerThread> fixedPoolThread =
+                threads.stream().filter(WorkerThread::isFixPoolThread).collect(Collectors.toList());
+
+        int numberOfCurrentFixedWorkers = fixedPoolThread.size();
+
+        if (numberOfCurrentFixedWorkers < workers) {
+            // scale up the fixed pool
+            addThreads(threads, modelInfo, workers - numberOfCurrentFixedWorkers, true);
+        } else {
+            // scale down the fixed pool
+            fixedPoolThread
+                    .subList(workers, numberOfCurrentFixedWorkers)
+                    .forEach(
+                            t -> {
+                                threads.remove(t);
+                                if (graceful) {
+                                    t.retire();
+                                } else {
+                                    t.shutdown(WorkerState.WORKER_SCALED_DOWN);
+                                }
+                            });
+        }
     }
 
     private void addThreads(
             List<WorkerThread> threads, ModelInfo model, int count, boolean permanent) {
 
+        WorkerPool pool = getWorkerPoolForModel(model);
         for (int i = 0; i < count; ++i) {
 
             WorkerThread thread =
                     WorkerThread.builder()
                             .setModel(model)
-                            .setJobQueue(getWorkerPoolForModel(model).getJobQueue())
+                            .setJobQueue(pool.getJobQueue())
+                            .optBatchController(pool.getBatchController())
                             .optGpuAssignmentStrategy(gpuAssignmentStrategy)
                             .optFixPoolThread(permanent)
+                            .optWarmUpIterations(warmUpIterations)
                             .build();
 
             threads.add(thread);
@@ -214,10 +330,14 @@ class WorkLoadManager {
      *
      * @author erik.bamberg@web.de
      */
-    private static final class WorkerPool {
+    static final class WorkerPool {
+
+        volatile ModelInfo model;
+        volatile int target;
 
         private List<WorkerThread> workers;
-        private LinkedBlockingDeque<Job> jobQueue;
+        private JobQueue jobQueue;
+        private volatile AdaptiveBatchController batchController;
         private String modelName;
 
         /**
@@ -227,8 +347,11 @@ class WorkLoadManager {
          */
         public WorkerPool(ModelInfo model) {
             workers = Collections.synchronizedList(new ArrayList<>());
-            jobQueue = new LinkedBlockingDeque<>(model.getQueueSize());
-            modelName = model.getModelName();
+            jobQueue = new JobQueue(model.getQueueSize());
+            modelName = model.getVersionedName();
+            this.model = model;
+            target = -1;
+            configureBatch(model);
         }
 
         /**
@@ -245,10 +368,35 @@ class WorkLoadManager {
          *
          * @return the jobQueue
          */
-        public LinkedBlockingDeque<Job> getJobQueue() {
+        public JobQueue getJobQueue() {
             return jobQueue;
         }
 
+        /**
+         * Returns the {@code AdaptiveBatchController} shared by the workers of this model.
+         *
+         * @return the batchController, or {@code null} if adaptive batching is disabled
+         */
+        AdaptiveBatchController getBatchController() {
+            return batchController;
+        }
+
+        /**
+         * Applies the batching configuration of the model. The change only affects new created
+         * workers, existing workers keep their batching mode.
+         *
+         * @param model the model to read the batching configuration from.
+         */
+        public synchronized void configureBatch(ModelInfo model) {
+            if (!model.isAdaptiveBatching()) {
+                batchController = null;
+            } else if (batchController == null) {
+                batchController = new AdaptiveBatchController(model);
+            } else {
+                batchController.configure(model);
+            }
+        }
+
         /**
          * Logs the current state of this {@code WorkerPool} when level "Debug" is enabled.
          *
@@ -17,7 +17,6 @@ import ai.djl.modality.Input;
 import ai.djl.modality.Output;
 import ai.djl.translate.TranslateException;
 import java.util.List;
-import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import org.slf4j.Logger;
@@ -28,17 +27,22 @@ final class WorkerThread implements Runnable {
     private static final Logger logger = LoggerFactory.getLogger(WorkerThread.class);
 
     private String workerName;
+    private ModelInfo model;
     private Predictor<Input, Output> predictor;
 
     private AtomicBoolean running = new AtomicBoolean(true);
 
     private BatchAggregator aggregator;
+    private ModelMetrics metrics;
     private int gpuId;
     private AtomicReference<Thread> currentThread = new AtomicReference<>();
-    private WorkerState state;
+    private AtomicReference<WorkerState> state =
+            new AtomicReference<>(WorkerState.WORKER_STARTED);
     private int workerId;
     private long startTime;
     private boolean fixPoolThread;
+    private int warmUpIterations;
+    private AtomicReference<Activity> activity = new AtomicReference<>(Activity.IDLE);
 
     /**
      * Builds a workerThread with this builder.
@@ -47,12 +51,15 @@ final class WorkerThread implements Runnable {
      */
     private WorkerThread(Builder builder) {
         this.workerName = buildWorkerName(builder.model);
+        this.model = builder.model;
         this.aggregator = builder.aggregator;
+        this.metrics = builder.model.getMetrics();
         this.gpuId = builder.gpuId;
         this.workerId = new WorkerIdGenerator().generate();
         this.startTime = System.currentTimeMillis();
         predictor = builder.model.getModel().newPredictor();
         this.fixPoolThread = builder.fixPoolThread;
+        this.warmUpIterations = builder.warmUpIterations;
     }
 
     /** {@inheritDoc} */
@@ -61,18 +68,30 @@ final class WorkerThread implements Runnable {
         Thread thread = Thread.currentThread();
         thread.setName(workerName);
         currentThread.set(thread);
-        this.state = WorkerState.WORKER_STARTED;
         List<Input> req = null;
         try {
+            warmUp();
+            setState(WorkerState.WORKER_MODEL_LOADED);
             while (isRunning() && !aggregator.isFinished()) {
                 req = aggregator.getRequest();
                 if (req != null && !req.isEmpty()) {
+                    if (!activity.compareAndSet(Activity.IDLE, Activity.BUSY)) {
+                        // retired while the batch was filled, answer it before exiting
+                        while (activity.get() == Activity.WAKING) {
+                            Thread.yield();
+                        }
+                        Thread.interrupted();
+                    }
                     try {
+                        long begin = System.nanoTime();
                         List<Output> reply = predictor.batchPredict(req);
+                        metrics.recordInferenceTime(System.nanoTime() - begin);
                         aggregator.sendResponse(reply);
                     } catch (TranslateException e) {
                         logger.warn("Failed to predict", e);
                         aggregator.sendError();
+                    } finally {
+                        activity.compareAndSet(Activity.BUSY, Activity.IDLE);
                     }
                 }
                 req = null;
@@ -83,7 +102,7 @@ final class WorkerThread implements Runnable {
         } catch (Throwable t) {
             logger.error("Server error", t);
         } finally {
-            logger.debug("Shutting down worker thread .. {}", currentThread.get().getName());
+            logger.debug("Shutting down worker thread .. {}", workerName);
             currentThread.set(null);
             shutdown(WorkerState.WORKER_STOPPED);
             if (req != null) {
@@ -109,7 +128,16 @@ final class WorkerThread implements Runnable {
     }
 
     public WorkerState getState() {
-        return state;
+        return state.get();
+    }
+
+    /**
+     * Returns if the worker has loaded and warmed up the model and takes jobs from the queue.
+     *
+     * @return {@code true} if the worker is ready
+     */
+    public boolean isReady() {
+        return state.get() == WorkerState.WORKER_MODEL_LOADED;
     }
 
     public void shutdown(WorkerState state) {
@@ -123,6 +151,26 @@ final class WorkerThread implements Runnable {
         predictor.close();
     }
 
+    /**
+     * Stops the worker after it has answered the batch it is working on, if any.
+     *
+     * <p>Unlike {@link #shutdown(WorkerState)}, the jobs of the current batch are not failed. An
+     * idle worker is only interrupted while it has not started a batch yet, the worker waits for
+     * that interrupt to be delivered and clears it before it runs a batch it already took.
+     */
+    void retire() {
+        running.set(false);
+        setState(WorkerState.WORKER_SCALED_DOWN);
+        // wake up the worker if it is waiting for jobs, a busy worker exits after its batch
+        if (activity.compareAndSet(Activity.IDLE, Activity.WAKING)) {
+            Thread thread = currentThread.get();
+            if (thread != null) {
+                thread.interrupt();
+            }
+            activity.set(Activity.RETIRED);
+        }
+    }
+
     private String buildWorkerName(ModelInfo model) {
         String modelName = model.getModelName();
         if (modelName.length() > 25) {
@@ -132,10 +180,28 @@ final class WorkerThread implements Runnable {
     }
 
     void setState(WorkerState newState) {
-        logger.debug("{} State change {} -> {}", workerName, state, newState);
-        if (state != WorkerState.WORKER_SCALED_DOWN) {
-            // Don't update the state if it was terminated on purpose.. Scaling in..
-            this.state = newState;
+        WorkerState current;
+        do {
+            current = state.get();
+            if (current == WorkerState.WORKER_SCALED_DOWN) {
+                // Don't update the state if it was terminated on purpose.. Scaling in..
+                return;
+            }
+        } while (!state.compareAndSet(current, newState));
+        logger.debug("{} State change {} -> {}", workerName, current, newState);
+    }
+
+    private void warmUp() throws InterruptedException {
+        try {
+            model.getWarmUp().run(predictor, model, warmUpIterations);
+        } catch (TranslateException | RuntimeException e) {
+            if (!isRunning()) {
+                // retired or shut down during the warm-up, this is not a model failure
+                throw new InterruptedException();
+            }
+            // only the warm-up of this worker failed, it serves jobs without it
+            logger.warn("Warm-up of worker {} failed: {}", workerName, e.getMessage());
+            logger.debug("Warm-up failure", e);
         }
     }
 
@@ -164,9 +230,11 @@ final class WorkerThread implements Runnable {
 
         private ModelInfo model;
         private BatchAggregator aggregator;
-        private LinkedBlockingDeque<Job> jobQueue;
+        private JobQueue jobQueue;
+        private AdaptiveBatchController batchController;
         private int gpuId;
         private boolean fixPoolThread;
+        private int warmUpIterations;
         private GpuAssignmentStrategy gpuAssignmentStrategy;
 
         Builder() {
@@ -186,9 +254,9 @@ final class WorkerThread implements Runnable {
         protected void preBuildProcessing() {
             if (aggregator == null) {
                 if (fixPoolThread) {
-                    aggregator = new PermanentBatchAggregator(model, jobQueue);
+                    aggregator = new PermanentBatchAggregator(model, jobQueue, batchController);
                 } else {
-                    aggregator = new TemporaryBatchAggregator(model, jobQueue);
+                    aggregator = new TemporaryBatchAggregator(model, jobQueue, batchController);
                 }
             }
             if (gpuAssignmentStrategy != null) {
@@ -248,11 +316,23 @@ final class WorkerThread implements Runnable {
          * @param jobQueue the jobQueue to set
          * @return self-reference to this builder.
          */
-        public Builder setJobQueue(LinkedBlockingDeque<Job> jobQueue) {
+        public Builder setJobQueue(JobQueue jobQueue) {
             this.jobQueue = jobQueue;
             return self();
         }
 
+        /**
+         * Sets the {@code AdaptiveBatchController} that is passed to the created standard
+         * BatchAggregators. Batches use the fixed batch size of the model if not set.
+         *
+         * @param batchController the batchController to set
+         * @return self-reference to this builder.
+         */
+        Builder optBatchController(AdaptiveBatchController batchController) {
+            this.batchController = batchController;
+            return self();
+        }
+
         /**
          * Sets the GPU ID for this worker thread. GPU ID = -1 for non GPU.
          *
@@ -279,6 +359,18 @@ final class WorkerThread implements Runnable {
             return self();
         }
 
+        /**
+         * Sets how many times the worker replays the warm-up samples of the model at each batch
+         * size before it takes jobs from the queue. Defaults to 0, no warm-up.
+         *
+         * @param warmUpIterations the number of warm-up iterations
+         * @return self-reference to this builder.
+         */
+        public Builder optWarmUpIterations(int warmUpIterations) {
+            this.warmUpIterations = warmUpIterations;
+            return self();
+        }
+
         /**
          * sets an optional strategy to assign gpuId to this workerThread. doesn't use any gpu
          * (gpuId=-1) when no {@code GpuAssignmentStrategy} is set.
@@ -291,4 +383,12 @@ final class WorkerThread implements Runnable {
             return self();
         }
     }
+
+    /** Whether the worker runs a batch, as seen by {@link #retire()}. */
+    private enum Activity {
+        IDLE,
+        BUSY,
+        WAKING,
+        RETIRED
+    }
 }
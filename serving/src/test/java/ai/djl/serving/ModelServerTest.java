@@ -13,27 +13,39 @@
 package ai.djl.serving;
 
 import ai.djl.modality.Classifications.Classification;
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.NDManager;
+import ai.djl.ndarray.types.Shape;
 import ai.djl.serving.http.DescribeModelResponse;
 import ai.djl.serving.http.ErrorResponse;
 import ai.djl.serving.http.ListModelsResponse;
 import ai.djl.serving.http.StatusResponse;
 import ai.djl.serving.util.ConfigManager;
 import ai.djl.serving.util.Connector;
+import ai.djl.serving.util.TensorFrames;
+import ai.djl.serving.wlm.ModelManager;
 import ai.djl.util.JsonUtils;
 import ai.djl.util.Utils;
 import ai.djl.util.cuda.CudaUtils;
 import com.google.gson.reflect.TypeToken;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
 import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpClientCodec;
 import io.netty.handler.codec.http.HttpContentDecompressor;
@@ -48,6 +60,17 @@ import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http.multipart.HttpPostRequestEncoder;
 import io.netty.handler.codec.http.multipart.MemoryFileUpload;
+import io.netty.handler.codec.http2.DefaultHttp2DataFrame;
+import io.netty.handler.codec.http2.DefaultHttp2Headers;
+import io.netty.handler.codec.http2.DefaultHttp2HeadersFrame;
+import io.netty.handler.codec.http2.Http2DataFrame;
+import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2Headers;
+import io.netty.handler.codec.http2.Http2HeadersFrame;
+import io.netty.handler.codec.http2.Http2MultiplexHandler;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.handler.codec.http2.Http2StreamChannelBootstrap;
+import io.netty.handler.codec.http2.Http2StreamFrame;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
 import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
@@ -66,7 +89,12 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.GeneralSecurityException;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLContext;
 import org.apache.commons.cli.ParseException;
@@ -90,6 +118,7 @@ public class ModelServerTest {
     CountDownLatch latch;
     HttpResponseStatus httpStatus;
     String result;
+    byte[] tensorResult;
     HttpHeaders headers;
 
     static {
@@ -155,13 +184,16 @@ public class ModelServerTest {
         testPredictions(channel);
         testInvocations(channel);
         testInvocationsMultipart(channel);
+        testTensorPredictions(channel);
         testDescribeApi(channel);
+        testGrpcStreamPredict();
 
         // management API
         testRegisterModel(channel);
         testRegisterModelAsync(channel);
         testScaleModel(channel);
         testDescribeModel(channel);
+        testRegisterModelVersion(channel);
         testUnregisterModel(channel);
 
         testPredictionsInvalidRequestSize(channel);
@@ -180,6 +212,7 @@ public class ModelServerTest {
         testInvalidManagementMethod();
         testUnregisterModelNotFound();
         testInvalidScaleModel();
+        testInvalidCanaryWeight();
         testScaleModelNotFound();
         testRegisterModelMissingUrl();
         testRegisterModelNotFound();
@@ -273,6 +306,77 @@ public class ModelServerTest {
         Assert.assertEquals(classifications.get(0).getClassName(), "0");
     }
 
+    private void testTensorPredictions(Channel channel) throws InterruptedException, IOException {
+        // a copy of the mlp model without serving.properties is served with the raw translator
+        Path modelDir = Paths.get("build/models/tensor/mlp");
+        Utils.deleteQuietly(modelDir);
+        Files.createDirectories(modelDir);
+        Path mlpDir = ModelManager.getInstance().getModels().get("mlp").getModelDir();
+        try (Stream<Path> stream = Files.list(mlpDir)) {
+            for (Path file : stream.collect(Collectors.toList())) {
+                String name = file.getFileName().toString();
+                if (Files.isRegularFile(file) && !"serving.properties".equals(name)) {
+                    Files.copy(file, modelDir.resolve(name));
+                }
+            }
+        }
+        String url = modelDir.toAbsolutePath().toUri().toString();
+
+        result = null;
+        latch = new CountDownLatch(1);
+        HttpRequest req =
+                new DefaultFullHttpRequest(
+                        HttpVersion.HTTP_1_1,
+                        HttpMethod.POST,
+                        "/models?model_name=mlp_tensor&initial_workers=1&url="
+                                + URLEncoder.encode(url, StandardCharsets.UTF_8.name()));
+        channel.writeAndFlush(req);
+        latch.await();
+        StatusResponse status = JsonUtils.GSON.fromJson(result, StatusResponse.class);
+        Assert.assertEquals(status.getStatus(), "Model \"mlp_tensor\" registered.");
+
+        ByteBuf body = Unpooled.buffer();
+        try (NDManager manager = NDManager.newBaseManager()) {
+            NDList list = new NDList(manager.ones(new Shape(1, 28, 28)));
+            TensorFrames.encode(list, body);
+        }
+
+        // the frame is sent in chunks that split the length prefix and the tensor data
+        tensorResult = null;
+        latch = new CountDownLatch(1);
+        req =
+                new DefaultHttpRequest(
+                        HttpVersion.HTTP_1_1, HttpMethod.POST, "/predictions/mlp_tensor");
+        req.headers().set(HttpHeaderNames.CONTENT_TYPE, TensorFrames.CONTENT_TYPE);
+        HttpUtil.setTransferEncodingChunked(req, true);
+        channel.write(req);
+        channel.write(new DefaultHttpContent(body.readRetainedSlice(2)));
+        channel.write(new DefaultHttpContent(body.readRetainedSlice(body.readableBytes() / 2)));
+        channel.writeAndFlush(new DefaultLastHttpContent(body));
+        latch.await();
+
+        Assert.assertEquals(httpStatus, HttpResponseStatus.OK);
+        Assert.assertEquals(headers.get(HttpHeaderNames.CONTENT_TYPE), TensorFrames.CONTENT_TYPE);
+        ByteBuf content = Unpooled.wrappedBuffer(tensorResult);
+        int length = TensorFrames.peekFrameLength(content);
+        content.skipBytes(4);
+        Assert.assertEquals(content.readableBytes(), length);
+        try (NDManager manager = NDManager.newBaseManager()) {
+            NDArray array = NDArray.decode(manager, ByteBufUtil.getBytes(content));
+            Assert.assertEquals(array.getShape(), new Shape(1, 10));
+        }
+
+        result = null;
+        latch = new CountDownLatch(1);
+        req =
+                new DefaultFullHttpRequest(
+                        HttpVersion.HTTP_1_1, HttpMethod.DELETE, "/models/mlp_tensor");
+        channel.writeAndFlush(req);
+        latch.await();
+        status = JsonUtils.GSON.fromJson(result, StatusResponse.class);
+        Assert.assertEquals(status.getStatus(), "Model \"mlp_tensor\" unregistered");
+    }
+
     private void testRegisterModelAsync(Channel channel)
             throws InterruptedException, UnsupportedEncodingException {
         result = null;
@@ -383,6 +487,58 @@ public class ModelServerTest {
         Assert.assertEquals(worker.isGpu(), CudaUtils.hasCuda());
     }
 
+    private void testRegisterModelVersion(Channel channel)
+            throws InterruptedException, UnsupportedEncodingException {
+        String url = URLEncoder.encode(
+                "https://resources.djl.ai/test-models/mlp.tar.gz", StandardCharsets.UTF_8.name());
+
+        // replace the current version once the new version is ready
+        result = null;
+        latch = new CountDownLatch(1);
+        HttpRequest req =
+                new DefaultFullHttpRequest(
+                        HttpVersion.HTTP_1_1,
+                        HttpMethod.POST,
+                        "/models?model_name=mlp_1&version=v2&url=" + url);
+        channel.writeAndFlush(req);
+        latch.await();
+        StatusResponse status = JsonUtils.GSON.fromJson(result, StatusResponse.class);
+        Assert.assertEquals(status.getStatus(), "Model \"mlp_1\" registered.");
+
+        // run a canary next to the current version
+        result = null;
+        latch = new CountDownLatch(1);
+        req =
+                new DefaultFullHttpRequest(
+                        HttpVersion.HTTP_1_1,
+                        HttpMethod.POST,
+                        "/models?model_name=mlp_1&version=v3&canary_weight=50&url=" + url);
+        channel.writeAndFlush(req);
+        latch.await();
+        status = JsonUtils.GSON.fromJson(result, StatusResponse.class);
+        Assert.assertEquals(status.getStatus(), "Model \"mlp_1\" registered.");
+
+        result = null;
+        latch = new CountDownLatch(1);
+        req = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/models/mlp_1");
+        channel.writeAndFlush(req);
+        latch.await();
+        DescribeModelResponse resp = JsonUtils.GSON.fromJson(result, DescribeModelResponse.class);
+        Assert.assertEquals(resp.getVersion(), "v2");
+        Assert.assertEquals(resp.getStagedVersion(), "v3");
+        Assert.assertEquals(resp.getStagedWeight(), 50);
+
+        result = null;
+        latch = new CountDownLatch(1);
+        req =
+                new DefaultFullHttpRequest(
+                        HttpVersion.HTTP_1_1, HttpMethod.DELETE, "/models/mlp_1?version=v3");
+        channel.writeAndFlush(req);
+        latch.await();
+        status = JsonUtils.GSON.fromJson(result, StatusResponse.class);
+        Assert.assertEquals(status.getStatus(), "Model \"mlp_1\" version \"v3\" unregistered");
+    }
+
     private void testUnregisterModel(Channel channel) throws InterruptedException {
         result = null;
         latch = new CountDownLatch(1);
@@ -631,6 +787,27 @@ public class ModelServerTest {
         Assert.assertEquals(resp.getMessage(), "max_worker cannot be less than min_worker.");
     }
 
+    private void testInvalidCanaryWeight() throws InterruptedException {
+        for (String weight : new String[] {"abc", "150"}) {
+            Channel channel = connect(Connector.ConnectorType.MANAGEMENT);
+            Assert.assertNotNull(channel);
+
+            result = null;
+            DefaultFullHttpRequest req =
+                    new DefaultFullHttpRequest(
+                            HttpVersion.HTTP_1_1,
+                            HttpMethod.PUT,
+                            "/models/mlp?canary_weight=" + weight);
+            channel.writeAndFlush(req).sync();
+            channel.closeFuture().sync();
+
+            ErrorResponse resp = JsonUtils.GSON.fromJson(result, ErrorResponse.class);
+
+            Assert.assertEquals(httpStatus, HttpResponseStatus.BAD_REQUEST);
+            Assert.assertTrue(resp.getMessage().startsWith("Parameter canary_weight"));
+        }
+    }
+
     private void testScaleModelNotFound() throws InterruptedException {
         Channel channel = connect(Connector.ConnectorType.MANAGEMENT);
         Assert.assertNotNull(channel);
@@ -689,6 +866,118 @@ public class ModelServerTest {
         Assert.assertEquals(resp.getMessage(), "No worker is available to serve request: mlp_2");
     }
 
+    private void testGrpcStreamPredict() throws InterruptedException {
+        Connector connector = configManager.getConnector(Connector.ConnectorType.GRPC);
+        EventLoopGroup group = Connector.newEventLoopGroup(1);
+        try {
+            Bootstrap b = new Bootstrap();
+            b.group(group)
+                    .channel(connector.getClientChannel())
+                    .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 10000)
+                    .handler(
+                            new ChannelInitializer<Channel>() {
+
+                                /** {@inheritDoc} */
+                                @Override
+                                public void initChannel(Channel ch) {
+                                    ChannelPipeline p = ch.pipeline();
+                                    p.addLast(Http2FrameCodecBuilder.forClient().build());
+                                    p.addLast(
+                                            new Http2MultiplexHandler(
+                                                    new ChannelInboundHandlerAdapter()));
+                                }
+                            });
+            Channel channel = b.connect(connector.getSocketAddress()).sync().channel();
+
+            // two inputs on one stream, the second message is split over two data frames
+            GrpcTestHandler handler = new GrpcTestHandler();
+            Http2StreamChannel stream = openGrpcStream(channel, handler);
+            stream.write(new DefaultHttp2DataFrame(encodePredictRequest("1", testImage)));
+            ByteBuf second = encodePredictRequest("2", testImage);
+            stream.write(new DefaultHttp2DataFrame(second.readRetainedSlice(10)));
+            stream.writeAndFlush(new DefaultHttp2DataFrame(second, true));
+            Assert.assertTrue(handler.latch.await(1, TimeUnit.MINUTES));
+
+            Assert.assertEquals(handler.grpcStatus, "0");
+            Assert.assertEquals(handler.codes.size(), 2);
+            Type type = new TypeToken<List<Classification>>() {}.getType();
+            for (String requestId : new String[] {"1", "2"}) {
+                Assert.assertEquals(handler.codes.get(requestId), Integer.valueOf(200));
+                List<Classification> classifications =
+                        JsonUtils.GSON.fromJson(handler.results.get(requestId), type);
+                Assert.assertEquals(classifications.get(0).getClassName(), "0");
+            }
+
+            // a message that cannot be decoded ends the stream with INVALID_ARGUMENT
+            handler = new GrpcTestHandler();
+            stream = openGrpcStream(channel, handler);
+            ByteBuf invalid = Unpooled.buffer();
+            invalid.writeByte(0).writeInt(3).writeBytes(new byte[] {0x0A, 3, 'm'});
+            stream.writeAndFlush(new DefaultHttp2DataFrame(invalid, true));
+            Assert.assertTrue(handler.latch.await(1, TimeUnit.MINUTES));
+            Assert.assertEquals(handler.grpcStatus, "3");
+            Assert.assertTrue(handler.codes.isEmpty());
+
+            channel.close().sync();
+        } finally {
+            group.shutdownGracefully();
+        }
+    }
+
+    private Http2StreamChannel openGrpcStream(Channel channel, GrpcTestHandler handler) {
+        Http2StreamChannel stream =
+                new Http2StreamChannelBootstrap(channel)
+                        .handler(handler)
+                        .open()
+                        .syncUninterruptibly()
+                        .getNow();
+        Http2Headers headers =
+                new DefaultHttp2Headers()
+                        .method("POST")
+                        .scheme("http")
+                        .authority("127.0.0.1")
+                        .path("/djl.serving.Inference/StreamPredict");
+        headers.set("content-type", "application/grpc");
+        stream.write(new DefaultHttp2HeadersFrame(headers));
+        return stream;
+    }
+
+    private static ByteBuf encodePredictRequest(String requestId, byte[] data) {
+        ByteBuf buf = Unpooled.buffer();
+        buf.writeByte(0);
+        buf.writeInt(0); // placeholder for the message length
+        writeField(buf, 1, "mlp".getBytes(StandardCharsets.UTF_8));
+        writeField(buf, 2, requestId.getBytes(StandardCharsets.UTF_8));
+        writeField(buf, 3, data);
+        buf.setInt(1, buf.readableBytes() - 5);
+        return buf;
+    }
+
+    private static void writeField(ByteBuf buf, int field, byte[] value) {
+        writeVarint(buf, field << 3 | 2);
+        writeVarint(buf, value.length);
+        buf.writeBytes(value);
+    }
+
+    private static void writeVarint(ByteBuf buf, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buf.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf.writeByte((int) value);
+    }
+
+    private static long readVarint(ByteBuf buf) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buf.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
     private Channel connect(Connector.ConnectorType type) {
         Logger logger = LoggerFactory.getLogger(ModelServerTest.class);
 
@@ -736,6 +1025,7 @@ public class ModelServerTest {
         public void channelRead0(ChannelHandlerContext ctx, FullHttpResponse msg) {
             httpStatus = msg.status();
             result = msg.content().toString(StandardCharsets.UTF_8);
+            tensorResult = ByteBufUtil.getBytes(msg.content());
             headers = msg.headers();
             latch.countDown();
         }
@@ -749,4 +1039,73 @@ public class ModelServerTest {
             latch.countDown();
         }
     }
+
+    /** Collects the {@code PredictResponse} messages and the status of a gRPC stream. */
+    private static final class GrpcTestHandler
+            extends SimpleChannelInboundHandler<Http2StreamFrame> {
+
+        CountDownLatch latch = new CountDownLatch(1);
+        ByteBuf messages = Unpooled.buffer();
+        Map<String, Integer> codes = new ConcurrentHashMap<>();
+        Map<String, String> results = new ConcurrentHashMap<>();
+        String grpcStatus;
+
+        /** {@inheritDoc} */
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, Http2StreamFrame frame) {
+            if (frame instanceof Http2DataFrame) {
+                messages.writeBytes(((Http2DataFrame) frame).content());
+                decodeResponses();
+            } else if (frame instanceof Http2HeadersFrame) {
+                Http2HeadersFrame headersFrame = (Http2HeadersFrame) frame;
+                CharSequence status = headersFrame.headers().get("grpc-status");
+                if (status != null) {
+                    grpcStatus = status.toString();
+                }
+                if (headersFrame.isEndStream()) {
+                    latch.countDown();
+                }
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            Logger logger = LoggerFactory.getLogger(GrpcTestHandler.class);
+            logger.error("Unknown exception", cause);
+            ctx.close();
+            latch.countDown();
+        }
+
+        private void decodeResponses() {
+            while (messages.readableBytes() >= 5) {
+                int length = messages.getInt(messages.readerIndex() + 1);
+                if (messages.readableBytes() < length + 5) {
+                    break;
+                }
+                messages.skipBytes(5);
+                ByteBuf message = messages.readSlice(length);
+                String requestId = null;
+                int code = 0;
+                String data = null;
+                while (message.isReadable()) {
+                    long tag = readVarint(message);
+                    if ((tag & 0x7) == 0) {
+                        code = (int) readVarint(message);
+                        continue;
+                    }
+                    ByteBuf value = message.readSlice((int) readVarint(message));
+                    if (tag >>> 3 == 1) {
+                        requestId = value.toString(StandardCharsets.UTF_8);
+                    } else if (tag >>> 3 == 4) {
+                        data = value.toString(StandardCharsets.UTF_8);
+                    }
+                }
+                codes.put(requestId, code);
+                if (data != null) {
+                    results.put(requestId, data);
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.serving;
+
+import ai.djl.serving.http.TensorRequest;
+import ai.djl.serving.http.TensorStreamDecoder;
+import ai.djl.serving.util.ConfigManager;
+import ai.djl.serving.util.TensorFrames;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import java.nio.charset.StandardCharsets;
+import org.apache.commons.cli.ParseException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TensorStreamDecoderTest {
+
+    @Test
+    public void testSplitFrames() {
+        EmbeddedChannel channel = new EmbeddedChannel(new TensorStreamDecoder(1024));
+        Assert.assertFalse(channel.writeInbound(newRequest()));
+
+        ByteBuf body = Unpooled.buffer();
+        body.writeInt(5).writeBytes("hello".getBytes(StandardCharsets.UTF_8));
+        body.writeInt(3).writeBytes("djl".getBytes(StandardCharsets.UTF_8));
+        // split the body in the middle of the length of the second frame
+        ByteBuf first = body.readRetainedSlice(11);
+        Assert.assertFalse(channel.writeInbound(new DefaultHttpContent(first)));
+        Assert.assertTrue(channel.writeInbound(new DefaultLastHttpContent(body.readSlice(5))));
+
+        TensorRequest req = channel.readInbound();
+        Assert.assertEquals(req.getFrames().size(), 2);
+        Assert.assertEquals(req.getFrames().get(0).toString(StandardCharsets.UTF_8), "hello");
+        Assert.assertEquals(req.getFrames().get(1).toString(StandardCharsets.UTF_8), "djl");
+        ByteBuf frame = req.getFrames().get(0);
+        req.release();
+        Assert.assertEquals(frame.refCnt(), 0);
+        Assert.assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testInvalidFrames() throws ParseException {
+        ConfigManager.init(ConfigManagerTest.parseArguments(new String[0]));
+
+        EmbeddedChannel channel = new EmbeddedChannel(new TensorStreamDecoder(1024));
+        channel.writeInbound(newRequest());
+        ByteBuf body = Unpooled.buffer().writeInt(5).writeByte(1);
+        Assert.assertFalse(channel.writeInbound(new DefaultLastHttpContent(body)));
+        FullHttpResponse resp = channel.readOutbound();
+        Assert.assertEquals(resp.status(), HttpResponseStatus.BAD_REQUEST);
+        resp.release();
+
+        channel = new EmbeddedChannel(new TensorStreamDecoder(8));
+        channel.writeInbound(newRequest());
+        body = Unpooled.buffer().writeInt(16).writeLong(0);
+        Assert.assertFalse(channel.writeInbound(new DefaultHttpContent(body)));
+        resp = channel.readOutbound();
+        Assert.assertEquals(resp.status(), HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE);
+        resp.release();
+    }
+
+    private static HttpRequest newRequest() {
+        HttpRequest req =
+                new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/predictions/m");
+        req.headers().set(HttpHeaderNames.CONTENT_TYPE, TensorFrames.CONTENT_TYPE);
+        return req;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.serving.grpc;
+
+import ai.djl.modality.Input;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http2.DefaultHttp2DataFrame;
+import io.netty.handler.codec.http2.DefaultHttp2Headers;
+import io.netty.handler.codec.http2.DefaultHttp2HeadersFrame;
+import io.netty.handler.codec.http2.Http2Headers;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class GrpcRequestHandlerTest {
+
+    @Test
+    public void testSplitMessages() {
+        RecordingHandler handler = new RecordingHandler();
+        EmbeddedChannel channel = new EmbeddedChannel(handler);
+        try {
+            Http2Headers headers =
+                    new DefaultHttp2Headers()
+                            .method("POST")
+                            .path("/djl.serving.Inference/StreamPredict");
+            headers.set("content-type", "application/grpc");
+            channel.writeInbound(new DefaultHttp2HeadersFrame(headers));
+
+            byte[] data1 = newData(64, 1);
+            byte[] data2 = newData(256, 2);
+            ByteBuf first = encodePredictRequest("1", data1);
+            ByteBuf second = encodePredictRequest("2", data2);
+
+            // the first message and the start of the second one share a data frame, the rest of
+            // the second message is split over two more frames
+            ByteBuf frame = Unpooled.buffer();
+            frame.writeBytes(first).writeBytes(second, 3);
+            channel.writeInbound(new DefaultHttp2DataFrame(frame.retain()));
+            channel.writeInbound(new DefaultHttp2DataFrame(second.readRetainedSlice(100)));
+            channel.writeInbound(new DefaultHttp2DataFrame(second));
+            Assert.assertEquals(handler.jobs.size(), 2);
+
+            // the first message is passed on without copy, its frame is held by the job after
+            // the read frames were discarded
+            Input input = handler.jobs.get(0).getInput();
+            Assert.assertEquals(input.getRequestId(), "1");
+            Assert.assertEquals(toBytes(input.getAsByteBuffer("data")), data1);
+            Assert.assertEquals(frame.refCnt(), 2);
+            input.close();
+            Assert.assertEquals(frame.refCnt(), 1);
+
+            input = handler.jobs.get(1).getInput();
+            Assert.assertEquals(input.getRequestId(), "2");
+            Assert.assertEquals(toBytes(input.getAsByteBuffer("data")), data2);
+            input.close();
+            frame.release();
+        } finally {
+            channel.finishAndReleaseAll();
+        }
+    }
+
+    private static byte[] newData(int size, int seed) {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; ++i) {
+            data[i] = (byte) (i * seed);
+        }
+        return data;
+    }
+
+    private static byte[] toBytes(ByteBuffer bb) {
+        byte[] buf = new byte[bb.remaining()];
+        bb.get(buf);
+        return buf;
+    }
+
+    private static ByteBuf encodePredictRequest(String requestId, byte[] data) {
+        ByteBuf buf = Unpooled.buffer();
+        buf.writeByte(0);
+        buf.writeInt(0); // placeholder for the message length
+        writeField(buf, 1, "mlp".getBytes(StandardCharsets.UTF_8));
+        writeField(buf, 2, requestId.getBytes(StandardCharsets.UTF_8));
+        writeField(buf, 3, data);
+        buf.setInt(1, buf.readableBytes() - 5);
+        return buf;
+    }
+
+    private static void writeField(ByteBuf buf, int field, byte[] value) {
+        writeVarint(buf, field << 3 | 2);
+        writeVarint(buf, value.length);
+        buf.writeBytes(value);
+    }
+
+    private static void writeVarint(ByteBuf buf, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buf.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf.writeByte((int) value);
+    }
+
+    /** Collects the jobs instead of running them. */
+    private static final class RecordingHandler extends GrpcRequestHandler {
+
+        List<GrpcJob> jobs = new ArrayList<>();
+
+        RecordingHandler() {
+            super(1024);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        boolean addJob(GrpcJob job) {
+            jobs.add(job);
+            return true;
+        }
+    }
+}
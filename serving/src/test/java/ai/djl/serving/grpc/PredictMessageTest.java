@@ -0,0 +1,50 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.serving.grpc;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import java.nio.charset.StandardCharsets;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class PredictMessageTest {
+
+    @Test
+    public void testDecodeRequest() {
+        // model_name: "mlp", request_id: "1", data: [1, 2], unknown field 5: 150
+        byte[] bytes = {0x0A, 3, 'm', 'l', 'p', 0x12, 1, '1', 0x1A, 2, 1, 2, 0x28, -106, 1};
+        PredictRequest request = PredictRequest.decode(Unpooled.wrappedBuffer(bytes));
+        Assert.assertEquals(request.getModelName(), "mlp");
+        Assert.assertEquals(request.getRequestId(), "1");
+        Assert.assertEquals(ByteBufUtil.getBytes(request.getData()), new byte[] {1, 2});
+        Assert.assertNull(request.getContentType());
+
+        Assert.assertThrows(
+                IllegalArgumentException.class,
+                () -> PredictRequest.decode(Unpooled.wrappedBuffer(new byte[] {0x0A, 3, 'm'})));
+    }
+
+    @Test
+    public void testEncodeResponse() {
+        ByteBuf buf = Unpooled.buffer();
+        new PredictResponse("1", 200, "OK", new byte[] {7}).encode(buf);
+        byte[] expected = {0x0A, 1, '1', 0x10, -56, 1, 0x1A, 2, 'O', 'K', 0x22, 1, 7};
+        Assert.assertEquals(ByteBufUtil.getBytes(buf), expected);
+
+        buf.clear();
+        new PredictResponse("", 0, null, null).encode(buf);
+        Assert.assertEquals(buf.toString(StandardCharsets.UTF_8), "");
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.serving.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class RingBufferQueueTest {
+
+    @Test
+    public void testBounded() throws InterruptedException {
+        RingBufferQueue<Integer> queue = new RingBufferQueue<>(3);
+        Assert.assertTrue(queue.offer(1));
+        Assert.assertTrue(queue.offer(2));
+        Assert.assertTrue(queue.offer(3));
+        Assert.assertFalse(queue.offer(4));
+        Assert.assertFalse(queue.offer(4, 10, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(queue.size(), 3);
+        Assert.assertEquals(queue.peek(), Integer.valueOf(1));
+
+        List<Integer> list = new ArrayList<>();
+        Assert.assertEquals(queue.drainTo(list, 2), 2);
+        Assert.assertEquals(list.toString(), "[1, 2]");
+        Assert.assertTrue(queue.offer(4));
+        Assert.assertTrue(queue.offer(5));
+        Assert.assertEquals(queue.drainTo(list), 3);
+        Assert.assertEquals(list.toString(), "[1, 2, 3, 4, 5]");
+        Assert.assertTrue(queue.isEmpty());
+        Assert.assertNull(queue.poll());
+        Assert.assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testConcurrent() throws InterruptedException {
+        int producers = 4;
+        int consumers = 4;
+        int count = 10000;
+        RingBufferQueue<Integer> queue = new RingBufferQueue<>(16);
+        AtomicLong sum = new AtomicLong();
+        AtomicLong received = new AtomicLong();
+
+        ExecutorService executor = Executors.newFixedThreadPool(producers + consumers);
+        for (int i = 0; i < consumers; ++i) {
+            executor.submit(
+                    () -> {
+                        List<Integer> batch = new ArrayList<>();
+                        try {
+                            while (received.get() < (long) producers * count) {
+                                Integer value = queue.poll(10, TimeUnit.MILLISECONDS);
+                                if (value == null) {
+                                    continue;
+                                }
+                                batch.add(value);
+                                queue.drainTo(batch, 7);
+                                for (Integer v : batch) {
+                                    sum.addAndGet(v);
+                                }
+                                received.addAndGet(batch.size());
+                                batch.clear();
+                            }
+                        } catch (InterruptedException ignore) {
+                            // exit
+                        }
+                    });
+        }
+        for (int i = 0; i < producers; ++i) {
+            executor.submit(
+                    () -> {
+                        try {
+                            for (int j = 1; j <= count; ++j) {
+                                queue.put(j);
+                            }
+                        } catch (InterruptedException ignore) {
+                            // exit
+                        }
+                    });
+        }
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+        Assert.assertEquals(received.get(), (long) producers * count);
+        Assert.assertEquals(sum.get(), (long) producers * count * (count + 1) / 2);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.serving.wlm;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class AdaptiveBatchControllerTest {
+
+    @Test
+    public void testGrowUnderLoad() {
+        ModelInfo modelInfo =
+                new ModelInfo("", "", null, 100, 1, 50, 8).configureAdaptiveBatch(true, 100);
+        AdaptiveBatchController controller = new AdaptiveBatchController(modelInfo);
+        Assert.assertEquals(controller.getBatchSize(), 1);
+        Assert.assertEquals(controller.getBatchDelay(), 0);
+
+        for (int i = 0; i < 20; ++i) {
+            controller.update(controller.getBatchSize(), 10, 20);
+        }
+        Assert.assertEquals(controller.getBatchSize(), 8);
+        Assert.assertEquals(controller.getBatchDelay(), 50);
+        Assert.assertEquals(controller.getLatencyP99(), 10);
+    }
+
+    @Test
+    public void testShrinkOnSloViolation() {
+        ModelInfo modelInfo =
+                new ModelInfo("", "", null, 100, 1, 50, 8).configureAdaptiveBatch(true, 100);
+        AdaptiveBatchController controller = new AdaptiveBatchController(modelInfo);
+        for (int i = 0; i < 20; ++i) {
+            controller.update(controller.getBatchSize(), 10, 20);
+        }
+        controller.update(8, 200, 20);
+        Assert.assertEquals(controller.getBatchSize(), 4);
+        Assert.assertEquals(controller.getBatchDelay(), 25);
+
+        // the outlier left the window, it does not shrink the batch again
+        for (int i = 0; i < 20; ++i) {
+            controller.update(4, 90, 0);
+        }
+        Assert.assertEquals(controller.getBatchSize(), 4);
+        Assert.assertEquals(controller.getBatchDelay(), 25);
+        Assert.assertEquals(controller.getLatencyP99(), 90);
+
+        // a sustained violation shrinks once per batches measured with the new values
+        for (int i = 0; i < 8; ++i) {
+            controller.update(4, 200, 0);
+        }
+        Assert.assertEquals(controller.getBatchSize(), 2);
+        Assert.assertEquals(controller.getBatchDelay(), 12);
+    }
+
+    @Test
+    public void testShrinkDelayUnderLowLoad() {
+        ModelInfo modelInfo =
+                new ModelInfo("", "", null, 100, 1, 50, 8).configureAdaptiveBatch(true, 100);
+        AdaptiveBatchController controller = new AdaptiveBatchController(modelInfo);
+        for (int i = 0; i < 20; ++i) {
+            controller.update(controller.getBatchSize(), 10, 20);
+        }
+        controller.update(1, 10, 0);
+        Assert.assertEquals(controller.getBatchSize(), 8);
+        Assert.assertEquals(controller.getBatchDelay(), 25);
+
+        controller.configure(modelInfo.configureModelBatch(2));
+        Assert.assertEquals(controller.getBatchSize(), 2);
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.serving.wlm;
+
+import ai.djl.modality.Input;
+import ai.djl.serving.ConfigManagerTest;
+import ai.djl.serving.util.ConfigManager;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.cli.ParseException;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class AutoScalerTest {
+
+    private static final String MODEL_URL = "https://resources.djl.ai/test-models/mlp.tar.gz";
+
+    private byte[] image;
+    private ModelManager modelManager;
+    private WorkLoadManager wlm;
+
+    @BeforeClass
+    public void setUp() throws IOException, ParseException, ReflectiveOperationException {
+        if (ConfigManager.getInstance() == null) {
+            ConfigManager.init(ConfigManagerTest.parseArguments(new String[0]));
+        }
+        image = Files.readAllBytes(Paths.get("../examples/src/test/resources/0.png"));
+
+        // the configuration is shared with the other tests, it is only changed to create the
+        // autoscaler of this model manager
+        ConfigManager config = ConfigManager.getInstance();
+        String autoScaling = String.valueOf(config.isAutoScaling());
+        String interval = String.valueOf(config.getAutoScaleInterval());
+        ConfigManagerTest.setConfiguration(config, "autoscaling", "true");
+        ConfigManagerTest.setConfiguration(config, "autoscale_interval", "100");
+        try {
+            modelManager = new ModelManager(config);
+        } finally {
+            ConfigManagerTest.setConfiguration(config, "autoscaling", autoScaling);
+            ConfigManagerTest.setConfiguration(config, "autoscale_interval", interval);
+        }
+        wlm = modelManager.getWorkLoadManager();
+    }
+
+    @AfterClass
+    public void unregisterModels() {
+        for (String modelName : modelManager.getModels().keySet()) {
+            modelManager.unregisterModel(modelName);
+        }
+    }
+
+    @Test
+    public void testScaleUp() {
+        AutoScaler.LoadState state = new AutoScaler.LoadState(0, 0, 0, 0);
+        // busy workers, enough to bring the utilization down to 60%
+        Assert.assertEquals(state.desiredWorkers(2, 0.9, 1.8, 0, 1, 0, 60000, 1, 8), 3);
+        Assert.assertEquals(state.desiredWorkers(2, 1.0, 2.0, 0, 1, 0, 60000, 1, 8), 4);
+        // queue longer than a batch per worker
+        Assert.assertEquals(state.desiredWorkers(2, 0.5, 1.0, 9, 4, 0, 60000, 1, 8), 3);
+        Assert.assertEquals(state.desiredWorkers(2, 0.5, 1.0, 20, 4, 0, 60000, 1, 8), 5);
+        // arrivals faster than the workers can answer them
+        Assert.assertEquals(state.desiredWorkers(2, 0.5, 3.0, 0, 1, 0, 60000, 1, 8), 5);
+        // capped at the maximum
+        Assert.assertEquals(state.desiredWorkers(8, 1.0, 8.0, 100, 1, 0, 60000, 1, 8), 8);
+        // a queued job starts a worker for a model scaled to zero
+        Assert.assertEquals(state.desiredWorkers(0, 0, 0, 1, 1, 0, 60000, 0, 8), 1);
+    }
+
+    @Test
+    public void testScaleDown() {
+        AutoScaler.LoadState state = new AutoScaler.LoadState(0, 0, 0, 0);
+        for (int i = 1; i < AutoScaler.SCALE_DOWN_SAMPLES; ++i) {
+            Assert.assertEquals(state.desiredWorkers(4, 0.1, 0.4, 0, 1, 0, 60000, 1, 8), 4);
+        }
+        Assert.assertEquals(state.desiredWorkers(4, 0.1, 0.4, 0, 1, 0, 60000, 1, 8), 3);
+
+        // a busy sample resets the count
+        Assert.assertEquals(state.desiredWorkers(3, 0.1, 0.3, 0, 1, 0, 60000, 1, 8), 3);
+        Assert.assertEquals(state.desiredWorkers(3, 0.5, 1.5, 0, 1, 0, 60000, 1, 8), 3);
+        for (int i = 1; i < AutoScaler.SCALE_DOWN_SAMPLES; ++i) {
+            Assert.assertEquals(state.desiredWorkers(3, 0.1, 0.3, 0, 1, 0, 60000, 1, 8), 3);
+        }
+        Assert.assertEquals(state.desiredWorkers(3, 0.1, 0.3, 0, 1, 0, 60000, 1, 8), 2);
+
+        // arrivals keep the workers even if they are not busy yet
+        for (int i = 0; i < AutoScaler.SCALE_DOWN_SAMPLES; ++i) {
+            Assert.assertEquals(state.desiredWorkers(2, 0.1, 1.0, 0, 1, 0, 60000, 1, 8), 2);
+        }
+
+        // never below the minimum
+        for (int i = 0; i < AutoScaler.SCALE_DOWN_SAMPLES; ++i) {
+            Assert.assertEquals(state.desiredWorkers(1, 0, 0, 0, 1, 0, 60000, 1, 8), 1);
+        }
+    }
+
+    @Test
+    public void testScaleToZero() {
+        AutoScaler.LoadState state = new AutoScaler.LoadState(0, 0, 0, 0);
+        Assert.assertEquals(state.desiredWorkers(2, 0, 0, 0, 1, 59000, 60000, 0, 8), 2);
+        Assert.assertEquals(state.desiredWorkers(2, 0, 0, 0, 1, 60000, 60000, 0, 8), 0);
+        // models with a minimum keep their workers
+        Assert.assertEquals(state.desiredWorkers(2, 0, 0, 0, 1, 60000, 60000, 1, 8), 2);
+    }
+
+    @Test
+    public void testColdStart() throws InterruptedException {
+        ModelInfo model = register("autoscale_cold", 60);
+        String name = model.getVersionedName();
+        Assert.assertEquals(wlm.getNumRunningWorkers(name), 0);
+
+        // a job for a model scaled to zero starts a worker without waiting for the next sample
+        TestJob job = newJob(name);
+        Assert.assertTrue(wlm.addJob(model, job));
+        Assert.assertEquals(wlm.getNumRunningWorkers(name), 1);
+        Assert.assertTrue(job.await());
+        Assert.assertNotNull(job.output);
+    }
+
+    @Test
+    public void testScaleToZeroAfterIdle() throws InterruptedException {
+        ModelInfo model = register("autoscale_idle", 1);
+        String name = model.getVersionedName();
+        TestJob job = newJob(name);
+        Assert.assertTrue(wlm.addJob(model, job));
+        Assert.assertTrue(job.await());
+        Assert.assertNotNull(job.output);
+
+        // the worker is removed once no job arrived for the max idle time of the model
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+        while (wlm.getNumRunningWorkers(name) > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+        Assert.assertEquals(wlm.getNumRunningWorkers(name), 0);
+        Assert.assertEquals(wlm.getJobQueue(name).size(), 0);
+
+        // the next job starts a worker again
+        job = newJob(name);
+        Assert.assertTrue(wlm.addJob(model, job));
+        Assert.assertTrue(job.await());
+        Assert.assertNotNull(job.output);
+    }
+
+    private ModelInfo register(String modelName, int maxIdleTime) {
+        ModelInfo model =
+                modelManager.registerModel(modelName, MODEL_URL, 1, 100, maxIdleTime).join();
+        model = model.scaleWorkers(0, 1);
+        modelManager.triggerModelUpdated(model);
+        return model;
+    }
+
+    private TestJob newJob(String modelName) {
+        Input input = new Input("1");
+        input.addProperty("Content-Type", "application/octet-stream");
+        input.addData("body", image);
+        return new TestJob(modelName, input);
+    }
+}
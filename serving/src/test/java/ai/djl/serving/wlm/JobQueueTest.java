@@ -0,0 +1,113 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.serving.wlm;
+
+import ai.djl.modality.Input;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class JobQueueTest {
+
+    @Test
+    public void testPriority() throws InterruptedException {
+        JobQueue queue = new JobQueue(10);
+        queue.offer(newJob("low", Job.Priority.LOW, 0));
+        queue.offer(newJob("normal", Job.Priority.NORMAL, 0));
+        queue.offer(newJob("high", Job.Priority.HIGH, 0));
+        Assert.assertEquals(queue.size(), 3);
+
+        List<Job> list = new ArrayList<>();
+        list.add(queue.take());
+        queue.drainTo(list, 2);
+        Assert.assertEquals(list.get(0).getRequestId(), "high");
+        Assert.assertEquals(list.get(1).getRequestId(), "normal");
+        Assert.assertEquals(list.get(2).getRequestId(), "low");
+        Assert.assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testWeightedFair() {
+        JobQueue queue = new JobQueue(100);
+        for (int i = 0; i < 50; ++i) {
+            queue.offer(newJob("high", Job.Priority.HIGH, 0));
+            queue.offer(newJob("low", Job.Priority.LOW, 0));
+        }
+        int low = 0;
+        for (int i = 0; i < 14; ++i) {
+            if ("low".equals(queue.poll().getRequestId())) {
+                ++low;
+            }
+        }
+        // LOW is tried first once out of HIGH+NORMAL+LOW=7 polls
+        Assert.assertEquals(low, 2);
+    }
+
+    @Test
+    public void testCapacity() throws InterruptedException {
+        JobQueue queue = new JobQueue(4);
+        Assert.assertEquals(queue.getCapacity(), 4);
+        for (int i = 0; i < 4; ++i) {
+            Assert.assertTrue(queue.offer(newJob("high", Job.Priority.HIGH, 0)));
+        }
+        // the capacity is shared by all priority classes
+        Assert.assertFalse(queue.offer(newJob("low", Job.Priority.LOW, 0)));
+        Job job = newJob("low", Job.Priority.LOW, 0);
+        Assert.assertFalse(queue.offer(job, 10, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(queue.size(), 4);
+
+        queue.poll();
+        Assert.assertTrue(queue.offer(newJob("low", Job.Priority.LOW, 0)));
+        Assert.assertEquals(queue.size(), 4);
+    }
+
+    @Test
+    public void testWeightedDrain() {
+        JobQueue queue = new JobQueue(100);
+        for (int i = 0; i < 50; ++i) {
+            queue.offer(newJob("high", Job.Priority.HIGH, 0));
+            queue.offer(newJob("low", Job.Priority.LOW, 0));
+        }
+        List<Job> list = new ArrayList<>();
+        Assert.assertEquals(queue.drainTo(list, 14), 14);
+        long low = list.stream().filter(j -> "low".equals(j.getRequestId())).count();
+        // drainTo follows the same schedule as poll
+        Assert.assertEquals(low, 2);
+        Assert.assertEquals(queue.size(), 86);
+    }
+
+    @Test
+    public void testShedExpired() {
+        JobQueue queue = new JobQueue(10);
+        long past = System.currentTimeMillis() - 1;
+        long future = System.currentTimeMillis() + 60000;
+        queue.offer(newJob("expired", Job.Priority.HIGH, past));
+        queue.offer(newJob("valid", Job.Priority.HIGH, future));
+
+        List<Job> list = new ArrayList<>();
+        Assert.assertEquals(queue.drainTo(list, 2), 1);
+        Assert.assertEquals(list.get(0).getRequestId(), "valid");
+        Assert.assertEquals(queue.getShedJobs(), 1);
+
+        queue.checkLate(list.get(0));
+        Assert.assertEquals(queue.getLateJobs(), 0);
+        queue.checkLate(newJob("late", Job.Priority.HIGH, past));
+        Assert.assertEquals(queue.getLateJobs(), 1);
+    }
+
+    private static Job newJob(String requestId, Job.Priority priority, long deadline) {
+        return new Job(null, "model", new Input(requestId), priority, deadline);
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.serving.wlm;
+
+import ai.djl.modality.Input;
+import ai.djl.serving.ConfigManagerTest;
+import ai.djl.serving.util.ConfigManager;
+import java.util.Collections;
+import org.apache.commons.cli.ParseException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class PrometheusExporterTest {
+
+    @Test
+    public void testExport() throws ParseException {
+        ConfigManager.init(ConfigManagerTest.parseArguments(new String[0]));
+        WorkLoadManager wlm = new WorkLoadManager(ConfigManager.getInstance());
+        ModelInfo model = new ModelInfo("my\"model", "", null, 10, 1, 100, 4);
+
+        // no worker is running, the job is rejected
+        Job job = new Job(null, model.getModelName(), new Input("1"));
+        Assert.assertFalse(wlm.addJob(model, job));
+        ModelMetrics metrics = model.getMetrics();
+        metrics.recordInferenceTime(20_000_000);
+        metrics.recordBatch(2, 4);
+        job.setScheduled();
+        job.sendError(null, "error");
+
+        String text =
+                new PrometheusExporter(Collections.singletonMap("my\"model", model), wlm)
+                        .export();
+        Assert.assertTrue(text.contains("# TYPE djl_jobs_submitted_total counter\n"));
+        // label values are escaped
+        String label = "model=\"my\\\"model\"";
+        Assert.assertTrue(text.contains("djl_jobs_submitted_total{" + label + "} 1\n"));
+        Assert.assertTrue(text.contains("djl_jobs_rejected_total{" + label + "} 1\n"));
+        Assert.assertTrue(text.contains("djl_jobs_failed_total{" + label + "} 1\n"));
+        Assert.assertTrue(text.contains("djl_queue_size{" + label + "} 0\n"));
+        Assert.assertTrue(text.contains("djl_queue_capacity{" + label + "} 10\n"));
+        Assert.assertTrue(text.contains("djl_workers{" + label + ",state=\"started\"} 0\n"));
+        Assert.assertTrue(
+                text.contains("djl_batch_fill_ratio{" + label + ",quantile=\"0.5\"} 0.5\n"));
+        Assert.assertTrue(text.contains("djl_inference_time_seconds_count{" + label + "} 1\n"));
+        Assert.assertTrue(text.contains("djl_request_time_seconds_count{" + label + "} 1\n"));
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.serving.wlm;
+
+import ai.djl.modality.Input;
+import ai.djl.serving.ConfigManagerTest;
+import ai.djl.serving.util.ConfigManager;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+import org.apache.commons.cli.ParseException;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ResidencyManagerTest {
+
+    private static final String MODEL_URL = "https://resources.djl.ai/test-models/mlp.tar.gz";
+
+    private byte[] image;
+    private ModelManager modelManager;
+    private WorkLoadManager wlm;
+
+    @BeforeClass
+    public void setUp() throws IOException, ParseException {
+        if (ConfigManager.getInstance() == null) {
+            ConfigManager.init(ConfigManagerTest.parseArguments(new String[0]));
+        }
+        image = Files.readAllBytes(Paths.get("../examples/src/test/resources/0.png"));
+    }
+
+    @BeforeMethod
+    public void newModelManager() {
+        // not the global instance, which may serve the models of another test
+        modelManager = new ModelManager(ConfigManager.getInstance());
+        wlm = modelManager.getWorkLoadManager();
+    }
+
+    @AfterMethod
+    public void unregisterModels() {
+        for (String modelName : modelManager.getModels().keySet()) {
+            modelManager.rollbackVersion(modelName);
+            modelManager.unregisterModel(modelName);
+        }
+    }
+
+    @Test
+    public void testUnloadAndReload() throws IOException, InterruptedException {
+        ModelInfo first = register("residency_1");
+        ModelInfo second = register("residency_2");
+        long footprint = getFootprint(first);
+        ResidencyManager residency = new ResidencyManager(modelManager, wlm, footprint * 3 / 2);
+        residency.add(first);
+        Assert.assertEquals(residency.getUsedMemory(), footprint);
+
+        // the least recently used model is unloaded to make room, but stays registered
+        residency.add(second);
+        Assert.assertFalse(isLoaded("residency_1"));
+        Assert.assertTrue(isLoaded("residency_2"));
+        Assert.assertEquals(wlm.getNumRunningWorkers("residency_1"), 0);
+        Assert.assertEquals(residency.getUsedMemory(), footprint);
+
+        // a request reloads the model, which unloads the other one
+        TestJob job = newJob("residency_1");
+        Assert.assertTrue(residency.addJob(modelManager.getModels().get("residency_1"), job));
+        Assert.assertTrue(job.await());
+        Assert.assertNotNull(job.output);
+        Assert.assertTrue(isLoaded("residency_1"));
+        Assert.assertFalse(isLoaded("residency_2"));
+        Assert.assertEquals(residency.getUsedMemory(), footprint);
+
+        // requests to a loaded model are submitted to its workers directly
+        job = newJob("residency_1");
+        Assert.assertTrue(residency.addJob(modelManager.getModels().get("residency_1"), job));
+        Assert.assertTrue(job.await());
+        Assert.assertNotNull(job.output);
+    }
+
+    @Test
+    public void testPinnedModel() throws IOException {
+        ModelInfo first = register("residency_1");
+        ModelInfo second = register("residency_2");
+        long footprint = getFootprint(first);
+        ResidencyManager residency = new ResidencyManager(modelManager, wlm, footprint * 3 / 2);
+        residency.add(first);
+
+        // a model with a staged version is never unloaded
+        modelManager.registerModel("residency_1", "v2", MODEL_URL, 1, 100, 60).join();
+        Assert.assertNotNull(modelManager.getStagedVersion("residency_1"));
+        residency.add(second);
+        Assert.assertTrue(isLoaded("residency_1"));
+        Assert.assertTrue(isLoaded("residency_2"));
+        Assert.assertEquals(residency.getUsedMemory(), footprint * 2);
+
+        // it can be unloaded once the staged version is rolled back
+        Assert.assertTrue(modelManager.rollbackVersion("residency_1"));
+        residency.add(modelManager.getModels().get("residency_2"));
+        Assert.assertFalse(isLoaded("residency_1"));
+        Assert.assertTrue(isLoaded("residency_2"));
+    }
+
+    @Test
+    public void testInFlightModel() throws IOException {
+        ModelInfo first = register("residency_1");
+        ModelInfo second = register("residency_2");
+        long footprint = getFootprint(first);
+        ResidencyManager residency = new ResidencyManager(modelManager, wlm, footprint * 3 / 2);
+        residency.add(first);
+
+        // a model with pending jobs is never unloaded
+        ModelMetrics metrics = first.getMetrics();
+        metrics.jobSubmitted();
+        residency.add(second);
+        Assert.assertTrue(isLoaded("residency_1"));
+        Assert.assertTrue(isLoaded("residency_2"));
+        Assert.assertEquals(residency.getUsedMemory(), footprint * 2);
+
+        // it can be unloaded once the jobs are answered
+        metrics.jobAnswered();
+        residency.add(modelManager.getModels().get("residency_2"));
+        Assert.assertFalse(isLoaded("residency_1"));
+        Assert.assertTrue(isLoaded("residency_2"));
+    }
+
+    private ModelInfo register(String modelName) {
+        ModelInfo model = modelManager.registerModel(modelName, MODEL_URL, 1, 100, 60).join();
+        model = model.scaleWorkers(1, 1);
+        modelManager.triggerModelUpdated(model);
+        return model;
+    }
+
+    private boolean isLoaded(String modelName) {
+        return modelManager.getModels().get(modelName).isLoaded();
+    }
+
+    private TestJob newJob(String modelName) {
+        Input input = new Input("1");
+        input.addProperty("Content-Type", "application/octet-stream");
+        input.addData("body", image);
+        return new TestJob(modelName, input);
+    }
+
+    private static long getFootprint(ModelInfo model) throws IOException {
+        try (Stream<Path> stream = Files.walk(model.getModelDir())) {
+            return stream.filter(Files::isRegularFile).mapToLong(f -> f.toFile().length()).sum();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.serving.wlm;
+
+import ai.djl.modality.Input;
+import ai.djl.modality.Output;
+import ai.djl.ndarray.NDList;
+import ai.djl.serving.util.TensorFrames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ResponseCacheTest {
+
+    private static final Predicate<Job> SUBMIT = job -> true;
+
+    @Test
+    public void testCoalesceAndCache() {
+        ModelMetrics metrics = new ModelMetrics();
+        ResponseCache cache = new ResponseCache(10, 60, metrics);
+
+        TestJob leader = newJob("1", "cat", "agent-1");
+        TestJob follower = newJob("2", "cat", "agent-2");
+        TestJob other = newJob("3", "dog", "agent-1");
+        Assert.assertFalse(cache.admit(leader, SUBMIT));
+        Assert.assertTrue(cache.admit(follower, SUBMIT));
+        Assert.assertFalse(cache.admit(other, SUBMIT));
+        Assert.assertNull(follower.output);
+
+        Output output = new Output("1", 200, "OK");
+        output.setContent("result");
+        leader.retainOutput(output);
+        leader.sendOutput(output);
+        Assert.assertEquals(follower.output.getRequestId(), "2");
+        String content = new String(follower.output.getContent(), StandardCharsets.UTF_8);
+        Assert.assertEquals(content, "result");
+
+        TestJob hit = newJob("4", "cat", "agent-3");
+        Assert.assertTrue(cache.admit(hit, SUBMIT));
+        Assert.assertEquals(hit.output.getRequestId(), "4");
+        Assert.assertEquals(cache.size(), 1);
+
+        Assert.assertEquals(metrics.getCacheHits(), 1);
+        Assert.assertEquals(metrics.getCacheMisses(), 2);
+        Assert.assertEquals(metrics.getCoalescedJobs(), 1);
+    }
+
+    @Test
+    public void testPromotion() {
+        ResponseCache cache = new ResponseCache(10, 60, new ModelMetrics());
+        List<Job> submitted = new ArrayList<>();
+        TestJob leader = newJob("1", "cat", null);
+        TestJob first = newJob("2", "cat", null);
+        TestJob second = newJob("3", "cat", null);
+        Assert.assertFalse(cache.admit(leader, submitted::add));
+        Assert.assertTrue(cache.admit(first, submitted::add));
+        Assert.assertTrue(cache.admit(second, submitted::add));
+
+        // the first identical job runs in place of the failed one
+        leader.sendError(HttpResponseStatus.SERVICE_UNAVAILABLE, "Request deadline exceeded");
+        Assert.assertEquals(submitted, Collections.singletonList(first));
+        Assert.assertNull(first.status);
+        Assert.assertNull(second.status);
+        TestJob late = newJob("4", "cat", null);
+        Assert.assertTrue(cache.admit(late, submitted::add));
+
+        // a tensor response is not shared either
+        Output tensor = new Output("2");
+        tensor.setContent(new NDList());
+        first.retainOutput(tensor);
+        first.sendOutput(tensor);
+        Assert.assertEquals(submitted, Arrays.asList(first, second));
+        Assert.assertNull(late.output);
+
+        Output output = new Output("3", 200, "OK");
+        output.setContent("result");
+        second.retainOutput(output);
+        second.sendOutput(output);
+        Assert.assertEquals(late.output.getRequestId(), "4");
+        Assert.assertEquals(cache.size(), 1);
+    }
+
+    @Test
+    public void testPromotionRejected() {
+        ResponseCache cache = new ResponseCache(10, 60, new ModelMetrics());
+        TestJob leader = newJob("1", "cat", null);
+        TestJob first = newJob("2", "cat", null);
+        TestJob second = newJob("3", "cat", null);
+        Assert.assertFalse(cache.admit(leader, job -> false));
+        Assert.assertTrue(cache.admit(first, job -> false));
+        Assert.assertTrue(cache.admit(second, job -> false));
+
+        leader.sendError(HttpResponseStatus.INTERNAL_SERVER_ERROR, "failed");
+        Assert.assertEquals(first.status, HttpResponseStatus.SERVICE_UNAVAILABLE);
+        Assert.assertEquals(second.status, HttpResponseStatus.SERVICE_UNAVAILABLE);
+        Assert.assertEquals(cache.size(), 0);
+        Assert.assertFalse(cache.admit(newJob("4", "cat", null), SUBMIT));
+    }
+
+    @Test
+    public void testEviction() {
+        ResponseCache cache = new ResponseCache(1, 60, new ModelMetrics());
+        for (String data : new String[] {"cat", "dog"}) {
+            TestJob job = newJob(data, data, null);
+            Assert.assertFalse(cache.admit(job, SUBMIT));
+            Output output = new Output(data, 200, "OK");
+            output.setContent(data);
+            job.retainOutput(output);
+            job.sendOutput(output);
+        }
+        Assert.assertEquals(cache.size(), 1);
+        Assert.assertTrue(cache.admit(newJob("3", "dog", null), SUBMIT));
+        Assert.assertFalse(cache.admit(newJob("4", "cat", null), SUBMIT));
+    }
+
+    @Test
+    public void testTensorNotCached() {
+        ResponseCache cache = new ResponseCache(10, 60, new ModelMetrics());
+        Input input = new Input("1");
+        input.addData(TensorFrames.DATA_KEY, new byte[] {1, 2, 3});
+        Assert.assertFalse(cache.admit(new TestJob(input), SUBMIT));
+        Assert.assertFalse(cache.admit(new TestJob(input), SUBMIT));
+    }
+
+    private static TestJob newJob(String requestId, String data, String userAgent) {
+        Input input = new Input(requestId);
+        input.addProperty("Content-Type", "text/plain");
+        if (userAgent != null) {
+            input.addProperty("User-Agent", userAgent);
+        }
+        input.addData("data", data.getBytes(StandardCharsets.UTF_8));
+        return new TestJob(input);
+    }
+
+    private static final class TestJob extends Job {
+
+        Output output;
+        HttpResponseStatus status;
+
+        TestJob(Input input) {
+            super(null, "model", input);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void sendOutput(Output output) {
+            this.output = output;
+            recordResponse(true);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void sendError(HttpResponseStatus status, String error) {
+            this.status = status;
+            recordResponse(false);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.serving.wlm;
+
+import ai.djl.modality.Input;
+import ai.djl.modality.Output;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/** A {@link Job} without a channel that keeps its response for the tests. */
+final class TestJob extends Job {
+
+    Output output;
+    HttpResponseStatus status;
+    private CountDownLatch latch;
+
+    TestJob(String modelName, Input input) {
+        super(null, modelName, input);
+        latch = new CountDownLatch(1);
+    }
+
+    boolean await() throws InterruptedException {
+        return latch.await(1, TimeUnit.MINUTES);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void sendOutput(Output output) {
+        this.output = output;
+        recordResponse(true);
+        latch.countDown();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void sendError(HttpResponseStatus status, String error) {
+        this.status = status;
+        recordResponse(false);
+        latch.countDown();
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.serving.wlm;
+
+import ai.djl.Model;
+import ai.djl.inference.Predictor;
+import ai.djl.modality.Input;
+import ai.djl.modality.Output;
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.NDManager;
+import ai.djl.ndarray.types.DataType;
+import ai.djl.ndarray.types.Shape;
+import ai.djl.nn.Block;
+import ai.djl.nn.SequentialBlock;
+import ai.djl.nn.core.Linear;
+import ai.djl.repository.zoo.ZooModel;
+import ai.djl.training.initializer.Initializer;
+import ai.djl.translate.Batchifier;
+import ai.djl.translate.TranslateException;
+import ai.djl.translate.Translator;
+import ai.djl.translate.TranslatorContext;
+import ai.djl.util.PairList;
+import ai.djl.util.Utils;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class WarmUpTest {
+
+    @Test
+    public void testBatchSizes() {
+        Assert.assertEquals(WarmUp.getBatchSizes(0), new int[] {1});
+        Assert.assertEquals(WarmUp.getBatchSizes(1), new int[] {1});
+        Assert.assertEquals(WarmUp.getBatchSizes(8), new int[] {1, 2, 4, 8});
+        Assert.assertEquals(WarmUp.getBatchSizes(12), new int[] {1, 2, 4, 8, 12});
+    }
+
+    @Test
+    public void testWorkerWarmUp() throws IOException, InterruptedException {
+        Path modelDir = Paths.get("build/warmup/worker");
+        RecordingTranslator translator = new RecordingTranslator();
+        try (ZooModel<Input, Output> zooModel = newModel(modelDir, translator)) {
+            writeSamples(modelDir);
+            ModelInfo model = newModelInfo(zooModel);
+
+            WorkerThread worker = newWorker(model);
+            translator.worker = worker;
+            Thread thread = new Thread(worker);
+            thread.start();
+            try {
+                awaitReady(worker);
+                Assert.assertTrue(worker.isReady());
+
+                // every sample is replayed at batch size 1 and 2 before the worker is ready
+                Assert.assertEquals(
+                        translator.samples, Arrays.asList("sample 1", "sample 1", "sample 2"));
+                Assert.assertFalse(translator.readyDuringWarmUp);
+            } finally {
+                worker.shutdown(WorkerState.WORKER_STOPPED);
+                thread.join(TimeUnit.MINUTES.toMillis(1));
+            }
+        }
+    }
+
+    @Test
+    public void testLoadSamples() throws IOException, TranslateException, InterruptedException {
+        Path modelDir = Paths.get("build/warmup/samples");
+        RecordingTranslator translator = new RecordingTranslator();
+        try (ZooModel<Input, Output> zooModel = newModel(modelDir, translator);
+                Predictor<Input, Output> predictor = zooModel.newPredictor()) {
+            writeSamples(modelDir);
+            ModelInfo model = newModelInfo(zooModel);
+            WarmUp warmUp = model.getWarmUp();
+
+            warmUp.run(predictor, model, 0);
+            Assert.assertTrue(translator.samples.isEmpty());
+
+            warmUp.run(predictor, model, 2);
+            Assert.assertEquals(
+                    translator.samples,
+                    Arrays.asList(
+                            "sample 1", "sample 1", "sample 1", "sample 2", "sample 1",
+                            "sample 2"));
+        }
+    }
+
+    @Test
+    public void testGenerateSamples()
+            throws IOException, TranslateException, InterruptedException {
+        Path modelDir = Paths.get("build/warmup/generated");
+        RecordingTranslator translator = new RecordingTranslator();
+        try (ZooModel<Input, Output> zooModel = newModel(modelDir, translator);
+                Predictor<Input, Output> predictor = zooModel.newPredictor()) {
+            ModelInfo model = newModelInfo(zooModel);
+            model.getWarmUp().run(predictor, model, 1);
+
+            // without a warm-up directory, zeros of the shape of the model input are sent
+            Assert.assertEquals(translator.samples.size(), 3);
+            for (String sample : translator.samples) {
+                Assert.assertEquals(sample, "ndarray(1, 4)");
+            }
+        }
+    }
+
+    @Test
+    public void testFailure() throws IOException, TranslateException, InterruptedException {
+        Path modelDir = Paths.get("build/warmup/failure");
+        RecordingTranslator translator = new RecordingTranslator();
+        try (ZooModel<Input, Output> zooModel = newModel(modelDir, translator);
+                Predictor<Input, Output> predictor = zooModel.newPredictor()) {
+            writeSamples(modelDir);
+            ModelInfo model = newModelInfo(zooModel);
+            WarmUp warmUp = model.getWarmUp();
+
+            translator.fail = true;
+            Assert.assertThrows(() -> warmUp.run(predictor, model, 1));
+            Assert.assertEquals(translator.calls.get(), 1);
+
+            // a failure does not disable the warm-up of the later workers
+            translator.fail = false;
+            warmUp.run(predictor, model, 1);
+            Assert.assertEquals(translator.samples.size(), 3);
+
+            // an interrupted worker stops its warm-up
+            Thread.currentThread().interrupt();
+            Assert.assertThrows(InterruptedException.class, () -> warmUp.run(predictor, model, 1));
+            Assert.assertEquals(translator.samples.size(), 3);
+        }
+    }
+
+    @Test
+    public void testWorkerWarmUpFailure() throws IOException, InterruptedException {
+        Path modelDir = Paths.get("build/warmup/worker_failure");
+        RecordingTranslator translator = new RecordingTranslator();
+        try (ZooModel<Input, Output> zooModel = newModel(modelDir, translator)) {
+            writeSamples(modelDir);
+            ModelInfo model = newModelInfo(zooModel);
+
+            // the worker serves jobs even though its warm-up failed
+            translator.fail = true;
+            WorkerThread worker = newWorker(model);
+            Thread thread = new Thread(worker);
+            thread.start();
+            try {
+                awaitReady(worker);
+                Assert.assertTrue(worker.isReady());
+            } finally {
+                worker.shutdown(WorkerState.WORKER_STOPPED);
+                thread.join(TimeUnit.MINUTES.toMillis(1));
+            }
+
+            // a worker retired during its warm-up is scaled down, not loaded
+            translator.fail = false;
+            WorkerThread retired = newWorker(model);
+            translator.onSample =
+                    () -> {
+                        retired.retire();
+                        translator.onSample = null;
+                    };
+            thread = new Thread(retired);
+            thread.start();
+            thread.join(TimeUnit.MINUTES.toMillis(1));
+            Assert.assertFalse(thread.isAlive());
+            Assert.assertEquals(retired.getState(), WorkerState.WORKER_SCALED_DOWN);
+        }
+    }
+
+    private static ZooModel<Input, Output> newModel(Path modelDir, RecordingTranslator translator)
+            throws IOException {
+        Utils.deleteQuietly(modelDir);
+        Model model = Model.newInstance("warmup");
+        Block block = new SequentialBlock().add(Linear.builder().setUnits(2).build());
+        block.setInitializer(Initializer.ONES);
+        block.initialize(model.getNDManager(), DataType.FLOAT32, new Shape(1, 4));
+        model.setBlock(block);
+        // saving the model sets its directory
+        model.save(modelDir, "warmup");
+        return new ZooModel<>(model, translator);
+    }
+
+    private static WorkerThread newWorker(ModelInfo model) {
+        return WorkerThread.builder()
+                .setModel(model)
+                .setJobQueue(new JobQueue(10))
+                .optWarmUpIterations(1)
+                .build();
+    }
+
+    private static void awaitReady(WorkerThread worker) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+        while (!worker.isReady() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static ModelInfo newModelInfo(ZooModel<Input, Output> zooModel) {
+        String url = zooModel.getModelPath().toUri().toString();
+        return new ModelInfo("warmup", url, zooModel, 10, 60, 100, 2);
+    }
+
+    private static void writeSamples(Path modelDir) throws IOException {
+        Path dir = modelDir.resolve(WarmUp.SAMPLE_DIR);
+        Files.createDirectories(dir);
+        Files.write(dir.resolve("1.txt"), "sample 1".getBytes(StandardCharsets.UTF_8));
+        Files.write(dir.resolve("2.txt"), "sample 2".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static final class RecordingTranslator implements Translator<Input, Output> {
+
+        List<String> samples = Collections.synchronizedList(new ArrayList<>());
+        volatile WorkerThread worker;
+        volatile boolean readyDuringWarmUp;
+        volatile boolean fail;
+        volatile Runnable onSample;
+        AtomicInteger calls = new AtomicInteger();
+
+        /** {@inheritDoc} */
+        @Override
+        public NDList processInput(TranslatorContext ctx, Input input) {
+            calls.incrementAndGet();
+            if (fail) {
+                throw new IllegalStateException("Failed to process the warm-up sample");
+            }
+            Runnable callback = onSample;
+            if (callback != null) {
+                callback.run();
+            }
+            if (worker != null && worker.isReady()) {
+                readyDuringWarmUp = true;
+            }
+            NDManager manager = ctx.getNDManager();
+            PairList<String, byte[]> content = input.getContent();
+            String key = content.keys().get(0);
+            byte[] data = content.get(key);
+            if ("ndarray".equals(key)) {
+                NDArray array = NDArray.decode(manager, data);
+                samples.add(key + array.getShape());
+            } else {
+                samples.add(new String(data, StandardCharsets.UTF_8));
+            }
+            return new NDList(manager.zeros(new Shape(4)));
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Output processOutput(TranslatorContext ctx, NDList list) {
+            return new Output("warmup");
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Batchifier getBatchifier() {
+            return Batchifier.STACK;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance
+ * with the License. A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions
+ * and limitations under the License.
+ */
+package ai.djl.serving.wlm;
+
+import ai.djl.Model;
+import ai.djl.modality.Input;
+import ai.djl.modality.Output;
+import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.types.DataType;
+import ai.djl.ndarray.types.Shape;
+import ai.djl.nn.Block;
+import ai.djl.nn.SequentialBlock;
+import ai.djl.nn.core.Linear;
+import ai.djl.repository.zoo.ZooModel;
+import ai.djl.training.initializer.Initializer;
+import ai.djl.translate.Batchifier;
+import ai.djl.translate.Translator;
+import ai.djl.translate.TranslatorContext;
+import ai.djl.util.Utils;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class WorkerThreadTest {
+
+    @Test
+    public void testRetire() throws IOException, InterruptedException {
+        Path modelDir = Paths.get("build/worker/retire");
+        RetiringTranslator translator = new RetiringTranslator();
+        try (ZooModel<Input, Output> zooModel = newModel(modelDir, translator)) {
+            String url = zooModel.getModelPath().toUri().toString();
+            ModelInfo model = new ModelInfo("retire", url, zooModel, 10, 60, 100, 1);
+
+            // retired after it took a batch, the worker answers the batch without an interrupt
+            JobQueue queue = new JobQueue(10);
+            RetiringAggregator aggregator = new RetiringAggregator(model, queue);
+            WorkerThread worker = newWorker(model, aggregator);
+            aggregator.worker = worker;
+            queue.offer(new Job(null, model.getModelName(), new Input("1")));
+            runWorker(worker);
+            Assert.assertEquals(translator.calls.get(), 1);
+            Assert.assertEquals(translator.interrupted.get(), 0);
+            Assert.assertEquals(aggregator.responses.get(), 1);
+            Assert.assertEquals(aggregator.errors.get(), 0);
+            Assert.assertEquals(worker.getState(), WorkerState.WORKER_SCALED_DOWN);
+
+            // retired while it runs a batch, the worker is not interrupted and exits afterwards
+            queue = new JobQueue(10);
+            aggregator = new RetiringAggregator(model, queue);
+            worker = newWorker(model, aggregator);
+            translator.worker = worker;
+            queue.offer(new Job(null, model.getModelName(), new Input("2")));
+            runWorker(worker);
+            Assert.assertEquals(translator.calls.get(), 2);
+            Assert.assertEquals(translator.interrupted.get(), 0);
+            Assert.assertEquals(aggregator.responses.get(), 1);
+            Assert.assertEquals(aggregator.errors.get(), 0);
+            Assert.assertEquals(worker.getState(), WorkerState.WORKER_SCALED_DOWN);
+        }
+    }
+
+    private static void runWorker(WorkerThread worker) throws InterruptedException {
+        Thread thread = new Thread(worker);
+        thread.start();
+        thread.join(TimeUnit.MINUTES.toMillis(1));
+        Assert.assertFalse(thread.isAlive());
+    }
+
+    private static WorkerThread newWorker(ModelInfo model, BatchAggregator aggregator) {
+        return WorkerThread.builder().setModel(model).optAggregator(aggregator).build();
+    }
+
+    private static ZooModel<Input, Output> newModel(Path modelDir, RetiringTranslator translator)
+            throws IOException {
+        Utils.deleteQuietly(modelDir);
+        Model model = Model.newInstance("retire");
+        Block block = new SequentialBlock().add(Linear.builder().setUnits(2).build());
+        block.setInitializer(Initializer.ONES);
+        block.initialize(model.getNDManager(), DataType.FLOAT32, new Shape(1, 4));
+        model.setBlock(block);
+        // saving the model sets its directory
+        model.save(modelDir, "retire");
+        return new ZooModel<>(model, translator);
+    }
+
+    private static final class RetiringAggregator extends PermanentBatchAggregator {
+
+        volatile WorkerThread worker;
+        AtomicInteger responses = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+
+        RetiringAggregator(ModelInfo model, JobQueue jobQueue) {
+            super(model, jobQueue);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public List<Input> getRequest() throws InterruptedException {
+            List<Input> list = super.getRequest();
+            if (worker != null) {
+                // the worker has not started the batch yet
+                worker.retire();
+            }
+            return list;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void sendResponse(List<Output> outputs) {
+            responses.incrementAndGet();
+            super.sendResponse(outputs);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void sendError() {
+            if (!jobs.isEmpty()) {
+                errors.incrementAndGet();
+            }
+            super.sendError();
+        }
+    }
+
+    private static final class RetiringTranslator implements Translator<Input, Output> {
+
+        volatile WorkerThread worker;
+        AtomicInteger calls = new AtomicInteger();
+        AtomicInteger interrupted = new AtomicInteger();
+
+        /** {@inheritDoc} */
+        @Override
+        public NDList processInput(TranslatorContext ctx, Input input) {
+            calls.incrementAndGet();
+            ctx.setAttachment("requestId", input.getRequestId());
+            WorkerThread current = worker;
+            if (current != null) {
+                current.retire();
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                interrupted.incrementAndGet();
+            }
+            return new NDList(ctx.getNDManager().zeros(new Shape(4)));
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Output processOutput(TranslatorContext ctx, NDList list) {
+            Output output = new Output((String) ctx.getAttachment("requestId"));
+            output.setContent("retired");
+            return output;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Batchifier getBatchifier() {
+            return Batchifier.STACK;
+        }
+    }
+}